@@ -0,0 +1,95 @@
+package com.genericworkflownodes.knime.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.genericworkflownodes.knime.config.reader.CTDConfigurationReader;
+import com.genericworkflownodes.knime.port.Port;
+import com.genericworkflownodes.knime.test.data.TestDataSource;
+
+/**
+ * Test for {@link DescriptorIndex}.
+ */
+public class DescriptorIndexTest {
+
+    private static INodeConfiguration read(String name) throws Exception {
+        try (InputStream in = TestDataSource.class.getResourceAsStream(name)) {
+            return new CTDConfigurationReader().read(in);
+        }
+    }
+
+    private static DescriptorIndex roundTrip(DescriptorIndex index)
+            throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.write(out);
+        return DescriptorIndex.read(new ByteArrayInputStream(out
+                .toByteArray()));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        INodeConfiguration config = read("FeatureLinkerUnlabeled.ctd");
+        DescriptorIndex index = new DescriptorIndex();
+        index.add("sub dir/FeatureLinkerUnlabeled.ctd", config);
+        index.add("FileFilter.ctd", read("FileFilter.ctd"));
+
+        DescriptorIndex copy = roundTrip(index);
+        assertEquals(2, copy.getEntries().size());
+        assertEquals("sub dir/FeatureLinkerUnlabeled.ctd", copy.getEntries()
+                .iterator().next().getPath());
+
+        DescriptorIndex.Entry entry = copy
+                .getEntry("sub dir/FeatureLinkerUnlabeled.ctd");
+        assertEquals(config.getName(), entry.getName());
+        assertEquals("Map Alignment", entry.getCategory());
+        assertEquals(config.getVersion(), entry.getVersion());
+        assertEquals(config.getDescription(), entry.getDescription());
+        assertEquals(config.getManual(), entry.getManual());
+
+        assertEquals(config.getInputPorts().size(), entry.getInputPorts()
+                .size());
+        assertEquals(config.getOutputPorts().size(), entry.getOutputPorts()
+                .size());
+        Port expected = config.getInputPorts().get(0);
+        Port port = entry.getInputPorts().get(0);
+        assertEquals(expected.getName(), port.getName());
+        assertEquals(expected.getDescription(), port.getDescription());
+        assertEquals(expected.getMimeTypes(), port.getMimeTypes());
+        assertEquals(expected.isOptional(), port.isOptional());
+        assertEquals(expected.isMultiFile(), port.isMultiFile());
+
+        // ports are not listed as options
+        assertFalse(entry.getOptions().containsKey(expected.getName()));
+        assertEquals(
+                DescriptorIndex.createEntry("", config).getOptions(),
+                entry.getOptions());
+        assertTrue(entry.getOptions().size() > 0);
+    }
+
+    @Test
+    public void testSpecialCharactersAreEscaped() throws Exception {
+        INodeConfiguration config = read("FileFilter.ctd");
+        ((NodeConfiguration) config)
+                .setDescription("tab\there\nnew line\\backslash");
+
+        DescriptorIndex index = new DescriptorIndex();
+        index.add("FileFilter.ctd", config);
+        assertEquals("tab\there\nnew line\\backslash",
+                roundTrip(index).getEntry("FileFilter.ctd").getDescription());
+    }
+
+    @Test
+    public void testOtherVersionIsIgnored() throws Exception {
+        assertNull(DescriptorIndex.read(new ByteArrayInputStream(
+                "version\t0\ntool\ta.ctd\n".getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,158 @@
+package com.genericworkflownodes.knime.config.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.genericworkflownodes.knime.config.INodeConfiguration;
+import com.genericworkflownodes.knime.parameter.FileListParameter;
+import com.genericworkflownodes.knime.parameter.Parameter;
+import com.genericworkflownodes.knime.port.Port;
+import com.genericworkflownodes.knime.test.data.TestDataSource;
+
+/**
+ * Test for {@link CTDConfigurationCache}.
+ */
+public class CTDConfigurationCacheTest {
+
+    private File m_dir;
+
+    @Before
+    public void setUp() throws IOException {
+        m_dir = Files.createTempDirectory("gkn-ctd-cache-test").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(m_dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile)
+                    .forEach(File::delete);
+        }
+    }
+
+    private static InputStream ctd(String name) {
+        return TestDataSource.class.getResourceAsStream(name);
+    }
+
+    private int countEntries() {
+        int entries = 0;
+        for (File version : m_dir.listFiles()) {
+            entries += version.listFiles().length;
+        }
+        return entries;
+    }
+
+    @Test
+    public void testCachedConfigurationsAreIndependentCopies()
+            throws Exception {
+        CTDConfigurationCache cache = new CTDConfigurationCache(null,
+                1024 * 1024);
+        INodeConfiguration first = cache.read(
+                ctd("FeatureLinkerUnlabeled.ctd"), "1.0.0");
+        INodeConfiguration second = cache.read(
+                ctd("FeatureLinkerUnlabeled.ctd"), "1.0.0");
+
+        assertNotSame(first, second);
+        assertEquals("Map Alignment", second.getCategory());
+        assertEquals("1.11.0", second.getVersion());
+        assertNotNull(second.getInputPortByName("FeatureLinkerUnlabeled.1.in"));
+        assertEquals(first.getCLI().getCLIElement().size(), second.getCLI()
+                .getCLIElement().size());
+
+        // modifying one configuration does not affect the cached one
+        first.getParameter("FeatureLinkerUnlabeled.1.in").fillFromString(
+                "a.featureXML");
+        FileListParameter flp = (FileListParameter) cache.read(
+                ctd("FeatureLinkerUnlabeled.ctd"), "1.0.0").getParameter(
+                "FeatureLinkerUnlabeled.1.in");
+        assertEquals(0, flp.getValue().size());
+    }
+
+    @Test
+    public void testCopiesShareTheDescriptor() throws Exception {
+        CTDConfigurationCache cache = new CTDConfigurationCache(null,
+                1024 * 1024);
+        INodeConfiguration first = cache.read(
+                ctd("FeatureLinkerUnlabeled.ctd"), "1.0.0");
+        INodeConfiguration second = cache.read(
+                ctd("FeatureLinkerUnlabeled.ctd"), "1.0.0");
+
+        assertSame(first.getCLI(), second.getCLI());
+        assertSame(first.getManual(), second.getManual());
+        Parameter<?> p1 = first.getParameter("FeatureLinkerUnlabeled.1.in");
+        Parameter<?> p2 = second.getParameter("FeatureLinkerUnlabeled.1.in");
+        assertNotSame(p1, p2);
+        assertSame(p1.getDescription(), p2.getDescription());
+
+        // ports hold the state of a node
+        Port port = second.getInputPortByName("FeatureLinkerUnlabeled.1.in");
+        assertNotSame(first.getInputPortByName("FeatureLinkerUnlabeled.1.in"),
+                port);
+        assertSame(port, ((FileListParameter) p2).getPort());
+    }
+
+    @Test
+    public void testEntriesArePersistedPerBundleVersion() throws Exception {
+        CTDConfigurationCache cache = new CTDConfigurationCache(m_dir, 0);
+        cache.read(ctd("FileFilter.ctd"), "1.0.0");
+        cache.read(ctd("FileFilter.ctd"), "1.0.0");
+        cache.read(ctd("sam2matrix.ctd"), "1.0.0");
+        assertEquals(2, countEntries());
+
+        // another version of the bundle gets its own entries
+        cache.read(ctd("FileFilter.ctd"), "1.1.0");
+        assertEquals(3, countEntries());
+        assertEquals(2, m_dir.listFiles().length);
+
+        // a new cache, e.g., after a restart, reads the entries from disk
+        cache = new CTDConfigurationCache(m_dir, 0);
+        INodeConfiguration config = cache.read(ctd("FileFilter.ctd"),
+                "1.0.0");
+        assertEquals("File Handling", config.getCategory());
+        assertEquals(3, countEntries());
+    }
+
+    @Test
+    public void testKeyDependsOnTheFormatAndConfigBundleVersion() {
+        byte[] ctd = new byte[] { 1, 2, 3 };
+        String key = CTDConfigurationCache.createKey("1.0.0", ctd);
+        String versions = key.substring(0, key.indexOf('/'));
+
+        assertTrue(versions.startsWith("1.0.0_v2_"));
+        assertTrue(versions.length() > "1.0.0_v2_".length());
+        assertEquals(key, CTDConfigurationCache.createKey("1.0.0", ctd));
+    }
+
+    @Test
+    public void testBrokenEntriesAreReparsed() throws Exception {
+        byte[] content;
+        try (InputStream in = ctd("FileFilter.ctd")) {
+            content = in.readAllBytes();
+        }
+        CTDConfigurationCache cache = new CTDConfigurationCache(m_dir, 0);
+        cache.read(new ByteArrayInputStream(content), "1.0.0");
+
+        File entry = m_dir.listFiles()[0].listFiles()[0];
+        Files.write(entry.toPath(), new byte[] { 1, 2, 3 });
+
+        INodeConfiguration config = new CTDConfigurationCache(m_dir, 0).read(
+                new ByteArrayInputStream(content), "1.0.0");
+        assertEquals("File Handling", config.getCategory());
+        assertTrue(entry.length() > 3);
+    }
+}
@@ -0,0 +1,122 @@
+package com.genericworkflownodes.knime.config.writer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.genericworkflownodes.knime.config.INodeConfiguration;
+import com.genericworkflownodes.knime.config.NodeConfiguration;
+import com.genericworkflownodes.knime.config.reader.CTDConfigurationReader;
+import com.genericworkflownodes.knime.parameter.Parameter;
+import com.genericworkflownodes.knime.test.data.TestDataSource;
+
+/**
+ * Test for {@link CTDTemplateWriter}.
+ */
+public class CTDTemplateWriterTest {
+
+    private File m_expected;
+
+    private File m_actual;
+
+    @Before
+    public void setUp() throws IOException {
+        m_expected = File.createTempFile("expected_", ".ini");
+        m_actual = File.createTempFile("actual_", ".ini");
+    }
+
+    @After
+    public void tearDown() {
+        m_expected.delete();
+        m_actual.delete();
+    }
+
+    private static INodeConfiguration read(String name) throws Exception {
+        try (InputStream in = TestDataSource.class.getResourceAsStream(name)) {
+            return new CTDConfigurationReader().read(in);
+        }
+    }
+
+    private void assertSameAsConfigurationWriter(INodeConfiguration config)
+            throws IOException {
+        new CTDConfigurationWriter(m_expected).write(config);
+        CTDTemplateWriter.write(config, m_actual);
+        assertEquals(new String(Files.readAllBytes(m_expected.toPath()),
+                "UTF-8"), new String(Files.readAllBytes(m_actual.toPath()),
+                "UTF-8"));
+    }
+
+    @Test
+    public void testWritesTheSameDocument() throws Exception {
+        for (String name : Arrays.asList("FileFilter.ctd",
+                "FeatureLinkerUnlabeled.ctd", "TMTAnalyzer.ctd",
+                "sam2matrix.ctd")) {
+            assertSameAsConfigurationWriter(read(name));
+        }
+    }
+
+    @Test
+    public void testValuesAreFilledIn() throws Exception {
+        INodeConfiguration config = read("FileFilter.ctd");
+        assertSameAsConfigurationWriter(config);
+
+        // set a file, a value that needs escaping and a list
+        config.getParameter("FileFilter.1.in").fillFromString("in <1>.mzML");
+        config.getParameter("FileFilter.1.out").fillFromString("out.mzML");
+        config.getParameter("FileFilter.1.mz").fillFromString("\"1\":&2");
+        config.getParameter("FileFilter.1.peak_options.level")
+                .fillFromString("1" + Parameter.SEPARATOR_TOKEN + "3");
+        assertSameAsConfigurationWriter(config);
+
+        // another node of the same tool shares the skeleton
+        INodeConfiguration copy = new NodeConfiguration(config);
+        copy.getParameter("FileFilter.1.in").fillFromString("other.mzML");
+        assertSameAsConfigurationWriter(copy);
+    }
+
+    @Test
+    public void testUnchangedValuesReuseThePreviousDocument()
+            throws Exception {
+        INodeConfiguration config = read("sam2matrix.ctd");
+        CTDTemplateWriter.write(config, m_actual);
+        byte[] first = Files.readAllBytes(m_actual.toPath());
+
+        // the previous file is not written again
+        FileTime written = Files.getLastModifiedTime(m_actual.toPath());
+        Thread.sleep(10);
+        CTDTemplateWriter.write(config, m_actual);
+        assertEquals(written, Files.getLastModifiedTime(m_actual.toPath()));
+
+        // unless its content changed, even if time and size did not
+        byte[] marker = new byte[first.length];
+        Arrays.fill(marker, (byte) 'x');
+        long lastModified = m_actual.lastModified();
+        Files.write(m_actual.toPath(), marker);
+        m_actual.setLastModified(lastModified);
+        CTDTemplateWriter.write(config, m_actual);
+        assertArrayEquals(first, Files.readAllBytes(m_actual.toPath()));
+
+        // another file gets the previous document
+        CTDTemplateWriter.write(config, m_expected);
+        assertArrayEquals(first, Files.readAllBytes(m_expected.toPath()));
+
+        // a changed value is written
+        Parameter<?> p = config.getParameter(config.getParameterKeys().get(0));
+        p.fillFromString(p.getStringRep() + "1");
+        CTDTemplateWriter.write(config, m_actual);
+        assertFalse(Arrays.equals(first, Files.readAllBytes(m_actual
+                .toPath())));
+        assertSameAsConfigurationWriter(config);
+    }
+}
@@ -0,0 +1,73 @@
+package com.genericworkflownodes.knime.config.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import com.genericworkflownodes.knime.config.INodeConfiguration;
+import com.genericworkflownodes.knime.config.reader.CTDConfigurationCache;
+import com.genericworkflownodes.knime.parameter.FileParameter;
+import com.genericworkflownodes.knime.parameter.IntegerParameter;
+import com.genericworkflownodes.knime.parameter.Parameter;
+import com.genericworkflownodes.knime.test.data.TestDataSource;
+
+/**
+ * Test for {@link JSONParameterFileWriter}.
+ */
+public class JSONParameterFileWriterTest {
+
+    private static INodeConfiguration read(String name) throws Exception {
+        try (InputStream in = TestDataSource.class.getResourceAsStream(name)) {
+            return new CTDConfigurationCache(null, 1024 * 1024).read(in,
+                    "1.0.0");
+        }
+    }
+
+    @Test
+    public void testDefaultsAreOmitted() throws Exception {
+        INodeConfiguration config = read("FileFilter.ctd");
+        // file parameters are always written
+        String files = "{\"in\":\"temp\","
+                + "\"consensus__blackorwhitelist__file\":\"tempoptional\"}\n";
+        assertEquals(files, JSONParameterFileWriter.toJSON(config));
+
+        // setting the default again keeps it a default
+        Parameter<?> mz = config.getParameter("FileFilter.1.mz");
+        mz.fillFromString(":");
+        assertTrue(mz.isDefaultValue());
+        assertEquals(files, JSONParameterFileWriter.toJSON(config));
+    }
+
+    @Test
+    public void testChangedValues() throws Exception {
+        INodeConfiguration config = read("FileFilter.ctd");
+        config.getParameter("FileFilter.1.in").fillFromString("in \"1\".mzML");
+        config.getParameter("FileFilter.1.mz").fillFromString("100:200");
+        config.getParameter("FileFilter.1.threads").fillFromString("4");
+        config.getParameter("FileFilter.1.sort").fillFromString("true");
+        config.getParameter("FileFilter.1.peak_options.sn").fillFromString(
+                "2.5");
+        config.getParameter("FileFilter.1.peak_options.level")
+                .fillFromString("2" + Parameter.SEPARATOR_TOKEN + "3");
+        assertFalse(config.getParameter("FileFilter.1.mz").isDefaultValue());
+
+        assertEquals("{\"in\":\"in \\\"1\\\".mzML\",\"mz\":\"100:200\","
+                + "\"sort\":\"true\",\"threads\":4,"
+                + "\"peak_options__sn\":2.5,\"peak_options__level\":[2,3],"
+                + "\"consensus__blackorwhitelist__file\":\"tempoptional\"}\n",
+                JSONParameterFileWriter.toJSON(config));
+    }
+
+    @Test
+    public void testOnlyDescriptorDefaultsAreDefaultValues() throws Exception {
+        // not copied from a descriptor, so there is no default to compare to
+        assertFalse(new IntegerParameter("threads", 1).isDefaultValue());
+        assertTrue(new IntegerParameter("threads", 1).copy().isDefaultValue());
+        // file parameters are set for each execution
+        assertFalse(new FileParameter("in", "in.mzML").copy().isDefaultValue());
+    }
+}
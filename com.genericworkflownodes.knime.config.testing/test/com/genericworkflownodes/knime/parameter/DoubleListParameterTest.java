@@ -19,6 +19,7 @@
 package com.genericworkflownodes.knime.parameter;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
 import java.util.List;
@@ -124,4 +125,37 @@ public class DoubleListParameterTest {
         assertEquals("[2.0, 3.0, 4.0]", dlp.toString());
     }
 
+    @Test
+    public void testValuesAreStoredInPrimitiveList() {
+        DoubleListParameter p = new DoubleListParameter("dlp", doubles);
+        assertTrue(p.getValue() instanceof DoubleArrayList);
+        p.setValue(Arrays.asList(-0.5, Double.NaN, 1e300));
+        assertTrue(p.getValue() instanceof DoubleArrayList);
+        assertEquals(Arrays.asList(-0.5, Double.NaN, 1e300), p.getValue());
+
+        // copies do not share the values
+        DoubleListParameter copy = (DoubleListParameter) p.copy();
+        copy.getValue().set(0, 1.0);
+        assertEquals(Arrays.asList(-0.5, Double.NaN, 1e300), p.getValue());
+    }
+
+    @Test
+    public void testBinaryRep() throws InvalidParameterValueException {
+        DoubleListParameter p = new DoubleListParameter("dlp", Arrays.asList(-0.5, Double.NaN, 1e300));
+        byte[] binary = p.getBinaryRep();
+        assertEquals(3 * 8, binary.length);
+
+        DoubleListParameter other = new DoubleListParameter("dlp", null);
+        other.fillFromBinaryRep(binary);
+        assertEquals(p.getValue(), other.getValue());
+
+        other.fillFromBinaryRep(new byte[0]);
+        assertEquals(0, other.getValue().size());
+    }
+
+    @Test(expected = InvalidParameterValueException.class)
+    public void testFillFromInvalidBinaryRep()
+            throws InvalidParameterValueException {
+        new DoubleListParameter("dlp", null).fillFromBinaryRep(new byte[9]);
+    }
 }
@@ -19,6 +19,7 @@
 package com.genericworkflownodes.knime.parameter;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
 import java.util.List;
@@ -123,4 +124,37 @@ public class IntegerListParameterTest {
         assertEquals("[2, 3, 4]", dlp.toString());
     }
 
+    @Test
+    public void testValuesAreStoredInPrimitiveList() {
+        IntegerListParameter p = new IntegerListParameter("ilp", ints);
+        assertTrue(p.getValue() instanceof IntArrayList);
+        p.setValue(Arrays.asList(-19, 0, Integer.MAX_VALUE));
+        assertTrue(p.getValue() instanceof IntArrayList);
+        assertEquals(Arrays.asList(-19, 0, Integer.MAX_VALUE), p.getValue());
+
+        // copies do not share the values
+        IntegerListParameter copy = (IntegerListParameter) p.copy();
+        copy.getValue().set(0, 1);
+        assertEquals(Arrays.asList(-19, 0, Integer.MAX_VALUE), p.getValue());
+    }
+
+    @Test
+    public void testBinaryRep() throws InvalidParameterValueException {
+        IntegerListParameter p = new IntegerListParameter("ilp", Arrays.asList(-19, 0, Integer.MAX_VALUE));
+        byte[] binary = p.getBinaryRep();
+        assertEquals(3 * 4, binary.length);
+
+        IntegerListParameter other = new IntegerListParameter("ilp", null);
+        other.fillFromBinaryRep(binary);
+        assertEquals(p.getValue(), other.getValue());
+
+        other.fillFromBinaryRep(new byte[0]);
+        assertEquals(0, other.getValue().size());
+    }
+
+    @Test(expected = InvalidParameterValueException.class)
+    public void testFillFromInvalidBinaryRep()
+            throws InvalidParameterValueException {
+        new IntegerListParameter("ilp", null).fillFromBinaryRep(new byte[5]);
+    }
 }
@@ -28,6 +28,7 @@
 
 package com.genericworkflownodes.knime.cliwrapper;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -53,7 +54,12 @@ import java.util.List;
  * 
  * 
  */
-public class CLI {
+public class CLI implements Serializable {
+
+    /**
+     * The serialVersionUID.
+     */
+    private static final long serialVersionUID = -3051834824661255481L;
 
     /**
      * The list of CLIElements contained in this tag.
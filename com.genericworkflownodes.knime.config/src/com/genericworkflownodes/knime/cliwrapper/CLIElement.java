@@ -26,6 +26,7 @@
 
 package com.genericworkflownodes.knime.cliwrapper;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -54,7 +55,12 @@ import java.util.List;
  * 
  * 
  */
-public class CLIElement {
+public class CLIElement implements Serializable {
+
+    /**
+     * The serialVersionUID.
+     */
+    private static final long serialVersionUID = 8336320592247270242L;
 
     /**
      * The mappings for this element.
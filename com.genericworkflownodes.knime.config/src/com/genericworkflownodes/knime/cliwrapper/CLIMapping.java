@@ -25,6 +25,8 @@
 
 package com.genericworkflownodes.knime.cliwrapper;
 
+import java.io.Serializable;
+
 /**
  * <p>
  * Java class for mappingType complex type.
@@ -45,7 +47,12 @@ package com.genericworkflownodes.knime.cliwrapper;
  * 
  * 
  */
-public class CLIMapping {
+public class CLIMapping implements Serializable {
+
+    /**
+     * The serialVersionUID.
+     */
+    private static final long serialVersionUID = -110040723032577612L;
 
     /**
      * Holds the name of the mapped PARAM entry.
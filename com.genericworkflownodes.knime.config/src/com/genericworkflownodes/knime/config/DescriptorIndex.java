@@ -0,0 +1,407 @@
+package com.genericworkflownodes.knime.config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.genericworkflownodes.knime.parameter.Parameter;
+import com.genericworkflownodes.knime.port.Port;
+
+/**
+ * Index of the tool descriptors shipped with a plugin.
+ *
+ * The index holds the metadata needed to populate the node repository, i.e.,
+ * name, category, version, descriptions, ports and options of every tool, so
+ * that the full CTD only needs to be parsed when a node is created. It is
+ * written by the node generator next to the descriptors directory.
+ *
+ * The file is a UTF-8 text file with one tab separated record per line: a
+ * version record first, then a tool record per CTD, each followed by the
+ * records of its input ports, output ports and options.
+ */
+public final class DescriptorIndex {
+
+    /**
+     * The name of the index file, located next to the descriptors directory.
+     */
+    public static final String FILE_NAME = "descriptors.index";
+
+    /**
+     * The version of the format, must be increased when the format changes
+     * incompatibly.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final String VERSION_RECORD = "version";
+    private static final String TOOL_RECORD = "tool";
+    private static final String INPUT_RECORD = "in";
+    private static final String OUTPUT_RECORD = "out";
+    private static final String OPTION_RECORD = "option";
+
+    /**
+     * The metadata of a single tool.
+     */
+    public static final class Entry {
+
+        /**
+         * The path of the CTD relative to the descriptors directory, separated
+         * by slashes.
+         */
+        private final String m_path;
+        private final String m_name;
+        private final String m_category;
+        private final String m_version;
+        private final String m_description;
+        private final String m_manual;
+        private final List<Port> m_inputPorts = new ArrayList<Port>();
+        private final List<Port> m_outputPorts = new ArrayList<Port>();
+
+        /**
+         * The descriptions of the parameters that are not ports, by key.
+         */
+        private final Map<String, String> m_options = new LinkedHashMap<String, String>();
+
+        private Entry(String path, String name, String category,
+                String version, String description, String manual) {
+            m_path = path;
+            m_name = name;
+            m_category = category;
+            m_version = version;
+            m_description = description;
+            m_manual = manual;
+        }
+
+        /**
+         * @return The path of the CTD relative to the descriptors directory,
+         *         separated by slashes.
+         */
+        public String getPath() {
+            return m_path;
+        }
+
+        /**
+         * @return The name of the tool.
+         */
+        public String getName() {
+            return m_name;
+        }
+
+        /**
+         * @return The category of the tool.
+         */
+        public String getCategory() {
+            return m_category;
+        }
+
+        /**
+         * @return The version of the tool.
+         */
+        public String getVersion() {
+            return m_version;
+        }
+
+        /**
+         * @return The short description of the tool.
+         */
+        public String getDescription() {
+            return m_description;
+        }
+
+        /**
+         * @return The manual of the tool.
+         */
+        public String getManual() {
+            return m_manual;
+        }
+
+        /**
+         * @return The input ports of the tool.
+         */
+        public List<Port> getInputPorts() {
+            return Collections.unmodifiableList(m_inputPorts);
+        }
+
+        /**
+         * @return The output ports of the tool.
+         */
+        public List<Port> getOutputPorts() {
+            return Collections.unmodifiableList(m_outputPorts);
+        }
+
+        /**
+         * @return The descriptions of the parameters that are not ports, by
+         *         key.
+         */
+        public Map<String, String> getOptions() {
+            return Collections.unmodifiableMap(m_options);
+        }
+    }
+
+    /**
+     * The entries by path, in the order they were added.
+     */
+    private final Map<String, Entry> m_entries = new LinkedHashMap<String, Entry>();
+
+    /**
+     * Adds the metadata of a tool to the index.
+     *
+     * @param path
+     *            The path of the CTD relative to the descriptors directory,
+     *            separated by slashes.
+     * @param config
+     *            The parsed CTD.
+     */
+    public void add(String path, INodeConfiguration config) {
+        m_entries.put(path, createEntry(path, config));
+    }
+
+    /**
+     * Extracts the metadata of a tool that is not indexed.
+     *
+     * @param path
+     *            The path of the CTD relative to the descriptors directory,
+     *            separated by slashes.
+     * @param config
+     *            The parsed CTD.
+     * @return The metadata.
+     */
+    public static Entry createEntry(String path, INodeConfiguration config) {
+        Entry entry = new Entry(path, config.getName(), config.getCategory(),
+                config.getVersion(), config.getDescription(),
+                config.getManual());
+        entry.m_inputPorts.addAll(config.getInputPorts());
+        entry.m_outputPorts.addAll(config.getOutputPorts());
+        List<String> portNames = new ArrayList<String>();
+        for (Port port : config.getInputPorts()) {
+            portNames.add(port.getName());
+        }
+        for (Port port : config.getOutputPorts()) {
+            portNames.add(port.getName());
+        }
+        for (Parameter<?> p : config.getParameters()) {
+            if (!portNames.contains(p.getKey())) {
+                entry.m_options.put(p.getKey(), p.getDescription());
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * @return The entries in the order they were added.
+     */
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(m_entries.values());
+    }
+
+    /**
+     * @param path
+     *            The path of the CTD relative to the descriptors directory,
+     *            separated by slashes.
+     * @return The entry of the CTD, or null if the CTD is not indexed.
+     */
+    public Entry getEntry(String path) {
+        return m_entries.get(path);
+    }
+
+    /**
+     * Writes the index. The stream is not closed.
+     *
+     * @param out
+     *            The stream to write to.
+     * @throws IOException
+     *             If the index could not be written.
+     */
+    public void write(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writeRecord(writer, VERSION_RECORD, Integer.toString(FORMAT_VERSION));
+        for (Entry entry : m_entries.values()) {
+            writeRecord(writer, TOOL_RECORD, entry.m_path, entry.m_name,
+                    entry.m_category, entry.m_version, entry.m_description,
+                    entry.m_manual);
+            for (Port port : entry.m_inputPorts) {
+                writePort(writer, INPUT_RECORD, port);
+            }
+            for (Port port : entry.m_outputPorts) {
+                writePort(writer, OUTPUT_RECORD, port);
+            }
+            for (Map.Entry<String, String> option : entry.m_options
+                    .entrySet()) {
+                writeRecord(writer, OPTION_RECORD, option.getKey(),
+                        option.getValue());
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Reads an index written by {@link #write(OutputStream)}.
+     *
+     * @param in
+     *            The stream to read from, it is not closed.
+     * @return The index, or null if it was written in another format version.
+     * @throws IOException
+     *             If the index could not be read or is malformed.
+     */
+    public static DescriptorIndex read(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+                StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (line == null) {
+            throw new IOException("The descriptor index is empty.");
+        }
+        String[] version = parseRecord(line);
+        if (!VERSION_RECORD.equals(version[0]) || version.length != 2) {
+            throw new IOException("The descriptor index has no version.");
+        }
+        if (!Integer.toString(FORMAT_VERSION).equals(version[1])) {
+            return null;
+        }
+
+        DescriptorIndex index = new DescriptorIndex();
+        Entry entry = null;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] record = parseRecord(line);
+            if (TOOL_RECORD.equals(record[0]) && record.length == 7) {
+                entry = new Entry(record[1], record[2], record[3], record[4],
+                        record[5], record[6]);
+                index.m_entries.put(entry.m_path, entry);
+            } else if (INPUT_RECORD.equals(record[0]) && entry != null) {
+                entry.m_inputPorts.add(parsePort(record));
+            } else if (OUTPUT_RECORD.equals(record[0]) && entry != null) {
+                entry.m_outputPorts.add(parsePort(record));
+            } else if (OPTION_RECORD.equals(record[0]) && entry != null
+                    && record.length == 3) {
+                entry.m_options.put(record[1], record[2]);
+            } else {
+                throw new IOException("Malformed record in descriptor index: "
+                        + line);
+            }
+        }
+        return index;
+    }
+
+    private static void writePort(Writer writer, String type, Port port)
+            throws IOException {
+        StringBuilder mimeTypes = new StringBuilder();
+        for (String mimeType : port.getMimeTypes()) {
+            if (mimeTypes.length() > 0) {
+                mimeTypes.append(',');
+            }
+            mimeTypes.append(mimeType);
+        }
+        writeRecord(writer, type, port.getName(), port.getDescription(),
+                mimeTypes.toString(), Boolean.toString(port.isOptional()),
+                Boolean.toString(port.isMultiFile()));
+    }
+
+    private static Port parsePort(String[] record) throws IOException {
+        if (record.length != 6) {
+            throw new IOException("Malformed port in descriptor index.");
+        }
+        Port port = new Port();
+        port.setName(record[1]);
+        port.setDescription(record[2]);
+        if (!record[3].isEmpty()) {
+            for (String mimeType : record[3].split(",")) {
+                port.addMimeType(mimeType);
+            }
+        }
+        port.setOptional(Boolean.parseBoolean(record[4]));
+        port.setMultiFile(Boolean.parseBoolean(record[5]));
+        return port;
+    }
+
+    private static void writeRecord(Writer writer, String... fields)
+            throws IOException {
+        for (int i = 0; i < fields.length; ++i) {
+            if (i > 0) {
+                writer.write('\t');
+            }
+            writer.write(escape(fields[i]));
+        }
+        writer.write('\n');
+    }
+
+    private static String[] parseRecord(String line) throws IOException {
+        String[] fields = line.split("\t", -1);
+        for (int i = 0; i < fields.length; ++i) {
+            fields[i] = unescape(fields[i]);
+        }
+        return fields;
+    }
+
+    /**
+     * Escapes backslashes, tabs and line breaks, so that every field stays on
+     * its line.
+     */
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            switch (c) {
+            case '\\':
+                escaped.append("\\\\");
+                break;
+            case '\t':
+                escaped.append("\\t");
+                break;
+            case '\n':
+                escaped.append("\\n");
+                break;
+            case '\r':
+                escaped.append("\\r");
+                break;
+            default:
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String unescape(String value) throws IOException {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c != '\\') {
+                unescaped.append(c);
+                continue;
+            }
+            if (++i == value.length()) {
+                throw new IOException("Malformed escape in descriptor index.");
+            }
+            switch (value.charAt(i)) {
+            case 't':
+                unescaped.append('\t');
+                break;
+            case 'n':
+                unescaped.append('\n');
+                break;
+            case 'r':
+                unescaped.append('\r');
+                break;
+            default:
+                unescaped.append(value.charAt(i));
+            }
+        }
+        return unescaped.toString();
+    }
+}
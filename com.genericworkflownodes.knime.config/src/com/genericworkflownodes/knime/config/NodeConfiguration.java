@@ -21,12 +21,14 @@ package com.genericworkflownodes.knime.config;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.genericworkflownodes.knime.cliwrapper.CLI;
 import com.genericworkflownodes.knime.config.citation.Citation;
+import com.genericworkflownodes.knime.parameter.IFileParameter;
 import com.genericworkflownodes.knime.parameter.Parameter;
 import com.genericworkflownodes.knime.port.Port;
 import com.genericworkflownodes.knime.relocator.Relocator;
@@ -100,8 +102,75 @@ public class NodeConfiguration implements INodeConfiguration, Serializable {
         relocators = new ArrayList<Relocator>();
     }
 
+    /**
+     * Creates the configuration of a single node from a configuration shared
+     * by all nodes of a tool, e.g., a cached CTD.
+     * <p>
+     * Only the ports and the parameters, which hold the state of a node, are
+     * copied. The copied parameters share keys, descriptions and restrictions
+     * with the given configuration, so a node only takes additional memory for
+     * the values it changes. Descriptions, CLI, citations, relocators and
+     * section descriptions are shared as well and must not be modified.
+     * 
+     * @param config
+     *            The shared configuration.
+     */
     public NodeConfiguration(INodeConfiguration config) {
+        name = config.getName();
+        version = config.getVersion();
+        docurl = config.getDocUrl();
+        shortdescription = config.getDescription();
+        longdescription = config.getManual();
+        xml = config.getXML();
+        category = config.getCategory();
+        citations = config.getCitations();
+        executablePath = config.getExecutablePath();
+        cli = config.getCLI();
+        relocators = config.getRelocators();
+
+        if (config instanceof NodeConfiguration) {
+            NodeConfiguration other = (NodeConfiguration) config;
+            executableName = other.executableName;
+            sectionDescriptions = other.sectionDescriptions;
+        } else {
+            executableName = config.getExecutableName();
+            sectionDescriptions = new HashMap<String, String>();
+            for (Parameter<?> p : config.getParameters()) {
+                String description = config.getSectionDescription(p
+                        .getSection());
+                if (description != null) {
+                    sectionDescriptions.put(p.getSection(), description);
+                }
+            }
+        }
 
+        Map<Port, Port> copiedPorts = new IdentityHashMap<Port, Port>();
+        inputPorts = new LinkedHashMap<String, Port>();
+        for (Port p : config.getInputPorts()) {
+            Port copy = new Port(p);
+            copiedPorts.put(p, copy);
+            inputPorts.put(p.getName(), copy);
+        }
+        outputPorts = new LinkedHashMap<String, Port>();
+        for (Port p : config.getOutputPorts()) {
+            Port copy = new Port(p);
+            copiedPorts.put(p, copy);
+            outputPorts.put(p.getName(), copy);
+        }
+
+        params = new LinkedHashMap<String, Parameter<?>>();
+        for (String key : config.getParameterKeys()) {
+            Parameter<?> copy = config.getParameter(key).copy();
+            if (copy instanceof IFileParameter) {
+                // point to the port of this configuration
+                IFileParameter fileParameter = (IFileParameter) copy;
+                Port port = copiedPorts.get(fileParameter.getPort());
+                if (port != null) {
+                    fileParameter.setPort(port);
+                }
+            }
+            params.put(key, copy);
+        }
     }
 
     @Override
@@ -18,6 +18,7 @@ package com.genericworkflownodes.knime.config.citation;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
 
@@ -26,7 +27,13 @@ import java.net.URL;
  * 
  * @author jpfeuffer
  */
-public class Citation {
+public class Citation implements Serializable {
+
+	/**
+	 * The serialVersionUID.
+	 */
+	private static final long serialVersionUID = -4343649165943202694L;
+
 	private String m_doi = null;
 	private URL m_url = null;
 	
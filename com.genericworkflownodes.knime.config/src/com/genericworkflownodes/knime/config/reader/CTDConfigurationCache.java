@@ -0,0 +1,335 @@
+package com.genericworkflownodes.knime.config.reader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.genericworkflownodes.knime.config.INodeConfiguration;
+import com.genericworkflownodes.knime.config.NodeConfiguration;
+
+/**
+ * Caches parsed CTD files, so that loading the node repository parses only
+ * the CTDs that changed since the last start.
+ *
+ * An entry is keyed by the version of the bundle that ships the CTD, the
+ * version of this bundle, which defines the serialized classes, and the
+ * SHA-256 hash of the content of the CTD. Recently used configurations are kept in
+ * memory and shared by all nodes of a tool: every lookup returns a
+ * lightweight {@link NodeConfiguration#NodeConfiguration(INodeConfiguration)
+ * copy} that only holds the state of a single node. All entries are also
+ * written to disk in serialized form if a directory is given.
+ */
+public final class CTDConfigurationCache {
+
+    /**
+     * The logger used to indicate problems.
+     */
+    private static final Logger LOG = Logger
+            .getLogger(CTDConfigurationCache.class.getCanonicalName());
+
+    /**
+     * Version of the serialized entries, must be increased when the
+     * serialized form of the configuration changes incompatibly.
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * The version of this bundle, as the serialized form of the configuration
+     * may change with every release of it.
+     */
+    private static final String CONFIG_BUNDLE_VERSION = readConfigBundleVersion();
+
+    /**
+     * The default size of the CTDs whose configurations are kept in memory.
+     */
+    private static final long DEFAULT_MEMORY_BYTES = 32L * 1024 * 1024;
+
+    private static volatile CTDConfigurationCache instance = new CTDConfigurationCache(
+            null, DEFAULT_MEMORY_BYTES);
+
+    /**
+     * The directory of the on-disk cache, or null.
+     */
+    private final File m_directory;
+
+    private final long m_maxMemoryBytes;
+
+    private long m_memoryBytes;
+
+    /**
+     * The shared configurations in access order, which are never handed out.
+     */
+    private final LinkedHashMap<String, INodeConfiguration> m_entries = new LinkedHashMap<String, INodeConfiguration>(
+            16, 0.75f, true);
+
+    /**
+     * The size of the CTDs of the configurations in memory, which serves as
+     * estimate of their heap usage.
+     */
+    private final Map<String, Integer> m_sizes = new HashMap<String, Integer>();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param directory
+     *            The directory of the on-disk cache, or null to only cache in
+     *            memory.
+     * @param maxMemoryBytes
+     *            The maximum size of the CTDs whose configurations are kept in
+     *            memory.
+     */
+    public CTDConfigurationCache(File directory, long maxMemoryBytes) {
+        m_directory = directory;
+        m_maxMemoryBytes = maxMemoryBytes;
+    }
+
+    /**
+     * @return The cache shared by all node factories.
+     */
+    public static CTDConfigurationCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Replaces the shared cache, e.g., by one with a directory once the
+     * location of the workspace is known.
+     *
+     * @param cache
+     *            The new cache.
+     */
+    public static void setInstance(CTDConfigurationCache cache) {
+        instance = cache;
+    }
+
+    /**
+     * Reads a CTD file, using the cached configuration if the same CTD was
+     * parsed before.
+     *
+     * @param in
+     *            The content of the CTD file.
+     * @param bundleVersion
+     *            The version of the bundle that ships the CTD file.
+     * @return A new instance of the configuration, sharing all immutable
+     *         parts with the other instances of the same CTD.
+     * @throws InvalidCTDFileException
+     *             If the CTD file can not be read or is invalid.
+     */
+    public INodeConfiguration read(InputStream in, String bundleVersion)
+            throws InvalidCTDFileException {
+        byte[] ctd;
+        try {
+            ctd = readFully(in);
+        } catch (IOException e) {
+            throw new InvalidCTDFileException("Failed to read CTD file.", e);
+        }
+        String key = createKey(bundleVersion, ctd);
+
+        INodeConfiguration config;
+        synchronized (m_entries) {
+            config = m_entries.get(key);
+        }
+        if (config == null) {
+            config = readFromDisk(key);
+            if (config == null) {
+                config = new CTDConfigurationReader()
+                        .read(new ByteArrayInputStream(ctd));
+                writeToDisk(key, config);
+            }
+            putInMemory(key, config, ctd.length);
+        }
+        return new NodeConfiguration(config);
+    }
+
+    /**
+     * @return The configuration stored on disk, or null if there is none or
+     *         it is outdated or broken.
+     */
+    private INodeConfiguration readFromDisk(String key) {
+        File file = getFile(key);
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        try {
+            return deserialize(Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Could not read cached CTD " + file, e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, INodeConfiguration config) {
+        File file = getFile(key);
+        if (file == null) {
+            return;
+        }
+        byte[] serialized = serialize(config);
+        if (serialized == null) {
+            return;
+        }
+        File tmp = null;
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            // write to a temporary file first, so readers never see a
+            // partial entry
+            tmp = File.createTempFile(file.getName(), ".tmp",
+                    file.getParentFile());
+            Files.write(tmp.toPath(), serialized);
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not cache CTD in " + file, e);
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
+    private void putInMemory(String key, INodeConfiguration config, int size) {
+        synchronized (m_entries) {
+            m_entries.put(key, config);
+            Integer old = m_sizes.put(key, size);
+            if (old != null) {
+                m_memoryBytes -= old;
+            }
+            m_memoryBytes += size;
+            Iterator<String> it = m_entries.keySet().iterator();
+            while (m_memoryBytes > m_maxMemoryBytes && it.hasNext()) {
+                m_memoryBytes -= m_sizes.remove(it.next());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return The file of an entry on disk, or null if there is no on-disk
+     *         cache.
+     */
+    private File getFile(String key) {
+        if (m_directory == null) {
+            return null;
+        }
+        int separator = key.indexOf('/');
+        return new File(new File(m_directory, key.substring(0, separator)),
+                key.substring(separator + 1) + ".ser");
+    }
+
+    /**
+     * @return The bundle versions and the hash of the content, separated by a
+     *         slash.
+     */
+    static String createKey(String bundleVersion, byte[] ctd) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder key = new StringBuilder();
+        key.append(String.valueOf(bundleVersion).replaceAll(
+                "[^A-Za-z0-9._-]", "_"));
+        key.append("_v").append(FORMAT_VERSION).append('_');
+        key.append(CONFIG_BUNDLE_VERSION.replaceAll("[^A-Za-z0-9._-]", "_"));
+        key.append('/');
+        for (byte b : digest.digest(ctd)) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return The Bundle-Version of the manifest of this bundle, or "unknown"
+     *         if it cannot be read, e.g., when not running from the bundle.
+     */
+    private static String readConfigBundleVersion() {
+        try {
+            Enumeration<URL> manifests = CTDConfigurationCache.class
+                    .getClassLoader().getResources("META-INF/MANIFEST.MF");
+            while (manifests.hasMoreElements()) {
+                try (InputStream in = manifests.nextElement().openStream()) {
+                    Attributes attributes = new Manifest(in)
+                            .getMainAttributes();
+                    String name = attributes.getValue("Bundle-SymbolicName");
+                    // e.g., "com.genericworkflownodes.knime.config;singleton:=true"
+                    if (name != null
+                            && name.split(";")[0].trim().equals(
+                                    "com.genericworkflownodes.knime.config")) {
+                        String version = attributes.getValue("Bundle-Version");
+                        if (version != null) {
+                            return version;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Could not read the bundle version", e);
+        }
+        return "unknown";
+    }
+
+    private static byte[] serialize(INodeConfiguration config) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(config);
+        } catch (IOException e) {
+            // e.g., a configuration that is not serializable
+            LOG.log(Level.FINE, "Could not cache CTD of " + config.getName(),
+                    e);
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return The configuration, or null if the entry is outdated or broken.
+     */
+    private static INodeConfiguration deserialize(byte[] serialized) {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(serialized)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc)
+                    throws IOException, ClassNotFoundException {
+                // resolve against this bundle instead of the caller's
+                try {
+                    return Class.forName(desc.getName(), false,
+                            CTDConfigurationCache.class.getClassLoader());
+                } catch (ClassNotFoundException e) {
+                    return super.resolveClass(desc);
+                }
+            }
+        }) {
+            return (INodeConfiguration) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            LOG.log(Level.FINE, "Ignoring outdated CTD cache entry", e);
+            return null;
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -27,6 +27,8 @@ import javax.xml.parsers.SAXParserFactory;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 
+import org.xml.sax.SAXException;
+
 import com.genericworkflownodes.knime.cliwrapper.CLIElement;
 import com.genericworkflownodes.knime.cliwrapper.CLIMapping;
 import com.genericworkflownodes.knime.config.INodeConfiguration;
@@ -53,18 +55,34 @@ public class CTDConfigurationReader implements INodeConfigurationReader {
      */
     private INodeConfiguration m_config;
 
+    /**
+     * Compiles the CTD schema once, when the first CTD is read. A compiled
+     * {@link Schema} is immutable and can be shared between threads.
+     */
+    private static final class CTDSchemaHolder {
+        private static final Schema CTD_SCHEMA = compileSchema();
+
+        private static Schema compileSchema() {
+            try {
+                SchemaFactory schemaFactory = SchemaFactory
+                        .newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+                return schemaFactory.newSchema(SchemaProvider.class
+                        .getResource("CTD.xsd"));
+            } catch (SAXException e) {
+                throw new IllegalStateException(
+                        "Failed to compile the CTD schema.", e);
+            }
+        }
+    }
+
     @Override
     public INodeConfiguration read(InputStream in)
             throws InvalidCTDFileException {
         try {
-            // create schema and parser for validation and parsing
-            SchemaFactory schemaFactory = SchemaFactory
-                    .newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            Schema ctdSchema = schemaFactory.newSchema(SchemaProvider.class
-                    .getResource("CTD.xsd"));
+            // create parser for validation and parsing
             SAXParserFactory spfac = SAXParserFactory.newInstance();
             spfac.setValidating(false);
-            spfac.setSchema(ctdSchema);
+            spfac.setSchema(CTDSchemaHolder.CTD_SCHEMA);
 
             SAXParser sp = spfac.newSAXParser();
 
@@ -40,10 +40,12 @@ import com.genericworkflownodes.knime.cliwrapper.CLIElement;
 import com.genericworkflownodes.knime.cliwrapper.CLIMapping;
 import com.genericworkflownodes.knime.config.NodeConfiguration;
 import com.genericworkflownodes.knime.parameter.BoolParameter;
+import com.genericworkflownodes.knime.parameter.DoubleArrayList;
 import com.genericworkflownodes.knime.parameter.DoubleListParameter;
 import com.genericworkflownodes.knime.parameter.DoubleParameter;
 import com.genericworkflownodes.knime.parameter.FileListParameter;
 import com.genericworkflownodes.knime.parameter.FileParameter;
+import com.genericworkflownodes.knime.parameter.IntArrayList;
 import com.genericworkflownodes.knime.parameter.IntegerListParameter;
 import com.genericworkflownodes.knime.parameter.IntegerParameter;
 import com.genericworkflownodes.knime.parameter.InvalidParameterValueException;
@@ -151,6 +153,18 @@ public class ParamHandler extends DefaultHandler {
      */
     private List<String> m_listValues;
 
+    /**
+     * The values of the current int list, parsed as the list entries are
+     * read, or null if the current list is not an int list.
+     */
+    private IntArrayList m_intListValues;
+
+    /**
+     * The values of the current double list, parsed as the list entries are
+     * read, or null if the current list is not a double list.
+     */
+    private DoubleArrayList m_doubleListValues;
+
     /**
      * The parent handler that invoked this handler for a sub tree of the XML
      * document.
@@ -263,6 +277,8 @@ public class ParamHandler extends DefaultHandler {
                     return;
                 }
 
+                m_intListValues = null;
+                m_doubleListValues = null;
                 if (TYPE_INT.equals(type)) {
                     handleIntList(paramName, attributes);
                 } else if (TYPE_DOUBLE.equals(type) || TYPE_FLOAT.equals(type)) {
@@ -279,7 +295,14 @@ public class ParamHandler extends DefaultHandler {
                 setCommonParameters(attributes);
             } else if (TAG_LISTITEM.equals(name)) {
                 String listValue = attributes.getValue(ATTR_VALUE);
-                m_listValues.add(listValue);
+                if (m_intListValues != null) {
+                    m_intListValues.addInt(Integer.parseInt(listValue));
+                } else if (m_doubleListValues != null) {
+                    m_doubleListValues.addDouble(Double
+                            .parseDouble(listValue));
+                } else {
+                    m_listValues.add(listValue);
+                }
             }
         } catch (Exception e) {
             LOG.log(Level.SEVERE, e.getMessage());
@@ -461,8 +484,10 @@ public class ParamHandler extends DefaultHandler {
      *            Attributes of the Parameter.
      */
     private void handleDoubleList(String paramName, Attributes attributes) {
+        // the list entries are added to the values of the parameter
+        m_doubleListValues = new DoubleArrayList();
         m_currentParameter = new DoubleListParameter(paramName,
-                new ArrayList<Double>());
+                m_doubleListValues);
 
         // check for restrictions
         String restrs = attributes.getValue(ATTR_RESTRICTIONS);
@@ -485,8 +510,10 @@ public class ParamHandler extends DefaultHandler {
      *            Attributes of the Parameter.
      */
     private void handleIntList(String paramName, Attributes attributes) {
+        // the list entries are added to the values of the parameter
+        m_intListValues = new IntArrayList();
         m_currentParameter = new IntegerListParameter(paramName,
-                new ArrayList<Integer>());
+                m_intListValues);
 
         // check for restrictions
         String restrs = attributes.getValue(ATTR_RESTRICTIONS);
@@ -730,6 +757,8 @@ public class ParamHandler extends DefaultHandler {
                 // reset for the next iteration
                 m_currentParameter = null;
             }
+            m_intListValues = null;
+            m_doubleListValues = null;
         } else if (TAG_PARAMETERS.equals(name)) {
             transferValuesToConfig();
             m_xmlReader.setContentHandler(m_parentHandler);
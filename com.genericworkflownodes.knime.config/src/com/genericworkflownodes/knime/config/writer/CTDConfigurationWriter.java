@@ -63,6 +63,31 @@ public class CTDConfigurationWriter {
     private INodeConfiguration currentConfig;
     // whether unused parameters are ignored (see setter method for javadoc)
     private boolean ignoreUnusedParameters;
+    // receives the parameters instead of the output, if set
+    private ParameterSink parameterSink;
+
+    /**
+     * Receives the parameters in place of the ITEM and ITEMLIST elements, used
+     * to extract the skeleton of the document.
+     */
+    interface ParameterSink {
+
+        /**
+         * Called for each parameter after everything before it was flushed to
+         * the output.
+         * 
+         * @param key
+         *            The key of the parameter.
+         * @param p
+         *            The parameter.
+         * @param indent
+         *            The indentation of the parameter.
+         * @throws IOException
+         *             If io operations fail.
+         */
+        void parameter(String key, Parameter<?> p, int indent)
+                throws IOException;
+    }
 
     private String xmlEscapeText(String t) {
         return StringEscapeUtils.escapeXml(t);
@@ -230,6 +255,11 @@ public class CTDConfigurationWriter {
 
             // output the actual parameter
             Parameter<?> p = currentConfig.getParameter(key);
+            if (parameterSink != null) {
+                outputWriter.flush();
+                parameterSink.parameter(key, p, currentIndent);
+                continue;
+            }
             // handle depending on list or not
             if (p instanceof ListParameter) {
                 writeItemList(key, p);
@@ -245,19 +275,9 @@ public class CTDConfigurationWriter {
     }
 
     private void writeItem(String key, Parameter<?> p) throws IOException {
-    	if (p instanceof FileParameter) {
-    		// Omit complete parameter when its value is null (e.g. not connected)
-    		if (ignoreUnusedParameters && p.isNull()) {
-    			return;
-    		}
-    		// If it is an optional outport, check activation
-    		if (ignoreUnusedParameters && p.isOptional() && currentConfig.getOutputPortByName(key) != null) {
-    			if (!((FileParameter) p).getPort().isActive()) {
-    				//skip addition of inactive Ports. They should not have any meaningful filenames/values anyway.
-    				return;
-    			}
-    		}
-    	}
+        if (ignoreUnusedParameters && isUnused(key, p)) {
+            return;
+        }
         // construct parameter entry
         StringBuffer item = new StringBuffer();
         item.append("<ITEM name=\"");
@@ -271,6 +291,23 @@ public class CTDConfigurationWriter {
         }
         item.append('\"');
 
+        item.append(getItemAttributes(key, p));
+        item.append(" />");
+        streamPut(item.toString());
+    }
+
+    /**
+     * Returns the attributes of an ITEM following its value.
+     * 
+     * @param key
+     *            The key of the parameter.
+     * @param p
+     *            The parameter.
+     * @return The type, description, tags and restrictions of the parameter.
+     */
+    String getItemAttributes(String key, Parameter<?> p) {
+        StringBuffer item = new StringBuffer();
+
         // type
         addItemType(key, p, item);
 
@@ -291,25 +328,35 @@ public class CTDConfigurationWriter {
         } else if (p instanceof FileParameter) {
             addMimeTypeRestrictions(item, p);
         }
-
-        item.append(" />");
-        streamPut(item.toString());
+        return item.toString();
     }
 
 	private void writeItemList(String key, Parameter<?> p) throws IOException {
-    	if (p instanceof FileListParameter) {
-    		// Omit complete parameter when its value is null (e.g. not connected)
-    		if (ignoreUnusedParameters && p.isNull()) {
-    			return;
-    		}
-    		// If it is an optional outport, check activation
-    		if (ignoreUnusedParameters && p.isOptional() && currentConfig.getOutputPortByName(key) != null) {
-    			if (!((FileListParameter) p).getPort().isActive()) {
-    				//skip addition of inactive Ports. They should not have any meaningful filenames/values anyway.
-    				return;
-    			}
-    		}
-    	}
+        if (ignoreUnusedParameters && isUnused(key, p)) {
+            return;
+        }
+        streamPut(getItemListTag(key, p));
+
+        indent();
+        for (String val : ((ListParameter) p).getStrings()) {
+            streamPut(String.format("<LISTITEM value=\"%s\"/>",
+                    xmlEscapeText(val)));
+        }
+        outdent();
+        streamPut("</ITEMLIST>");
+    }
+
+    /**
+     * Returns the opening tag of an ITEMLIST.
+     * 
+     * @param key
+     *            The key of the parameter.
+     * @param p
+     *            The list parameter.
+     * @return The tag including type, description, restrictions and tags of
+     *         the parameter.
+     */
+    String getItemListTag(String key, Parameter<?> p) {
         StringBuffer item = new StringBuffer();
         item.append("<ITEMLIST name=\"");
         item.append(p.getKey());
@@ -333,15 +380,36 @@ public class CTDConfigurationWriter {
         addParameterAttributes(p, item);
 
         item.append('>');
-        streamPut(item.toString());
+        return item.toString();
+    }
 
-        indent();
-        for (String val : ((ListParameter) p).getStrings()) {
-            streamPut(String.format("<LISTITEM value=\"%s\"/>",
-                    xmlEscapeText(val)));
+    private boolean isUnused(String key, Parameter<?> p) {
+        return isUnused(p, p instanceof IFileParameter && p.isOptional()
+                && currentConfig.getOutputPortByName(key) != null);
+    }
+
+    /**
+     * Checks whether a parameter is omitted if unused parameters are ignored.
+     * 
+     * @param p
+     *            The parameter.
+     * @param isOptionalOutput
+     *            Whether the parameter belongs to an optional output port.
+     * @return True if the parameter is a file parameter without value, e.g.,
+     *         because it is not connected, or of an inactive optional output
+     *         port.
+     */
+    static boolean isUnused(Parameter<?> p, boolean isOptionalOutput) {
+        if (!(p instanceof IFileParameter)) {
+            return false;
         }
-        outdent();
-        streamPut("</ITEMLIST>");
+        // Omit complete parameter when its value is null (e.g. not connected)
+        if (p.isNull()) {
+            return true;
+        }
+        // skip inactive Ports. They should not have any meaningful
+        // filenames/values anyway.
+        return isOptionalOutput && !((IFileParameter) p).getPort().isActive();
     }
 
     private void addItemType(String key, Parameter<?> p, StringBuffer item) {
@@ -631,4 +699,14 @@ public class CTDConfigurationWriter {
     public void setIgnoreUnusedParameters(final boolean ignoreUnusedParameters) {
     	this.ignoreUnusedParameters = ignoreUnusedParameters;
     }
+
+    /**
+     * Passes the parameters to the given sink instead of writing them.
+     * 
+     * @param sink
+     *            The sink, or null to write the parameters.
+     */
+    void setParameterSink(final ParameterSink sink) {
+        parameterSink = sink;
+    }
 }
@@ -0,0 +1,320 @@
+package com.genericworkflownodes.knime.config.writer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.commons.lang.StringEscapeUtils;
+
+import com.genericworkflownodes.knime.cliwrapper.CLI;
+import com.genericworkflownodes.knime.config.INodeConfiguration;
+import com.genericworkflownodes.knime.parameter.IFileParameter;
+import com.genericworkflownodes.knime.parameter.ListParameter;
+import com.genericworkflownodes.knime.parameter.Parameter;
+
+/**
+ * Writes the same INI files as the {@link CTDConfigurationWriter}, but renders
+ * the static parts of a tool's document only once.
+ *
+ * The skeleton of the document, i.e., header, CLI, nodes and the attributes of
+ * all items, is extracted once per tool descriptor and shared by all nodes of
+ * the tool. Writing a configuration then only escapes the values and writes
+ * the whole document with a single write. If the values did not change since
+ * the previous write for the tool, e.g., when a node runs again, the previous
+ * document is reused as is, and not even written again if the file still
+ * holds exactly that document. Unused parameters are always ignored, see
+ * {@link CTDConfigurationWriter#setIgnoreUnusedParameters(boolean)}.
+ */
+public final class CTDTemplateWriter {
+
+    /**
+     * Marks an omitted parameter in a snapshot of the values.
+     */
+    private static final Object OMITTED = new Object();
+
+    /**
+     * A parameter in the skeleton.
+     */
+    private static final class Slot {
+
+        private final String m_key;
+
+        private final Class<?> m_type;
+
+        private final boolean m_isList;
+
+        private final boolean m_isFile;
+
+        private final boolean m_isOptionalOutput;
+
+        /**
+         * The text in front of the value of an item, or the opening line of a
+         * list including the line break.
+         */
+        private final String m_head;
+
+        /**
+         * The text after the value of an item, or the closing line of a list,
+         * including the line break.
+         */
+        private final String m_tail;
+
+        /**
+         * The text in front of the value of a list item.
+         */
+        private final String m_listItemHead;
+
+        private Slot(CTDConfigurationWriter writer, INodeConfiguration config,
+                String key, Parameter<?> p, int indent) {
+            m_key = key;
+            m_type = p.getClass();
+            m_isList = p instanceof ListParameter;
+            m_isFile = p instanceof IFileParameter;
+            m_isOptionalOutput = m_isFile && p.isOptional()
+                    && config.getOutputPortByName(key) != null;
+            String tabs = tabs(indent);
+            if (m_isList) {
+                m_head = tabs + writer.getItemListTag(key, p) + '\n';
+                m_tail = tabs + "</ITEMLIST>\n";
+                m_listItemHead = tabs + "\t<LISTITEM value=\"";
+            } else {
+                m_head = tabs + "<ITEM name=\"" + p.getKey() + "\" value=\"";
+                m_tail = "\"" + writer.getItemAttributes(key, p) + " />\n";
+                m_listItemHead = null;
+            }
+        }
+
+        private static String tabs(int indent) {
+            char[] tabs = new char[indent];
+            Arrays.fill(tabs, '\t');
+            return new String(tabs);
+        }
+    }
+
+    /**
+     * The skeleton of the INI file of a tool.
+     */
+    private static final class Template {
+
+        private final Slot[] m_slots;
+
+        /**
+         * The static text in front of each slot, followed by the text after
+         * the last slot.
+         */
+        private final String[] m_text;
+
+        /**
+         * The length of the static text.
+         */
+        private final int m_length;
+
+        /**
+         * The values of the previous document.
+         */
+        private Object[] m_values;
+
+        /**
+         * The previous document.
+         */
+        private byte[] m_content;
+
+        /**
+         * The file the previous document was written to.
+         */
+        private File m_file;
+
+        private long m_lastModified;
+
+        private Template(INodeConfiguration config) throws IOException {
+            final List<Slot> slots = new ArrayList<Slot>();
+            final List<String> text = new ArrayList<String>();
+            final StringWriter out = new StringWriter();
+            final CTDConfigurationWriter writer = new CTDConfigurationWriter(
+                    new BufferedWriter(out));
+            final INodeConfiguration cfg = config;
+            writer.setParameterSink(new CTDConfigurationWriter.ParameterSink() {
+                private int m_start = 0;
+
+                @Override
+                public void parameter(String key, Parameter<?> p, int indent) {
+                    StringBuffer buffer = out.getBuffer();
+                    text.add(buffer.substring(m_start));
+                    m_start = buffer.length();
+                    slots.add(new Slot(writer, cfg, key, p, indent));
+                }
+            });
+            writer.write(config);
+            int start = 0;
+            for (String t : text) {
+                start += t.length();
+            }
+            text.add(out.getBuffer().substring(start));
+
+            m_slots = slots.toArray(new Slot[slots.size()]);
+            m_text = text.toArray(new String[text.size()]);
+            int length = 0;
+            for (String t : m_text) {
+                length += t.length();
+            }
+            for (Slot slot : m_slots) {
+                length += slot.m_head.length() + slot.m_tail.length();
+            }
+            m_length = length;
+        }
+
+        /**
+         * @return Whether the template fits the parameters of the
+         *         configuration.
+         */
+        private boolean matches(INodeConfiguration config) {
+            for (Slot slot : m_slots) {
+                Parameter<?> p = config.getParameter(slot.m_key);
+                if (p == null || p.getClass() != slot.m_type) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return The values of the parameters, a string or string list per
+         *         slot, or {@link #OMITTED}.
+         */
+        private Object[] snapshot(INodeConfiguration config) {
+            Object[] values = new Object[m_slots.length];
+            for (int i = 0; i < m_slots.length; ++i) {
+                Slot slot = m_slots[i];
+                Parameter<?> p = config.getParameter(slot.m_key);
+                if (slot.m_isFile
+                        && CTDConfigurationWriter.isUnused(p,
+                                slot.m_isOptionalOutput)) {
+                    values[i] = OMITTED;
+                } else if (slot.m_isList) {
+                    values[i] = ((ListParameter) p).getStrings();
+                } else if (p.getValue() != null) {
+                    values[i] = p.getValue().toString();
+                }
+            }
+            return values;
+        }
+
+        /**
+         * @return The document in UTF-8.
+         */
+        private byte[] render(Object[] values) {
+            // escape first to size the buffer exactly
+            Object[] escaped = new Object[values.length];
+            int length = m_length;
+            for (int i = 0; i < values.length; ++i) {
+                Slot slot = m_slots[i];
+                if (values[i] == OMITTED) {
+                    length -= slot.m_head.length() + slot.m_tail.length();
+                } else if (slot.m_isList) {
+                    List<?> list = (List<?>) values[i];
+                    String[] items = new String[list.size()];
+                    for (int j = 0; j < items.length; ++j) {
+                        items[j] = String.valueOf(StringEscapeUtils
+                                .escapeXml((String) list.get(j)));
+                        length += slot.m_listItemHead.length()
+                                + items[j].length() + 4;
+                    }
+                    escaped[i] = items;
+                } else if (values[i] != null) {
+                    String value = StringEscapeUtils
+                            .escapeXml((String) values[i]);
+                    length += value.length();
+                    escaped[i] = value;
+                }
+            }
+
+            StringBuilder ini = new StringBuilder(length);
+            for (int i = 0; i < m_slots.length; ++i) {
+                ini.append(m_text[i]);
+                Slot slot = m_slots[i];
+                if (values[i] == OMITTED) {
+                    continue;
+                }
+                ini.append(slot.m_head);
+                if (slot.m_isList) {
+                    for (String item : (String[]) escaped[i]) {
+                        ini.append(slot.m_listItemHead).append(item)
+                                .append("\"/>\n");
+                    }
+                } else if (escaped[i] != null) {
+                    ini.append((String) escaped[i]);
+                }
+                ini.append(slot.m_tail);
+            }
+            ini.append(m_text[m_slots.length]);
+            return ini.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The templates by CLI, which is shared by all configurations of a tool
+     * descriptor.
+     */
+    private static final Map<CLI, Template> TEMPLATES = Collections
+            .synchronizedMap(new WeakHashMap<CLI, Template>());
+
+    private CTDTemplateWriter() {
+    }
+
+    /**
+     * Writes the given configuration to the given file.
+     *
+     * @param config
+     *            The configuration to write.
+     * @param target
+     *            The file where the ini will be stored.
+     * @throws IOException
+     *             If io operations fail.
+     */
+    public static void write(INodeConfiguration config, File target)
+            throws IOException {
+        Template template = getTemplate(config);
+        synchronized (template) {
+            Object[] values = template.snapshot(config);
+            if (template.m_content != null
+                    && Arrays.deepEquals(values, template.m_values)) {
+                if (target.equals(template.m_file)
+                        && target.lastModified() == template.m_lastModified
+                        && target.length() == template.m_content.length
+                        && Arrays.equals(Files.readAllBytes(target.toPath()),
+                                template.m_content)) {
+                    // the previous file is still in place
+                    return;
+                }
+            } else {
+                template.m_values = values;
+                template.m_content = template.render(values);
+            }
+            Files.write(target.toPath(), template.m_content);
+            template.m_file = target;
+            template.m_lastModified = target.lastModified();
+        }
+    }
+
+    private static Template getTemplate(INodeConfiguration config)
+            throws IOException {
+        CLI cli = config.getCLI();
+        Template template = cli == null ? null : TEMPLATES.get(cli);
+        if (template == null || !template.matches(config)) {
+            template = new Template(config);
+            if (cli != null) {
+                TEMPLATES.put(cli, template);
+            }
+        }
+        return template;
+    }
+}
@@ -0,0 +1,185 @@
+package com.genericworkflownodes.knime.config.writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import com.genericworkflownodes.knime.config.INodeConfiguration;
+import com.genericworkflownodes.knime.config.reader.handler.ParamHandler;
+import com.genericworkflownodes.knime.parameter.BoolParameter;
+import com.genericworkflownodes.knime.parameter.DoubleListParameter;
+import com.genericworkflownodes.knime.parameter.IFileParameter;
+import com.genericworkflownodes.knime.parameter.IntegerListParameter;
+import com.genericworkflownodes.knime.parameter.ListParameter;
+import com.genericworkflownodes.knime.parameter.NumberListParameter;
+import com.genericworkflownodes.knime.parameter.Parameter;
+
+/**
+ * Writes the parameters of a configuration as JSON parameter file, as
+ * accepted by OpenMS tools in place of an INI file.
+ *
+ * The document is a single object that only holds the parameters whose value
+ * differs from the default of the tool descriptor, see
+ * {@link Parameter#isDefaultValue()}, so the tool uses its own defaults for
+ * all others. The keys are the parameter paths below the tool instance node
+ * (e.g. <code>FileFilter.1.</code>) with the nodes separated by
+ * {@value #NODE_SEPARATOR}. Numbers and flags are written as JSON numbers and
+ * booleans, lists as arrays and everything else, including files, as strings.
+ * File parameters are always written, unless they would be omitted from an
+ * INI file, too.
+ */
+public final class JSONParameterFileWriter {
+
+    /**
+     * Separates the nodes of a parameter path in the keys.
+     */
+    public static final String NODE_SEPARATOR = "__";
+
+    private JSONParameterFileWriter() {
+    }
+
+    /**
+     * Writes the given configuration to the given file.
+     *
+     * @param config
+     *            The configuration to write.
+     * @param target
+     *            The file where the parameters will be stored.
+     * @throws IOException
+     *             If io operations fail.
+     */
+    public static void write(INodeConfiguration config, File target)
+            throws IOException {
+        Files.write(target.toPath(),
+                toJSON(config).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Converts the given configuration to a JSON parameter document.
+     *
+     * @param config
+     *            The configuration to convert.
+     * @return The document.
+     */
+    public static String toJSON(INodeConfiguration config) {
+        StringBuilder json = new StringBuilder("{");
+        String instancePrefix = config.getName() + ParamHandler.PATH_SEPARATOR;
+        for (String key : config.getParameterKeys()) {
+            Parameter<?> p = config.getParameter(key);
+            if (p.isNull() || p.isDefaultValue()) {
+                continue;
+            }
+            if (p instanceof IFileParameter
+                    && CTDConfigurationWriter.isUnused(p, p.isOptional()
+                            && config.getOutputPortByName(key) != null)) {
+                continue;
+            }
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            appendString(json, toJSONKey(key, instancePrefix));
+            json.append(':');
+            if (p instanceof ListParameter) {
+                appendList(json, p);
+            } else {
+                appendValue(json, p);
+            }
+        }
+        return json.append("}\n").toString();
+    }
+
+    /**
+     * Strips the tool instance node, e.g., <code>FileFilter.1.</code>, and
+     * separates the remaining nodes by {@link #NODE_SEPARATOR}.
+     */
+    private static String toJSONKey(String key, String instancePrefix) {
+        String path = key;
+        if (key.startsWith(instancePrefix)) {
+            int end = key.indexOf(ParamHandler.PATH_SEPARATOR,
+                    instancePrefix.length());
+            if (end > instancePrefix.length()) {
+                path = key.substring(end + 1);
+            }
+        }
+        return path.replace(String.valueOf(ParamHandler.PATH_SEPARATOR),
+                NODE_SEPARATOR);
+    }
+
+    private static void appendValue(StringBuilder json, Parameter<?> p) {
+        Object value = p.getValue();
+        if (p instanceof BoolParameter && ((BoolParameter) p).isFlag) {
+            json.append(((BoolParameter) p).getValue().booleanValue());
+        } else if (value instanceof Number) {
+            appendNumber(json, (Number) value);
+        } else {
+            appendString(json, value.toString());
+        }
+    }
+
+    private static void appendList(StringBuilder json, Parameter<?> p) {
+        json.append('[');
+        if (p instanceof IntegerListParameter
+                || p instanceof DoubleListParameter) {
+            List<? extends Number> values = ((NumberListParameter<?>) p)
+                    .getValue();
+            for (int i = 0; i < values.size(); ++i) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                appendNumber(json, values.get(i));
+            }
+        } else {
+            List<String> values = ((ListParameter) p).getStrings();
+            for (int i = 0; i < values.size(); ++i) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                appendString(json, values.get(i));
+            }
+        }
+        json.append(']');
+    }
+
+    private static void appendNumber(StringBuilder json, Number value) {
+        double d = value.doubleValue();
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+            // not representable as JSON number
+            appendString(json, value.toString());
+        } else {
+            json.append(value.toString());
+        }
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                json.append("\\\"");
+                break;
+            case '\\':
+                json.append("\\\\");
+                break;
+            case '\n':
+                json.append("\\n");
+                break;
+            case '\r':
+                json.append("\\r");
+                break;
+            case '\t':
+                json.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+        }
+        json.append('"');
+    }
+}
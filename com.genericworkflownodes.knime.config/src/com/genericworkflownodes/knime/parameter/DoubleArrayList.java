@@ -0,0 +1,197 @@
+package com.genericworkflownodes.knime.parameter;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A list of double values that is backed by a <code>double[]</code>, used as
+ * value of the {@link DoubleListParameter}.
+ *
+ * Values are only boxed when accessed through the {@link java.util.List}
+ * interface, so long lists, e.g., m/z inclusion lists of a tool, take 8 bytes
+ * per value instead of a reference and a {@link Double} object.
+ */
+public final class DoubleArrayList extends AbstractList<Double> implements
+        RandomAccess, Serializable {
+
+    /**
+     * The serial version UID.
+     */
+    private static final long serialVersionUID = -6093540216574150517L;
+
+    private double[] m_values;
+
+    private int m_size;
+
+    /**
+     * Creates an empty list.
+     */
+    public DoubleArrayList() {
+        this(10);
+    }
+
+    /**
+     * Creates an empty list.
+     *
+     * @param capacity
+     *            The number of values the list can hold before it grows.
+     */
+    public DoubleArrayList(final int capacity) {
+        m_values = new double[capacity];
+    }
+
+    /**
+     * Creates a list holding a copy of the given values.
+     *
+     * @param values
+     *            The values.
+     */
+    public DoubleArrayList(final double[] values) {
+        m_values = values.clone();
+        m_size = values.length;
+    }
+
+    /**
+     * Creates a list holding the values of the given collection.
+     *
+     * @param values
+     *            The values.
+     */
+    public DoubleArrayList(final Collection<Double> values) {
+        if (values instanceof DoubleArrayList) {
+            m_values = ((DoubleArrayList) values).toDoubleArray();
+            m_size = m_values.length;
+        } else {
+            m_values = new double[values.size()];
+            for (Double value : values) {
+                m_values[m_size++] = value;
+            }
+        }
+    }
+
+    /**
+     * Returns the value at the given position without boxing it.
+     *
+     * @param index
+     *            The position.
+     * @return The value.
+     */
+    public double getDouble(final int index) {
+        checkIndex(index);
+        return m_values[index];
+    }
+
+    /**
+     * Appends the given value without boxing it.
+     *
+     * @param value
+     *            The value.
+     */
+    public void addDouble(final double value) {
+        ensureCapacity(m_size + 1);
+        m_values[m_size++] = value;
+        ++modCount;
+    }
+
+    /**
+     * @return A copy of the values.
+     */
+    public double[] toDoubleArray() {
+        return Arrays.copyOf(m_values, m_size);
+    }
+
+    @Override
+    public Double get(final int index) {
+        return getDouble(index);
+    }
+
+    @Override
+    public Double set(final int index, final Double value) {
+        checkIndex(index);
+        double previous = m_values[index];
+        m_values[index] = value;
+        return previous;
+    }
+
+    @Override
+    public void add(final int index, final Double value) {
+        if (index < 0 || index > m_size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                    + m_size);
+        }
+        double v = value;
+        ensureCapacity(m_size + 1);
+        System.arraycopy(m_values, index, m_values, index + 1, m_size - index);
+        m_values[index] = v;
+        ++m_size;
+        ++modCount;
+    }
+
+    @Override
+    public Double remove(final int index) {
+        checkIndex(index);
+        double previous = m_values[index];
+        System.arraycopy(m_values, index + 1, m_values, index, m_size - index
+                - 1);
+        --m_size;
+        ++modCount;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        m_size = 0;
+        ++modCount;
+    }
+
+    @Override
+    public int size() {
+        return m_size;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o instanceof DoubleArrayList) {
+            DoubleArrayList other = (DoubleArrayList) o;
+            if (m_size != other.m_size) {
+                return false;
+            }
+            for (int i = 0; i < m_size; ++i) {
+                if (Double.doubleToLongBits(m_values[i]) != Double
+                        .doubleToLongBits(other.m_values[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // same as the java.util.List contract for boxed values
+        int hash = 1;
+        for (int i = 0; i < m_size; ++i) {
+            long bits = Double.doubleToLongBits(m_values[i]);
+            hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+        }
+        return hash;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= m_size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                    + m_size);
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > m_values.length) {
+            m_values = Arrays.copyOf(m_values,
+                    Math.max(capacity, m_values.length * 3 / 2 + 1));
+        }
+    }
+}
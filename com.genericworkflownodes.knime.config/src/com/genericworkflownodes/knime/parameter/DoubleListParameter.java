@@ -18,6 +18,7 @@
  */
 package com.genericworkflownodes.knime.parameter;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -26,6 +27,9 @@ import java.util.Locale;
 /**
  * The DoubleListParameter class is used to store lists of double values.
  * 
+ * The values are stored in a {@link DoubleArrayList}, lists passed to the
+ * constructor or {@link #setValue(List)} are copied into one.
+ * 
  * @author roettig
  * 
  */
@@ -45,7 +49,25 @@ public class DoubleListParameter extends NumberListParameter<Double> {
      *            The value of the parameter.
      */
     public DoubleListParameter(final String key, final List<Double> value) {
-        super(key, value, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        super(key, toDoubleArrayList(value), Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY);
+    }
+
+    private static List<Double> toDoubleArrayList(final List<Double> value) {
+        if (value == null || value instanceof DoubleArrayList) {
+            return value;
+        }
+        return new DoubleArrayList(value);
+    }
+
+    @Override
+    public void setValue(final List<Double> value) {
+        super.setValue(toDoubleArrayList(value));
+    }
+
+    @Override
+    protected List<Double> copyValue(final List<Double> value) {
+        return value == null ? null : new DoubleArrayList(value);
     }
 
     @Override
@@ -62,15 +84,15 @@ public class DoubleListParameter extends NumberListParameter<Double> {
             throws InvalidParameterValueException {
         try {
             if (s == null || s.equals("")) {
-                setValue(new ArrayList<Double>());
+                setValue(new DoubleArrayList());
                 return;
             }
-            setValue(new ArrayList<Double>());
             String[] toks = s.split(SEPARATOR_TOKEN);
-
+            DoubleArrayList values = new DoubleArrayList(toks.length);
             for (int i = 0; i < toks.length; i++) {
-                getValue().add(Double.parseDouble(toks[i]));
+                values.addDouble(Double.parseDouble(toks[i]));
             }
+            setValue(values);
         } catch (NumberFormatException e) {
             throw new InvalidParameterValueException(
                     "The given string cannot be transformed into a double list.",
@@ -83,11 +105,23 @@ public class DoubleListParameter extends NumberListParameter<Double> {
         if (isNull()) {
             return true;
         }
+        double lowerBound = getLowerBound();
+        double upperBound = getUpperBound();
+        if (val instanceof DoubleArrayList) {
+            DoubleArrayList values = (DoubleArrayList) val;
+            for (int i = 0; i < values.size(); i++) {
+                double v = values.getDouble(i);
+                if (v < lowerBound || v > upperBound) {
+                    return false;
+                }
+            }
+            return true;
+        }
 
         boolean ok = true;
 
         for (Double v : val) {
-            if (v < getLowerBound() || v > getUpperBound()) {
+            if (v < lowerBound || v > upperBound) {
                 ok = false;
             }
         }
@@ -99,29 +133,69 @@ public class DoubleListParameter extends NumberListParameter<Double> {
         if (getValue() == null) {
             return "";
         }
-        StringBuffer sb = new StringBuffer();
-        for (Double d : getValue()) {
-            sb.append(String.format(Locale.ENGLISH, "%f", d));
+        DoubleArrayList values = (DoubleArrayList) getValue();
+        StringBuilder sb = new StringBuilder(values.size()
+                * (SEPARATOR_TOKEN.length() + 12));
+        for (int i = 0; i < values.size(); i++) {
+            sb.append(String.format(Locale.ENGLISH, "%f", values.getDouble(i)));
             sb.append(SEPARATOR_TOKEN);
         }
         return sb.toString();
     }
 
+    /**
+     * Returns the values as big-endian 8 byte doubles, a compact and lossless
+     * alternative to {@link #getStringRep()} for long lists.
+     * 
+     * @return The binary representation of the values.
+     */
+    public byte[] getBinaryRep() {
+        if (getValue() == null) {
+            return new byte[0];
+        }
+        DoubleArrayList values = (DoubleArrayList) getValue();
+        ByteBuffer buffer = ByteBuffer.allocate(values.size() * 8);
+        buffer.asDoubleBuffer().put(values.toDoubleArray());
+        return buffer.array();
+    }
+
+    /**
+     * Fills the values from the representation returned by
+     * {@link #getBinaryRep()}.
+     * 
+     * @param bytes
+     *            The binary representation of the values.
+     * @throws InvalidParameterValueException
+     *             If the bytes do not represent a list of doubles.
+     */
+    public void fillFromBinaryRep(final byte[] bytes)
+            throws InvalidParameterValueException {
+        if (bytes.length % 8 != 0) {
+            throw new InvalidParameterValueException(
+                    "The given bytes cannot be transformed into a double list.");
+        }
+        double[] values = new double[bytes.length / 8];
+        ByteBuffer.wrap(bytes).asDoubleBuffer().get(values);
+        setValue(new DoubleArrayList(values));
+    }
+
     @Override
     public List<String> getStrings() {
-        List<String> ret = new ArrayList<String>();
-        for (Double d : getValue()) {
-            ret.add(String.format(Locale.ENGLISH, "%f", d));
+        DoubleArrayList values = (DoubleArrayList) getValue();
+        List<String> ret = new ArrayList<String>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            ret.add(String.format(Locale.ENGLISH, "%f", values.getDouble(i)));
         }
         return ret;
     }
 
     @Override
     public void fillFromStrings(final String[] values) {
-        setValue(new ArrayList<Double>());
+        DoubleArrayList list = new DoubleArrayList(values.length);
         for (int i = 0; i < values.length; i++) {
-            getValue().add(Double.parseDouble(values[i]));
+            list.addDouble(Double.parseDouble(values[i]));
         }
+        setValue(list);
     }
 
     @Override
@@ -0,0 +1,195 @@
+package com.genericworkflownodes.knime.parameter;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A list of int values that is backed by an <code>int[]</code>, used as value
+ * of the {@link IntegerListParameter}.
+ *
+ * Values are only boxed when accessed through the {@link java.util.List}
+ * interface, so long lists, e.g., inclusion lists of a tool, take 4 bytes per
+ * value instead of a reference and an {@link Integer} object.
+ */
+public final class IntArrayList extends AbstractList<Integer> implements
+        RandomAccess, Serializable {
+
+    /**
+     * The serial version UID.
+     */
+    private static final long serialVersionUID = 2484036741213420158L;
+
+    private int[] m_values;
+
+    private int m_size;
+
+    /**
+     * Creates an empty list.
+     */
+    public IntArrayList() {
+        this(10);
+    }
+
+    /**
+     * Creates an empty list.
+     *
+     * @param capacity
+     *            The number of values the list can hold before it grows.
+     */
+    public IntArrayList(final int capacity) {
+        m_values = new int[capacity];
+    }
+
+    /**
+     * Creates a list holding a copy of the given values.
+     *
+     * @param values
+     *            The values.
+     */
+    public IntArrayList(final int[] values) {
+        m_values = values.clone();
+        m_size = values.length;
+    }
+
+    /**
+     * Creates a list holding the values of the given collection.
+     *
+     * @param values
+     *            The values.
+     */
+    public IntArrayList(final Collection<Integer> values) {
+        if (values instanceof IntArrayList) {
+            m_values = ((IntArrayList) values).toIntArray();
+            m_size = m_values.length;
+        } else {
+            m_values = new int[values.size()];
+            for (Integer value : values) {
+                m_values[m_size++] = value;
+            }
+        }
+    }
+
+    /**
+     * Returns the value at the given position without boxing it.
+     *
+     * @param index
+     *            The position.
+     * @return The value.
+     */
+    public int getInt(final int index) {
+        checkIndex(index);
+        return m_values[index];
+    }
+
+    /**
+     * Appends the given value without boxing it.
+     *
+     * @param value
+     *            The value.
+     */
+    public void addInt(final int value) {
+        ensureCapacity(m_size + 1);
+        m_values[m_size++] = value;
+        ++modCount;
+    }
+
+    /**
+     * @return A copy of the values.
+     */
+    public int[] toIntArray() {
+        return Arrays.copyOf(m_values, m_size);
+    }
+
+    @Override
+    public Integer get(final int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public Integer set(final int index, final Integer value) {
+        checkIndex(index);
+        int previous = m_values[index];
+        m_values[index] = value;
+        return previous;
+    }
+
+    @Override
+    public void add(final int index, final Integer value) {
+        if (index < 0 || index > m_size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                    + m_size);
+        }
+        int v = value;
+        ensureCapacity(m_size + 1);
+        System.arraycopy(m_values, index, m_values, index + 1, m_size - index);
+        m_values[index] = v;
+        ++m_size;
+        ++modCount;
+    }
+
+    @Override
+    public Integer remove(final int index) {
+        checkIndex(index);
+        int previous = m_values[index];
+        System.arraycopy(m_values, index + 1, m_values, index, m_size - index
+                - 1);
+        --m_size;
+        ++modCount;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        m_size = 0;
+        ++modCount;
+    }
+
+    @Override
+    public int size() {
+        return m_size;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o instanceof IntArrayList) {
+            IntArrayList other = (IntArrayList) o;
+            if (m_size != other.m_size) {
+                return false;
+            }
+            for (int i = 0; i < m_size; ++i) {
+                if (m_values[i] != other.m_values[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // same as the java.util.List contract for boxed values
+        int hash = 1;
+        for (int i = 0; i < m_size; ++i) {
+            hash = 31 * hash + m_values[i];
+        }
+        return hash;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= m_size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                    + m_size);
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > m_values.length) {
+            m_values = Arrays.copyOf(m_values,
+                    Math.max(capacity, m_values.length * 3 / 2 + 1));
+        }
+    }
+}
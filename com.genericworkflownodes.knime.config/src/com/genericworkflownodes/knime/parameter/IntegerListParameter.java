@@ -18,6 +18,7 @@
  */
 package com.genericworkflownodes.knime.parameter;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -25,6 +26,9 @@ import java.util.List;
 /**
  * The IntegerListParameter class is used to store lists of int values.
  * 
+ * The values are stored in an {@link IntArrayList}, lists passed to the
+ * constructor or {@link #setValue(List)} are copied into one.
+ * 
  * @author roettig
  * 
  */
@@ -44,7 +48,24 @@ public class IntegerListParameter extends NumberListParameter<Integer> {
      *            The value of the parameter.
      */
     public IntegerListParameter(final String key, final List<Integer> value) {
-        super(key, value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        super(key, toIntArrayList(value), Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    private static List<Integer> toIntArrayList(final List<Integer> value) {
+        if (value == null || value instanceof IntArrayList) {
+            return value;
+        }
+        return new IntArrayList(value);
+    }
+
+    @Override
+    public void setValue(final List<Integer> value) {
+        super.setValue(toIntArrayList(value));
+    }
+
+    @Override
+    protected List<Integer> copyValue(final List<Integer> value) {
+        return value == null ? null : new IntArrayList(value);
     }
 
     @Override
@@ -61,15 +82,15 @@ public class IntegerListParameter extends NumberListParameter<Integer> {
             throws InvalidParameterValueException {
         try {
             if (s == null || s.equals("")) {
-                setValue(new ArrayList<Integer>());
+                setValue(new IntArrayList());
                 return;
             }
-            setValue(new ArrayList<Integer>());
             String[] toks = s.split(SEPARATOR_TOKEN);
-
+            IntArrayList values = new IntArrayList(toks.length);
             for (int i = 0; i < toks.length; i++) {
-                getValue().add(Integer.parseInt(toks[i]));
+                values.addInt(Integer.parseInt(toks[i]));
             }
+            setValue(values);
         } catch (NumberFormatException e) {
             throw new InvalidParameterValueException(
                     "The given string cannot be transformed into a integer list.",
@@ -82,10 +103,22 @@ public class IntegerListParameter extends NumberListParameter<Integer> {
         if (isNull()) {
             return true;
         }
+        int lowerBound = getLowerBound();
+        int upperBound = getUpperBound();
+        if (val instanceof IntArrayList) {
+            IntArrayList values = (IntArrayList) val;
+            for (int i = 0; i < values.size(); i++) {
+                int v = values.getInt(i);
+                if (v < lowerBound || v > upperBound) {
+                    return false;
+                }
+            }
+            return true;
+        }
         boolean ok = true;
 
         for (Integer v : val) {
-            if (v < getLowerBound() || v > getUpperBound()) {
+            if (v < lowerBound || v > upperBound) {
                 ok = false;
             }
         }
@@ -97,19 +130,58 @@ public class IntegerListParameter extends NumberListParameter<Integer> {
         if (getValue() == null) {
             return "";
         }
-        StringBuffer sb = new StringBuffer();
-        for (Integer d : getValue()) {
-            sb.append(String.format("%d", d));
+        IntArrayList values = (IntArrayList) getValue();
+        StringBuilder sb = new StringBuilder(values.size()
+                * (SEPARATOR_TOKEN.length() + 4));
+        for (int i = 0; i < values.size(); i++) {
+            sb.append(values.getInt(i));
             sb.append(SEPARATOR_TOKEN);
         }
         return sb.toString();
     }
 
+    /**
+     * Returns the values as big-endian 4 byte integers, a compact
+     * alternative to {@link #getStringRep()} for long lists.
+     * 
+     * @return The binary representation of the values.
+     */
+    public byte[] getBinaryRep() {
+        if (getValue() == null) {
+            return new byte[0];
+        }
+        IntArrayList values = (IntArrayList) getValue();
+        ByteBuffer buffer = ByteBuffer.allocate(values.size() * 4);
+        buffer.asIntBuffer().put(values.toIntArray());
+        return buffer.array();
+    }
+
+    /**
+     * Fills the values from the representation returned by
+     * {@link #getBinaryRep()}.
+     * 
+     * @param bytes
+     *            The binary representation of the values.
+     * @throws InvalidParameterValueException
+     *             If the bytes do not represent a list of integers.
+     */
+    public void fillFromBinaryRep(final byte[] bytes)
+            throws InvalidParameterValueException {
+        if (bytes.length % 4 != 0) {
+            throw new InvalidParameterValueException(
+                    "The given bytes cannot be transformed into a integer list.");
+        }
+        int[] values = new int[bytes.length / 4];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(values);
+        setValue(new IntArrayList(values));
+    }
+
     @Override
     public List<String> getStrings() {
-        List<String> ret = new ArrayList<String>();
-        for (Integer i : getValue()) {
-            ret.add(i.toString());
+        IntArrayList values = (IntArrayList) getValue();
+        List<String> ret = new ArrayList<String>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            ret.add(Integer.toString(values.getInt(i)));
         }
         return ret;
     }
@@ -129,9 +201,10 @@ public class IntegerListParameter extends NumberListParameter<Integer> {
 
     @Override
     public void fillFromStrings(final String[] values) {
-        setValue(new ArrayList<Integer>());
+        IntArrayList list = new IntArrayList(values.length);
         for (int i = 0; i < values.length; i++) {
-            getValue().add(Integer.parseInt(values[i]));
+            list.addInt(Integer.parseInt(values[i]));
         }
+        setValue(list);
     }
 }
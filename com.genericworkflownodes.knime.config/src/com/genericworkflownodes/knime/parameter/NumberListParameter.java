@@ -18,6 +18,7 @@
  */
 package com.genericworkflownodes.knime.parameter;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -66,6 +67,11 @@ public abstract class NumberListParameter<T extends Number> extends
         m_upperBound = upperBound;
     }
 
+    @Override
+    protected List<T> copyValue(final List<T> value) {
+        return value == null ? null : new ArrayList<T>(value);
+    }
+
     /**
      * Returns the lower bound for constrained numeric parameters.
      * 
@@ -29,7 +29,7 @@ import java.io.Serializable;
  * @param <T>
  *            The type of the stored parameter.
  */
-public abstract class Parameter<T> implements Serializable {
+public abstract class Parameter<T> implements Serializable, Cloneable {
     /**
      * The serial version UID.
      */
@@ -71,6 +71,19 @@ public abstract class Parameter<T> implements Serializable {
      */
     private boolean m_defaulted = true;
 
+    /**
+     * The value of the parameter this parameter was first copied from, i.e.,
+     * the default given by the tool descriptor for configurations handed out
+     * by the CTD cache. Only valid if {@link #m_hasDescriptorValue} is set.
+     */
+    private T m_descriptorValue;
+
+    /**
+     * Flag indicating if this parameter is a copy and knows the default value
+     * of the tool descriptor.
+     */
+    private boolean m_hasDescriptorValue;
+
     /**
      * Constructor with unique m_key of parameter and generic m_value to store.
      * 
@@ -259,6 +272,22 @@ public abstract class Parameter<T> implements Serializable {
         return m_defaulted;
     }
     
+    /**
+     * Checks whether the parameter holds the default value of the tool
+     * descriptor. Parameters that were not {@link #copy() copied} from the
+     * descriptor and file parameters, whose values are set from the ports of
+     * each execution, never hold the default value.
+     * 
+     * @return True if the value is the default value.
+     */
+    public boolean isDefaultValue() {
+        if (!m_hasDescriptorValue || this instanceof IFileParameter) {
+            return false;
+        }
+        return m_value == null ? m_descriptorValue == null : m_value
+                .equals(m_descriptorValue);
+    }
+
     /**
      * Set whether the parameters default was used.
      * 
@@ -269,6 +298,42 @@ public abstract class Parameter<T> implements Serializable {
         m_defaulted = newDefaulted;
     }
 
+    /**
+     * Creates a copy of the parameter for another node. The copy shares the
+     * key, description and restrictions with this parameter, only the value
+     * is copied if it is mutable.
+     * 
+     * @return The copy.
+     */
+    @SuppressWarnings("unchecked")
+    public Parameter<T> copy() {
+        try {
+            Parameter<T> copy = (Parameter<T>) super.clone();
+            if (!m_hasDescriptorValue) {
+                // this parameter is the one of the descriptor, whose value is
+                // never changed
+                copy.m_descriptorValue = m_value;
+                copy.m_hasDescriptorValue = true;
+            }
+            copy.m_value = copyValue(m_value);
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Copies a value of the parameter for {@link #copy()}. Immutable values
+     * are shared, which is the default.
+     * 
+     * @param value
+     *            The value to copy, may be null.
+     * @return The copied value.
+     */
+    protected T copyValue(final T value) {
+        return value;
+    }
+
     /**
      * Checks whether the supplied generic value is compatible with the data
      * type of the parameter.
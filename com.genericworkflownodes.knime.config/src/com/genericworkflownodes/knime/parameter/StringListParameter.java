@@ -57,6 +57,11 @@ public class StringListParameter extends Parameter<List<String>> implements
         validValues.clear();
     }
 
+    @Override
+    protected List<String> copyValue(final List<String> value) {
+        return value == null ? null : new ArrayList<String>(value);
+    }
+
     /**
      * Sets a list of valid values for the {@link StringListParameter}.
      * 
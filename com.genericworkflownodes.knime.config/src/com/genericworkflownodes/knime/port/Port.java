@@ -92,6 +92,31 @@ public class Port implements Serializable {
      */
     private String m_baseName;
 
+    /**
+     * Creates a new, empty port.
+     */
+    public Port() {
+    }
+
+    /**
+     * Creates a copy of a port for another node. Name and description are
+     * shared with the given port.
+     * 
+     * @param other
+     *            The port to copy.
+     */
+    public Port(final Port other) {
+        m_isOptional = other.m_isOptional;
+        m_isActive = other.m_isActive;
+        m_name = other.m_name;
+        m_description = other.m_description;
+        m_isMultiFile = other.m_isMultiFile;
+        m_types = new ArrayList<String>(other.m_types);
+        m_isPrefix = other.m_isPrefix;
+        m_linkedPort = other.m_linkedPort;
+        m_baseName = other.m_baseName;
+    }
+
     /**
      * Adds a supported {@link MIMEType} to the port.
      * 
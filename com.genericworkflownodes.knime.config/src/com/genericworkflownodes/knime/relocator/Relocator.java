@@ -19,6 +19,7 @@
 package com.genericworkflownodes.knime.relocator;
 
 import java.io.File;
+import java.io.Serializable;
 import java.net.URI;
 
 import com.genericworkflownodes.knime.config.INodeConfiguration;
@@ -38,7 +39,12 @@ import com.genericworkflownodes.knime.config.INodeConfiguration;
  * 
  * @author aiche
  */
-public class Relocator {
+public class Relocator implements Serializable {
+
+    /**
+     * The serialVersionUID.
+     */
+    private static final long serialVersionUID = -3772865297001586798L;
 
     private static String TEMP = "%TEMP%";
     private static String PWD = "%PWD%";
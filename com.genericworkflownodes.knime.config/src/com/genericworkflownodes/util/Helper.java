@@ -27,6 +27,8 @@ import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.Format;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -166,18 +168,13 @@ public final class Helper {
      * @throws IOException
      *             In case of problems when creating the directory.
      */
-    public static synchronized File getTempDir(final String directory,
+    public static File getTempDir(final String directory,
             final String prefix, boolean autodelete) throws IOException {
 
-        int num = randomNumberGenerator.nextInt(Integer.MAX_VALUE);
-        File dir = new File(directory + File.separator
-                + String.format("%s%06d", prefix, num));
-        while (dir.exists()) {
-            num = randomNumberGenerator.nextInt(Integer.MAX_VALUE);
-            dir = new File(directory + File.separator
-                    + String.format("%s%06d", prefix, num));
-        }
-        dir.mkdirs();
+        // the name is chosen and created atomically, no locking needed
+        File dir = Files.createTempDirectory(
+                Files.createDirectories(Paths.get(directory)), prefix)
+                .toFile();
 
         if (autodelete) {
             dir.deleteOnExit();
@@ -198,7 +195,7 @@ public final class Helper {
      * @throws IOException
      *             In case of problems when creating the directory.
      */
-    public static synchronized File getTempDir(final String prefix,
+    public static File getTempDir(final String prefix,
             boolean autodelete) throws IOException {
     	return getTempDir(System.getProperty("java.io.tmpdir"), prefix,
     				autodelete);
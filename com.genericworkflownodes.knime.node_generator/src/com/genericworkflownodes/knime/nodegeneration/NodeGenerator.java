@@ -23,11 +23,14 @@
 package com.genericworkflownodes.knime.nodegeneration;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -38,7 +41,10 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.dom4j.DocumentException;
 
+import com.genericworkflownodes.knime.config.DescriptorIndex;
 import com.genericworkflownodes.knime.config.INodeConfiguration;
+import com.genericworkflownodes.knime.config.reader.CTDConfigurationReader;
+import com.genericworkflownodes.knime.config.reader.InvalidCTDFileException;
 import com.genericworkflownodes.knime.nodegeneration.exceptions.UnknownMimeTypeException;
 import com.genericworkflownodes.knime.nodegeneration.model.directories.Directory;
 import com.genericworkflownodes.knime.nodegeneration.model.directories.Directory.PathnameIsNoDirectoryException;
@@ -501,6 +507,50 @@ public class NodeGenerator {
             new FragmentP2InfTemplate(executablePaths).write(fragmentDir
                     .getP2Inf());
 
+            // payload/descriptors.index
+            writeDescriptorIndex(fragmentDir.getBinaryResourcesDirectory());
+        }
+    }
+
+    /**
+     * Writes the index of the CTDs contained in the descriptors directory of a
+     * payload, if there is one. Dynamic node sets read the index instead of
+     * parsing every CTD when the node repository is populated.
+     * 
+     * @param payloadDir
+     *            The extracted payload.
+     * @throws IOException
+     */
+    private void writeDescriptorIndex(File payloadDir) throws IOException {
+        File descriptorsDir = new File(payloadDir,
+                NodesSourceDirectory.DESCRIPTORS_DIRECTORY);
+        if (!descriptorsDir.isDirectory()) {
+            return;
+        }
+
+        List<File> ctdFiles = new ArrayList<File>(FileUtils.listFiles(
+                descriptorsDir, new String[] { "ctd" }, true));
+        Collections.sort(ctdFiles);
+        DescriptorIndex index = new DescriptorIndex();
+        for (File ctdFile : ctdFiles) {
+            String path = descriptorsDir.toURI().relativize(ctdFile.toURI())
+                    .getPath();
+            try (InputStream in = new FileInputStream(ctdFile)) {
+                index.add(path, new CTDConfigurationReader().read(in));
+            } catch (InvalidCTDFileException e) {
+                // without an index the node sets fall back to reading the CTDs
+                LOGGER.warning("Could not index " + ctdFile
+                        + ", no descriptor index will be written: "
+                        + e.getMessage());
+                return;
+            }
+        }
+
+        LOGGER.info(String.format("Indexed %d descriptors in %s",
+                ctdFiles.size(), descriptorsDir));
+        try (OutputStream out = new FileOutputStream(new File(payloadDir,
+                DescriptorIndex.FILE_NAME))) {
+            index.write(out);
         }
     }
 
@@ -0,0 +1,160 @@
+package com.genericworkflownodes.knime.base.data.port;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.filestore.FileStore;
+import org.knime.core.data.filestore.FileStoreFactory;
+import org.knime.core.data.uri.IURIPortObject;
+import org.knime.core.data.uri.URIContent;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.port.PortObjectZipInputStream;
+import org.knime.core.node.port.PortObjectZipOutputStream;
+import org.knime.core.node.port.PortUtil;
+
+/**
+ * Tests for the {@link SharedFileStoreURIPortObject} and its serializer.
+ */
+public class SharedFileStoreURIPortObjectTest {
+
+    private FileStoreFactory m_factory;
+
+    private FileStore m_first;
+
+    private FileStore m_second;
+
+    /**
+     * Four files, the first two in the first file store, the third in the
+     * second one and the last one not managed by a file store.
+     */
+    private FileStoreReferenceURIPortObject m_input;
+
+    @Before
+    public void setUp() throws Exception {
+        m_factory = FileStoreFactory.createNotInWorkflowFileStoreFactory();
+        m_first = m_factory.createFileStore("first");
+        m_second = m_factory.createFileStore("second");
+        m_input = new FileStoreReferenceURIPortObject(Arrays.asList(
+                content(m_first, "a.txt"), content(m_first, "b.txt"),
+                content(m_second, "c.txt"),
+                new URIContent(new File("d.txt").toURI(), "txt")),
+                Arrays.asList("a.txt", "b.txt", "c.txt", ""), Arrays.asList(0,
+                        0, 1, -1), Arrays.asList(m_first, m_second));
+    }
+
+    @After
+    public void tearDown() {
+        m_factory.close();
+    }
+
+    private static URIContent content(FileStore fileStore, String name) {
+        return new URIContent(new File(fileStore.getFile(), name).toURI(),
+                "txt");
+    }
+
+    /**
+     * Returns the file stores referenced by a port object, in the order they
+     * are referenced by its files.
+     */
+    private static List<FileStore> fileStores(IURIPortObject po) {
+        List<FileStore> fileStores = new ArrayList<FileStore>();
+        FileStoreReferenceURIPortObject.collect(po, 0, po.getURIContents()
+                .size(), new ArrayList<URIContent>(), new ArrayList<String>(),
+                new ArrayList<Integer>(), fileStores);
+        return fileStores;
+    }
+
+    private static void assertSameFiles(IURIPortObject expected, int from,
+            FileStoreReferenceURIPortObject actual) {
+        for (int i = 0; i < actual.getURIContents().size(); ++i) {
+            URIContent content = actual.getURIContents().get(i);
+            URIContent expectedContent = expected.getURIContents().get(
+                    from + i);
+            assertEquals(expectedContent.getURI(), content.getURI());
+            assertEquals(expectedContent.getExtension(),
+                    content.getExtension());
+        }
+    }
+
+    @Test
+    public void testShareRange() {
+        SharedFileStoreURIPortObject shared = SharedFileStoreURIPortObject
+                .share(m_input, 1, 3);
+
+        assertEquals(2, shared.getURIContents().size());
+        assertSameFiles(m_input, 1, shared);
+        assertEquals("b.txt", shared.getRelativePath(0));
+        assertEquals("c.txt", shared.getRelativePath(1));
+        assertEquals(Integer.valueOf(0), shared.getFileStoreIndex(0));
+        assertEquals(Integer.valueOf(1), shared.getFileStoreIndex(1));
+        List<FileStore> fileStores = fileStores(shared);
+        assertEquals(2, fileStores.size());
+        assertSame(m_first, fileStores.get(0));
+        assertSame(m_second, fileStores.get(1));
+    }
+
+    @Test
+    public void testShareRangeReferencesOnlyItsFileStores() {
+        SharedFileStoreURIPortObject shared = SharedFileStoreURIPortObject
+                .share(m_input, 2, 4);
+
+        assertEquals(2, shared.getURIContents().size());
+        assertSameFiles(m_input, 2, shared);
+        // the second file store of the input is the first one of the range
+        assertEquals(Integer.valueOf(0), shared.getFileStoreIndex(0));
+        assertEquals("", shared.getRelativePath(1));
+        assertEquals(Integer.valueOf(-1), shared.getFileStoreIndex(1));
+        List<FileStore> fileStores = fileStores(shared);
+        assertEquals(1, fileStores.size());
+        assertSame(m_second, fileStores.get(0));
+    }
+
+    @Test
+    public void testShareEmptyRange() {
+        SharedFileStoreURIPortObject shared = SharedFileStoreURIPortObject
+                .share(m_input, 2, 2);
+
+        assertTrue(shared.getURIContents().isEmpty());
+        assertTrue(fileStores(shared).isEmpty());
+    }
+
+    @Test
+    public void testSerializerRoundTrip() throws Exception {
+        SharedFileStoreURIPortObject shared = SharedFileStoreURIPortObject
+                .share(m_input, 1, 4);
+        SharedFileStoreURIPortObjectSerializer serializer =
+                new SharedFileStoreURIPortObjectSerializer();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PortObjectZipOutputStream out = PortUtil
+                .getPortObjectZipOutputStream(bytes);
+        serializer.savePortObject(shared, out, new ExecutionMonitor());
+        out.close();
+        PortObjectZipInputStream in = PortUtil
+                .getPortObjectZipInputStream(new ByteArrayInputStream(bytes
+                        .toByteArray()));
+        SharedFileStoreURIPortObject loaded = serializer.loadPortObject(in,
+                shared.getSpec(), new ExecutionMonitor());
+        in.close();
+
+        assertEquals(3, loaded.getURIContents().size());
+        assertSameFiles(shared, 0, loaded);
+        for (int i = 0; i < 3; ++i) {
+            assertEquals(shared.getRelativePath(i), loaded.getRelativePath(i));
+            assertEquals(shared.getFileStoreIndex(i),
+                    loaded.getFileStoreIndex(i));
+        }
+        assertSame(shared.getSpec(), loaded.getSpec());
+    }
+}
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
@@ -160,6 +161,47 @@ public class AsynchronousToolExecutorTest {
                 dummyTask.isCompleted());
     }
 
+    @Test
+    public void testWaitAfterKillReturnsOnceTheTaskReturned() throws Exception {
+        final AtomicBoolean returned = new AtomicBoolean(false);
+        DummyToolExecutor slowToDie = new DummyToolExecutor() {
+            @Override
+            public int execute() throws ToolExecutionFailedException {
+                int rc = super.execute();
+                // simulates a process tree that takes a while to go away
+                long end = System.currentTimeMillis() + 300;
+                while (System.currentTimeMillis() < end) {
+                    try {
+                        Thread.sleep(end - System.currentTimeMillis());
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                }
+                returned.set(true);
+                return rc;
+            }
+        };
+        slowToDie.setSleepTime(500000);
+        asyncExecutor = new AsynchronousToolExecutor(slowToDie);
+        asyncExecutor.invoke();
+        while (!slowToDie.isStarted()) {
+            Thread.sleep(10);
+        }
+        asyncExecutor.kill();
+        asyncExecutor.waitUntilFinished();
+        assertTrue("Waiting threads were released before the task returned",
+                returned.get());
+    }
+
+    @Test
+    public void testKillBeforeInvokeReleasesWaitingThreads() throws Exception {
+        asyncExecutor.kill();
+        asyncExecutor.invoke();
+        asyncExecutor.waitUntilFinished();
+        assertFalse("The underlying task should not have completed",
+                dummyTask.isCompleted());
+    }
+
     private void busyWait() {
         while (!asyncExecutor.isDone()) {
             try {
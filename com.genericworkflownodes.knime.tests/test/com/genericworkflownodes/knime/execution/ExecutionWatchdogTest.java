@@ -0,0 +1,54 @@
+package com.genericworkflownodes.knime.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.knime.core.node.ExecutionMonitor;
+
+import com.genericworkflownodes.knime.execution.impl.DummyToolExecutor;
+
+/**
+ * Tests for the {@link ExecutionWatchdog}.
+ */
+public class ExecutionWatchdogTest {
+
+    @Test
+    public void testCancelKillsExecution() throws Exception {
+        DummyToolExecutor dummyTask = new DummyToolExecutor();
+        dummyTask.setSleepTime(500000);
+        AsynchronousToolExecutor asyncExecutor = new AsynchronousToolExecutor(
+                dummyTask);
+        ExecutionMonitor exec = new ExecutionMonitor();
+
+        asyncExecutor.invoke();
+        ExecutionWatchdog.watch(asyncExecutor, exec);
+        exec.getProgressMonitor().setExecuteCanceled();
+        asyncExecutor.waitUntilFinished();
+
+        assertTrue("The underlying task should have been killed",
+                dummyTask.isKilled());
+        assertFalse("The underlying task should not have completed",
+                dummyTask.isCompleted());
+    }
+
+    @Test
+    public void testFinishedExecutionsAreReleased() throws Exception {
+        DummyToolExecutor dummyTask = new DummyToolExecutor();
+        dummyTask.setSleepTime(100);
+        AsynchronousToolExecutor asyncExecutor = new AsynchronousToolExecutor(
+                dummyTask);
+
+        asyncExecutor.invoke();
+        ExecutionWatchdog.watch(asyncExecutor, new ExecutionMonitor());
+        asyncExecutor.waitUntilFinished();
+        ExecutionWatchdog.unwatch(asyncExecutor);
+
+        assertTrue("The underlying task did not complete",
+                dummyTask.isCompleted());
+        assertFalse("The underlying task should not have been killed",
+                dummyTask.isKilled());
+        assertEquals(0, ExecutionWatchdog.getNumberOfWatchedExecutions());
+    }
+}
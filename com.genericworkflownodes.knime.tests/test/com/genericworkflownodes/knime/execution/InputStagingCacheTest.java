@@ -0,0 +1,187 @@
+package com.genericworkflownodes.knime.execution;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.ExecutionMonitor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests for the {@link InputStagingCache} against a local http server that
+ * supports ranges.
+ */
+public class InputStagingCacheTest {
+
+    private File m_dir;
+
+    private HttpServer m_server;
+
+    private byte[] m_content;
+
+    /**
+     * The method and range of each request.
+     */
+    private final List<String> m_requests = Collections
+            .synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() throws IOException {
+        m_dir = Files.createTempDirectory("gkn-staging-test").toFile();
+        m_content = new byte[100000];
+        for (int i = 0; i < m_content.length; ++i) {
+            m_content[i] = (byte) (i * 31);
+        }
+        m_server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        m_server.createContext("/", this::handle);
+        m_server.start();
+    }
+
+    @After
+    public void tearDown() {
+        m_server.stop(0);
+        FileUtils.deleteQuietly(m_dir);
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        m_requests.add(exchange.getRequestMethod() + " " + range);
+        exchange.getResponseHeaders().add("ETag", "\"v1\"");
+        int offset = 0;
+        int status = 200;
+        if (range != null && "\"v1\"".equals(exchange.getRequestHeaders()
+                .getFirst("If-Range"))) {
+            offset = Integer.parseInt(range.replaceAll("\\D", ""));
+            status = 206;
+        }
+        byte[] body = new byte[m_content.length - offset];
+        System.arraycopy(m_content, offset, body, 0, body.length);
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().add("Content-Length",
+                    Integer.toString(body.length));
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    private URI uri(final String name) {
+        return URI.create("http://127.0.0.1:"
+                + m_server.getAddress().getPort() + "/data/" + name);
+    }
+
+    private int countDownloads() {
+        int downloads = 0;
+        for (String request : m_requests) {
+            if (request.startsWith("GET")) {
+                downloads++;
+            }
+        }
+        return downloads;
+    }
+
+    @Test
+    public void testRepeatedStagingDownloadsOnce() throws Exception {
+        InputStagingCache cache = new InputStagingCache(m_dir, 100, 2);
+        File first = cache.stage(uri("sample.mzML"), new ExecutionMonitor());
+        File second = cache.stage(uri("sample.mzML"), new ExecutionMonitor());
+
+        assertEquals("sample.mzML", first.getName());
+        assertEquals(first, second);
+        assertArrayEquals(m_content, Files.readAllBytes(first.toPath()));
+        assertEquals(1, countDownloads());
+
+        // the same content under another name is stored once
+        File other = cache.stage(uri("copy.mzML"), new ExecutionMonitor());
+        assertEquals(first.getParentFile(), other.getParentFile());
+        assertEquals(2, countDownloads());
+    }
+
+    @Test
+    public void testPartialDownloadIsResumed() throws Exception {
+        InputStagingCache cache = new InputStagingCache(m_dir, 100, 2);
+        URI uri = uri("sample.mzML");
+        File staged = cache.stage(uri, new ExecutionMonitor());
+        String object = staged.getParentFile().getName();
+        FileUtils.deleteQuietly(new File(m_dir, "objects"));
+        // simulate an interrupted download of the same version
+        File partialDir = new File(m_dir, "partial");
+        File[] refs = new File(m_dir, "refs").listFiles();
+        String refKey = refs[0].getName();
+        Files.write(new File(partialDir, refKey + ".part").toPath(),
+                Arrays.copyOf(m_content, 40000));
+        Files.write(new File(partialDir, refKey + ".validator").toPath(),
+                Files.readAllLines(refs[0].toPath()).get(0).getBytes(StandardCharsets.UTF_8));
+        m_requests.clear();
+
+        cache = new InputStagingCache(m_dir, 100, 2);
+        staged = cache.stage(uri, new ExecutionMonitor());
+
+        assertTrue(m_requests.contains("GET bytes=40000-"));
+        assertEquals(object, staged.getParentFile().getName());
+        assertArrayEquals(m_content, Files.readAllBytes(staged.toPath()));
+        assertFalse(new File(partialDir, refKey + ".part").exists());
+    }
+
+    @Test
+    public void testUnpinnedFilesAreEvicted() throws Exception {
+        // a budget of zero keeps only the files in use
+        InputStagingCache cache = new InputStagingCache(m_dir, 0, 2);
+        File staged = cache.stage(uri("a.txt"), new ExecutionMonitor());
+        assertTrue(staged.exists());
+
+        cache.release(staged);
+        m_content[0]++;
+        File other = cache.stage(uri("b.txt"), new ExecutionMonitor());
+
+        assertFalse(staged.exists());
+        assertTrue(other.exists());
+        assertEquals(m_content.length, cache.getTotalBytes());
+    }
+
+    @Test
+    public void testModifiedCopyIsStagedAgain() throws Exception {
+        InputStagingCache cache = new InputStagingCache(m_dir, 100, 2);
+        File staged = cache.stage(uri("sample.mzML"), new ExecutionMonitor());
+        cache.release(staged);
+
+        // a tool that ignores the read-only flag
+        staged.setWritable(true);
+        Files.write(staged.toPath(), new byte[] { 1, 2, 3 });
+        File again = cache.stage(uri("sample.mzML"), new ExecutionMonitor());
+
+        assertArrayEquals(m_content, Files.readAllBytes(again.toPath()));
+        assertEquals(2, countDownloads());
+        assertEquals(m_content.length, cache.getTotalBytes());
+
+        // the same content through another URI is checked, too
+        again.setWritable(true);
+        Files.write(again.toPath(), new byte[] { 1, 2, 3 });
+        File other = cache.stage(uri("copy.mzML"), new ExecutionMonitor());
+        assertArrayEquals(m_content, Files.readAllBytes(other.toPath()));
+        assertEquals(m_content.length, cache.getTotalBytes());
+    }
+}
@@ -0,0 +1,105 @@
+package com.genericworkflownodes.knime.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link JobDirectoryService}.
+ */
+public class JobDirectoryServiceTest {
+
+    private File m_root;
+
+    @Before
+    public void setUp() throws IOException {
+        m_root = Files.createTempDirectory("gkn-jobdirs").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(m_root);
+    }
+
+    @Test
+    public void testConcurrentAllocationIsUnique() throws Exception {
+        final JobDirectoryService service = new JobDirectoryService(
+                m_root.toPath(), 1024 * 1024);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<File>> futures = new ArrayList<Future<File>>();
+        for (int i = 0; i < 200; ++i) {
+            futures.add(pool.submit(() -> service.allocate("Some Tool/1")));
+        }
+        Set<File> dirs = new HashSet<File>();
+        for (Future<File> future : futures) {
+            File dir = future.get();
+            assertTrue(dir.isDirectory());
+            assertTrue(dir.getName().startsWith("Some_Tool_1_"));
+            dirs.add(dir);
+        }
+        pool.shutdown();
+        assertEquals(200, dirs.size());
+    }
+
+    @Test
+    public void testReleasedDirectoryIsDeletedInBackground() throws Exception {
+        JobDirectoryService service = new JobDirectoryService(m_root.toPath(),
+                1024 * 1024);
+        File dir = service.allocate("tool");
+        Files.write(new File(dir, "out.txt").toPath(), new byte[1000]);
+        // a leftover of an earlier session
+        File leftover = new File(new File(m_root, JobDirectoryService.TRASH_DIR),
+                "old");
+        assertTrue(leftover.mkdirs());
+
+        service.release(dir);
+        assertFalse(dir.exists());
+        service.awaitEmptyTrash();
+
+        assertEquals(0, service.getPendingBytes());
+        assertFalse(leftover.exists());
+        assertEquals(Collections.emptyList(), list(JobDirectoryService.TRASH_DIR));
+    }
+
+    @Test
+    public void testDirectoryIsDeletedRightAwayWithoutBudget()
+            throws Exception {
+        JobDirectoryService service = new JobDirectoryService(m_root.toPath(),
+                1024 * 1024);
+        service.setBudget(0);
+        File dir = service.allocate("tool");
+        Files.write(new File(dir, "out.txt").toPath(), new byte[1000]);
+
+        service.release(dir);
+
+        assertFalse(dir.exists());
+        assertEquals(0, service.getPendingBytes());
+        assertFalse(new File(m_root, JobDirectoryService.TRASH_DIR).exists());
+    }
+
+    private List<String> list(final String dir) {
+        String[] names = new File(m_root, dir).list();
+        List<String> result = new ArrayList<String>();
+        if (names != null) {
+            Collections.addAll(result, names);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+package com.genericworkflownodes.knime.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link ToolOutputLog}.
+ */
+public class ToolOutputLogTest {
+
+    @Test
+    public void testSmallOutputIsKeptCompletely() {
+        ToolOutputLog log = new ToolOutputLog(100, 1024 * 1024);
+        log.addLines(Arrays.asList("a", "b", "c"));
+        assertEquals(Arrays.asList("a", "b", "c"), log.getRetainedLines());
+        assertEquals(0, log.getOmittedLineCount());
+    }
+
+    @Test
+    public void testHeadAndTailAreRetained() {
+        ToolOutputLog log = new ToolOutputLog(8, 1024 * 1024);
+        for (int i = 0; i < 100; ++i) {
+            log.addLine("line " + i);
+        }
+        LinkedList<String> retained = log.getRetainedLines();
+        // 2 head lines + marker + 6 tail lines
+        assertEquals(9, retained.size());
+        assertEquals("line 0", retained.get(0));
+        assertEquals("line 1", retained.get(1));
+        assertTrue(retained.get(2).contains("92 lines omitted"));
+        assertEquals("line 94", retained.get(3));
+        assertEquals("line 99", retained.getLast());
+        assertEquals(100, log.getTotalLineCount());
+        assertEquals(92, log.getOmittedLineCount());
+    }
+
+    @Test
+    public void testCharLimit() {
+        ToolOutputLog log = new ToolOutputLog(1000, 40);
+        for (int i = 0; i < 100; ++i) {
+            log.addLine("0123456789");
+        }
+        // 1 head line (10 of 10 chars) + marker + 3 tail lines (30 chars)
+        assertEquals(5, log.getRetainedLines().size());
+        assertEquals(96, log.getOmittedLineCount());
+    }
+}
@@ -0,0 +1,148 @@
+package com.genericworkflownodes.knime.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link ToolResultCache}.
+ */
+public class ToolResultCacheTest {
+
+    private File m_dir;
+
+    @Before
+    public void setUp() throws IOException {
+        m_dir = Files.createTempDirectory("gkn-result-cache-test").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(m_dir);
+    }
+
+    private File write(final String name, final String content)
+            throws IOException {
+        File file = new File(m_dir, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()),
+                StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testKeyDependsOnContentNotPath() throws Exception {
+        File a = write("a/in.txt", "content");
+        File b = write("b/in.txt", "content");
+        File c = write("c/in.txt", "other");
+        String keyA = new ToolResultCache.Key(false).add("p", "1")
+                .addFile("in", a).build();
+        String keyB = new ToolResultCache.Key(false).add("p", "1")
+                .addFile("in", b).build();
+        String keyC = new ToolResultCache.Key(false).add("p", "1")
+                .addFile("in", c).build();
+        assertEquals(keyA, keyB);
+        assertNotEquals(keyA, keyC);
+        assertNotEquals(keyA, new ToolResultCache.Key(false).add("p", "2")
+                .addFile("in", a).build());
+    }
+
+    @Test
+    public void testStoreAndRestore() throws Exception {
+        ToolResultCache cache = new ToolResultCache(new File(m_dir, "cache"),
+                10);
+        File out = write("run1/out.txt", "result");
+        write("run1/index.1", "part1");
+        write("run1/index.2", "part2");
+        ToolResultCache.Outputs outputs = new ToolResultCache.Outputs();
+        outputs.addFiles(Arrays.asList(out));
+        outputs.addPrefix(new File(m_dir, "run1/index"));
+
+        assertFalse(cache.restore("key", outputs));
+        cache.store("key", outputs);
+
+        File restored = new File(m_dir, "run2/result.txt");
+        restored.getParentFile().mkdirs();
+        ToolResultCache.Outputs target = new ToolResultCache.Outputs();
+        target.addFiles(Arrays.asList(restored));
+        target.addPrefix(new File(m_dir, "run2/idx"));
+        assertTrue(cache.restore("key", target));
+        assertEquals("result", read(restored));
+        assertEquals("part1", read(new File(m_dir, "run2/idx.1")));
+        assertEquals("part2", read(new File(m_dir, "run2/idx.2")));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        ToolResultCache cache = new ToolResultCache(new File(m_dir, "cache"),
+                1);
+        char[] data = new char[400 * 1024];
+        File out = write("out.txt", new String(data));
+        ToolResultCache.Outputs outputs = new ToolResultCache.Outputs();
+        outputs.addFiles(Arrays.asList(out));
+
+        cache.store("first", outputs);
+        cache.store("second", outputs);
+        // touch the first entry, the second one is now least recently used
+        assertTrue(cache.restore("first", outputs));
+        cache.store("third", outputs);
+
+        assertTrue(cache.restore("first", outputs));
+        assertFalse(cache.restore("second", outputs));
+        assertTrue(cache.restore("third", outputs));
+    }
+
+    @Test
+    public void testRestoredOutputsDoNotShareTheEntry() throws Exception {
+        ToolResultCache cache = new ToolResultCache(new File(m_dir, "cache"),
+                10);
+        File out = write("run1/out.txt", "result");
+        ToolResultCache.Outputs outputs = new ToolResultCache.Outputs();
+        outputs.addFiles(Arrays.asList(out));
+        cache.store("key", outputs);
+
+        File restored = write("run2/out.txt", "");
+        ToolResultCache.Outputs target = new ToolResultCache.Outputs();
+        target.addFiles(Arrays.asList(restored));
+        assertTrue(cache.restore("key", target));
+
+        // a later node changes the restored output in place
+        Files.write(restored.toPath(), "changed".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        File again = write("run3/out.txt", "");
+        ToolResultCache.Outputs third = new ToolResultCache.Outputs();
+        third.addFiles(Arrays.asList(again));
+        assertTrue(cache.restore("key", third));
+        assertEquals("result", read(again));
+    }
+
+    @Test
+    public void testFileDigestsAreBounded() throws Exception {
+        File file = write("in.txt", "content");
+        for (int i = 0; i <= ToolResultCache.MAX_FILE_DIGESTS; i++) {
+            file.setLastModified(1000L * (i + 1));
+            ToolResultCache.digest(file);
+        }
+        assertEquals(ToolResultCache.MAX_FILE_DIGESTS,
+                ToolResultCache.getFileDigestCount());
+    }
+}
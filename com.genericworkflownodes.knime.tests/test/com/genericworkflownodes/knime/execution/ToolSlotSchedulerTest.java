@@ -0,0 +1,58 @@
+package com.genericworkflownodes.knime.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Tests for the {@link ToolSlotScheduler}.
+ */
+public class ToolSlotSchedulerTest {
+
+    @Test
+    public void testOversizedRequestRunsAlone() throws Exception {
+        ToolSlotScheduler scheduler = new ToolSlotScheduler(4, 0);
+        ToolSlotScheduler.Slot slot = scheduler.acquire(16, 0,
+                new ExecutionMonitor());
+        assertEquals(4, slot.getCpuSlots());
+        assertEquals(0, scheduler.getFreeCpuSlots());
+        slot.release();
+        // releasing twice must not free more than was taken
+        slot.release();
+        assertEquals(4, scheduler.getFreeCpuSlots());
+    }
+
+    @Test
+    public void testWaitsUntilSlotsAreReleased() throws Exception {
+        final ToolSlotScheduler scheduler = new ToolSlotScheduler(2, 1000);
+        ToolSlotScheduler.Slot first = scheduler.acquire(1, 800,
+                new ExecutionMonitor());
+        final CountDownLatch admitted = new CountDownLatch(1);
+        Thread waiting = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    scheduler.acquire(1, 800, new ExecutionMonitor())
+                            .release();
+                    admitted.countDown();
+                } catch (Exception e) {
+                    // the latch is not counted down
+                }
+            }
+        };
+        waiting.start();
+        // enough CPU slots, but not enough memory
+        assertFalse(admitted.await(300, TimeUnit.MILLISECONDS));
+        assertEquals(1, scheduler.getQueueLength());
+        first.release();
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        waiting.join();
+        assertEquals(0, scheduler.getRunningCount());
+    }
+}
@@ -0,0 +1,95 @@
+package com.genericworkflownodes.knime.execution.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.genericworkflownodes.knime.cliwrapper.CLIElement;
+import com.genericworkflownodes.knime.cliwrapper.CLIMapping;
+import com.genericworkflownodes.knime.config.NodeConfiguration;
+import com.genericworkflownodes.knime.parameter.ListParameter;
+import com.genericworkflownodes.knime.parameter.Parameter;
+import com.genericworkflownodes.knime.parameter.StringListParameter;
+
+/**
+ * Compares generating the command line of a tool with thousands of CLI
+ * mappings from its compiled {@link CLIPlan} with interpreting the CLI
+ * elements for every command line. Not part of the test suite, run it as Java
+ * application from the test bundle.
+ */
+public final class CLIPlanBenchmark {
+
+    private CLIPlanBenchmark() {
+    }
+
+    /**
+     * Interprets the CLI like the generator did before plans were compiled.
+     */
+    private static List<String> interpret(NodeConfiguration config) {
+        List<String> commands = new ArrayList<String>();
+        for (CLIElement element : config.getCLI().getCLIElement()) {
+            if (element.getMapping().size() == 0) {
+                commands.addAll(Arrays.asList(element.getOptionIdentifier()
+                        .split(" ")));
+                continue;
+            }
+            for (CLIMapping mapping : element.getMapping()) {
+                if (config.getParameterKeys().contains(
+                        mapping.getReferenceName())) {
+                    Parameter<?> p = config.getParameter(mapping
+                            .getReferenceName());
+                    for (String value : ((ListParameter) p).getStrings()) {
+                        commands.add(element.getOptionIdentifier());
+                        commands.add(value);
+                    }
+                }
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Runs the benchmark and prints the timings.
+     *
+     * @param args
+     *            Ignored.
+     * @throws Exception
+     *             If the command line can not be generated.
+     */
+    public static void main(final String[] args) throws Exception {
+        int nOptions = 5000;
+        List<CLIElement> elements = new ArrayList<CLIElement>();
+        for (int i = 0; i < nOptions; ++i) {
+            elements.add(CLIPlanTest.element("-fixed" + i + " value", false));
+            elements.add(CLIPlanTest.element("-o" + i, true, "p" + i));
+        }
+        NodeConfiguration config = CLIPlanTest.config(elements
+                .toArray(new CLIElement[elements.size()]));
+        for (int i = 0; i < nOptions; ++i) {
+            config.addParameter("p" + i, new StringListParameter("p" + i,
+                    Arrays.asList("a" + i, "b" + i)));
+        }
+        if (!interpret(config).equals(
+                CLIPlanTest.strings(CLIPlanTest.generate(config)))) {
+            throw new IllegalStateException(
+                    "The compiled plan generated a different command line.");
+        }
+
+        // warm up, then time a command line each
+        long interpretNanos = Long.MAX_VALUE;
+        long planNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 5; ++round) {
+            long start = System.nanoTime();
+            interpret(config);
+            interpretNanos = Math.min(interpretNanos, System.nanoTime()
+                    - start);
+            start = System.nanoTime();
+            CLIPlanTest.generate(config);
+            planNanos = Math.min(planNanos, System.nanoTime() - start);
+        }
+        System.out.println(String.format(
+                "%d CLI mappings: interpreted %.2f ms, compiled plan %.2f ms (%.0fx)",
+                nOptions, interpretNanos / 1e6, planNanos / 1e6,
+                (double) interpretNanos / Math.max(1, planNanos)));
+    }
+}
@@ -0,0 +1,136 @@
+package com.genericworkflownodes.knime.execution.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.genericworkflownodes.knime.cliwrapper.CLI;
+import com.genericworkflownodes.knime.cliwrapper.CLIElement;
+import com.genericworkflownodes.knime.cliwrapper.CLIMapping;
+import com.genericworkflownodes.knime.commandline.CommandLineElement;
+import com.genericworkflownodes.knime.commandline.impl.CommandLineFile;
+import com.genericworkflownodes.knime.config.NodeConfiguration;
+import com.genericworkflownodes.knime.parameter.BoolParameter;
+import com.genericworkflownodes.knime.parameter.FileListParameter;
+import com.genericworkflownodes.knime.parameter.FileParameter;
+import com.genericworkflownodes.knime.parameter.IntegerParameter;
+import com.genericworkflownodes.knime.parameter.StringListParameter;
+import com.genericworkflownodes.knime.parameter.StringParameter;
+
+/**
+ * Tests for the {@link CLIPlan} as used by the {@link CLICommandGenerator}.
+ * See {@link CLIPlanBenchmark} for a comparison with interpreting the CLI.
+ */
+public class CLIPlanTest {
+
+    static CLIElement element(String option, boolean isList,
+            String... references) {
+        CLIElement element = new CLIElement();
+        element.setOptionIdentifier(option);
+        element.setIsList(isList);
+        for (String reference : references) {
+            CLIMapping mapping = new CLIMapping();
+            mapping.setReferenceName(reference);
+            element.getMapping().add(mapping);
+        }
+        return element;
+    }
+
+    static NodeConfiguration config(CLIElement... elements) {
+        NodeConfiguration config = new NodeConfiguration();
+        CLI cli = new CLI();
+        cli.getCLIElement().addAll(Arrays.asList(elements));
+        config.setCLI(cli);
+        return config;
+    }
+
+    static List<CommandLineElement> generate(NodeConfiguration config)
+            throws Exception {
+        CLICommandGenerator generator = new CLICommandGenerator();
+        generator.nodeConfig = config;
+        return generator.processCLI();
+    }
+
+    static List<String> strings(List<CommandLineElement> commands) {
+        List<String> strings = new ArrayList<String>();
+        for (CommandLineElement command : commands) {
+            strings.add(command.getStringRepresentation());
+        }
+        return strings;
+    }
+
+    @Test
+    public void testFixedArgumentsAndFlags() throws Exception {
+        NodeConfiguration config = config(element("run --fast", false),
+                element("-v", false, "verbose"),
+                element("-q", false, "quiet"));
+        config.addParameter("verbose", new BoolParameter("verbose", true));
+        config.addParameter("quiet", new BoolParameter("quiet", false));
+
+        assertEquals(Arrays.asList("run", "--fast", "-v"),
+                strings(generate(config)));
+    }
+
+    @Test
+    public void testMappedParameters() throws Exception {
+        NodeConfiguration config = config(element("-t", false, "threads"),
+                element("-in", true, "in"), element("-ids", false, "ids"),
+                element("-unset", false, "unset"),
+                element("-missing", false, "missing"),
+                element("", false, "out"));
+        config.addParameter("threads", new IntegerParameter("threads", 4));
+        config.addParameter("in", new FileListParameter("in", Arrays.asList(
+                "a.txt", "b.txt")));
+        config.addParameter("ids",
+                new StringListParameter("ids", Arrays.asList("x", "y")));
+        config.addParameter("unset", new StringParameter("unset",
+                (String) null));
+        config.addParameter("out", new FileParameter("out", "c.txt"));
+
+        List<CommandLineElement> commands = generate(config);
+        assertEquals(Arrays.asList("-t", "4", "-in", "a.txt", "-in", "b.txt",
+                "-ids", "x", "y", "c.txt"), strings(commands));
+        assertTrue(commands.get(3) instanceof CommandLineFile);
+        assertEquals(0, commands.get(3).getSequenceNumber());
+        assertEquals(1, commands.get(5).getSequenceNumber());
+        assertFalse(commands.get(1).isSequenced());
+        assertTrue(commands.get(9) instanceof CommandLineFile);
+    }
+
+    @Test
+    public void testMappedListsMustHaveTheSameSize() throws Exception {
+        NodeConfiguration config = config(element("-p", true, "a", "b"));
+        config.addParameter("a",
+                new StringListParameter("a", Arrays.asList("1", "2")));
+        config.addParameter("b",
+                new StringListParameter("b", Arrays.asList("1")));
+        try {
+            generate(config);
+            fail("Lists of different size were accepted.");
+        } catch (Exception e) {
+            assertEquals("All mapped value lists must have the same size.",
+                    e.getMessage());
+        }
+
+        // empty lists are treated like unset parameters
+        config.addParameter("b", new StringListParameter("b",
+                new ArrayList<String>()));
+        assertEquals(Arrays.asList("-p", "1", "-p", "2"),
+                strings(generate(config)));
+    }
+
+    @Test
+    public void testPlanIsCompiledOncePerCLI() {
+        NodeConfiguration config = config(element("-v", false));
+        CLIPlan plan = CLIPlan.of(config.getCLI());
+        assertSame(plan, CLIPlan.of(new NodeConfiguration(config).getCLI()));
+    }
+}
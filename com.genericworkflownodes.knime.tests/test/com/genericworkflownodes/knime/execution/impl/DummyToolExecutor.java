@@ -169,6 +169,15 @@ public class DummyToolExecutor implements IToolExecutor {
         return completed;
     }
 
+    /**
+     * Returns {@code true} if the method {@link #execute()} started waiting.
+     * 
+     * @return
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
     /**
      * Returns {@code true} if the method {@link #kill()} was invoked.
      * 
@@ -0,0 +1,104 @@
+package com.genericworkflownodes.knime.execution.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link ProcessOutputReader} with buffers small enough that
+ * line terminators and characters are split across chunks.
+ */
+public class ProcessOutputReaderTest {
+
+    /**
+     * A stream returning at most the given number of bytes per read, like a
+     * pipe that is written in small pieces.
+     */
+    private static final class TricklingInputStream extends InputStream {
+        private final InputStream m_in;
+
+        private final int m_maxRead;
+
+        private TricklingInputStream(final byte[] bytes, final int maxRead) {
+            m_in = new ByteArrayInputStream(bytes);
+            m_maxRead = maxRead;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return m_in.read();
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len)
+                throws IOException {
+            return m_in.read(b, off, Math.min(len, m_maxRead));
+        }
+    }
+
+    private static List<String> read(final String output, final int chunkSize,
+            final int maxRead) {
+        final List<String> lines = new ArrayList<String>();
+        new ProcessOutputReader(new TricklingInputStream(
+                output.getBytes(StandardCharsets.UTF_8), maxRead),
+                batch -> lines.addAll(batch), StandardCharsets.UTF_8,
+                chunkSize).run();
+        return lines;
+    }
+
+    private static void assertLines(final String output,
+            final String... expected) {
+        for (int chunkSize = 4; chunkSize <= 8; ++chunkSize) {
+            for (int maxRead = 1; maxRead <= chunkSize; ++maxRead) {
+                assertEquals("chunk size " + chunkSize + ", reads of "
+                        + maxRead, Arrays.asList(expected),
+                        read(output, chunkSize, maxRead));
+            }
+        }
+    }
+
+    @Test
+    public void testLineTerminators() {
+        assertLines("a\nb\rc\r\nd", "a", "b", "c", "d");
+        assertLines("a\r\n\r\nb\n\nc\r\rd\n", "a", "", "b", "", "c", "", "d");
+    }
+
+    @Test
+    public void testCarriageReturnLineFeedAcrossChunks() {
+        // with a chunk of 4 bytes the '\r' ends the first chunk
+        assertEquals(Arrays.asList("abc", "d"), read("abc\r\nd", 4, 4));
+        assertLines("abc\r\nd\r\n", "abc", "d");
+        assertLines("abc\r", "abc");
+    }
+
+    @Test
+    public void testLinesLongerThanTheChunk() {
+        assertLines("0123456789abcdef\nghijklmnopqrstuvwxyz",
+                "0123456789abcdef", "ghijklmnopqrstuvwxyz");
+    }
+
+    @Test
+    public void testMultiByteCharactersAcrossChunks() {
+        // two, three and four bytes per character, the last one decodes to a
+        // surrogate pair
+        String line = "äöü €€ 😀x";
+        assertLines(line + "\n" + line + "\r\n" + line, line, line, line);
+    }
+
+    @Test
+    public void testMalformedInputIsReplaced() {
+        final List<String> lines = new ArrayList<String>();
+        new ProcessOutputReader(new TricklingInputStream(new byte[] { 'a',
+                (byte) 0xe2, (byte) 0x82, '\n', 'b' }, 1),
+                batch -> lines.addAll(batch), StandardCharsets.UTF_8, 4).run();
+        assertEquals(Arrays.asList("a�", "b"), lines);
+    }
+}
@@ -0,0 +1,57 @@
+package com.genericworkflownodes.knime.execution.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.genericworkflownodes.knime.execution.ToolExecutionMetrics;
+
+/**
+ * Tests for the {@link ProcessTreeSampler}.
+ */
+public class ProcessTreeSamplerTest {
+
+    @Test
+    public void testSamplesProcessTree() throws Exception {
+        Assume.assumeTrue(new File("/proc/self/stat").exists());
+        // burn some CPU in the started shell
+        Process process = new ProcessBuilder("/bin/sh", "-c",
+                "i=0; while [ $i -lt 200000 ]; do i=$((i+1)); done")
+                .start();
+        ProcessTreeSampler sampler = ProcessTreeSampler.start(process);
+        assertEquals(0, process.waitFor());
+        ToolExecutionMetrics metrics = new ToolExecutionMetrics();
+        sampler.stop(metrics);
+
+        assertTrue(metrics.getWallMillis() >= 0);
+        assertTrue(metrics.getUserCpuMillis() >= 0);
+        assertTrue(metrics.getSystemCpuMillis() >= 0);
+        assertTrue(metrics.getPeakRssBytes() > 0);
+    }
+
+    @Test
+    public void testPhasesAreSummed() {
+        ToolExecutionMetrics metrics = new ToolExecutionMetrics();
+        metrics.addPhase(ToolExecutionMetrics.PHASE_QUEUE, 2000000);
+        metrics.addPhase(ToolExecutionMetrics.PHASE_SPAWN, 1000000);
+        metrics.addPhase(ToolExecutionMetrics.PHASE_QUEUE, 3000000);
+
+        ToolExecutionMetrics other = new ToolExecutionMetrics();
+        other.setProcessMetrics(1000000, 10, 5, 100, -1, -1);
+        metrics.add(other);
+        metrics.add(other);
+
+        assertEquals(Long.valueOf(5), metrics.getPhaseMillis().get(
+                ToolExecutionMetrics.PHASE_QUEUE));
+        assertEquals(Long.valueOf(1), metrics.getPhaseMillis().get(
+                ToolExecutionMetrics.PHASE_SPAWN));
+        assertEquals(2, metrics.getWallMillis());
+        assertEquals(20, metrics.getUserCpuMillis());
+        assertEquals(100, metrics.getPeakRssBytes());
+        assertEquals(-1, metrics.getReadBytes());
+    }
+}
@@ -0,0 +1,232 @@
+package com.genericworkflownodes.knime.execution.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link WarmContainerPool} against a stub docker command that
+ * records its invocations.
+ */
+public class WarmContainerPoolTest {
+
+    private File m_dir;
+
+    private File m_log;
+
+    private String m_docker;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue(new File("/bin/sh").canExecute());
+        m_dir = Files.createTempDirectory("gkn-docker-test").toFile();
+        m_log = new File(m_dir, "calls.log");
+        File docker = new File(m_dir, "docker");
+        // a container is "running" while its state file exists
+        String script = "#!/bin/sh\n"
+                + "echo \"$@\" >> '" + m_log.getPath() + "'\n"
+                + "cd '" + m_dir.getPath() + "'\n"
+                + "case \"$1\" in\n"
+                + "  inspect) [ -f \"$4.state\" ] && echo true && exit 0; exit 1;;\n"
+                + "  run) case \"$9\" in slow*) while [ ! -f pulled ]; do sleep 0.05; done;; esac\n"
+                + "       touch \"$4.state\"; echo 0123456789abcdef;;\n"
+                + "  rm) rm -f \"$3.state\";;\n"
+                + "  exec) [ -f killfail ] && exit 1; exit 0;;\n"
+                + "esac\n";
+        Files.write(docker.toPath(), script.getBytes(StandardCharsets.UTF_8));
+        docker.setExecutable(true);
+        m_docker = docker.getPath();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(m_dir);
+    }
+
+    private List<String> calls(final String command) throws IOException {
+        List<String> calls = new ArrayList<String>();
+        if (!m_log.exists()) {
+            return calls;
+        }
+        for (String line : Files.readAllLines(m_log.toPath(),
+                StandardCharsets.UTF_8)) {
+            if (line.startsWith(command + " ")) {
+                calls.add(line);
+            }
+        }
+        return calls;
+    }
+
+    @Test
+    public void testContainerIsStartedOnce() throws Exception {
+        WarmContainerPool pool = new WarmContainerPool();
+        String first = pool.acquire(m_docker, "image:1", "/tmp/root",
+                Collections.<String, String> emptyMap());
+        String second = pool.acquire(m_docker, "image:1", "/tmp/root",
+                Collections.<String, String> emptyMap());
+
+        assertEquals(first, second);
+        assertEquals(WarmContainerPool.getContainerName("image:1", "/tmp/root"),
+                first);
+        assertEquals(1, calls("run").size());
+        assertTrue(calls("run").get(0).contains("-v /tmp/root:/tmp/root"));
+        assertEquals(1, pool.size());
+
+        // another mount root needs another container
+        String other = pool.acquire(m_docker, "image:1", "/data",
+                Collections.<String, String> emptyMap());
+        assertNotEquals(first, other);
+        assertEquals(2, calls("run").size());
+
+        pool.shutdown();
+        assertEquals(0, pool.size());
+        assertFalse(new File(m_dir, first + ".state").exists());
+    }
+
+    @Test
+    public void testDiscardedContainerIsRestarted() throws Exception {
+        WarmContainerPool pool = new WarmContainerPool();
+        String name = pool.acquire(m_docker, "image:1", "/tmp/root",
+                Collections.<String, String> emptyMap());
+        pool.discard(name);
+        assertEquals(0, pool.size());
+
+        assertEquals(name, pool.acquire(m_docker, "image:1",
+                "/tmp/root", Collections.<String, String> emptyMap()));
+        assertEquals(2, calls("run").size());
+    }
+
+    @Test
+    public void testKillLeavesSharedContainerRunning() throws Exception {
+        WarmContainerPool pool = new WarmContainerPool();
+        String first = pool.acquire(m_docker, "image:1", "/tmp/root",
+                Collections.<String, String> emptyMap());
+        String second = pool.acquire(m_docker, "image:1", "/tmp/root",
+                Collections.<String, String> emptyMap());
+        assertEquals(first, second);
+        int removals = calls("rm").size();
+
+        assertTrue(pool.killExecution(first, "/tmp/root/job/.gkn_docker.pid"));
+        assertEquals(1, calls("exec").size());
+        assertTrue(calls("exec").get(0).endsWith(
+                "/tmp/root/job/.gkn_docker.pid"));
+        assertEquals(removals, calls("rm").size());
+        assertTrue(new File(m_dir, first + ".state").exists());
+
+        // releasing does not remove the container either
+        pool.release(first);
+        pool.release(second);
+        assertEquals(1, pool.size());
+        assertEquals(removals, calls("rm").size());
+    }
+
+    @Test
+    public void testFailedKillRetiresContainer() throws Exception {
+        WarmContainerPool pool = new WarmContainerPool();
+        String canceled = pool.acquire(m_docker, "image:1", "/tmp/root",
+                Collections.<String, String> emptyMap());
+        String running = pool.acquire(m_docker, "image:1", "/tmp/root",
+                Collections.<String, String> emptyMap());
+        assertTrue(new File(m_dir, "killfail").createNewFile());
+
+        assertFalse(pool.killExecution(canceled,
+                "/tmp/root/job/.gkn_docker.pid"));
+        // the next execution gets a new container
+        String next = pool.acquire(m_docker, "image:1", "/tmp/root",
+                Collections.<String, String> emptyMap());
+        assertEquals(canceled + "-1", next);
+        assertEquals(2, pool.size());
+
+        // the retired container is removed once nobody uses it anymore
+        pool.release(canceled);
+        assertTrue(new File(m_dir, running + ".state").exists());
+        pool.release(running);
+        assertFalse(new File(m_dir, running + ".state").exists());
+        assertTrue(new File(m_dir, next + ".state").exists());
+        assertEquals(1, pool.size());
+
+        pool.shutdown();
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void testSlowStartDoesNotBlockOtherContainers() throws Exception {
+        final WarmContainerPool pool = new WarmContainerPool();
+        String fast = pool.acquire(m_docker, "image:1", "/tmp/root",
+                Collections.<String, String> emptyMap());
+        final String[] slow = new String[1];
+        Thread starter = new Thread(() -> {
+            try {
+                slow[0] = pool.acquire(m_docker, "slow:1", "/tmp/root",
+                        Collections.<String, String> emptyMap());
+            } catch (IOException e) {
+                // checked below
+            }
+        });
+        starter.start();
+        for (int i = 0; i < 200 && calls("run").size() < 2; i++) {
+            Thread.sleep(25);
+        }
+        assertEquals("the slow image is being pulled", 2, calls("run").size());
+
+        // other containers are usable while the image is pulled
+        assertEquals(fast, pool.acquire(m_docker, "image:1", "/tmp/root",
+                Collections.<String, String> emptyMap()));
+        assertTrue(pool.killExecution(fast, "/tmp/root/job/.gkn_docker.pid"));
+        pool.release(fast);
+        String other = pool.acquire(m_docker, "image:2", "/tmp/root",
+                Collections.<String, String> emptyMap());
+        assertTrue(new File(m_dir, other + ".state").exists());
+        assertTrue(starter.isAlive());
+
+        assertTrue(new File(m_dir, "pulled").createNewFile());
+        starter.join(10000);
+        assertEquals(WarmContainerPool.getContainerName("slow:1", "/tmp/root"),
+                slow[0]);
+        assertTrue(new File(m_dir, slow[0] + ".state").exists());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testKillScriptKillsTheProcessTree() throws Exception {
+        Assume.assumeTrue(new File("/proc/self/task").isDirectory());
+        File pidFile = new File(m_dir, "tool.pid");
+        File childPidFile = new File(m_dir, "child.pid");
+        // the tool starts a child, wrapped like in the generated command
+        Process tool = new ProcessBuilder("sh", "-c",
+                DockerCommandGenerator.DOCKER_PID_WRAPPER, pidFile.getPath(),
+                "sh", "-c", "sleep 60 & echo $! > '" + childPidFile.getPath()
+                        + "'; wait").start();
+        for (int i = 0; i < 100 && !childPidFile.exists(); i++) {
+            Thread.sleep(50);
+        }
+        Thread.sleep(100);
+        long child = Long.parseLong(new String(Files.readAllBytes(childPidFile
+                .toPath()), StandardCharsets.UTF_8).trim());
+        assertTrue(ProcessHandle.of(child).isPresent());
+
+        Process kill = new ProcessBuilder("sh", "-c",
+                WarmContainerPool.KILL_TREE_SCRIPT, pidFile.getPath()).start();
+        assertEquals(0, kill.waitFor());
+        tool.waitFor();
+        for (int i = 0; i < 100 && ProcessHandle.of(child).isPresent(); i++) {
+            Thread.sleep(50);
+        }
+        assertFalse(ProcessHandle.of(child).isPresent());
+    }
+}
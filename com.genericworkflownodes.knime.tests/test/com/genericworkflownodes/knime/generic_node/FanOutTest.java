@@ -0,0 +1,180 @@
+package com.genericworkflownodes.knime.generic_node;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+
+import com.genericworkflownodes.knime.execution.IToolExecutor;
+import com.genericworkflownodes.knime.execution.ToolExecutionFailedException;
+import com.genericworkflownodes.knime.execution.impl.DummyToolExecutor;
+
+/**
+ * Tests for running a tool once per input file with {@link FanOut}, using
+ * {@link DummyToolExecutor}s as runs.
+ */
+public class FanOutTest {
+
+    private static List<Integer> indices(final int runs) {
+        List<Integer> pending = new ArrayList<Integer>(runs);
+        for (int r = 0; r < runs; r++) {
+            pending.add(r);
+        }
+        return pending;
+    }
+
+    private static String[] names(final int runs) {
+        String[] names = new String[runs];
+        for (int r = 0; r < runs; r++) {
+            names[r] = "in" + r + ".mzML";
+        }
+        return names;
+    }
+
+    @Test
+    public void testZippedListsMustHaveTheSameLength() throws Exception {
+        assertEquals(0, FanOut.getNumberOfRuns(Collections.<Integer> emptyList()));
+        assertEquals(3, FanOut.getNumberOfRuns(Arrays.asList(3, 3, 3)));
+        try {
+            FanOut.getNumberOfRuns(Arrays.asList(3, 2));
+            fail("Lists of different lengths must be rejected");
+        } catch (InvalidSettingsException e) {
+            assertTrue(e.getMessage().contains("(3 and 2 files)"));
+        }
+    }
+
+    @Test
+    public void testClashingNamesGetTheRunAsSuffix() {
+        Set<String> used = new HashSet<String>();
+        assertEquals("sample", FanOut.getUniqueBaseName(used, "sample", 0));
+        assertEquals("other", FanOut.getUniqueBaseName(used, "other", 1));
+        // equal names from different input directories
+        assertEquals("sample_3", FanOut.getUniqueBaseName(used, "sample", 2));
+        assertEquals("sample_4", FanOut.getUniqueBaseName(used, "sample", 3));
+    }
+
+    @Test
+    public void testOutputIsCollectedInInputOrder() throws Exception {
+        final int runs = 4;
+        final DummyToolExecutor[] executors = new DummyToolExecutor[runs];
+        final List<Integer> finishOrder = Collections
+                .synchronizedList(new ArrayList<Integer>());
+        for (int r = 0; r < runs; r++) {
+            executors[r] = new DummyToolExecutor();
+            executors[r].setSleepTime(50);
+        }
+        // the second worker runs the others while the first run is busy
+        executors[0].setSleepTime(400);
+        Integer[] retcodes = new Integer[runs];
+
+        FanOut.execute(indices(runs), runs, retcodes, 2, r -> {
+            int retcode = executors[r].execute();
+            finishOrder.add(r);
+            return retcode;
+        }, new ExecutionMonitor());
+
+        assertEquals(Arrays.asList(1, 2, 3, 0), finishOrder);
+        List<String> stdout = new ArrayList<String>();
+        List<String> stderr = new ArrayList<String>();
+        assertEquals(-1, FanOut.collectOutput(executors, names(runs),
+                retcodes, stdout, stderr));
+        assertEquals(2 * runs, stdout.size());
+        for (int r = 0; r < runs; r++) {
+            assertEquals("=== Run " + (r + 1) + " of 4: in" + r + ".mzML ===",
+                    stdout.get(2 * r));
+            assertEquals(executors[r].getToolOutput().getFirst(),
+                    stdout.get(2 * r + 1));
+            assertEquals(stdout.get(2 * r), stderr.get(2 * r));
+        }
+    }
+
+    @Test
+    public void testRunsAreSkippedOnceARunFailed() throws Exception {
+        final int runs = 5;
+        final DummyToolExecutor[] executors = new DummyToolExecutor[runs];
+        for (int r = 0; r < runs; r++) {
+            executors[r] = new DummyToolExecutor();
+            executors[r].setSleepTime(10);
+        }
+        executors[1].setReturnCode(3);
+        Integer[] retcodes = new Integer[runs];
+
+        // a single worker runs one after the other
+        FanOut.execute(indices(runs), runs, retcodes, 1,
+                r -> executors[r].execute(), new ExecutionMonitor());
+
+        assertEquals(Integer.valueOf(0), retcodes[0]);
+        assertEquals(Integer.valueOf(3), retcodes[1]);
+        for (int r = 2; r < runs; r++) {
+            assertNull("Run " + r + " should have been skipped", retcodes[r]);
+            assertFalse(executors[r].isCompleted());
+        }
+
+        List<String> stdout = new ArrayList<String>();
+        List<String> stderr = new ArrayList<String>();
+        assertEquals(1, FanOut.collectOutput(executors, names(runs),
+                retcodes, stdout, stderr));
+        // only the executed runs are part of the failure output
+        assertEquals(Arrays.asList("=== Run 1 of 5: in0.mzML ===",
+                executors[0].getToolOutput().getFirst(),
+                "=== Run 2 of 5: in1.mzML ===",
+                executors[1].getToolOutput().getFirst()), stdout);
+        assertEquals(4, stderr.size());
+    }
+
+    @Test
+    public void testFailingRunIsReportedAfterTheOthersFinished()
+            throws Exception {
+        final int runs = 3;
+        final DummyToolExecutor[] executors = new DummyToolExecutor[runs];
+        for (int r = 0; r < runs; r++) {
+            executors[r] = new DummyToolExecutor();
+            executors[r].setSleepTime(300);
+        }
+        Integer[] retcodes = new Integer[runs];
+
+        try {
+            FanOut.execute(indices(runs), runs, retcodes, 2, r -> {
+                if (r == 0) {
+                    // fails while the second run is executed
+                    Thread.sleep(100);
+                    throw new ToolExecutionFailedException("failed");
+                }
+                return executors[r].execute();
+            }, new ExecutionMonitor());
+            fail("The failure of the first run must be reported");
+        } catch (ToolExecutionFailedException e) {
+            // expected
+        }
+        // the second run was already running and completed
+        assertTrue(executors[1].isCompleted());
+        assertEquals(Integer.valueOf(0), retcodes[1]);
+        assertNull(retcodes[0]);
+        assertNull(retcodes[2]);
+    }
+
+    @Test
+    public void testSingleRunsAreNotReexecuted() throws Exception {
+        // runs that were executed while being prepared are not pending
+        IToolExecutor[] executors = new IToolExecutor[] {
+                new DummyToolExecutor(), new DummyToolExecutor() };
+        Integer[] retcodes = new Integer[] { 0, null };
+        FanOut.execute(Arrays.asList(1), 2, retcodes, 2,
+                r -> executors[r].execute(), new ExecutionMonitor());
+        assertEquals(Integer.valueOf(0), retcodes[1]);
+        assertEquals(-1, FanOut.collectOutput(executors, names(2), retcodes,
+                new ArrayList<String>(), new ArrayList<String>()));
+    }
+}
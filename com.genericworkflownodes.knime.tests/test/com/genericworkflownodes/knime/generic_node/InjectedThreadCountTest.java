@@ -0,0 +1,56 @@
+package com.genericworkflownodes.knime.generic_node;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.genericworkflownodes.knime.parameter.IntegerParameter;
+
+/**
+ * Tests for the {@link InjectedThreadCount}.
+ */
+public class InjectedThreadCountTest {
+
+    @Test
+    public void testUserValueIsRestored() throws Exception {
+        IntegerParameter threads = new IntegerParameter("threads", 1);
+        threads.setValue(4);
+        assertFalse(threads.isDefaulted());
+
+        InjectedThreadCount injected = new InjectedThreadCount(threads);
+        assertEquals(6, injected.inject(6));
+        assertEquals(Integer.valueOf(6), threads.getValue());
+
+        injected.restore();
+        assertEquals(Integer.valueOf(4), threads.getValue());
+        assertFalse(threads.isDefaulted());
+    }
+
+    @Test
+    public void testDefaultedFlagIsRestored() throws Exception {
+        IntegerParameter threads = new IntegerParameter("threads", 1);
+        assertTrue(threads.isDefaulted());
+
+        InjectedThreadCount injected = new InjectedThreadCount(threads);
+        injected.inject(8);
+        assertFalse(threads.isDefaulted());
+
+        injected.restore();
+        assertEquals(Integer.valueOf(1), threads.getValue());
+        assertTrue(threads.isDefaulted());
+    }
+
+    @Test
+    public void testBoundsAreRespected() throws Exception {
+        IntegerParameter threads = new IntegerParameter("threads", 4);
+        threads.setLowerBound(2);
+        threads.setUpperBound(8);
+        InjectedThreadCount injected = new InjectedThreadCount(threads);
+        assertEquals(8, injected.inject(32));
+        assertEquals(2, injected.inject(1));
+        injected.restore();
+        assertEquals(Integer.valueOf(4), threads.getValue());
+    }
+}
@@ -0,0 +1,151 @@
+package com.genericworkflownodes.knime.generic_node;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.Test;
+import org.knime.core.node.NodeSettings;
+
+import com.genericworkflownodes.knime.parameter.DoubleListParameter;
+import com.genericworkflownodes.knime.parameter.IntegerListParameter;
+import com.genericworkflownodes.knime.parameter.InvalidParameterValueException;
+import com.genericworkflownodes.knime.parameter.Parameter;
+
+/**
+ * Tests storing parameter values in the node settings by
+ * {@link GenericKnimeNodeModel#saveParameter} and
+ * {@link GenericKnimeNodeModel#loadParameter}.
+ */
+public class ParameterSettingsTest {
+
+    private static final String KEY = "list";
+
+    private static final String BINARY_KEY = GenericKnimeNodeModel.GENERIC_KNIME_NODES_BINARY_LIST
+            + KEY;
+
+    private static List<Double> createDoubles(final int size) {
+        List<Double> values = new ArrayList<Double>(size);
+        for (int i = 0; i < size; ++i) {
+            values.add(i / 3.0);
+        }
+        return values;
+    }
+
+    private static List<Integer> createInts(final int size) {
+        List<Integer> values = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; ++i) {
+            values.add(i * 7 - 100);
+        }
+        return values;
+    }
+
+    @Test
+    public void testShortListIsOnlyStoredAsString() throws Exception {
+        int size = GenericKnimeNodeModel.BINARY_LIST_THRESHOLD - 1;
+        NodeSettings settings = new NodeSettings("test");
+        GenericKnimeNodeModel.saveParameter(settings, KEY,
+                new IntegerListParameter(KEY, createInts(size)));
+
+        assertTrue(settings.containsKey(KEY));
+        assertFalse(settings.containsKey(BINARY_KEY));
+
+        IntegerListParameter loaded = new IntegerListParameter(KEY,
+                new ArrayList<Integer>());
+        GenericKnimeNodeModel.loadParameter(settings, KEY, loaded);
+        assertEquals(createInts(size), loaded.getValue());
+    }
+
+    @Test
+    public void testLongListIsOnlyStoredAsBinary() throws Exception {
+        int size = GenericKnimeNodeModel.BINARY_LIST_THRESHOLD;
+        NodeSettings settings = new NodeSettings("test");
+        IntegerListParameter param = new IntegerListParameter(KEY,
+                createInts(size));
+        GenericKnimeNodeModel.saveParameter(settings, KEY, param);
+
+        assertEquals(
+                GenericKnimeNodeModel.getBinaryListMarker(param.getBinaryRep()),
+                settings.getString(KEY));
+        assertTrue(settings.containsKey(BINARY_KEY));
+
+        IntegerListParameter loaded = new IntegerListParameter(KEY,
+                new ArrayList<Integer>());
+        GenericKnimeNodeModel.loadParameter(settings, KEY, loaded);
+        assertEquals(createInts(size), loaded.getValue());
+    }
+
+    @Test
+    public void testPrecisionDoesNotDependOnTheListLength() throws Exception {
+        for (int size : new int[] {
+                GenericKnimeNodeModel.BINARY_LIST_THRESHOLD - 1,
+                GenericKnimeNodeModel.BINARY_LIST_THRESHOLD,
+                GenericKnimeNodeModel.BINARY_LIST_THRESHOLD * 5 }) {
+            NodeSettings settings = new NodeSettings("test");
+            GenericKnimeNodeModel.saveParameter(settings, KEY,
+                    new DoubleListParameter(KEY, createDoubles(size)));
+
+            DoubleListParameter loaded = new DoubleListParameter(KEY,
+                    new ArrayList<Double>());
+            GenericKnimeNodeModel.loadParameter(settings, KEY, loaded);
+            assertEquals(createDoubles(size), loaded.getValue());
+        }
+    }
+
+    @Test
+    public void testBinaryNotMatchingTheMarkerIsRejected() throws Exception {
+        NodeSettings settings = new NodeSettings("test");
+        GenericKnimeNodeModel.saveParameter(settings, KEY,
+                new IntegerListParameter(KEY, createInts(
+                        GenericKnimeNodeModel.BINARY_LIST_THRESHOLD)));
+        IntegerListParameter other = new IntegerListParameter(KEY, createInts(
+                GenericKnimeNodeModel.BINARY_LIST_THRESHOLD + 1));
+        settings.addString(BINARY_KEY, Base64.getEncoder().encodeToString(
+                other.getBinaryRep()));
+
+        IntegerListParameter loaded = new IntegerListParameter(KEY,
+                new ArrayList<Integer>());
+        try {
+            GenericKnimeNodeModel.loadParameter(settings, KEY, loaded);
+            fail("A binary not matching the marker was loaded.");
+        } catch (InvalidParameterValueException e) {
+            assertTrue(loaded.getValue().isEmpty());
+        }
+    }
+
+    @Test
+    public void testFlowVariableOverridesBinaryValue() throws Exception {
+        NodeSettings settings = new NodeSettings("test");
+        GenericKnimeNodeModel.saveParameter(settings, KEY,
+                new IntegerListParameter(KEY, createInts(
+                        GenericKnimeNodeModel.BINARY_LIST_THRESHOLD * 2)));
+        // a flow variable replaces the value stored under the key
+        settings.addString(KEY, "1" + Parameter.SEPARATOR_TOKEN + "2"
+                + Parameter.SEPARATOR_TOKEN);
+
+        IntegerListParameter loaded = new IntegerListParameter(KEY,
+                new ArrayList<Integer>());
+        GenericKnimeNodeModel.loadParameter(settings, KEY, loaded);
+        assertEquals(2, loaded.getValue().size());
+        assertEquals(Integer.valueOf(2), loaded.getValue().get(1));
+    }
+
+    @Test
+    public void testSettingsOfOlderVersionsAreLoaded() throws Exception {
+        int size = GenericKnimeNodeModel.BINARY_LIST_THRESHOLD * 2;
+        // older versions only stored the string
+        NodeSettings settings = new NodeSettings("test");
+        settings.addString(KEY,
+                new IntegerListParameter(KEY, createInts(size)).getStringRep());
+
+        IntegerListParameter loaded = new IntegerListParameter(KEY,
+                new ArrayList<Integer>());
+        GenericKnimeNodeModel.loadParameter(settings, KEY, loaded);
+        assertEquals(createInts(size), loaded.getValue());
+    }
+}
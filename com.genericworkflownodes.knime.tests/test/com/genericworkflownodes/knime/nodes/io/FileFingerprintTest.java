@@ -0,0 +1,115 @@
+package com.genericworkflownodes.knime.nodes.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link FileFingerprint} and the {@link ReferencedFileRegistry}.
+ */
+public class FileFingerprintTest {
+
+    private File m_dir;
+
+    private Path m_file;
+
+    @Before
+    public void setUp() throws IOException {
+        m_dir = Files.createTempDirectory("gkn-fingerprint-test").toFile();
+        m_file = m_dir.toPath().resolve("raw.mzML");
+        byte[] content = new byte[5 * 1024 * 1024];
+        Arrays.fill(content, (byte) 7);
+        Files.write(m_file, content);
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(m_dir);
+    }
+
+    /**
+     * Overwrites a byte in a sampled block and restores the modification time.
+     */
+    private void modifyInPlace(final long position) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(m_file);
+        try (RandomAccessFile file = new RandomAccessFile(m_file.toFile(), "rw")) {
+            file.seek(position);
+            file.write(8);
+        }
+        Files.setLastModifiedTime(m_file, modified);
+    }
+
+    @Test
+    public void testSizeAndTimeDetectModifications() throws Exception {
+        FileFingerprint fingerprint = FileFingerprint.of(m_file, false);
+        assertTrue(fingerprint.matches());
+
+        Files.write(m_file, new byte[] { 1 });
+        assertFalse(fingerprint.matches());
+
+        Files.delete(m_file);
+        assertFalse(fingerprint.matches());
+    }
+
+    @Test
+    public void testSampledHashDetectsModificationsInPlace() throws Exception {
+        FileFingerprint plain = FileFingerprint.of(m_file, false);
+        FileFingerprint sampled = FileFingerprint.of(m_file, true);
+
+        modifyInPlace(Files.size(m_file) - 1);
+
+        assertTrue(plain.matches());
+        assertFalse(sampled.matches());
+    }
+
+    @Test
+    public void testRecentlyModifiedFilesAreMutable() throws Exception {
+        assertTrue(FileFingerprint.isMutable(m_file));
+        assertTrue(FileFingerprint.isMutable(m_dir.toPath()));
+
+        Files.setLastModifiedTime(m_file, FileTime.fromMillis(
+                System.currentTimeMillis() - 60000));
+        assertFalse(FileFingerprint.isMutable(m_file));
+    }
+
+    @Test
+    public void testRegistryVerifiesReferencedFiles() throws Exception {
+        ReferencedFileRegistry registry = new ReferencedFileRegistry();
+        FileFingerprint fingerprint = FileFingerprint.of(m_file, true);
+        registry.register(fingerprint);
+        ReferencedFileRegistry.save(m_dir, Arrays.asList(fingerprint));
+
+        registry = new ReferencedFileRegistry();
+        List<FileFingerprint> loaded = registry.load(m_dir);
+        assertEquals(fingerprint.toString(), loaded.get(0).toString());
+        registry.verify(m_file.toFile());
+        // files that were not imported by reference are not checked
+        registry.verify(new File(m_dir, "unknown"));
+
+        modifyInPlace(0);
+        boolean failed = false;
+        try {
+            registry.verify(m_file.toFile());
+        } catch (IOException e) {
+            failed = true;
+        }
+        assertTrue(failed);
+
+        registry.unregister(loaded.get(0));
+        registry.verify(m_file.toFile());
+    }
+}
@@ -0,0 +1,132 @@
+package com.genericworkflownodes.knime.nodes.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Tests for the {@link FileTransferEngine}.
+ */
+public class FileTransferEngineTest {
+
+    private File m_dir;
+
+    @Before
+    public void setUp() throws IOException {
+        m_dir = Files.createTempDirectory("gkn-export-test").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(m_dir);
+    }
+
+    private Path createFile(final String name, final int size)
+            throws IOException {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return Files.write(m_dir.toPath().resolve(name), content);
+    }
+
+    private File[] listTargets() {
+        return new File(m_dir, "out").listFiles();
+    }
+
+    @Test
+    public void testFilesAreLinkedOnSameFileSystem() throws Exception {
+        FileTransferEngine engine = new FileTransferEngine().setHardLinks(true);
+        for (int i = 0; i < 10; ++i) {
+            Path source = createFile("in" + i + ".txt", 1000 * i);
+            engine.add(source, m_dir.toPath().resolve("out/in" + i + ".txt"));
+        }
+        engine.run(new ExecutionMonitor());
+
+        assertEquals(10, engine.getLinkedFiles());
+        assertEquals(10, listTargets().length);
+        assertArrayEquals(Files.readAllBytes(m_dir.toPath().resolve("in9.txt")),
+                Files.readAllBytes(m_dir.toPath().resolve("out/in9.txt")));
+    }
+
+    @Test
+    public void testCopiesAreVerifiedAndReplaceTargets() throws Exception {
+        Path source = createFile("big.bin", 3 * 1024 * 1024 + 17);
+        Path target = m_dir.toPath().resolve("out/big.bin");
+        Files.createDirectories(target.getParent());
+        Files.write(target, new byte[] { 1, 2, 3 });
+
+        FileTransferEngine engine = new FileTransferEngine().setHardLinks(
+                false).setVerifyChecksums(true).setParallelism(2);
+        engine.add(source, target);
+        engine.run(new ExecutionMonitor());
+
+        assertEquals(0, engine.getLinkedFiles());
+        assertArrayEquals(Files.readAllBytes(source), Files.readAllBytes(target));
+        assertEquals(Files.getLastModifiedTime(source),
+                Files.getLastModifiedTime(target));
+        // no temporary files are left behind
+        assertEquals(1, listTargets().length);
+    }
+
+    @Test
+    public void testFilesAreCopiedByDefault() throws Exception {
+        Path source = createFile("in.txt", 1000);
+        FileTransferEngine engine = new FileTransferEngine();
+        engine.add(source, m_dir.toPath().resolve("out/in.txt"));
+        engine.run(new ExecutionMonitor());
+
+        assertEquals(0, engine.getLinkedFiles());
+        Files.write(source, new byte[] { 1 });
+        assertEquals(1000, Files.size(m_dir.toPath().resolve("out/in.txt")));
+    }
+
+    @Test
+    public void testLastTransferToTheSameTargetWins() throws Exception {
+        FileTransferEngine engine = new FileTransferEngine().setParallelism(4);
+        Path target = m_dir.toPath().resolve("out/same.bin");
+        Path last = null;
+        for (int i = 1; i <= 8; ++i) {
+            last = createFile("in" + i, 100 * 1024 * i);
+            engine.add(last, target);
+        }
+        engine.run(new ExecutionMonitor());
+
+        assertArrayEquals(Files.readAllBytes(last), Files.readAllBytes(target));
+        assertEquals(1, listTargets().length);
+    }
+
+    @Test
+    public void testCanceledTransferLeavesNoPartialFiles() throws Exception {
+        FileTransferEngine engine = new FileTransferEngine().setHardLinks(false);
+        for (int i = 0; i < 5; ++i) {
+            engine.add(createFile("in" + i, 1024 * 1024), m_dir.toPath()
+                    .resolve("out/in" + i));
+        }
+        ExecutionMonitor exec = new ExecutionMonitor();
+        exec.canceled = true;
+        boolean canceled = false;
+        try {
+            engine.run(exec);
+        } catch (CanceledExecutionException e) {
+            canceled = true;
+        }
+
+        assertTrue(canceled);
+        for (File file : listTargets()) {
+            assertFalse(file.getName().startsWith(".gkn-export-"));
+        }
+    }
+}
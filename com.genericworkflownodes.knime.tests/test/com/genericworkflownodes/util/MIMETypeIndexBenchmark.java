@@ -0,0 +1,59 @@
+package com.genericworkflownodes.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the lookup speed of the {@link MIMETypeIndex} with the linear scan
+ * it replaced for 10k file names. Not part of the test suite, run it as Java
+ * application from the test bundle.
+ */
+public final class MIMETypeIndexBenchmark {
+
+    private MIMETypeIndexBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the timings.
+     *
+     * @param args
+     *            Ignored.
+     */
+    public static void main(final String[] args) {
+        Map<String, List<String>> types = MIMETypeIndexTest.createTypes();
+        MIMETypeIndex index = new MIMETypeIndex(types);
+        Random random = new Random(42);
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 10000; ++i) {
+            names.add("/data/run" + i + "/sample_" + random.nextInt(1000)
+                    + (i % 10 == 0 ? ".unknown" : ".ext" + random.nextInt(300)));
+        }
+
+        // warm up, then take the best of the rounds
+        long scanNanos = Long.MAX_VALUE;
+        long indexNanos = Long.MAX_VALUE;
+        int matches = 0;
+        for (int round = 0; round < 5; ++round) {
+            long start = System.nanoTime();
+            for (String name : names) {
+                if (MIMETypeIndexTest.scan(types, name) != null) {
+                    ++matches;
+                }
+            }
+            scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (String name : names) {
+                if (index.match(name) != null) {
+                    ++matches;
+                }
+            }
+            indexNanos = Math.min(indexNanos, System.nanoTime() - start);
+        }
+        System.out.println(String.format(
+                "10k MIME type lookups: linear scan %.2f ms, index %.2f ms (%.0fx, %d matches)",
+                scanNanos / 1e6, indexNanos / 1e6,
+                (double) scanNanos / Math.max(1, indexNanos), matches));
+    }
+}
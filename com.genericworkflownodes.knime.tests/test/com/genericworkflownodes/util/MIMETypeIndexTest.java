@@ -0,0 +1,97 @@
+package com.genericworkflownodes.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link MIMETypeIndex}, comparing its results with a linear
+ * scan over the registered types. See {@link MIMETypeIndexBenchmark} for a
+ * comparison of the lookup speed.
+ */
+public class MIMETypeIndexTest {
+
+    static Map<String, List<String>> createTypes() {
+        Map<String, List<String>> types = new LinkedHashMap<String, List<String>>();
+        types.put("application/x-gzip", Arrays.asList("gz"));
+        types.put("application/x-tar-gz", Arrays.asList("tar.gz", " tgz "));
+        types.put("application/mzml", Arrays.asList("mzML"));
+        types.put("application/mzml-gz", Arrays.asList("mzML.gz"));
+        types.put("text/csv", Arrays.asList("csv"));
+        // a duplicate registration, the first one wins
+        types.put("text/comma-separated", Arrays.asList("csv"));
+        // pad the registry to the size of a typical installation
+        for (int i = 0; i < 300; ++i) {
+            types.put("application/x-type" + i, Arrays.asList("ext" + i,
+                    "e" + i + ".x"));
+        }
+        return types;
+    }
+
+    /**
+     * The linear scan of the former implementation.
+     */
+    static String[] scan(final Map<String, List<String>> types,
+            String filename) {
+        filename = filename.toLowerCase();
+        String type = null;
+        String foundExtension = "";
+        for (Map.Entry<String, List<String>> entry : types.entrySet()) {
+            for (String ext : entry.getValue()) {
+                if (filename.endsWith("." + ext.trim().toLowerCase())
+                        && ext.trim().length() > foundExtension.length()) {
+                    type = entry.getKey();
+                    foundExtension = ext.trim();
+                }
+            }
+        }
+        return type == null ? null : new String[] { foundExtension, type };
+    }
+
+    @Test
+    public void testLongestExtensionWins() {
+        MIMETypeIndex index = new MIMETypeIndex(createTypes());
+
+        assertEquals("application/x-gzip", index.match("a.gz")[1]);
+        assertEquals("tar.gz", index.match("/tmp/A.TAR.GZ")[0]);
+        assertEquals("tgz", index.match("a.tgz")[0]);
+        assertEquals("mzML.gz", index.match("sample.mzml.gz")[0]);
+        assertEquals("application/mzml", index.match("sample.mzML")[1]);
+        assertEquals("text/csv", index.match("table.csv")[1]);
+        assertNull(index.match("gz"));
+        assertNull(index.match("file.xgz.unknown"));
+        assertNull(index.match(""));
+    }
+
+    @Test
+    public void testExtensionLookup() {
+        MIMETypeIndex index = new MIMETypeIndex(createTypes());
+
+        assertEquals("application/x-tar-gz", index.getTypeByExtension("TGZ"));
+        assertEquals("text/csv", index.getTypeByExtension("csv"));
+        assertEquals("application/x-type7", index.getTypeByExtension("e7.x"));
+        // registered in mixed case, which never matched a lowercase lookup
+        assertNull(index.getTypeByExtension("mzML"));
+        assertNull(index.getTypeByExtension("unknown"));
+    }
+
+    @Test
+    public void testMatchesLinearScan() {
+        Map<String, List<String>> types = createTypes();
+        MIMETypeIndex index = new MIMETypeIndex(types);
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; ++i) {
+            String name = "/data/run" + i + "/sample_" + random.nextInt(1000)
+                    + (i % 10 == 0 ? ".unknown" : ".ext" + random.nextInt(300));
+            assertEquals(Arrays.toString(scan(types, name)),
+                    Arrays.toString(index.match(name)));
+        }
+    }
+}
@@ -18,10 +18,20 @@
  */
 package com.genericworkflownodes.knime;
 
+import java.io.File;
+
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.knime.core.node.NodeLogger;
 import org.osgi.framework.BundleContext;
 
+import com.genericworkflownodes.knime.config.reader.CTDConfigurationCache;
+import com.genericworkflownodes.knime.execution.InputStagingCache;
+import com.genericworkflownodes.knime.execution.JobDirectoryService;
+import com.genericworkflownodes.knime.execution.ToolResultCache;
+import com.genericworkflownodes.knime.execution.ToolSlotScheduler;
+import com.genericworkflownodes.knime.execution.impl.WarmContainerPool;
+import com.genericworkflownodes.knime.preferences.PreferenceInitializer;
 import com.genericworkflownodes.util.Helper;
 
 /**
@@ -61,6 +71,82 @@ public class GenericNodesPlugin extends AbstractUIPlugin {
      * State of Docker-Toolbox usage
      */
     private static Boolean isDockerToolBoxEnabled = false;
+
+    /**
+     * State of the output capture mode, pipes (true) or tailed log files
+     * (false).
+     */
+    private static boolean isPipeOutputCaptureEnabled = true;
+
+    /**
+     * Number of stdout/stderr lines of a tool kept in memory.
+     */
+    private static int outputWindowLines = 2000;
+
+    /**
+     * Number of stdout/stderr chars of a tool kept in memory.
+     */
+    private static long outputWindowChars = 1024 * 1024;
+
+    /**
+     * Number of CPU slots shared by all concurrently running tools.
+     */
+    private static int executionCpuSlots = Runtime.getRuntime()
+            .availableProcessors();
+
+    /**
+     * Memory (in MB) shared by all concurrently running tools, 0 for no
+     * limit.
+     */
+    private static long executionMemoryMB = 0;
+
+    /**
+     * State of the result cache.
+     */
+    private static boolean isResultCacheEnabled = false;
+
+    /**
+     * Identify cached inputs by size, modification time and inode instead of
+     * their content.
+     */
+    private static boolean isResultCacheFastModeEnabled = false;
+
+    /**
+     * Disk budget of the result cache in MB.
+     */
+    private static long resultCacheMB = 10 * 1024;
+
+    /**
+     * State of the reuse of long-lived Docker containers.
+     */
+    private static boolean isDockerContainerReuseEnabled = false;
+
+    /**
+     * The host directory shared with the long-lived Docker containers.
+     */
+    private static String dockerMountRoot = System
+            .getProperty("java.io.tmpdir");
+
+    /**
+     * Disk budget in MB of finished job directories waiting for deletion.
+     */
+    private static long jobTrashMB = 4 * 1024;
+
+    /**
+     * Disk budget in MB of the local copies of non-local input files.
+     */
+    private static long stagingCacheMB = 10 * 1024;
+
+    /**
+     * Export files as hard links where possible. Off by default, as a linked
+     * export shares its content with the file in the KNIME workspace.
+     */
+    private static boolean isExportHardLinksEnabled = false;
+
+    /**
+     * Verify exported copies by checksum.
+     */
+    private static boolean isExportVerifyEnabled = false;
     
     /**
      * Check if the plug-in is in isDebugModeEnabled mode.
@@ -81,6 +167,140 @@ public class GenericNodesPlugin extends AbstractUIPlugin {
         return GenericNodesPlugin.isDockerToolBoxEnabled;
     }
     
+    /**
+     * Checks if the output of the tools should be read directly from the
+     * process pipes instead of tailing log files in the working directory.
+     * 
+     * @return True if the pipes should be used, false otherwise.
+     */
+    public static boolean isPipeOutputCapture() {
+        return GenericNodesPlugin.isPipeOutputCaptureEnabled;
+    }
+
+    /**
+     * Sets the output capture mode of the plug-in.
+     * 
+     * @param pipeOutputCapture
+     *            True if the process pipes should be used, false if log files
+     *            should be tailed.
+     */
+    public static void setPipeOutputCapture(final boolean pipeOutputCapture) {
+        GenericNodesPlugin.isPipeOutputCaptureEnabled = pipeOutputCapture;
+        LOGGER.debug("Setting GKN pipe output capture: " + pipeOutputCapture);
+    }
+
+    /**
+     * @return The number of stdout/stderr lines of a tool kept in memory.
+     */
+    public static int getOutputWindowLines() {
+        return GenericNodesPlugin.outputWindowLines;
+    }
+
+    /**
+     * @return The number of stdout/stderr chars of a tool kept in memory.
+     */
+    public static long getOutputWindowChars() {
+        return GenericNodesPlugin.outputWindowChars;
+    }
+
+    /**
+     * Sets how much of the stdout/stderr of a tool is kept in memory. The
+     * lines in between the first and the last ones are only counted.
+     * 
+     * @param lines
+     *            The maximal number of lines.
+     * @param chars
+     *            The maximal number of chars.
+     */
+    public static void setOutputWindow(final int lines, final long chars) {
+        GenericNodesPlugin.outputWindowLines = lines;
+        GenericNodesPlugin.outputWindowChars = chars;
+        LOGGER.debug("Setting GKN output window: " + lines + " lines, "
+                + chars + " chars");
+    }
+
+    /**
+     * @return The number of CPU slots shared by all concurrently running
+     *         tools.
+     */
+    public static int getExecutionCpuSlots() {
+        return GenericNodesPlugin.executionCpuSlots;
+    }
+
+    /**
+     * @return The memory (in MB) shared by all concurrently running tools, 0
+     *         if the memory is not limited.
+     */
+    public static long getExecutionMemoryMB() {
+        return GenericNodesPlugin.executionMemoryMB;
+    }
+
+    /**
+     * Sets the resources available to concurrently running tools and passes
+     * them on to the {@link ToolSlotScheduler}.
+     * 
+     * @param cpuSlots
+     *            The number of CPU slots.
+     * @param memoryMB
+     *            The memory in MB, 0 for no limit.
+     */
+    public static void setExecutionCapacity(final int cpuSlots,
+            final long memoryMB) {
+        GenericNodesPlugin.executionCpuSlots = cpuSlots;
+        GenericNodesPlugin.executionMemoryMB = memoryMB;
+        ToolSlotScheduler.getInstance().setCapacity(cpuSlots, memoryMB);
+        LOGGER.debug("Setting GKN execution capacity: " + cpuSlots
+                + " CPU slots, " + memoryMB + " MB");
+    }
+
+    /**
+     * Checks if the outputs of tool executions should be cached and reused
+     * for identical executions.
+     * 
+     * @return True if the result cache is enabled, false otherwise.
+     */
+    public static boolean isResultCache() {
+        return GenericNodesPlugin.isResultCacheEnabled;
+    }
+
+    /**
+     * Checks if the result cache identifies input files by size,
+     * modification time and inode instead of hashing their content.
+     * 
+     * @return True if the fast mode is enabled, false otherwise.
+     */
+    public static boolean isResultCacheFastMode() {
+        return GenericNodesPlugin.isResultCacheFastModeEnabled;
+    }
+
+    /**
+     * @return The disk budget of the result cache in MB.
+     */
+    public static long getResultCacheMB() {
+        return GenericNodesPlugin.resultCacheMB;
+    }
+
+    /**
+     * Configures the result cache.
+     * 
+     * @param enabled
+     *            True if results should be cached.
+     * @param fastMode
+     *            True if inputs should be identified by their attributes
+     *            instead of their content.
+     * @param budgetMB
+     *            The disk budget in MB.
+     */
+    public static void setResultCache(final boolean enabled,
+            final boolean fastMode, final long budgetMB) {
+        GenericNodesPlugin.isResultCacheEnabled = enabled;
+        GenericNodesPlugin.isResultCacheFastModeEnabled = fastMode;
+        GenericNodesPlugin.resultCacheMB = budgetMB;
+        ToolResultCache.getInstance().setBudget(budgetMB);
+        LOGGER.debug("Setting GKN result cache: " + enabled + ", fast mode: "
+                + fastMode + ", " + budgetMB + " MB");
+    }
+
     /**
      * Sets the isDebugModeEnabled status of the plug-in.
      * 
@@ -92,6 +312,119 @@ public class GenericNodesPlugin extends AbstractUIPlugin {
         LOGGER.debug("Setting GKN isDebugModeEnabled mode: " + debugEnabled);
     }
 
+    /**
+     * Checks if Docker tools should run in long-lived containers instead of
+     * starting a new container for every execution.
+     * 
+     * @return True if containers should be reused, false otherwise.
+     */
+    public static boolean isDockerContainerReuse() {
+        return GenericNodesPlugin.isDockerContainerReuseEnabled;
+    }
+
+    /**
+     * @return The host directory shared with the long-lived Docker
+     *         containers. Only tools whose files are below it run in these
+     *         containers.
+     */
+    public static String getDockerMountRoot() {
+        return GenericNodesPlugin.dockerMountRoot;
+    }
+
+    /**
+     * Configures the reuse of long-lived Docker containers.
+     * 
+     * @param enabled
+     *            True if containers should be reused.
+     * @param mountRoot
+     *            The host directory shared with the containers, the temporary
+     *            directory if empty.
+     */
+    public static void setDockerContainerReuse(final boolean enabled,
+            final String mountRoot) {
+        GenericNodesPlugin.isDockerContainerReuseEnabled = enabled;
+        GenericNodesPlugin.dockerMountRoot = mountRoot == null
+                || mountRoot.trim().isEmpty() ? System
+                .getProperty("java.io.tmpdir") : mountRoot.trim();
+        LOGGER.debug("Setting GKN Docker container reuse: " + enabled
+                + ", mount root: " + GenericNodesPlugin.dockerMountRoot);
+    }
+
+    /**
+     * @return The disk budget in MB of finished job directories waiting for
+     *         deletion in the background.
+     */
+    public static long getJobTrashMB() {
+        return GenericNodesPlugin.jobTrashMB;
+    }
+
+    /**
+     * Sets the disk budget of finished job directories waiting for deletion
+     * in the background.
+     * 
+     * @param budgetMB
+     *            The budget in MB, 0 to delete job directories right away.
+     */
+    public static void setJobTrashMB(final long budgetMB) {
+        GenericNodesPlugin.jobTrashMB = budgetMB;
+        JobDirectoryService.getInstance().setBudget(budgetMB);
+        LOGGER.debug("Setting GKN job directory trash: " + budgetMB + " MB");
+    }
+
+    /**
+     * @return The disk budget in MB of the local copies of non-local input
+     *         files.
+     */
+    public static long getStagingCacheMB() {
+        return GenericNodesPlugin.stagingCacheMB;
+    }
+
+    /**
+     * Sets the disk budget of the local copies of non-local input files.
+     * 
+     * @param budgetMB
+     *            The budget in MB.
+     */
+    public static void setStagingCacheMB(final long budgetMB) {
+        GenericNodesPlugin.stagingCacheMB = budgetMB;
+        InputStagingCache.getInstance().setBudget(budgetMB);
+        LOGGER.debug("Setting GKN staging cache: " + budgetMB + " MB");
+    }
+
+    /**
+     * Checks if the output nodes export files as hard links when source and
+     * target are on the same file system.
+     * 
+     * @return True if hard links are used, false otherwise.
+     */
+    public static boolean isExportHardLinks() {
+        return GenericNodesPlugin.isExportHardLinksEnabled;
+    }
+
+    /**
+     * Checks if the output nodes verify copied files by checksum.
+     * 
+     * @return True if copies are verified, false otherwise.
+     */
+    public static boolean isExportChecksumVerification() {
+        return GenericNodesPlugin.isExportVerifyEnabled;
+    }
+
+    /**
+     * Configures how the output nodes export files.
+     * 
+     * @param hardLinks
+     *            True if files may be exported as hard links.
+     * @param verify
+     *            True if copies should be verified by checksum.
+     */
+    public static void setExport(final boolean hardLinks, final boolean verify) {
+        GenericNodesPlugin.isExportHardLinksEnabled = hardLinks;
+        GenericNodesPlugin.isExportVerifyEnabled = verify;
+        LOGGER.debug("Setting GKN export: hard links " + hardLinks
+                + ", verify " + verify);
+    }
+
     /**
      * This method is called upon plug-in activation.
      * 
@@ -114,6 +447,41 @@ public class GenericNodesPlugin extends AbstractUIPlugin {
             GenericNodesPlugin.setVmInstllationDir("/usr/bin");
         }
         gknPLugin = this;
+        loadPreferences();
+    }
+
+    /**
+     * Transfers the stored preferences into the static plug-in state.
+     */
+    private void loadPreferences() {
+        IPreferenceStore store = getPreferenceStore();
+        setPipeOutputCapture(store
+                .getBoolean(PreferenceInitializer.PREF_PIPE_OUTPUT_CAPTURE));
+        setOutputWindow(
+                store.getInt(PreferenceInitializer.PREF_OUTPUT_WINDOW_LINES),
+                store.getInt(PreferenceInitializer.PREF_OUTPUT_WINDOW_KB) * 1024L);
+        setExecutionCapacity(
+                store.getInt(PreferenceInitializer.PREF_EXECUTION_CPU_SLOTS),
+                store.getInt(PreferenceInitializer.PREF_EXECUTION_MEMORY_MB));
+        ToolResultCache.setInstance(new ToolResultCache(new File(
+                getStateLocation().toFile(), "result-cache"), resultCacheMB));
+        setResultCache(
+                store.getBoolean(PreferenceInitializer.PREF_RESULT_CACHE),
+                store.getBoolean(PreferenceInitializer.PREF_RESULT_CACHE_FAST_MODE),
+                store.getInt(PreferenceInitializer.PREF_RESULT_CACHE_MB));
+        setDockerContainerReuse(
+                store.getBoolean(PreferenceInitializer.PREF_DOCKER_CONTAINER_REUSE),
+                store.getString(PreferenceInitializer.PREF_DOCKER_MOUNT_ROOT));
+        setJobTrashMB(store.getInt(PreferenceInitializer.PREF_JOB_TRASH_MB));
+        InputStagingCache.setInstance(new InputStagingCache(new File(
+                getStateLocation().toFile(), "staging-cache"), stagingCacheMB,
+                4));
+        setStagingCacheMB(
+                store.getInt(PreferenceInitializer.PREF_STAGING_CACHE_MB));
+        setExport(store.getBoolean(PreferenceInitializer.PREF_EXPORT_HARD_LINKS),
+                store.getBoolean(PreferenceInitializer.PREF_EXPORT_VERIFY));
+        CTDConfigurationCache.setInstance(new CTDConfigurationCache(new File(
+                getStateLocation().toFile(), "ctd-cache"), 32L * 1024 * 1024));
     }
 
     /**
@@ -126,6 +494,7 @@ public class GenericNodesPlugin extends AbstractUIPlugin {
      */
     @Override
     public void stop(final BundleContext context) throws Exception {
+        WarmContainerPool.getInstance().shutdown();
         gknPLugin = null;
         super.stop(context);
     }
@@ -21,8 +21,11 @@ package com.genericworkflownodes.knime.base.data.port;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.JComponent;
 
@@ -78,6 +81,13 @@ public abstract class AbstractFileStoreURIPortObject extends
      */
     private URIPortObjectSpec m_uriPortObjectSpec;
 
+    /**
+     * Set if files were registered since the spec was built. The spec is
+     * rebuilt on the next access, so registering many files builds it only
+     * once.
+     */
+    private boolean m_specOutdated;
+
     /**
      * Creates {@link FileStoreURIPortObject} with the given {@link FileStore}.
      *
@@ -128,23 +138,64 @@ public abstract class AbstractFileStoreURIPortObject extends
      * @return A {@link File} object pointing to the registered file.
      */
     public File registerFile(String filename) {
-        // register the URIContent
-        File child = new File(getFileStoreRootDirectory(), filename);
+        return registerFile(filename, resolveExtension(filename, null));
+    }
+
+    /**
+     * Adds the given files to the {@link FileStoreURIPortObject}. The
+     * extension of files with the same suffix is only resolved once.
+     *
+     * @param filenames
+     *            The relative paths that should be stored inside the
+     *            file-store, e.g., outfile.txt or subfolder/outfile.txt.
+     * @return {@link File} objects pointing to the registered files, in the
+     *         given order.
+     */
+    public List<File> registerFiles(Collection<String> filenames) {
+        File root = getFileStoreRootDirectory();
+        Map<String, String> extensions = new HashMap<String, String>();
+        List<File> files = new ArrayList<File>(filenames.size());
+        for (String filename : filenames) {
+            File child = new File(root, filename);
+            m_uriContents.add(new URIContent(child.toURI(), resolveExtension(
+                    filename, extensions)));
+            m_relPaths.add(filename);
+            files.add(child);
+        }
+        m_specOutdated = true;
+        return files;
+    }
+
+    /**
+     * Determines the extension of the given file that identifies its MIME
+     * type.
+     *
+     * @param filename
+     *            The relative path of the file.
+     * @param cache
+     *            The extensions resolved so far by the part of the file name
+     *            after its first dot, or null.
+     * @return The extension.
+     */
+    private static String resolveExtension(final String filename,
+            final Map<String, String> cache) {
+        // the registered extension is a suffix of the name after its first
+        // dot, so names with the same such suffix have the same extension
+        String name = new File(filename).getName();
+        String key = name.substring(name.indexOf('.') + 1).toLowerCase();
+        if (cache != null && cache.containsKey(key)) {
+            return cache.get(key);
+        }
         String ext = MIMETypeHelper.getMIMEtypeExtension(filename).orElse(null);
         if (ext == null)
         {
             ext = FilenameUtils.getExtension(filename);
             LOGGER.warn("MIMEType not registered for extension '" + ext + "'. Proceeding, but this might lead to problems connecting to the affected FileStoreURIPort.");
         }
-        URIContent uric = new URIContent(child.toURI(), ext);
-
-        // update content and spec accordingly
-        m_uriContents.add(uric);
-        m_uriPortObjectSpec = URIPortObjectSpec.create(m_uriContents);
-        m_relPaths.add(filename);
-
-        // give the file object to the client so he can work with it
-        return child;
+        if (cache != null) {
+            cache.put(key, ext);
+        }
+        return ext;
     }
     
     /**
@@ -162,7 +213,7 @@ public abstract class AbstractFileStoreURIPortObject extends
 
         // update content and spec accordingly
         m_uriContents.add(uric);
-        m_uriPortObjectSpec = URIPortObjectSpec.create(m_uriContents);
+        m_specOutdated = true;
         m_relPaths.add(filename);
 
         // give the file object to the client so he can work with it
@@ -234,6 +285,7 @@ public abstract class AbstractFileStoreURIPortObject extends
         m_uriContents = list;
         m_relPaths = relPathList;
         m_uriPortObjectSpec = (URIPortObjectSpec) spec;
+        m_specOutdated = false;
     }
 
     @Override
@@ -243,6 +295,10 @@ public abstract class AbstractFileStoreURIPortObject extends
 
     @Override
     public URIPortObjectSpec getSpec() {
+        if (m_specOutdated) {
+            m_uriPortObjectSpec = URIPortObjectSpec.create(m_uriContents);
+            m_specOutdated = false;
+        }
         return m_uriPortObjectSpec;
     }
 
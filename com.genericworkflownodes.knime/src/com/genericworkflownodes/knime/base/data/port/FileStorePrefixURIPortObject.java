@@ -19,10 +19,16 @@
 package com.genericworkflownodes.knime.base.data.port;
 
 import java.io.File;
-import java.util.Iterator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.knime.core.data.filestore.FileStore;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
@@ -117,30 +123,31 @@ public class FileStorePrefixURIPortObject extends
      */
     public void collectFiles() {
         // we have generated a list of files based on a prefix
-        final File f = new File(getPrefix());
+        final Path root = getFileStoreRootDirectory().toPath();
+        final String prefix = getPrefix();
+        final Path parent = new File(prefix).getParentFile().toPath();
+        final List<String> relPaths = new ArrayList<String>();
 
-        Iterator<File> fIt = FileUtils.iterateFiles(f.getParentFile(),
-                TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
-
-        while (fIt.hasNext()) {
-            File tf = fIt.next();
-            if (!tf.isDirectory()) {
-                final String abs_path = tf.getAbsolutePath();
-                if (abs_path.startsWith(getPrefix())) {
-                    // get relative path to filestore as string
-                    File relPath = new File(tf.getName());
-                    File parent = tf.getParentFile();
-                    while (!parent.equals(getFileStoreRootDirectory())) {
-                        relPath = new File(parent.getName(), relPath.toString());
-                        parent = parent.getParentFile();
+        try {
+            Files.walkFileTree(parent, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file,
+                        final BasicFileAttributes attrs) {
+                    if (!attrs.isDirectory()
+                            && file.toAbsolutePath().toString()
+                                    .startsWith(prefix)) {
+                        // get relative path to filestore as string
+                        relPaths.add(root.relativize(file).toString());
                     }
-
-                    // register the found file at the underlying
-                    // FileStoreURIPortObject
-                    registerFile(relPath.toString());
+                    return FileVisitResult.CONTINUE;
                 }
-            }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not collect the files of "
+                    + prefix, e);
         }
 
+        // register the found files at the underlying FileStoreURIPortObject
+        registerFiles(relPaths);
     }
 }
@@ -92,7 +92,21 @@ public class FileStoreReferenceURIPortObject extends FileStorePortObject
     FileStoreReferenceURIPortObject() {
     }
 
-    private FileStoreReferenceURIPortObject(List<URIContent> uriContents,
+    /**
+     * Creates a port object for the given contents.
+     * 
+     * @param uriContents
+     *            The URIs of the files.
+     * @param relPaths
+     *            The paths of the files relative to their file store, empty
+     *            for files that are not managed by a file store.
+     * @param fsIndices
+     *            The indices of the file stores of the files, -1 for files
+     *            that are not managed by a file store.
+     * @param fileStores
+     *            The referenced file stores.
+     */
+    protected FileStoreReferenceURIPortObject(List<URIContent> uriContents,
             List<String> relPaths, List<Integer> fsIndices,
             List<FileStore> fileStores) {
         // file stores are managed by FileStorePortObject
@@ -119,35 +133,71 @@ public class FileStoreReferenceURIPortObject extends FileStorePortObject
         List<FileStore> fileStores = new ArrayList<FileStore>();
 
         for (IURIPortObject po : uriPortObjects) {
-            int count = 0;
-            for (URIContent uriContent : po.getURIContents()) {
-                uriContents.add(uriContent);
-                if (po instanceof AbstractFileStoreURIPortObject) {
-                    AbstractFileStoreURIPortObject afspo = (AbstractFileStoreURIPortObject) po;
-                    relPaths.add(afspo.getRelativePaths().get(count));
-                    fileStores.add(afspo.getInternalFileStore());
-                    fsIndices.add(fileStores.size() - 1);
-                } else if (po instanceof FileStoreReferenceURIPortObject) {
-                    FileStoreReferenceURIPortObject frpo = (FileStoreReferenceURIPortObject) po;
-                    relPaths.add(frpo.getRelativePath(count));
-                    //get the old fileStore for the current URIContent
-                    if (frpo.getFileStoreIndex(count) >= 0)
-                    {
-                      fileStores.add(frpo.getFileStore(frpo.getFileStoreIndex(count)));
-                      fsIndices.add(fileStores.size() - 1);
-                    } else {
-                        fsIndices.add(-1);
-                    }
+            collect(po, 0, po.getURIContents().size(), uriContents, relPaths,
+                    fsIndices, fileStores);
+        }
+        return new FileStoreReferenceURIPortObject(uriContents, relPaths,
+                fsIndices, fileStores);
+    }
+
+    /**
+     * Appends a range of the contents of a port object together with the file
+     * stores they reside in. A file store is referenced only once, even if it
+     * contains several of the files.
+     * 
+     * @param po
+     *            The port object.
+     * @param from
+     *            The index of the first content, inclusive.
+     * @param to
+     *            The index of the last content, exclusive.
+     * @param uriContents
+     *            The URIs to append to.
+     * @param relPaths
+     *            The relative paths to append to.
+     * @param fsIndices
+     *            The file store indices to append to.
+     * @param fileStores
+     *            The file stores to append to.
+     */
+    static void collect(IURIPortObject po, int from, int to,
+            List<URIContent> uriContents, List<String> relPaths,
+            List<Integer> fsIndices, List<FileStore> fileStores) {
+        for (int count = from; count < to; ++count) {
+            uriContents.add(po.getURIContents().get(count));
+            if (po instanceof AbstractFileStoreURIPortObject) {
+                AbstractFileStoreURIPortObject afspo = (AbstractFileStoreURIPortObject) po;
+                relPaths.add(afspo.getRelativePaths().get(count));
+                fsIndices.add(indexOf(afspo.getInternalFileStore(), fileStores));
+            } else if (po instanceof FileStoreReferenceURIPortObject) {
+                FileStoreReferenceURIPortObject frpo = (FileStoreReferenceURIPortObject) po;
+                relPaths.add(frpo.getRelativePath(count));
+                //get the old fileStore for the current URIContent
+                if (frpo.getFileStoreIndex(count) >= 0)
+                {
+                    fsIndices.add(indexOf(frpo.getFileStore(frpo.getFileStoreIndex(count)), fileStores));
                 } else {
-                    // we add a dummy relative path for (non-FileStore-based) URIPortObjects etc.
-                    relPaths.add("");
                     fsIndices.add(-1);
                 }
-                ++count;
+            } else {
+                // we add a dummy relative path for (non-FileStore-based) URIPortObjects etc.
+                relPaths.add("");
+                fsIndices.add(-1);
             }
         }
-        return new FileStoreReferenceURIPortObject(uriContents, relPaths,
-                fsIndices, fileStores);
+    }
+
+    /**
+     * Returns the index of a file store in the list, adding it if necessary.
+     */
+    private static int indexOf(FileStore fileStore, List<FileStore> fileStores) {
+        for (int i = 0; i < fileStores.size(); ++i) {
+            if (fileStores.get(i) == fileStore) {
+                return i;
+            }
+        }
+        fileStores.add(fileStore);
+        return fileStores.size() - 1;
     }
 
     @Override
@@ -75,9 +75,7 @@ public class PrefixFileStoreCell extends SerializableFileStoreCell {
     @Override
     public AbstractFileStoreURIPortObject getPortObject() {
         FileStorePrefixURIPortObject po = new FileStorePrefixURIPortObject(getFileStore(), m_prefix);
-        for (String s : m_relativePaths) {
-            po.registerFile(s);
-        }
+        po.registerFiles(m_relativePaths);
         return po;
     }
     
@@ -0,0 +1,88 @@
+package com.genericworkflownodes.knime.base.data.port;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.knime.core.data.filestore.FileStore;
+import org.knime.core.data.uri.IURIPortObject;
+import org.knime.core.data.uri.URIContent;
+
+/**
+ * A {@link FileStoreReferenceURIPortObject} for nodes that only route files,
+ * e.g., loop starts and splitters.
+ *
+ * The port object shares the file stores of its input instead of registering
+ * or copying the files again, so routing a file costs neither disk I/O nor
+ * file store space. The files are shared with the upstream node and all its
+ * other consumers, so, as for any input port, consumers must not modify them.
+ */
+public class SharedFileStoreURIPortObject extends
+        FileStoreReferenceURIPortObject {
+
+    /**
+     * Framework c'tor.
+     */
+    SharedFileStoreURIPortObject() {
+    }
+
+    private SharedFileStoreURIPortObject(List<URIContent> uriContents,
+            List<String> relPaths, List<Integer> fsIndices,
+            List<FileStore> fileStores) {
+        super(uriContents, relPaths, fsIndices, fileStores);
+    }
+
+    /**
+     * Shares all files of the given port objects.
+     *
+     * @param uriPortObjects
+     *            The port objects.
+     * @return The port object sharing the files.
+     */
+    public static SharedFileStoreURIPortObject share(
+            List<IURIPortObject> uriPortObjects) {
+        List<URIContent> uriContents = new ArrayList<URIContent>();
+        List<String> relPaths = new ArrayList<String>();
+        List<Integer> fsIndices = new ArrayList<Integer>();
+        List<FileStore> fileStores = new ArrayList<FileStore>();
+        for (IURIPortObject po : uriPortObjects) {
+            collect(po, 0, po.getURIContents().size(), uriContents, relPaths,
+                    fsIndices, fileStores);
+        }
+        return new SharedFileStoreURIPortObject(uriContents, relPaths,
+                fsIndices, fileStores);
+    }
+
+    /**
+     * Shares all files of the given port object.
+     *
+     * @param po
+     *            The port object.
+     * @return The port object sharing the files.
+     */
+    public static SharedFileStoreURIPortObject share(IURIPortObject po) {
+        return share(Collections.singletonList(po));
+    }
+
+    /**
+     * Shares a range of the files of the given port object.
+     *
+     * @param po
+     *            The port object.
+     * @param from
+     *            The index of the first file, inclusive.
+     * @param to
+     *            The index of the last file, exclusive.
+     * @return The port object sharing the files.
+     */
+    public static SharedFileStoreURIPortObject share(IURIPortObject po,
+            int from, int to) {
+        List<URIContent> uriContents = new ArrayList<URIContent>();
+        List<String> relPaths = new ArrayList<String>();
+        List<Integer> fsIndices = new ArrayList<Integer>();
+        List<FileStore> fileStores = new ArrayList<FileStore>();
+        collect(po, from, to, uriContents, relPaths, fsIndices, fileStores);
+        return new SharedFileStoreURIPortObject(uriContents, relPaths,
+                fsIndices, fileStores);
+    }
+}
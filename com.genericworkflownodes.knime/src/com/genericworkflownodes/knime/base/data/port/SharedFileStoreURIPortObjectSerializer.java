@@ -0,0 +1,84 @@
+package com.genericworkflownodes.knime.base.data.port;
+
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+
+import org.knime.core.data.util.NonClosableInputStream;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContent;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
+import org.knime.core.node.port.PortObject.PortObjectSerializer;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.PortObjectZipInputStream;
+import org.knime.core.node.port.PortObjectZipOutputStream;
+
+/**
+ * PortObjectSerializer for {@link SharedFileStoreURIPortObject}.
+ */
+public class SharedFileStoreURIPortObjectSerializer extends
+        PortObjectSerializer<SharedFileStoreURIPortObject> {
+
+    /**
+     * Model identifier.
+     */
+    private static final String MODEL_IDENTIFIER = "model";
+    /**
+     * content.xml file name.
+     */
+    private static final String CONTENT_XML = "content.xml";
+
+    /**
+     * As of KNIME 3.0, serializers are defined as extension points, so we need a public constructor.
+     */
+    public SharedFileStoreURIPortObjectSerializer() {
+    }
+
+    @Override
+    public void savePortObject(SharedFileStoreURIPortObject portObject,
+            PortObjectZipOutputStream out, ExecutionMonitor exec)
+            throws IOException, CanceledExecutionException {
+        // save some general information
+        ModelContent model = new ModelContent("model.xml");
+        model.addInt("version", 1);
+        model.addString("class_name", portObject.getClass().getName());
+        // get model content from PortObject
+        ModelContentWO subModel = model.addModelContent(MODEL_IDENTIFIER);
+        portObject.save(subModel, exec);
+        // save model content to stream
+        out.putNextEntry(new ZipEntry(CONTENT_XML));
+        model.saveToXML(out);
+    }
+
+    @Override
+    public SharedFileStoreURIPortObject loadPortObject(
+            PortObjectZipInputStream in, PortObjectSpec spec,
+            ExecutionMonitor exec) throws IOException,
+            CanceledExecutionException {
+        // retrieve model content from stream
+        ZipEntry entry = in.getNextEntry();
+        if (!CONTENT_XML.equals(entry.getName())) {
+            throw new IOException("Expected zip entry content.xml, got "
+                    + entry.getName());
+        }
+        ModelContentRO model = ModelContent
+                .loadFromXML(new NonClosableInputStream.Zip(in));
+
+        // default construct PortObject
+        SharedFileStoreURIPortObject result =
+                new SharedFileStoreURIPortObject();
+
+        // ..and load from model content from stream
+        try {
+            ModelContentRO subModel = model.getModelContent(MODEL_IDENTIFIER);
+            result.load(subModel, spec, exec);
+            return result;
+        } catch (InvalidSettingsException e) {
+            throw new IOException(
+                    "Unable to load model content into \"SharedFileStoreURIPortObject\": "
+                            + e.getMessage(), e);
+        }
+    }
+}
@@ -76,9 +76,7 @@ public class SimpleFileStoreCell extends SerializableFileStoreCell {
     @Override
     public AbstractFileStoreURIPortObject getPortObject() {
         FileStoreURIPortObject po = new FileStoreURIPortObject(this.getFileStore());
-        for (String s : m_relativePaths) {
-            po.registerFile(s);
-        }
+        po.registerFiles(m_relativePaths);
         return po;
     }
 
@@ -20,10 +20,11 @@ package com.genericworkflownodes.knime.cluster.nodes.porttofilestore;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
@@ -56,6 +57,9 @@ import com.genericworkflownodes.knime.base.data.port.PrefixFileStoreCell;
 import com.genericworkflownodes.knime.base.data.port.PrefixURIPortObject;
 import com.genericworkflownodes.knime.base.data.port.SerializableFileStoreCell;
 import com.genericworkflownodes.knime.base.data.port.SimpleFileStoreCell;
+import com.genericworkflownodes.knime.nodes.io.FileFingerprint;
+import com.genericworkflownodes.knime.nodes.io.FileTransferEngine;
+import com.genericworkflownodes.knime.nodes.io.ReferencedFileRegistry;
 
 /**
  * This is the model implementation of FileMerger. This nodes takes two files
@@ -65,6 +69,11 @@ import com.genericworkflownodes.knime.base.data.port.SimpleFileStoreCell;
  */
 public class PortToFileStoreNodeModel extends NodeModel {
 
+    /**
+     * The fingerprints of the files linked into the file store.
+     */
+    private final List<FileFingerprint> m_fingerprints = new ArrayList<FileFingerprint>();
+
     /**
      * Static method that provides the incoming {@link PortType}s.
      * 
@@ -100,6 +109,11 @@ public class PortToFileStoreNodeModel extends NodeModel {
         IURIPortObject input = (IURIPortObject)inData[0];
         
         DataContainer dc = exec.createDataContainer(createSpec());
+        // Files that do not change anymore are hard linked into the file store where possible,
+        // which takes neither time nor space. Their fingerprints are checked before they are used.
+        FileTransferEngine linker = new FileTransferEngine();
+        FileTransferEngine copier = new FileTransferEngine().setHardLinks(false);
+        List<Path> referenced = new ArrayList<Path>();
         /**
          * Files that are not yet managed by KNIME (e.g. when they come from an InputFiles node) come as URIPortObject
          * and must be copied into a FileStore to be handled properly.
@@ -124,7 +138,13 @@ public class PortToFileStoreNodeModel extends NodeModel {
                 if (!filename.endsWith(uc.getExtension())) {
                     filename = filename.concat(".").concat(uc.getExtension());
                 }
-                Files.copy(localFile, Paths.get(fs.getFile().toURI()).resolve(filename));
+                Path target = Paths.get(fs.getFile().toURI()).resolve(filename);
+                if (FileFingerprint.isMutable(localFile)) {
+                    copier.add(localFile, target);
+                } else {
+                    linker.add(localFile, target);
+                    referenced.add(target);
+                }
                 PrefixFileStoreCell cell = new PrefixFileStoreCell(fs, po.getPrefix(), Collections.singletonList(filename));
                 dc.addRowToTable(new DefaultRow(new RowKey(filename), cell));
              }
@@ -139,11 +159,24 @@ public class PortToFileStoreNodeModel extends NodeModel {
                 if (!filename.endsWith(uc.getExtension())) {
                     filename = filename.concat(".").concat(uc.getExtension());
                 }
-                Files.copy(localFile, Paths.get(fs.getFile().toURI()).resolve(filename));
+                Path target = Paths.get(fs.getFile().toURI()).resolve(filename);
+                if (FileFingerprint.isMutable(localFile)) {
+                    copier.add(localFile, target);
+                } else {
+                    linker.add(localFile, target);
+                    referenced.add(target);
+                }
                 SimpleFileStoreCell cell = new SimpleFileStoreCell(fs, Collections.singletonList(filename));
                 dc.addRowToTable(new DefaultRow(new RowKey(filename), cell));
              }
         }
+        linker.run(exec);
+        copier.run(exec);
+        for (Path file : referenced) {
+            FileFingerprint fingerprint = FileFingerprint.of(file, false);
+            ReferencedFileRegistry.getInstance().register(fingerprint);
+            m_fingerprints.add(fingerprint);
+        }
         dc.close();
         return new PortObject[] {(BufferedDataTable)dc.getTable()};
     }
@@ -153,6 +186,10 @@ public class PortToFileStoreNodeModel extends NodeModel {
      */
     @Override
     protected void reset() {
+        for (FileFingerprint fingerprint : m_fingerprints) {
+            ReferencedFileRegistry.getInstance().unregister(fingerprint);
+        }
+        m_fingerprints.clear();
     }
     
     private DataTableSpec createSpec() {
@@ -203,6 +240,7 @@ public class PortToFileStoreNodeModel extends NodeModel {
     protected void loadInternals(final File internDir,
             final ExecutionMonitor exec) throws IOException,
             CanceledExecutionException {
+        m_fingerprints.addAll(ReferencedFileRegistry.getInstance().load(internDir));
     }
 
     /**
@@ -212,6 +250,7 @@ public class PortToFileStoreNodeModel extends NodeModel {
     protected void saveInternals(final File internDir,
             final ExecutionMonitor exec) throws IOException,
             CanceledExecutionException {
+        ReferencedFileRegistry.save(internDir, m_fingerprints);
     }
 
 }
@@ -28,7 +28,6 @@ import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.uri.IURIPortObject;
 import org.knime.core.data.uri.URIContent;
-import org.knime.core.data.uri.URIPortObject;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
@@ -45,6 +44,7 @@ import org.knime.core.node.port.PortType;
 import com.genericworkflownodes.knime.base.data.port.AbstractFileStoreURIPortObject;
 import com.genericworkflownodes.knime.base.data.port.FileStoreValue;
 import com.genericworkflownodes.knime.base.data.port.SerializableFileStoreCell;
+import com.genericworkflownodes.knime.base.data.port.SharedFileStoreURIPortObject;
 import com.genericworkflownodes.util.MIMETypeHelper;
 
 /**
@@ -104,7 +104,7 @@ public class SplitTableToPortNodeModel extends NodeModel {
         // Otherwise we retrieve the port object from the only cell we have.
         if (input.size() > 1) {
             String mimetype = null;
-            List<URIContent> contents = new ArrayList<>();
+            List<IURIPortObject> portObjects = new ArrayList<>();
 
             for (DataRow row : input) {
                 SerializableFileStoreCell cell = (SerializableFileStoreCell)row.getCell(index);
@@ -118,10 +118,11 @@ public class SplitTableToPortNodeModel extends NodeModel {
                     } else if (!mt.equals(mimetype)) {
                         throw new InvalidSettingsException("File ports do not support mixed mimetypes, yet.");
                     }
-                    contents.add(uc);
                 }
+                portObjects.add(po);
             }
-            return new PortObject[] {new URIPortObject(contents)};
+            // share the file stores of the cells instead of only passing on their URIs
+            return new PortObject[] {SharedFileStoreURIPortObject.share(portObjects)};
         } else {
             DataRow row = input.iterator().next();
             SerializableFileStoreCell cell = (SerializableFileStoreCell)row.getCell(index);
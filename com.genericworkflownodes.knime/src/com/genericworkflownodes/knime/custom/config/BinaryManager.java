@@ -21,6 +21,7 @@ package com.genericworkflownodes.knime.custom.config;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -30,17 +31,31 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.FileLocator;
 import org.knime.core.node.NodeLogger;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
 import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.SynchronousBundleListener;
 
+import com.genericworkflownodes.knime.config.DescriptorIndex;
 import com.genericworkflownodes.util.PropertiesUtils;
 
 /**
+ * Locates the binaries and descriptors shipped with a plug-in.
+ *
+ * Lookups of binaries, the environment defined in binaries.ini and the
+ * descriptor index are cached, since they require searches of the bundle. The
+ * caches are dropped when the bundle is updated or uninstalled, or when a
+ * cached binary disappeared.
+ *
  * @author aiche
  */
 public final class BinaryManager {
@@ -75,6 +90,28 @@ public final class BinaryManager {
     @SuppressWarnings("rawtypes")
     private final Class classInBundle;
 
+    /**
+     * The shipped binaries found for the executable names.
+     */
+    private final Map<String, Optional<File>> m_binaries = new ConcurrentHashMap<String, Optional<File>>();
+
+    /**
+     * The environment defined in binaries.ini, null if not loaded yet.
+     */
+    private volatile Map<String, String> m_environment;
+
+    /**
+     * The index of the descriptors, empty if the bundle ships none, null if
+     * not loaded yet.
+     */
+    private volatile Optional<DescriptorIndex> m_descriptorIndex;
+
+    /**
+     * Set once the listener invalidating the caches on bundle changes was
+     * registered.
+     */
+    private volatile boolean m_listening;
+
     /**
      * C'tor.
      *
@@ -108,13 +145,28 @@ public final class BinaryManager {
      *         corresponding value.
      */
     public Map<String, String> getProcessEnvironment(final String executableName) {
-        Map<String, String> environmentVariables = new HashMap<String, String>();
-
         // we only fill the environment variables if the shipped binary is used
         if (findShippedBinary(executableName) == null) {
-            return environmentVariables;
+            return new HashMap<String, String>();
         }
 
+        Map<String, String> environment = m_environment;
+        if (environment == null) {
+            environment = loadProcessEnvironment();
+            m_environment = environment;
+        }
+        // callers extend the returned map
+        return new HashMap<String, String>(environment);
+    }
+
+    /**
+     * Reads the environment variables defined in binaries.ini.
+     *
+     * @return The environment variables, empty if there is no binaries.ini.
+     */
+    private Map<String, String> loadProcessEnvironment() {
+        Map<String, String> environmentVariables = new HashMap<String, String>();
+
         // find binaries.ini
         File iniFile = findFileInBundle(BINARIES_INI);
 
@@ -151,7 +203,64 @@ public final class BinaryManager {
         return environmentVariables;
     }
 
+    /**
+     * Drops all cached lookups, e.g., because the bundle was updated.
+     */
+    public void invalidate() {
+        m_binaries.clear();
+        m_environment = null;
+        m_descriptorIndex = null;
+    }
+
     private File findShippedBinary(final String executableName) {
+        registerBundleListener();
+        Optional<File> cached = m_binaries.get(executableName);
+        if (cached != null
+                && (!cached.isPresent() || cached.get().exists())) {
+            return cached.orElse(null);
+        }
+        File binary = searchShippedBinary(executableName);
+        m_binaries.put(executableName, Optional.ofNullable(binary));
+        return binary;
+    }
+
+    /**
+     * Invalidates the caches whenever the bundle containing the binaries
+     * changes.
+     */
+    private void registerBundleListener() {
+        if (m_listening) {
+            return;
+        }
+        synchronized (this) {
+            if (m_listening) {
+                return;
+            }
+            final Bundle bundle = FrameworkUtil.getBundle(classInBundle);
+            BundleContext context = bundle == null ? null : bundle
+                    .getBundleContext();
+            if (context == null) {
+                // not active yet, retry on the next lookup
+                return;
+            }
+            context.addBundleListener(new SynchronousBundleListener() {
+                @Override
+                public void bundleChanged(final BundleEvent event) {
+                    if (event.getBundle().getBundleId() == bundle
+                            .getBundleId()
+                            && (event.getType() & (BundleEvent.UPDATED
+                                    | BundleEvent.UNRESOLVED | BundleEvent.UNINSTALLED)) != 0) {
+                        LOGGER.debug("Bundle " + bundle.getSymbolicName()
+                                + " changed, dropping cached binaries.");
+                        invalidate();
+                    }
+                }
+            });
+            m_listening = true;
+        }
+    }
+
+    private File searchShippedBinary(final String executableName) {
         File shippedBinary = findFileInBundle(executableName);
         if (shippedBinary != null) {
             return shippedBinary;
@@ -216,12 +325,78 @@ public final class BinaryManager {
     }
 
     /**
-     * Search the bundle for CTDs and list them in a List of Files.
+     * Returns the index of the descriptors written by the node generator next
+     * to the descriptors directory.
      *
-     * @return List of CTD Files in the bundle
-     * @throws URISyntaxException
+     * @return The index, or null if the bundle does not ship a readable index
+     *         in the current format.
+     */
+    public DescriptorIndex getDescriptorIndex() {
+        registerBundleListener();
+        Optional<DescriptorIndex> index = m_descriptorIndex;
+        if (index == null) {
+            index = Optional.ofNullable(loadDescriptorIndex());
+            m_descriptorIndex = index;
+        }
+        return index.orElse(null);
+    }
+
+    /**
+     * Returns the indexed metadata of a tool.
+     *
+     * @param relToolPath
+     *            The path of the CTD as returned by {@link #listTools()}.
+     * @return The metadata, or null if the tool is not indexed.
+     */
+    public DescriptorIndex.Entry getDescriptorIndexEntry(
+            final String relToolPath) {
+        DescriptorIndex index = getDescriptorIndex();
+        if (index == null || relToolPath == null) {
+            return null;
+        }
+        return index.getEntry(relToolPath.replace(File.separatorChar, '/'));
+    }
+
+    private DescriptorIndex loadDescriptorIndex() {
+        Bundle bundle = FrameworkUtil.getBundle(classInBundle);
+        // the index is located directly in the payload folder, which may be
+        // contributed by a fragment
+        Enumeration<URL> e = bundle.findEntries(BUNDLE_PATH,
+                DescriptorIndex.FILE_NAME, false);
+        if (e == null || !e.hasMoreElements()) {
+            return null;
+        }
+        URL url = e.nextElement();
+        try (InputStream in = url.openStream()) {
+            DescriptorIndex index = DescriptorIndex.read(in);
+            if (index == null) {
+                LOGGER.info("Ignoring descriptor index " + url
+                        + " of another format version.");
+            }
+            return index;
+        } catch (IOException ex) {
+            LOGGER.warn("Could not read descriptor index " + url
+                    + ", searching the bundle for CTDs instead.", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Lists the CTDs shipped with the bundle. The descriptor index is used if
+     * present, otherwise the bundle is searched for CTDs.
+     *
+     * @return The paths of the CTDs relative to the descriptors directory.
      */
     public Iterable<String> listTools() {
+        DescriptorIndex index = getDescriptorIndex();
+        if (index != null) {
+            List<String> files = new ArrayList<>();
+            for (DescriptorIndex.Entry entry : index.getEntries()) {
+                files.add(entry.getPath().replace('/', File.separatorChar));
+            }
+            return files;
+        }
+
         Bundle bundle = FrameworkUtil.getBundle(classInBundle);
         Enumeration<URL> ctds = bundle.findEntries(DESCRIPTORS_PATH, "*.ctd", true);
 
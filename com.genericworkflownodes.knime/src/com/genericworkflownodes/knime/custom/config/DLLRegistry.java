@@ -11,7 +11,10 @@ import java.util.Set;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
 import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IRegistryEventListener;
 import org.eclipse.core.runtime.Platform;
 import org.knime.core.node.NodeLogger;
 
@@ -27,10 +30,37 @@ public class DLLRegistry {
 	 */
 	private static final NodeLogger LOGGER = NodeLogger.getLogger(DLLRegistry.class);
 
+	/**
+	 * The folders of all providers, null if not collected yet or if the
+	 * providers changed.
+	 */
+	private volatile HashMap<String, ArrayList<Path>> m_folders;
+
 	/**
 	 * Default constructor
 	 */
 	private DLLRegistry() {
+		Platform.getExtensionRegistry().addListener(new IRegistryEventListener() {
+			@Override
+			public void added(final IExtension[] extensions) {
+				m_folders = null;
+			}
+
+			@Override
+			public void removed(final IExtension[] extensions) {
+				m_folders = null;
+			}
+
+			@Override
+			public void added(final IExtensionPoint[] extensionPoints) {
+				m_folders = null;
+			}
+
+			@Override
+			public void removed(final IExtensionPoint[] extensionPoints) {
+				m_folders = null;
+			}
+		}, EXTENSION_POINT_ID);
 	}
 
     /**
@@ -52,19 +82,36 @@ public class DLLRegistry {
     }
 
     /**
-     * Searches all extensions for registered dlls.
+     * Searches all extensions for registered dlls. The providers are only
+     * queried once, until extensions are added or removed.
      *
      * @return A list of paths ({@link String}), or an empty list if no dll was
      *         found.
      */
     public HashMap<String, ArrayList<Path>> getAllAvailableDLLFolders() throws CoreException {
+        HashMap<String, ArrayList<Path>> folders = m_folders;
+        if (folders == null) {
+            folders = collectDLLFolders();
+            m_folders = folders;
+        }
+        // callers may modify the result
+        HashMap<String, ArrayList<Path>> res = new HashMap<String, ArrayList<Path>>();
+        for (String name : folders.keySet()) {
+            res.put(name, new ArrayList<Path>(folders.get(name)));
+        }
+        return res;
+    }
+
+    /**
+     * Queries all registered providers for their dlls.
+     */
+    private HashMap<String, ArrayList<Path>> collectDLLFolders() throws CoreException {
 
         HashMap<String, ArrayList<Path>> res = new HashMap<String,ArrayList<Path>>();
 
 		IExtensionRegistry reg = Platform.getExtensionRegistry();
 		IConfigurationElement[] elements = reg.getConfigurationElementsFor(EXTENSION_POINT_ID);
 
-		// TODO cache this??
         for (IConfigurationElement elem : elements) {
             Set<Path> dllPaths = new HashSet<Path>();
             //System.out.println(elem.getName() + elem.getValue());
@@ -102,9 +149,10 @@ public class DLLRegistry {
     
     public List<Path> getAvailableDLLFoldersFor(List<String> names) throws CoreException {
         ArrayList<Path> res = new ArrayList<Path>();
+        HashMap<String, ArrayList<Path>> folders = getAllAvailableDLLFolders();
         for (String n : names)
         {
-            res.addAll(getAllAvailableDLLFolders().get(n));
+            res.addAll(folders.get(n));
         }
         return res;
     }
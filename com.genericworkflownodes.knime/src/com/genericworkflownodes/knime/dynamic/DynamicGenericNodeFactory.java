@@ -6,8 +6,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.FilenameUtils;
 import org.knime.base.node.util.exttool.ExtToolStderrNodeView;
@@ -33,14 +33,14 @@ import org.knime.node.v28.ViewsDocument.Views;
 import org.osgi.framework.Version;
 import org.w3c.dom.Document;
 
+import com.genericworkflownodes.knime.config.DescriptorIndex;
 import com.genericworkflownodes.knime.config.INodeConfiguration;
-import com.genericworkflownodes.knime.config.reader.CTDConfigurationReader;
+import com.genericworkflownodes.knime.config.reader.CTDConfigurationCache;
 import com.genericworkflownodes.knime.config.reader.InvalidCTDFileException;
 import com.genericworkflownodes.knime.custom.config.BinaryManager;
 import com.genericworkflownodes.knime.custom.config.IPluginConfiguration.VersionDisplayLayer;
 import com.genericworkflownodes.knime.generic_node.GenericKnimeNodeDialog;
 import com.genericworkflownodes.knime.generic_node.GenericKnimeNodeModel;
-import com.genericworkflownodes.knime.parameter.Parameter;
 import com.genericworkflownodes.knime.port.Port;
 
 /**
@@ -201,7 +201,7 @@ public abstract class DynamicGenericNodeFactory extends GenericNodeFactory {
     @Override
     protected NodeDescription createNodeDescription() {
         try {
-            INodeConfiguration cfg = getNodeConfiguration();
+            DescriptorIndex.Entry cfg = getDescriptorIndexEntry();
             KnimeNodeDocument doc = org.knime.node.v28.KnimeNodeDocument.Factory.newInstance();
             Document domDoc = (Document)doc.getDomNode();
 
@@ -254,11 +254,9 @@ public abstract class DynamicGenericNodeFactory extends GenericNodeFactory {
             intro.addNewP().getDomNode().appendChild(domDoc.createTextNode(cfg.getManual()));
             
             // Ports
-            ArrayList<String> portParamsToSkip = new ArrayList<String>();
             Ports ports = node.addNewPorts();
             int index = 0;
             for (Port p : cfg.getInputPorts()) {
-                portParamsToSkip.add(p.getName());
                 InPort ip = ports.addNewInPort();
                 ip.setIndex(new BigInteger(Integer.toString(index++)));
                 String mimetypes = mimetypes2String(p.getMimeTypes());
@@ -268,7 +266,6 @@ public abstract class DynamicGenericNodeFactory extends GenericNodeFactory {
             
             index = 0;
             for (Port p : cfg.getOutputPorts()) {
-                portParamsToSkip.add(p.getName());
                 OutPort op = ports.addNewOutPort();
                 op.setIndex(new BigInteger(Integer.toString(index++)));
                 String mimetypes = mimetypes2String(p.getMimeTypes());
@@ -277,14 +274,11 @@ public abstract class DynamicGenericNodeFactory extends GenericNodeFactory {
                 op.getDomNode().appendChild(domDoc.createTextNode(p.getDescription() + mimetypes));
             }
             
-            // Options (skip ports)
-            for (Parameter<?> p : cfg.getParameters()) {
-                if (!portParamsToSkip.contains(p.getKey()))
-                {
-                    Option option = fullDescr.addNewOption();
-                    option.setName(p.getKey());
-                    option.getDomNode().appendChild(domDoc.createTextNode(p.getDescription()));
-                }
+            // Options (without ports)
+            for (Map.Entry<String, String> p : cfg.getOptions().entrySet()) {
+                Option option = fullDescr.addNewOption();
+                option.setName(p.getKey());
+                option.getDomNode().appendChild(domDoc.createTextNode(p.getValue()));
             }
             
             return new NodeDescription28Proxy(doc);
@@ -294,11 +288,28 @@ public abstract class DynamicGenericNodeFactory extends GenericNodeFactory {
         return null;
     }
     
+    /**
+     * Returns the metadata for the node description. The metadata is taken
+     * from the descriptor index if the plugin ships one, so that the node
+     * repository can be populated without parsing the CTD.
+     */
+    private DescriptorIndex.Entry getDescriptorIndexEntry()
+            throws InvalidCTDFileException, FileNotFoundException, IOException {
+        DescriptorIndex.Entry entry = getPluginConfig().getBinaryManager()
+                .getDescriptorIndexEntry(m_ctdFile);
+        if (entry == null) {
+            entry = DescriptorIndex.createEntry(m_ctdFile,
+                    getNodeConfiguration());
+        }
+        return entry;
+    }
+
     private INodeConfiguration getNodeConfiguration()
             throws InvalidCTDFileException, FileNotFoundException, IOException {
         if (m_config == null) {
             try(InputStream cfgStream = getConfigAsStream()) {
-                m_config = new CTDConfigurationReader().read(cfgStream);
+                m_config = CTDConfigurationCache.getInstance().read(cfgStream,
+                        getPluginConfig().getRawPluginVersion().toString());
             }
         }
         return m_config;
@@ -15,7 +15,9 @@ import org.knime.core.node.config.ConfigRO;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.Version;
 
-import com.genericworkflownodes.knime.config.reader.CTDConfigurationReader;
+import com.genericworkflownodes.knime.config.DescriptorIndex;
+import com.genericworkflownodes.knime.config.reader.CTDConfigurationCache;
+import com.genericworkflownodes.knime.custom.config.BinaryManager;
 import com.genericworkflownodes.knime.custom.config.IPluginConfiguration;
 import com.genericworkflownodes.knime.custom.config.IPluginConfiguration.VersionDisplayLayer;
 
@@ -72,12 +74,20 @@ public abstract class DynamicGenericNodeSetFactory implements GenericNodeSetFact
     @Override
     public String getCategoryPath(String id) {
         String category;
-        File f = getPluginConfig().getBinaryManager().resolveToolDescriptorPath(m_idToFile.get(id));
-        try (InputStream cfgStream = new FileInputStream(f)) {
-            category = new CTDConfigurationReader().read(cfgStream).getCategory();
-        } catch(Exception e) {
-            logger.error("Could not read node category from CTD, using '/' instead.", e);
-            category = "";
+        BinaryManager binaryManager = getPluginConfig().getBinaryManager();
+        DescriptorIndex.Entry entry = binaryManager.getDescriptorIndexEntry(m_idToFile.get(id));
+        if (entry != null) {
+            // avoid parsing the full CTD just for the category
+            category = entry.getCategory();
+        } else {
+            File f = binaryManager.resolveToolDescriptorPath(m_idToFile.get(id));
+            try (InputStream cfgStream = new FileInputStream(f)) {
+                category = CTDConfigurationCache.getInstance()
+                        .read(cfgStream, getVersion().toString()).getCategory();
+            } catch(Exception e) {
+                logger.error("Could not read node category from CTD, using '/' instead.", e);
+                category = "";
+            }
         }
 
         if (getPluginConfig()
@@ -2,13 +2,17 @@ package com.genericworkflownodes.knime.dynamic;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
@@ -41,6 +45,18 @@ public class VersionedNodeSetFactoryManager implements NodeSetFactory {
     private static final NodeLogger LOGGER = NodeLogger
             .getLogger(VersionedNodeSetFactoryManager.class);
     
+    /**
+     * The maximum number of node set factories loading their nodes
+     * concurrently.
+     */
+    private static final int MAX_PARALLEL_LOADS = 8;
+
+    /**
+     * The time it took each node set factory to list its nodes, in
+     * milliseconds, by node set factory id.
+     */
+    private final Map<String, Long> m_loadTimes = new LinkedHashMap<>();
+
     /*
      * Searches through the eclipse extension point registry for registered
      * {@link VersionedNodeSetFactory}s.
@@ -48,64 +64,146 @@ public class VersionedNodeSetFactoryManager implements NodeSetFactory {
     public synchronized List<GenericNodeSetFactory> getAvailableVersionedNodeSetFactories() {
         if (m_factories == null) {
             m_factories = new ArrayList<GenericNodeSetFactory>();
-            Map<String, PriorityQueue<GenericNodeSetFactory>> pluginIDQueues = new HashMap<>();
             IExtensionRegistry reg = Platform.getExtensionRegistry();
             IConfigurationElement[] elements = reg
                     .getConfigurationElementsFor(EXTENSION_POINT_ID);
             LOGGER.debug("Loading " + elements.length + " GenericNodeSetFactories whose plugin.xmls registered in the com.genericworkflownodes.knime.dynamic.VersionedNodeSetFactory extension point.");
+            long start = System.currentTimeMillis();
             try {
+                // instantiating the factories activates their bundles, which
+                // is kept sequential
                 for (IConfigurationElement elem : elements) {
-                    final GenericNodeSetFactory o = (GenericNodeSetFactory)elem.createExecutableExtension("class");
-                    // cast is guaranteed to work based on the extension point
-                    // definition
-                    m_factories.add(o);
-                    String pluginID = o.getPluginConfig().getPluginId();
-                    LOGGER.debug("Checking plugin " + pluginID);
-                    if (!pluginIDQueues.containsKey(pluginID)) {
-                        pluginIDQueues.put(pluginID, new PriorityQueue<GenericNodeSetFactory>(10, new Comparator<GenericNodeSetFactory>(){
-                            @Override
-                            public int compare(GenericNodeSetFactory o1,
-                                    GenericNodeSetFactory o2) {
-                                return o2.getVersion().compareTo(o1.getVersion());
-                            }
-                        }));
-                    }
-                    pluginIDQueues.get(pluginID).add(o);
-                    for (String nodeID : o.getNodeFactoryIds()) {
-                        if (m_idToFac.containsKey(nodeID)) {
-                            LOGGER.warn("Node with ID " + nodeID + " already registered");
-                        }
-                        m_idToFac.put(nodeID, o);
+                    try {
+                        // cast is guaranteed to work based on the extension
+                        // point definition
+                        m_factories.add((GenericNodeSetFactory)elem.createExecutableExtension("class"));
+                    } catch (CoreException e) {
+                        LOGGER.error("Could not load plugin for extension point " + EXTENSION_POINT_ID, e);
                     }
                 }
-                
-                for (PriorityQueue<GenericNodeSetFactory> q : pluginIDQueues.values()) {
-                    //Newest version stays undeprecated
-                    GenericNodeSetFactory latest = q.poll();
-                    m_nondeprecatedFactories.add(latest.getId());
-                }
+                publishDeprecatedFactories(m_factories);
+            } finally {
+                // never leave nodes waiting for the deprecation state
                 synchronized (m_nondeprecatedFactories) {
                     m_loaded = true;
                     m_nondeprecatedFactories.notifyAll();
                 }
-            } catch (CoreException e) {
-                LOGGER.error("Could not load plugin for extension point " + EXTENSION_POINT_ID, e);
             }
+
+            List<Collection<String>> nodeIDs = loadNodeFactoryIds(m_factories);
+            for (int i = 0; i < m_factories.size(); ++i) {
+                for (String nodeID : nodeIDs.get(i)) {
+                    if (m_idToFac.containsKey(nodeID)) {
+                        LOGGER.warn("Node with ID " + nodeID + " already registered");
+                    }
+                    m_idToFac.put(nodeID, m_factories.get(i));
+                }
+            }
+            LOGGER.info("Loaded " + m_idToFac.size() + " nodes of "
+                    + m_factories.size() + " GenericNodeSetFactories in "
+                    + (System.currentTimeMillis() - start) + " ms.");
         }
         return m_factories;
     }
+
+    /**
+     * Determines the newest version of each plugin, whose nodes stay
+     * undeprecated, as soon as the factories are instantiated, so that
+     * {@link #isFactoryDeprecated(String)} does not wait for the nodes to be
+     * loaded.
+     */
+    private static void publishDeprecatedFactories(List<GenericNodeSetFactory> factories) {
+        Map<String, GenericNodeSetFactory> latest = new HashMap<>();
+        for (GenericNodeSetFactory o : factories) {
+            String pluginID = o.getPluginConfig().getPluginId();
+            LOGGER.debug("Checking plugin " + pluginID);
+            GenericNodeSetFactory current = latest.get(pluginID);
+            //Newest version stays undeprecated
+            if (current == null || o.getVersion().compareTo(current.getVersion()) > 0) {
+                latest.put(pluginID, o);
+            }
+        }
+        synchronized (m_nondeprecatedFactories) {
+            for (GenericNodeSetFactory o : latest.values()) {
+                m_nondeprecatedFactories.add(o.getId());
+            }
+        }
+    }
+
+    /**
+     * Lists the nodes of the factories concurrently on a bounded pool, as
+     * listing requires each factory to search its bundle for tools.
+     *
+     * @return The node ids of each factory, in the order of the factories.
+     *         Empty for factories that failed to list their nodes.
+     */
+    private List<Collection<String>> loadNodeFactoryIds(List<GenericNodeSetFactory> factories) {
+        List<Callable<Collection<String>>> tasks = new ArrayList<>();
+        for (final GenericNodeSetFactory o : factories) {
+            tasks.add(new Callable<Collection<String>>() {
+                @Override
+                public Collection<String> call() {
+                    long start = System.currentTimeMillis();
+                    Collection<String> ids = o.getNodeFactoryIds();
+                    long time = System.currentTimeMillis() - start;
+                    LOGGER.debug("Loaded " + ids.size() + " nodes of " + o.getId() + " in " + time + " ms.");
+                    synchronized (m_loadTimes) {
+                        m_loadTimes.put(o.getId(), time);
+                    }
+                    return ids;
+                }
+            });
+        }
+
+        List<Collection<String>> nodeIDs = new ArrayList<>();
+        if (tasks.isEmpty()) {
+            return nodeIDs;
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.min(tasks.size(),
+                Math.min(MAX_PARALLEL_LOADS, Runtime.getRuntime().availableProcessors())));
+        try {
+            List<Future<Collection<String>>> results = pool.invokeAll(tasks);
+            for (int i = 0; i < results.size(); ++i) {
+                try {
+                    nodeIDs.add(results.get(i).get());
+                } catch (ExecutionException e) {
+                    LOGGER.error("Could not load the nodes of " + factories.get(i).getId(), e.getCause());
+                    nodeIDs.add(Collections.<String>emptyList());
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.error("Loading the GenericNodeSetFactories was interrupted.", e);
+            Thread.currentThread().interrupt();
+            while (nodeIDs.size() < factories.size()) {
+                nodeIDs.add(Collections.<String>emptyList());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return nodeIDs;
+    }
+
+    /**
+     * @return The time it took each node set factory to list its nodes, in
+     *         milliseconds, by node set factory id.
+     */
+    public Map<String, Long> getLoadTimes() {
+        synchronized (m_loadTimes) {
+            return new LinkedHashMap<>(m_loadTimes);
+        }
+    }
     
     private static boolean m_loaded = false;
     private static Set<String> m_nondeprecatedFactories = new HashSet<>();
     
     public static boolean isFactoryDeprecated(String id) throws InterruptedException {
-        // We need to wait here until all nodes are loaded to determine which ones are deprecated
+        // We need to wait here until all factories are instantiated to determine which ones are deprecated
         synchronized (m_nondeprecatedFactories) {
             while (!m_loaded) {
                 m_nondeprecatedFactories.wait();
             }
+            return !m_nondeprecatedFactories.contains(id);
         }
-        return !m_nondeprecatedFactories.contains(id);
     }
     
     @Override
@@ -19,6 +19,7 @@
 package com.genericworkflownodes.knime.execution;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -57,6 +58,11 @@ public class AsynchronousToolExecutor implements IWaitable {
      * Determines if the invoke method has already been called.
      */
     private final AtomicBoolean invokeAlreadyCalled;
+    /**
+     * Set once the underlying executor started, or once it was killed before
+     * it started.
+     */
+    private final AtomicBoolean started = new AtomicBoolean(false);
     /**
      * Useful when other threads call the waitUntilFinished method.
      */
@@ -110,6 +116,10 @@ public class AsynchronousToolExecutor implements IWaitable {
 
     private int doCall() throws Exception {
         try {
+            if (!started.compareAndSet(false, true)) {
+                throw new CancellationException(
+                        "The execution was killed before it started.");
+            }
             return m_executor.execute();
         } finally {
             // regardless of what happened, make sure to decrease the count in
@@ -136,15 +146,20 @@ public class AsynchronousToolExecutor implements IWaitable {
     }
 
     /**
-     * Kills the executed process.
+     * Kills the executed process. Threads waiting in
+     * {@link #waitUntilFinished()} are woken up once the underlying executor
+     * returned, i.e., after the killed processes are gone.
      */
     public void kill() {
         try {
             m_executor.kill();
             futureTask.cancel(true);
         } finally {
-            // make sure to wake up any thread that is waiting
-            countdownLatch.countDown();
+            if (started.compareAndSet(false, true)) {
+                // the executor never runs, so nobody else wakes up the
+                // waiting threads
+                countdownLatch.countDown();
+            }
         }
     }
 
@@ -0,0 +1,136 @@
+package com.genericworkflownodes.knime.execution;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Watches all running tool executions for cancellation requests of their
+ * nodes.
+ *
+ * Instead of one monitor thread per execution, a single shared daemon thread
+ * checks all registered {@link ExecutionMonitor}s periodically and kills the
+ * corresponding {@link AsynchronousToolExecutor} once a cancel was requested.
+ * The periodic check only runs while at least one execution is registered.
+ */
+public final class ExecutionWatchdog {
+
+    private static final NodeLogger LOGGER = NodeLogger
+            .getLogger(ExecutionWatchdog.class);
+
+    /**
+     * Interval between two cancellation checks.
+     */
+    private static final long CHECK_INTERVAL_MS = 100;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors
+            .newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread thread = new Thread(r, "GKN-ExecutionWatchdog");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    /**
+     * The running executions and the monitors of their nodes.
+     */
+    private static final Map<AsynchronousToolExecutor, ExecutionMonitor> WATCHED = new ConcurrentHashMap<AsynchronousToolExecutor, ExecutionMonitor>();
+
+    /**
+     * The periodic check, null while nothing is watched. Guarded by the class
+     * lock.
+     */
+    private static ScheduledFuture<?> checkTask;
+
+    private ExecutionWatchdog() {
+    }
+
+    /**
+     * Starts watching the given execution. The execution is killed as soon as
+     * a cancellation of the given monitor is requested.
+     *
+     * @param executor
+     *            The execution to watch.
+     * @param exec
+     *            The monitor of the node running the execution.
+     */
+    public static void watch(final AsynchronousToolExecutor executor,
+            final ExecutionMonitor exec) {
+        synchronized (ExecutionWatchdog.class) {
+            WATCHED.put(executor, exec);
+            if (checkTask == null) {
+                checkTask = SCHEDULER.scheduleWithFixedDelay(new Runnable() {
+                    @Override
+                    public void run() {
+                        checkAll();
+                    }
+                }, CHECK_INTERVAL_MS, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Stops watching the given execution.
+     *
+     * @param executor
+     *            The execution that should no longer be watched.
+     */
+    public static void unwatch(final AsynchronousToolExecutor executor) {
+        WATCHED.remove(executor);
+        stopIfIdle();
+    }
+
+    /**
+     * @return The number of executions currently watched.
+     */
+    public static int getNumberOfWatchedExecutions() {
+        return WATCHED.size();
+    }
+
+    private static void checkAll() {
+        Iterator<Map.Entry<AsynchronousToolExecutor, ExecutionMonitor>> it = WATCHED
+                .entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<AsynchronousToolExecutor, ExecutionMonitor> entry = it
+                    .next();
+            AsynchronousToolExecutor executor = entry.getKey();
+            if (executor.isDone()) {
+                it.remove();
+                continue;
+            }
+            try {
+                // if cancel was requested, an exception will be thrown
+                entry.getValue().checkCanceled();
+            } catch (CanceledExecutionException e) {
+                it.remove();
+                try {
+                    executor.kill();
+                } catch (RuntimeException re) {
+                    // never let an exception stop the periodic check
+                    LOGGER.warn("Failed to kill canceled tool execution.", re);
+                }
+            }
+        }
+        stopIfIdle();
+    }
+
+    private static void stopIfIdle() {
+        synchronized (ExecutionWatchdog.class) {
+            if (WATCHED.isEmpty() && checkTask != null) {
+                checkTask.cancel(false);
+                checkTask = null;
+            }
+        }
+    }
+}
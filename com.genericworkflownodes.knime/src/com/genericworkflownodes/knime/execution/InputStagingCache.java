@@ -0,0 +1,710 @@
+package com.genericworkflownodes.knime.execution;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Local copies of input files that are not available as local files, e.g.,
+ * files on a KNIME server, in a NIO file system or behind an http URL.
+ *
+ * The copies are content addressed: a downloaded file is stored below the
+ * SHA-256 digest of its content, and a reference per URI records the digest
+ * together with a validator of the source (ETag, modification time and
+ * size). A later request for the same URI with an unchanged validator is
+ * served from the cache without downloading the file again. Interrupted
+ * downloads are resumed from the partial file if the source supports it,
+ * the number of concurrent downloads is bounded, and the least recently used
+ * files are evicted when the cache exceeds its disk budget. Files in use by
+ * a running tool are never evicted.
+ *
+ * Tools get the cached files themselves, which are read-only. Since a tool
+ * may still change a file in place, the content of a cached file is checked
+ * against its digest whenever it is reused, and staged again if it changed.
+ */
+public final class InputStagingCache {
+
+    private static final NodeLogger LOGGER = NodeLogger
+            .getLogger(InputStagingCache.class);
+
+    private static final String OBJECTS_DIR = "objects";
+
+    private static final String REFS_DIR = "refs";
+
+    private static final String PARTIAL_DIR = "partial";
+
+    private static final String PART_SUFFIX = ".part";
+
+    private static final String VALIDATOR_SUFFIX = ".validator";
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Interval in which waiting downloads check for cancellation.
+     */
+    private static final long POLL_INTERVAL_MS = 500;
+
+    private static InputStagingCache instance;
+
+    private final File m_directory;
+
+    private long m_budgetBytes;
+
+    private final Semaphore m_fetches;
+
+    /**
+     * Locks per URI, so the same file is downloaded only once at a time.
+     */
+    private final Map<String, Object> m_locks = new ConcurrentHashMap<String, Object>();
+
+    /**
+     * Sizes of the objects in access order, loaded on first use.
+     */
+    private LinkedHashMap<String, Long> m_objects;
+
+    private long m_totalBytes;
+
+    /**
+     * The number of users of each object that must not be evicted.
+     */
+    private final Map<String, Integer> m_pins = new HashMap<String, Integer>();
+
+    /**
+     * Creates a cache in the given directory.
+     *
+     * @param directory
+     *            The directory holding the staged files.
+     * @param budgetMB
+     *            The maximal size of all staged files in MB.
+     * @param maxFetches
+     *            The maximal number of concurrent downloads.
+     */
+    public InputStagingCache(final File directory, final long budgetMB,
+            final int maxFetches) {
+        m_directory = directory;
+        m_budgetBytes = budgetMB * 1024 * 1024;
+        m_fetches = new Semaphore(Math.max(maxFetches, 1), true);
+    }
+
+    /**
+     * @return The cache shared by all GKN nodes.
+     */
+    public static synchronized InputStagingCache getInstance() {
+        if (instance == null) {
+            instance = new InputStagingCache(new File(
+                    System.getProperty("java.io.tmpdir"), "gkn-staging-cache"),
+                    10 * 1024, 4);
+        }
+        return instance;
+    }
+
+    /**
+     * Replaces the shared cache.
+     *
+     * @param cache
+     *            The new shared cache.
+     */
+    public static synchronized void setInstance(final InputStagingCache cache) {
+        instance = cache;
+    }
+
+    /**
+     * Changes the disk budget, evicting files if necessary.
+     *
+     * @param budgetMB
+     *            The maximal size of all staged files in MB.
+     */
+    public synchronized void setBudget(final long budgetMB) {
+        m_budgetBytes = budgetMB * 1024 * 1024;
+        if (m_objects != null) {
+            evict();
+        }
+    }
+
+    /**
+     * Returns a local copy of the file behind the given URI, downloading it if
+     * it is not cached or changed. The copy is read-only and pinned until it
+     * is released.
+     *
+     * @param uri
+     *            The URI of the file.
+     * @param exec
+     *            The monitor to report progress to and check for
+     *            cancellation.
+     * @return The local copy, which has the file name of the URI.
+     * @throws IOException
+     *             If the file could not be downloaded.
+     * @throws CanceledExecutionException
+     *             If the execution was canceled.
+     */
+    public File stage(final URI uri, final ExecutionMonitor exec)
+            throws IOException, CanceledExecutionException {
+        Source source = openSource(uri);
+        String refKey = digest(uri.toString());
+        String name = getFileName(uri);
+        Object lock = m_locks.computeIfAbsent(refKey, k -> new Object());
+        synchronized (lock) {
+            String validator = source.validator();
+            File cached = lookup(refKey, validator, name);
+            if (cached != null) {
+                LOGGER.debug("Using staged copy of " + uri);
+                return cached;
+            }
+            acquireFetch(exec);
+            try {
+                return fetch(uri, source, refKey, validator, name, exec);
+            } finally {
+                m_fetches.release();
+            }
+        }
+    }
+
+    /**
+     * Releases a file returned by {@link #stage}, so it may be evicted again.
+     *
+     * @param file
+     *            The staged file.
+     */
+    public synchronized void release(final File file) {
+        String object = file.getParentFile().getName();
+        Integer pins = m_pins.get(object);
+        if (pins == null) {
+            return;
+        }
+        if (pins <= 1) {
+            m_pins.remove(object);
+        } else {
+            m_pins.put(object, pins - 1);
+        }
+    }
+
+    /**
+     * Returns the cached copy if the reference of the URI is still valid and
+     * the copy was not modified.
+     */
+    private File lookup(final String refKey, final String validator,
+            final String name) throws IOException, CanceledExecutionException {
+        if (validator == null) {
+            return null;
+        }
+        Path ref = getDir(REFS_DIR).resolve(refKey);
+        if (!Files.isRegularFile(ref)) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(ref, StandardCharsets.UTF_8);
+        if (lines.size() < 2 || !validator.equals(lines.get(0))) {
+            return null;
+        }
+        String object = lines.get(1);
+        // pinned while it is checked, so it is not evicted in between
+        File file = use(object, name);
+        if (file != null && !hasDigest(file, object)) {
+            LOGGER.warn("Staged copy " + file
+                    + " was modified, staging it again");
+            discard(object);
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * Checks whether the content of the file still has the given digest.
+     */
+    private static boolean hasDigest(final File file, final String object)
+            throws IOException, CanceledExecutionException {
+        MessageDigest md = newDigest();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            update(md, in, null, null, 0);
+        }
+        return toHex(md.digest()).equals(object);
+    }
+
+    /**
+     * Checks whether all files of the object directory still have the digest
+     * of the object.
+     */
+    private static boolean isIntact(final Path dir, final String object)
+            throws IOException, CanceledExecutionException {
+        File[] files = dir.toFile().listFiles();
+        if (files == null) {
+            return false;
+        }
+        for (File file : files) {
+            if (!hasDigest(file, object)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes a modified object from the cache. Tools still using it keep
+     * their files until they are done on most platforms.
+     */
+    private synchronized void discard(final String object) {
+        Long size = m_objects.remove(object);
+        if (size != null) {
+            m_totalBytes -= size;
+        }
+        m_pins.remove(object);
+        deleteObject(new File(new File(m_directory, OBJECTS_DIR), object));
+    }
+
+    /**
+     * Deletes the directory of an object, whose files are read-only.
+     */
+    private static void deleteObject(final File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.setWritable(true);
+            }
+        }
+        FileUtils.deleteQuietly(dir);
+    }
+
+    /**
+     * Pins the given object and returns its file with the given name.
+     *
+     * @return The file, or <code>null</code> if the object was evicted.
+     */
+    private synchronized File use(final String object, final String name)
+            throws IOException {
+        ensureLoaded();
+        Path dir = getDir(OBJECTS_DIR).resolve(object);
+        if (m_objects.get(object) == null || !Files.isDirectory(dir)) {
+            return null;
+        }
+        Path file = dir.resolve(name);
+        if (!Files.exists(file)) {
+            // the same content staged under another name
+            Path existing;
+            try (Stream<Path> files = Files.list(dir)) {
+                existing = files.findFirst().orElse(null);
+            }
+            if (existing == null) {
+                return null;
+            }
+            try {
+                Files.createLink(file, existing);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(existing, file);
+                file.toFile().setReadOnly();
+                m_objects.put(object, m_objects.get(object) + Files.size(file));
+                m_totalBytes += Files.size(file);
+            }
+        }
+        Files.setLastModifiedTime(dir,
+                FileTime.fromMillis(System.currentTimeMillis()));
+        Integer pins = m_pins.get(object);
+        m_pins.put(object, pins == null ? 1 : pins + 1);
+        return file.toFile();
+    }
+
+    private void acquireFetch(final ExecutionMonitor exec)
+            throws CanceledExecutionException, IOException {
+        try {
+            while (!m_fetches.tryAcquire(POLL_INTERVAL_MS,
+                    TimeUnit.MILLISECONDS)) {
+                exec.checkCanceled();
+                exec.setMessage("Waiting for other downloads to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for download", e);
+        }
+    }
+
+    /**
+     * Downloads the file into the partial directory, resuming an earlier
+     * download of the same version, and moves it into the objects.
+     */
+    private File fetch(final URI uri, final Source source,
+            final String refKey, final String validator, final String name,
+            final ExecutionMonitor exec) throws IOException,
+            CanceledExecutionException {
+        Path partial = getDir(PARTIAL_DIR).resolve(refKey + PART_SUFFIX);
+        Path partialValidator = getDir(PARTIAL_DIR).resolve(
+                refKey + VALIDATOR_SUFFIX);
+        MessageDigest md = newDigest();
+        long offset = 0;
+        if (validator != null && Files.isRegularFile(partial)
+                && Files.isRegularFile(partialValidator)
+                && validator.equals(new String(Files
+                        .readAllBytes(partialValidator), StandardCharsets.UTF_8))) {
+            offset = Files.size(partial);
+        }
+        InputStream in = source.open(offset);
+        if (in == null) {
+            // the source can not resume, start over
+            offset = 0;
+            in = source.open(0);
+        }
+        if (offset > 0) {
+            LOGGER.debug("Resuming download of " + uri + " at " + offset
+                    + " bytes");
+            try (InputStream existing = Files.newInputStream(partial)) {
+                update(md, existing, null, null, 0);
+            }
+        } else {
+            Files.deleteIfExists(partial);
+            if (validator != null) {
+                Files.write(partialValidator,
+                        validator.getBytes(StandardCharsets.UTF_8));
+            } else {
+                Files.deleteIfExists(partialValidator);
+            }
+        }
+        try (InputStream input = in;
+                OutputStream out = Files.newOutputStream(partial,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            exec.setMessage("Downloading " + name);
+            update(md, input, out, exec, offset);
+        }
+        String object = toHex(md.digest());
+        long size = Files.size(partial);
+        Path objectDir = getDir(OBJECTS_DIR).resolve(object);
+        if (Files.isDirectory(objectDir) && !isIntact(objectDir, object)) {
+            // staged before through another URI and modified since
+            discard(object);
+        }
+        if (!Files.isDirectory(objectDir)) {
+            Path tmp = getDir(OBJECTS_DIR).resolve(object + "-" + refKey
+                    + TMP_SUFFIX);
+            deleteObject(tmp.toFile());
+            Files.createDirectories(tmp);
+            Files.move(partial, tmp.resolve(name));
+            // tools get the cached file itself
+            tmp.resolve(name).toFile().setReadOnly();
+            try {
+                Files.move(tmp, objectDir, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException
+                    | AtomicMoveNotSupportedException e) {
+                // staged concurrently through another URI
+                deleteObject(tmp.toFile());
+            }
+            synchronized (this) {
+                ensureLoaded();
+                if (m_objects.get(object) == null) {
+                    m_objects.put(object, size);
+                    m_totalBytes += size;
+                }
+            }
+        } else {
+            Files.delete(partial);
+        }
+        Files.deleteIfExists(partialValidator);
+        if (validator != null) {
+            Path ref = getDir(REFS_DIR).resolve(refKey);
+            Path tmpRef = getDir(REFS_DIR).resolve(refKey + TMP_SUFFIX);
+            Files.write(tmpRef, Arrays.asList(validator, object),
+                    StandardCharsets.UTF_8);
+            Files.move(tmpRef, ref, StandardCopyOption.REPLACE_EXISTING);
+        }
+        LOGGER.info("Staged " + uri + " (" + size + " bytes)");
+        File file;
+        synchronized (this) {
+            file = use(object, name);
+            evict();
+        }
+        if (file == null) {
+            throw new IOException("Staged copy of " + uri + " vanished");
+        }
+        return file;
+    }
+
+    /**
+     * Updates the digest with the content of the stream and optionally
+     * copies it.
+     */
+    private static void update(final MessageDigest md, final InputStream in,
+            final OutputStream out, final ExecutionMonitor exec,
+            final long offset) throws IOException, CanceledExecutionException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = offset;
+        long reported = 0;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            md.update(buffer, 0, read);
+            if (out != null) {
+                out.write(buffer, 0, read);
+            }
+            total += read;
+            if (exec != null && total - reported > 16 * BUFFER_SIZE) {
+                exec.checkCanceled();
+                reported = total;
+            }
+        }
+    }
+
+    private synchronized Path getDir(final String name) throws IOException {
+        return Files.createDirectories(m_directory.toPath().resolve(name));
+    }
+
+    private void ensureLoaded() throws IOException {
+        if (m_objects != null) {
+            return;
+        }
+        m_objects = new LinkedHashMap<String, Long>(16, 0.75f, true);
+        m_totalBytes = 0;
+        File[] dirs = getDir(OBJECTS_DIR).toFile().listFiles();
+        if (dirs == null) {
+            return;
+        }
+        // oldest first, so the access order starts as LRU order
+        Arrays.sort(dirs, (a, b) -> Long.compare(a.lastModified(),
+                b.lastModified()));
+        for (File dir : dirs) {
+            if (!dir.isDirectory()) {
+                continue;
+            }
+            if (dir.getName().endsWith(TMP_SUFFIX)) {
+                // left over by a crashed download
+                deleteObject(dir);
+                continue;
+            }
+            long size = FileUtils.sizeOfDirectory(dir);
+            m_objects.put(dir.getName(), size);
+            m_totalBytes += size;
+        }
+    }
+
+    private synchronized void evict() {
+        List<String> evicted = new ArrayList<String>();
+        Iterator<Map.Entry<String, Long>> it = m_objects.entrySet().iterator();
+        while (m_totalBytes > m_budgetBytes && it.hasNext()) {
+            Map.Entry<String, Long> lru = it.next();
+            if (m_pins.containsKey(lru.getKey())) {
+                continue;
+            }
+            it.remove();
+            m_totalBytes -= lru.getValue();
+            evicted.add(lru.getKey());
+        }
+        for (String object : evicted) {
+            deleteObject(new File(new File(m_directory, OBJECTS_DIR), object));
+        }
+    }
+
+    /**
+     * @return The size of all staged files in bytes.
+     */
+    public synchronized long getTotalBytes() {
+        return m_totalBytes;
+    }
+
+    /**
+     * The file name of the URI, which is kept for the local copy, since tools
+     * often rely on the extension.
+     */
+    static String getFileName(final URI uri) {
+        String path = uri.getPath();
+        if (path == null) {
+            // e.g., jar:file:/a.zip!/b.txt
+            path = uri.getSchemeSpecificPart();
+        }
+        String name = path == null ? "" : path.substring(path
+                .lastIndexOf('/') + 1);
+        name = name.replaceAll("[\\\\:*?\"<>|]", "_");
+        return name.isEmpty() || name.equals(".") || name.equals("..") ? "input"
+                : name;
+    }
+
+    /**
+     * A file to download.
+     */
+    private interface Source {
+        /**
+         * @return A string that changes when the file changes, or
+         *         <code>null</code> if unknown.
+         */
+        String validator() throws IOException;
+
+        /**
+         * @return The content starting at the given offset, or
+         *         <code>null</code> if the source can not start there.
+         */
+        InputStream open(long offset) throws IOException;
+    }
+
+    private static Source openSource(final URI uri) throws IOException {
+        try {
+            uri.toURL();
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            // no URL handler, but maybe a NIO file system
+            return new PathSource(Paths.get(uri));
+        }
+        return new UrlSource(uri);
+    }
+
+    /**
+     * A file in a NIO file system.
+     */
+    private static final class PathSource implements Source {
+        private final Path m_path;
+
+        private PathSource(final Path path) {
+            m_path = path;
+        }
+
+        @Override
+        public String validator() throws IOException {
+            return "size=" + Files.size(m_path) + ";mtime="
+                    + Files.getLastModifiedTime(m_path).toMillis();
+        }
+
+        @Override
+        public InputStream open(final long offset) throws IOException {
+            SeekableByteChannel channel = Files.newByteChannel(m_path);
+            try {
+                channel.position(offset);
+            } catch (IOException | UnsupportedOperationException e) {
+                channel.close();
+                return offset == 0 ? Files.newInputStream(m_path) : null;
+            }
+            return Channels.newInputStream(channel);
+        }
+    }
+
+    /**
+     * A file behind a URL, e.g., <code>http</code> or <code>knime</code>.
+     */
+    private static final class UrlSource implements Source {
+        private final URI m_uri;
+
+        private String m_etag;
+
+        private long m_lastModified;
+
+        private UrlSource(final URI uri) {
+            m_uri = uri;
+        }
+
+        @Override
+        public String validator() throws IOException {
+            URLConnection connection = m_uri.toURL().openConnection();
+            long length;
+            if (connection instanceof HttpURLConnection) {
+                HttpURLConnection http = (HttpURLConnection) connection;
+                http.setRequestMethod("HEAD");
+                int status = http.getResponseCode();
+                if (status >= 400) {
+                    throw new IOException("Could not access " + m_uri
+                            + ": HTTP " + status);
+                }
+                m_etag = http.getHeaderField("ETag");
+                m_lastModified = http.getLastModified();
+                length = http.getContentLengthLong();
+                http.disconnect();
+            } else {
+                m_lastModified = connection.getLastModified();
+                length = connection.getContentLengthLong();
+                // some connections open the content to answer the above
+                try {
+                    connection.getInputStream().close();
+                } catch (IOException e) {
+                    // only released here, the download reports errors
+                }
+            }
+            if (m_etag == null && m_lastModified <= 0) {
+                // the length alone does not identify a version
+                return null;
+            }
+            return "etag=" + m_etag + ";mtime=" + m_lastModified + ";size="
+                    + length;
+        }
+
+        @Override
+        public InputStream open(final long offset) throws IOException {
+            URLConnection connection = m_uri.toURL().openConnection();
+            if (!(connection instanceof HttpURLConnection)) {
+                // no ranges, only http downloads are resumed
+                return offset == 0 ? connection.getInputStream() : null;
+            }
+            HttpURLConnection http = (HttpURLConnection) connection;
+            if (offset > 0) {
+                http.setRequestProperty("Range", "bytes=" + offset + "-");
+                // only resume if the file did not change in between
+                if (m_etag != null) {
+                    http.setRequestProperty("If-Range", m_etag);
+                } else if (m_lastModified > 0) {
+                    http.setRequestProperty("If-Range",
+                            DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant
+                                    .ofEpochMilli(m_lastModified).atZone(
+                                            ZoneOffset.UTC)));
+                }
+            }
+            int status = http.getResponseCode();
+            if (status >= 400) {
+                http.disconnect();
+                throw new IOException("Could not download " + m_uri
+                        + ": HTTP " + status);
+            }
+            if (offset > 0 && status != HttpURLConnection.HTTP_PARTIAL) {
+                http.disconnect();
+                return null;
+            }
+            return http.getInputStream();
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String digest(final String value) {
+        return toHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String toHex(final byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,251 @@
+package com.genericworkflownodes.knime.execution;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Allocates the job directories of tool executions and disposes of them
+ * afterwards.
+ *
+ * Directories are created with {@link Files#createTempDirectory}, which picks
+ * a unique name atomically, so concurrent executions neither share a lock nor
+ * probe for free names. A finished job directory is renamed into a trash
+ * directory next to it and deleted by a low priority background thread, so
+ * the node does not wait for the deletion. The trash is limited by a disk
+ * budget: while the directories in the trash take more space, released
+ * directories are deleted right away. The background thread determines the
+ * size of the directories, so releasing one does not walk its files.
+ * Leftovers of earlier sessions are deleted when the first directory is
+ * released.
+ */
+public final class JobDirectoryService {
+
+    private static final NodeLogger LOGGER = NodeLogger
+            .getLogger(JobDirectoryService.class);
+
+    /**
+     * Name of the trash directory below the root.
+     */
+    public static final String TRASH_DIR = "gkn-trash";
+
+    private static final JobDirectoryService INSTANCE = new JobDirectoryService(
+            Paths.get(System.getProperty("java.io.tmpdir")), 4L * 1024 * 1024 * 1024);
+
+    private final Path m_root;
+
+    private final Path m_trash;
+
+    private volatile long m_budgetBytes;
+
+    /**
+     * The bytes of the directories waiting for deletion, as far as they were
+     * measured by the cleaner.
+     */
+    private final AtomicLong m_pendingBytes = new AtomicLong();
+
+    /**
+     * The number of directories waiting for deletion.
+     */
+    private final AtomicInteger m_pendingDirectories = new AtomicInteger();
+
+    /**
+     * The directories waiting for deletion.
+     */
+    private final BlockingQueue<Entry> m_queue = new LinkedBlockingQueue<Entry>();
+
+    private Thread m_cleaner;
+
+    /**
+     * A directory in the trash.
+     */
+    private static final class Entry {
+        private final Path m_path;
+        private long m_bytes;
+
+        private Entry(final Path path) {
+            m_path = path;
+        }
+    }
+
+    /**
+     * Creates a service for the job directories below the given root.
+     *
+     * @param root
+     *            The directory to create the job directories in.
+     * @param budgetBytes
+     *            The maximum size of the directories waiting for deletion.
+     */
+    JobDirectoryService(final Path root, final long budgetBytes) {
+        m_root = root;
+        m_trash = root.resolve(TRASH_DIR);
+        m_budgetBytes = budgetBytes;
+    }
+
+    /**
+     * @return The service shared by all GKN nodes.
+     */
+    public static JobDirectoryService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets the maximum size of the directories waiting for deletion.
+     *
+     * @param budgetMB
+     *            The budget in MB, 0 to delete directories right away.
+     */
+    public void setBudget(final long budgetMB) {
+        m_budgetBytes = Math.max(budgetMB, 0) * 1024 * 1024;
+    }
+
+    /**
+     * Creates a new, empty job directory.
+     *
+     * @param prefix
+     *            The prefix of the directory name, e.g., the name of the node.
+     * @return The created directory.
+     * @throws IOException
+     *             If the directory could not be created.
+     */
+    public File allocate(final String prefix) throws IOException {
+        Files.createDirectories(m_root);
+        return Files.createTempDirectory(m_root,
+                prefix.replaceAll("[^A-Za-z0-9._-]", "_") + "_").toFile();
+    }
+
+    /**
+     * Disposes of a job directory. The directory is moved to the trash and
+     * deleted in the background, unless the trash exceeds the budget or the
+     * directory can not be moved, in which case it is deleted right away.
+     *
+     * @param directory
+     *            The job directory.
+     */
+    public void release(final File directory) {
+        if (!directory.exists()) {
+            return;
+        }
+        if (m_budgetBytes > 0 && m_pendingBytes.get() < m_budgetBytes) {
+            try {
+                Files.createDirectories(m_trash);
+                Path target = m_trash.resolve(directory.getName());
+                Files.move(directory.toPath(), target,
+                        StandardCopyOption.ATOMIC_MOVE);
+                m_pendingDirectories.incrementAndGet();
+                m_queue.add(new Entry(target));
+                ensureCleaner();
+                return;
+            } catch (IOException e) {
+                // e.g., the trash is on another file system
+                LOGGER.debug("Job directory " + directory
+                        + " can not be moved to the trash: " + e.getMessage());
+            }
+        }
+        delete(directory.toPath());
+    }
+
+    /**
+     * @return The bytes of the directories waiting for deletion.
+     */
+    public long getPendingBytes() {
+        return m_pendingBytes.get();
+    }
+
+    /**
+     * Blocks until all directories in the trash are deleted, e.g., for tests.
+     *
+     * @throws InterruptedException
+     *             If the waiting thread was interrupted.
+     */
+    void awaitEmptyTrash() throws InterruptedException {
+        while (m_pendingDirectories.get() > 0) {
+            Thread.sleep(10);
+        }
+    }
+
+    private synchronized void ensureCleaner() {
+        if (m_cleaner != null) {
+            return;
+        }
+        m_cleaner = new Thread(this::clean, "GKN-JobDirectoryCleaner");
+        m_cleaner.setDaemon(true);
+        m_cleaner.setPriority(Thread.MIN_PRIORITY);
+        m_cleaner.start();
+    }
+
+    /**
+     * The loop of the cleaner thread.
+     */
+    private void clean() {
+        deleteLeftovers();
+        List<Entry> entries = new ArrayList<Entry>();
+        while (true) {
+            try {
+                entries.add(m_queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            m_queue.drainTo(entries);
+            // measure all waiting directories first, so the budget applies
+            // while they are deleted
+            for (Entry entry : entries) {
+                entry.m_bytes = FileUtils.sizeOfDirectory(entry.m_path
+                        .toFile());
+                m_pendingBytes.addAndGet(entry.m_bytes);
+            }
+            for (Entry entry : entries) {
+                delete(entry.m_path);
+                m_pendingBytes.addAndGet(-entry.m_bytes);
+                m_pendingDirectories.decrementAndGet();
+            }
+            entries.clear();
+        }
+    }
+
+    /**
+     * Deletes the directories left in the trash by earlier sessions.
+     */
+    private void deleteLeftovers() {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(m_trash)) {
+            for (Path path : stream) {
+                if (!isQueued(path)) {
+                    delete(path);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not list the trash " + m_trash + ": "
+                    + e.getMessage());
+        }
+    }
+
+    private boolean isQueued(final Path path) {
+        for (Entry entry : m_queue) {
+            if (entry.m_path.equals(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void delete(final Path path) {
+        File file = path.toFile();
+        FileUtils.deleteQuietly(file);
+        if (file.exists()) {
+            LOGGER.warn("Could not delete job directory " + path);
+        }
+    }
+}
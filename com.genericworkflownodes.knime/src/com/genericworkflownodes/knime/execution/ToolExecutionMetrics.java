@@ -0,0 +1,207 @@
+package com.genericworkflownodes.knime.execution;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resource usage of a tool execution and the time spent in the phases of
+ * the node around it.
+ *
+ * CPU times, memory and I/O cover the whole process tree of the tool. They
+ * are sampled while the tool runs and are therefore lower bounds; they are
+ * -1 if the platform does not provide them.
+ */
+public class ToolExecutionMetrics {
+
+    /**
+     * Phase: transfer of the incoming ports into the configuration.
+     */
+    public static final String PHASE_INPUT_TRANSFER = "inputTransfer";
+
+    /**
+     * Phase: setup of the output file stores.
+     */
+    public static final String PHASE_OUTPUT_SETUP = "outputSetup";
+
+    /**
+     * Phase: creation of the executor, including command generation and
+     * writing of parameter files.
+     */
+    public static final String PHASE_COMMAND_GENERATION = "commandGeneration";
+
+    /**
+     * Phase: waiting for an execution slot.
+     */
+    public static final String PHASE_QUEUE = "queue";
+
+    /**
+     * Phase: start of the process.
+     */
+    public static final String PHASE_SPAWN = "spawn";
+
+    /**
+     * Phase: collection of the output files and cleanup.
+     */
+    public static final String PHASE_OUTPUT_COLLECTION = "outputCollection";
+
+    private final Map<String, Long> m_phaseNanos = new LinkedHashMap<String, Long>();
+
+    private long m_wallNanos = -1;
+
+    private long m_userCpuMillis = -1;
+
+    private long m_systemCpuMillis = -1;
+
+    private long m_peakRssBytes = -1;
+
+    private long m_readBytes = -1;
+
+    private long m_writtenBytes = -1;
+
+    /**
+     * Adds the duration of a phase. Durations of the same phase are summed
+     * up.
+     *
+     * @param phase
+     *            The name of the phase.
+     * @param nanos
+     *            The duration in nanoseconds.
+     */
+    public synchronized void addPhase(final String phase, final long nanos) {
+        Long old = m_phaseNanos.get(phase);
+        m_phaseNanos.put(phase, nanos + (old == null ? 0 : old));
+    }
+
+    /**
+     * Adds the time since the given start as duration of a phase.
+     *
+     * @param phase
+     *            The name of the phase.
+     * @param startNanos
+     *            The start of the phase as returned by
+     *            {@link System#nanoTime()}.
+     */
+    public void endPhase(final String phase, final long startNanos) {
+        addPhase(phase, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return The phase durations in milliseconds, in the order the phases
+     *         were first recorded.
+     */
+    public synchronized Map<String, Long> getPhaseMillis() {
+        Map<String, Long> millis = new LinkedHashMap<String, Long>();
+        for (Map.Entry<String, Long> phase : m_phaseNanos.entrySet()) {
+            millis.put(phase.getKey(),
+                    TimeUnit.NANOSECONDS.toMillis(phase.getValue()));
+        }
+        return millis;
+    }
+
+    /**
+     * Adds the phases and process metrics of another execution, e.g., of
+     * another run of the same node.
+     *
+     * @param other
+     *            The metrics to add.
+     */
+    public synchronized void add(final ToolExecutionMetrics other) {
+        synchronized (other) {
+            for (Map.Entry<String, Long> phase : other.m_phaseNanos.entrySet()) {
+                addPhase(phase.getKey(), phase.getValue());
+            }
+            m_wallNanos = sum(m_wallNanos, other.m_wallNanos);
+            m_userCpuMillis = sum(m_userCpuMillis, other.m_userCpuMillis);
+            m_systemCpuMillis = sum(m_systemCpuMillis, other.m_systemCpuMillis);
+            m_peakRssBytes = Math.max(m_peakRssBytes, other.m_peakRssBytes);
+            m_readBytes = sum(m_readBytes, other.m_readBytes);
+            m_writtenBytes = sum(m_writtenBytes, other.m_writtenBytes);
+        }
+    }
+
+    private static long sum(final long a, final long b) {
+        if (a < 0) {
+            return b;
+        }
+        return b < 0 ? a : a + b;
+    }
+
+    /**
+     * Sets the resource usage of the process tree.
+     *
+     * @param wallNanos
+     *            The wall time of the process in nanoseconds.
+     * @param userCpuMillis
+     *            The user CPU time in milliseconds.
+     * @param systemCpuMillis
+     *            The system CPU time in milliseconds.
+     * @param peakRssBytes
+     *            The peak resident set size in bytes.
+     * @param readBytes
+     *            The number of bytes read.
+     * @param writtenBytes
+     *            The number of bytes written.
+     */
+    public synchronized void setProcessMetrics(final long wallNanos,
+            final long userCpuMillis, final long systemCpuMillis,
+            final long peakRssBytes, final long readBytes,
+            final long writtenBytes) {
+        m_wallNanos = wallNanos;
+        m_userCpuMillis = userCpuMillis;
+        m_systemCpuMillis = systemCpuMillis;
+        m_peakRssBytes = peakRssBytes;
+        m_readBytes = readBytes;
+        m_writtenBytes = writtenBytes;
+    }
+
+    /**
+     * @return The wall time of the process in milliseconds.
+     */
+    public synchronized long getWallMillis() {
+        return m_wallNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(m_wallNanos);
+    }
+
+    /**
+     * @return The user CPU time of the process tree in milliseconds.
+     */
+    public synchronized long getUserCpuMillis() {
+        return m_userCpuMillis;
+    }
+
+    /**
+     * @return The system CPU time of the process tree in milliseconds.
+     */
+    public synchronized long getSystemCpuMillis() {
+        return m_systemCpuMillis;
+    }
+
+    /**
+     * @return The peak resident set size of the process tree in bytes.
+     */
+    public synchronized long getPeakRssBytes() {
+        return m_peakRssBytes;
+    }
+
+    /**
+     * @return The number of bytes read by the process tree.
+     */
+    public synchronized long getReadBytes() {
+        return m_readBytes;
+    }
+
+    /**
+     * @return The number of bytes written by the process tree.
+     */
+    public synchronized long getWrittenBytes() {
+        return m_writtenBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "wall=" + getWallMillis() + "ms user=" + m_userCpuMillis
+                + "ms sys=" + m_systemCpuMillis + "ms peakRss="
+                + m_peakRssBytes + "B read=" + m_readBytes + "B written="
+                + m_writtenBytes + "B phases=" + getPhaseMillis();
+    }
+}
@@ -18,15 +18,27 @@
  */
 package com.genericworkflownodes.knime.execution;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
 import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IRegistryEventListener;
 import org.eclipse.core.runtime.Platform;
 
 /**
  * Manages the matching and instantiation of a matching {@link IToolExecutor} to
  * the given parameters.
  * 
+ * The extensions are looked up by name in an index that is built on first use
+ * and dropped when extensions of the executor or command generator extension
+ * points are added or removed. Executors and command generators keep state
+ * during an execution, so a new instance is created for every call.
+ * 
  * @author aiche
  */
 public class ToolExecutorFactory {
@@ -34,6 +46,67 @@ public class ToolExecutorFactory {
     private static final String EXECUTOR_EXTENSION_POINT_ID = "com.genericworkflownodes.knime.execution.Executor";
     private static final String COMMAND_GENERATOR_EXTENSION_POINT_ID = "com.genericworkflownodes.knime.execution.CommandGenerator";
 
+    /**
+     * The extensions of each extension point by name.
+     */
+    private static final Map<String, Map<String, IConfigurationElement>> EXTENSIONS = new ConcurrentHashMap<String, Map<String, IConfigurationElement>>();
+
+    static {
+        IRegistryEventListener listener = new IRegistryEventListener() {
+            @Override
+            public void added(final IExtension[] extensions) {
+                EXTENSIONS.clear();
+            }
+
+            @Override
+            public void removed(final IExtension[] extensions) {
+                EXTENSIONS.clear();
+            }
+
+            @Override
+            public void added(final IExtensionPoint[] extensionPoints) {
+                EXTENSIONS.clear();
+            }
+
+            @Override
+            public void removed(final IExtensionPoint[] extensionPoints) {
+                EXTENSIONS.clear();
+            }
+        };
+        IExtensionRegistry reg = Platform.getExtensionRegistry();
+        reg.addListener(listener, EXECUTOR_EXTENSION_POINT_ID);
+        reg.addListener(listener, COMMAND_GENERATOR_EXTENSION_POINT_ID);
+    }
+
+    /**
+     * Returns the extension with the given name.
+     * 
+     * @param extensionPointId
+     *            The id of the extension point.
+     * @param name
+     *            The value of the name attribute of the extension.
+     * @return The configuration element of the extension, or null if there is
+     *         none.
+     */
+    private static IConfigurationElement findExtension(
+            final String extensionPointId, final String name) {
+        Map<String, IConfigurationElement> index = EXTENSIONS
+                .get(extensionPointId);
+        if (index == null) {
+            index = new HashMap<String, IConfigurationElement>();
+            IExtensionRegistry reg = Platform.getExtensionRegistry();
+            for (IConfigurationElement elem : reg
+                    .getConfigurationElementsFor(extensionPointId)) {
+                // the first registration of a name wins, as in a linear scan
+                if (!index.containsKey(elem.getAttribute("name"))) {
+                    index.put(elem.getAttribute("name"), elem);
+                }
+            }
+            EXTENSIONS.put(extensionPointId, index);
+        }
+        return index.get(name);
+    }
+
     /**
      * Creates a configured {@link IToolExecutor}.
      * 
@@ -83,19 +156,14 @@ public class ToolExecutorFactory {
         }
 
         try {
-            IExtensionRegistry reg = Platform.getExtensionRegistry();
-            IConfigurationElement[] elements = reg
-                    .getConfigurationElementsFor(COMMAND_GENERATOR_EXTENSION_POINT_ID);
-
-            // try to find matching extension
-            for (IConfigurationElement elem : elements) {
-                // check if we have the IToolExecutor we were looking for
-                if (elem.getAttribute("name").equals(commandGeneratorClassName)) {
-                    final Object o = elem.createExecutableExtension("class");
-                    // cast is guaranteed to work based on the extension point
-                    // definition
-                    return (ICommandGenerator) o;
-                }
+            IConfigurationElement elem = findExtension(
+                    COMMAND_GENERATOR_EXTENSION_POINT_ID,
+                    commandGeneratorClassName);
+            if (elem != null) {
+                final Object o = elem.createExecutableExtension("class");
+                // cast is guaranteed to work based on the extension point
+                // definition
+                return (ICommandGenerator) o;
             }
             // we didn't find a matching ICommandGenerator
             throw new UnknownCommandGeneratorException(
@@ -124,19 +192,13 @@ public class ToolExecutorFactory {
         }
 
         try {
-            IExtensionRegistry reg = Platform.getExtensionRegistry();
-            IConfigurationElement[] elements = reg
-                    .getConfigurationElementsFor(EXECUTOR_EXTENSION_POINT_ID);
-
-            // try to find matching extension
-            for (IConfigurationElement elem : elements) {
-                // check if we have the IToolExecutor we were looking for
-                if (elem.getAttribute("name").equals(executorClassName)) {
-                    final Object o = elem.createExecutableExtension("class");
-                    // cast is guaranteed to work based on the extension point
-                    // definition
-                    return (IToolExecutor) o;
-                }
+            IConfigurationElement elem = findExtension(
+                    EXECUTOR_EXTENSION_POINT_ID, executorClassName);
+            if (elem != null) {
+                final Object o = elem.createExecutableExtension("class");
+                // cast is guaranteed to work based on the extension point
+                // definition
+                return (IToolExecutor) o;
             }
             // we didn't find a matching IToolExecutor
             throw new UnknownToolExecutorException(executorClassName);
@@ -0,0 +1,125 @@
+package com.genericworkflownodes.knime.execution;
+
+import java.util.Collection;
+import java.util.LinkedList;
+
+/**
+ * Bounded store for the stdout or stderr lines of a tool.
+ *
+ * Only a window of the output is kept in memory: the first lines (head) and
+ * the most recent lines (tail, a ring buffer). Both are limited by a number of
+ * lines and a number of chars. Lines that drop out of the tail are only
+ * counted.
+ */
+public class ToolOutputLog {
+
+    private final int m_maxHeadLines;
+
+    private final long m_maxHeadChars;
+
+    private final int m_maxTailLines;
+
+    private final long m_maxTailChars;
+
+    private final LinkedList<String> m_head = new LinkedList<String>();
+
+    private final LinkedList<String> m_tail = new LinkedList<String>();
+
+    private long m_headChars;
+
+    private long m_tailChars;
+
+    /**
+     * Set once the head is full, from then on everything goes to the tail.
+     */
+    private boolean m_headClosed;
+
+    private long m_totalLines;
+
+    private long m_omittedLines;
+
+    /**
+     * Creates a log.
+     *
+     * @param maxLines
+     *            The maximal number of lines kept in memory. A quarter of them
+     *            is used for the head of the output.
+     * @param maxChars
+     *            The maximal number of chars kept in memory. A quarter of them
+     *            is used for the head of the output.
+     */
+    public ToolOutputLog(final int maxLines, final long maxChars) {
+        m_maxHeadLines = Math.max(maxLines / 4, 0);
+        m_maxTailLines = Math.max(maxLines - m_maxHeadLines, 1);
+        m_maxHeadChars = Math.max(maxChars / 4, 0);
+        m_maxTailChars = Math.max(maxChars - m_maxHeadChars, 1);
+    }
+
+    /**
+     * Adds a single line to the log.
+     *
+     * @param line
+     *            The line without line terminator.
+     */
+    public synchronized void addLine(final String line) {
+        ++m_totalLines;
+        if (!m_headClosed) {
+            if (m_head.size() < m_maxHeadLines
+                    && m_headChars + line.length() <= m_maxHeadChars) {
+                m_head.add(line);
+                m_headChars += line.length();
+                return;
+            }
+            m_headClosed = true;
+        }
+        m_tail.add(line);
+        m_tailChars += line.length();
+        // always keep the last line, even if it alone exceeds the limits
+        while (m_tail.size() > 1
+                && (m_tail.size() > m_maxTailLines || m_tailChars > m_maxTailChars)) {
+            m_tailChars -= m_tail.removeFirst().length();
+            ++m_omittedLines;
+        }
+    }
+
+    /**
+     * Adds the given lines to the log.
+     *
+     * @param lines
+     *            The lines without line terminators.
+     */
+    public synchronized void addLines(final Collection<String> lines) {
+        for (String line : lines) {
+            addLine(line);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the lines kept in memory. If lines were omitted
+     * between head and tail, a marker line stating their number is inserted.
+     *
+     * @return A new list with at most the configured number of lines plus one.
+     */
+    public synchronized LinkedList<String> getRetainedLines() {
+        LinkedList<String> lines = new LinkedList<String>(m_head);
+        if (m_omittedLines > 0) {
+            lines.add("[... " + m_omittedLines + " lines omitted ...]");
+        }
+        lines.addAll(m_tail);
+        return lines;
+    }
+
+    /**
+     * @return The number of lines added to the log.
+     */
+    public synchronized long getTotalLineCount() {
+        return m_totalLines;
+    }
+
+    /**
+     * @return The number of lines that did not fit into memory.
+     */
+    public synchronized long getOmittedLineCount() {
+        return m_omittedLines;
+    }
+}
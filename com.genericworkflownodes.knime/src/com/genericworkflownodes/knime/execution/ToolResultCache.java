@@ -0,0 +1,600 @@
+package com.genericworkflownodes.knime.execution;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Content addressed cache for the output files of tool executions.
+ *
+ * The key of an execution is a SHA-256 digest over everything that
+ * determines its result (see {@link Key}). The output files of a successful
+ * execution are stored under this key; a later execution with the same key
+ * gets them copied into its output locations instead of running the tool
+ * again. Entries are never linked, so later nodes may change their outputs
+ * in place. The cache is limited by a disk budget, the least
+ * recently used entries are evicted first.
+ */
+public final class ToolResultCache {
+
+    private static final NodeLogger LOGGER = NodeLogger
+            .getLogger(ToolResultCache.class);
+
+    private static final String PREFIX_DIR = "prefix";
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final int HASH_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The maximal number of remembered file digests.
+     */
+    static final int MAX_FILE_DIGESTS = 10000;
+
+    private static ToolResultCache instance;
+
+    /**
+     * Digests of files already hashed, keyed by path, size, modification time
+     * and file key, so unchanged inputs are read only once. The least
+     * recently used digests are dropped beyond {@link #MAX_FILE_DIGESTS}.
+     */
+    private static final Map<String, String> FILE_DIGESTS = Collections
+            .synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        final Map.Entry<String, String> eldest) {
+                    return size() > MAX_FILE_DIGESTS;
+                }
+            });
+
+    private final File m_directory;
+
+    private long m_budgetBytes;
+
+    /**
+     * Sizes of the entries in access order, loaded on first use.
+     */
+    private LinkedHashMap<String, Long> m_entries;
+
+    private long m_totalBytes;
+
+    private final AtomicLong m_hits = new AtomicLong();
+
+    private final AtomicLong m_misses = new AtomicLong();
+
+    private final AtomicLong m_stores = new AtomicLong();
+
+    private final AtomicLong m_evictions = new AtomicLong();
+
+    /**
+     * Creates a cache in the given directory.
+     *
+     * @param directory
+     *            The directory holding the entries.
+     * @param budgetMB
+     *            The maximal size of all entries in MB.
+     */
+    public ToolResultCache(final File directory, final long budgetMB) {
+        m_directory = directory;
+        m_budgetBytes = budgetMB * 1024 * 1024;
+    }
+
+    /**
+     * @return The cache shared by all GKN nodes.
+     */
+    public static synchronized ToolResultCache getInstance() {
+        if (instance == null) {
+            instance = new ToolResultCache(new File(
+                    System.getProperty("java.io.tmpdir"), "gkn-result-cache"),
+                    10 * 1024);
+        }
+        return instance;
+    }
+
+    /**
+     * Replaces the shared cache.
+     *
+     * @param cache
+     *            The new shared cache.
+     */
+    public static synchronized void setInstance(final ToolResultCache cache) {
+        instance = cache;
+    }
+
+    /**
+     * @return The directory holding the entries.
+     */
+    public File getDirectory() {
+        return m_directory;
+    }
+
+    /**
+     * Changes the disk budget, evicting entries if necessary.
+     *
+     * @param budgetMB
+     *            The maximal size of all entries in MB.
+     */
+    public synchronized void setBudget(final long budgetMB) {
+        m_budgetBytes = budgetMB * 1024 * 1024;
+        if (m_entries != null) {
+            evict();
+        }
+    }
+
+    /**
+     * Materializes the outputs stored under the given key.
+     *
+     * @param key
+     *            The key of the execution.
+     * @param outputs
+     *            The output locations of the execution.
+     * @return True if the outputs were restored, false on a cache miss.
+     */
+    public boolean restore(final String key, final Outputs outputs) {
+        Path entry;
+        synchronized (this) {
+            ensureLoaded();
+            if (m_entries.get(key) == null) {
+                m_misses.incrementAndGet();
+                return false;
+            }
+            entry = new File(m_directory, key).toPath();
+        }
+        try {
+            for (int p = 0; p < outputs.m_ports.size(); ++p) {
+                Path portDir = entry.resolve(Integer.toString(p));
+                OutputPort port = outputs.m_ports.get(p);
+                if (port.m_prefix) {
+                    Path prefixDir = portDir.resolve(PREFIX_DIR);
+                    try (DirectoryStream<Path> cached = Files
+                            .newDirectoryStream(prefixDir)) {
+                        for (Path file : cached) {
+                            // strip the marker, see store
+                            String suffix = file.getFileName().toString()
+                                    .substring(1);
+                            copy(file, new File(port.m_files.get(0)
+                                    .getPath() + suffix).toPath());
+                        }
+                    }
+                } else {
+                    for (int f = 0; f < port.m_files.size(); ++f) {
+                        copy(portDir.resolve(Integer.toString(f)),
+                                port.m_files.get(f).toPath());
+                    }
+                }
+            }
+            Files.setLastModifiedTime(entry,
+                    FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.warn("Could not restore cached results " + key
+                    + ", the entry is dropped.", e);
+            remove(key);
+            m_misses.incrementAndGet();
+            return false;
+        }
+        m_hits.incrementAndGet();
+        LOGGER.debug("Restored cached results " + key + ". " + getStatistics());
+        return true;
+    }
+
+    /**
+     * Stores the outputs of a successful execution under the given key.
+     * Failures are logged, they never fail the execution.
+     *
+     * @param key
+     *            The key of the execution.
+     * @param outputs
+     *            The output locations of the execution.
+     */
+    public void store(final String key, final Outputs outputs) {
+        Path entry = new File(m_directory, key).toPath();
+        Path tmp = new File(m_directory, key + "." + System.nanoTime()
+                + TMP_SUFFIX).toPath();
+        long size = 0;
+        try {
+            Files.createDirectories(tmp);
+            for (int p = 0; p < outputs.m_ports.size(); ++p) {
+                Path portDir = Files.createDirectory(tmp.resolve(Integer
+                        .toString(p)));
+                OutputPort port = outputs.m_ports.get(p);
+                if (port.m_prefix) {
+                    Path prefixDir = Files.createDirectory(portDir
+                            .resolve(PREFIX_DIR));
+                    File prefix = port.m_files.get(0);
+                    File[] files = prefix.getParentFile().listFiles();
+                    for (File file : files == null ? new File[0] : files) {
+                        if (file.isFile()
+                                && file.getName().startsWith(prefix.getName())) {
+                            String suffix = file.getName().substring(
+                                    prefix.getName().length());
+                            // marker char, the suffix may be empty
+                            size += copy(file.toPath(),
+                                    prefixDir.resolve("_" + suffix));
+                        }
+                    }
+                } else {
+                    for (int f = 0; f < port.m_files.size(); ++f) {
+                        size += copy(port.m_files.get(f).toPath(),
+                                portDir.resolve(Integer.toString(f)));
+                    }
+                }
+            }
+            if (size > m_budgetBytes) {
+                LOGGER.debug("Results of " + key
+                        + " exceed the cache budget and are not cached.");
+                FileUtils.deleteQuietly(tmp.toFile());
+                return;
+            }
+            try {
+                Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, entry);
+            }
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            // stored concurrently by another execution
+            FileUtils.deleteQuietly(tmp.toFile());
+            return;
+        } catch (IOException e) {
+            LOGGER.warn("Could not cache results " + key, e);
+            FileUtils.deleteQuietly(tmp.toFile());
+            return;
+        }
+        synchronized (this) {
+            ensureLoaded();
+            Long old = m_entries.put(key, size);
+            m_totalBytes += size - (old == null ? 0 : old);
+            m_stores.incrementAndGet();
+            evict();
+        }
+        LOGGER.debug("Cached results " + key + " (" + size + " bytes). "
+                + getStatistics());
+    }
+
+    /**
+     * Copies an output into or out of the cache, replacing an existing
+     * target. Files are never linked, the tool or a later node might change
+     * an output in place, which must not affect the entry.
+     *
+     * @return The size of the file.
+     */
+    private static long copy(final Path source, final Path target)
+            throws IOException {
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        return Files.size(target);
+    }
+
+    private void ensureLoaded() {
+        if (m_entries != null) {
+            return;
+        }
+        m_entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+        m_totalBytes = 0;
+        File[] dirs = m_directory.listFiles();
+        if (dirs == null) {
+            return;
+        }
+        // oldest first, so the access order starts as LRU order
+        Arrays.sort(dirs, (a, b) -> Long.compare(a.lastModified(),
+                b.lastModified()));
+        for (File dir : dirs) {
+            if (!dir.isDirectory()) {
+                continue;
+            }
+            if (dir.getName().endsWith(TMP_SUFFIX)) {
+                // left over by a crashed store
+                FileUtils.deleteQuietly(dir);
+                continue;
+            }
+            long size = FileUtils.sizeOfDirectory(dir);
+            m_entries.put(dir.getName(), size);
+            m_totalBytes += size;
+        }
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = m_entries.entrySet().iterator();
+        while (m_totalBytes > m_budgetBytes && it.hasNext()) {
+            Map.Entry<String, Long> lru = it.next();
+            it.remove();
+            m_totalBytes -= lru.getValue();
+            FileUtils.deleteQuietly(new File(m_directory, lru.getKey()));
+            m_evictions.incrementAndGet();
+        }
+    }
+
+    private synchronized void remove(final String key) {
+        Long size = m_entries.remove(key);
+        if (size != null) {
+            m_totalBytes -= size;
+        }
+        FileUtils.deleteQuietly(new File(m_directory, key));
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        FileUtils.deleteQuietly(m_directory);
+        m_entries = null;
+        m_totalBytes = 0;
+    }
+
+    /**
+     * @return The number of remembered file digests.
+     */
+    static int getFileDigestCount() {
+        return FILE_DIGESTS.size();
+    }
+
+    /**
+     * @return The number of executions whose results were restored.
+     */
+    public long getHits() {
+        return m_hits.get();
+    }
+
+    /**
+     * @return The number of executions not found in the cache.
+     */
+    public long getMisses() {
+        return m_misses.get();
+    }
+
+    /**
+     * @return A human readable summary of the cache statistics.
+     */
+    public synchronized String getStatistics() {
+        return String.format(
+                "Result cache: %d hits, %d misses, %d stored, %d evicted, %d entries, %d of %d MB used",
+                m_hits.get(), m_misses.get(), m_stores.get(),
+                m_evictions.get(), m_entries == null ? 0 : m_entries.size(),
+                m_totalBytes / (1024 * 1024), m_budgetBytes / (1024 * 1024));
+    }
+
+    /**
+     * Builds the key of an execution. The order of the added values matters.
+     */
+    public static final class Key {
+
+        private final MessageDigest m_digest;
+
+        private final boolean m_fast;
+
+        /**
+         * Creates an empty key.
+         *
+         * @param fast
+         *            If true, files are identified by path, size,
+         *            modification time and inode instead of their content.
+         */
+        public Key(final boolean fast) {
+            m_fast = fast;
+            try {
+                m_digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Adds a named value.
+         *
+         * @param name
+         *            The name of the value.
+         * @param value
+         *            The value, may be null.
+         * @return This key.
+         */
+        public Key add(final String name, final String value) {
+            update(name);
+            update(value == null ? "\u0000null" : value);
+            return this;
+        }
+
+        /**
+         * Adds an input file. Depending on the mode its content or its
+         * identity is added, but never its path alone.
+         *
+         * @param name
+         *            The name of the value.
+         * @param file
+         *            The file.
+         * @return This key.
+         * @throws IOException
+         *             If the file could not be read.
+         */
+        public Key addFile(final String name, final File file)
+                throws IOException {
+            update(name);
+            if (m_fast) {
+                update(fileIdentity(file.toPath()));
+            } else {
+                update(file.getName());
+                update(digest(file));
+            }
+            return this;
+        }
+
+        /**
+         * Adds all files starting with the given prefix.
+         *
+         * @param name
+         *            The name of the value.
+         * @param prefix
+         *            The prefix path.
+         * @return This key.
+         * @throws IOException
+         *             If a file could not be read.
+         */
+        public Key addPrefix(final String name, final File prefix)
+                throws IOException {
+            update(name);
+            File[] files = prefix.getParentFile() == null ? null : prefix
+                    .getParentFile().listFiles();
+            if (files == null) {
+                return this;
+            }
+            Arrays.sort(files);
+            for (File file : files) {
+                if (file.isFile() && file.getName().startsWith(prefix.getName())) {
+                    addFile(file.getName().substring(prefix.getName().length()),
+                            file);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds the checksum of an executable. The checksum is cached as long
+         * as the file is unchanged, regardless of the mode.
+         *
+         * @param executable
+         *            The executable.
+         * @return This key.
+         * @throws IOException
+         *             If the executable could not be read.
+         */
+        public Key addExecutable(final File executable) throws IOException {
+            update("executable");
+            update(digest(executable));
+            return this;
+        }
+
+        /**
+         * @return The hex encoded key.
+         */
+        public String build() {
+            return toHex(m_digest.digest());
+        }
+
+        private void update(final String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            // length prefixed, so ("ab","c") differs from ("a","bc")
+            m_digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+            m_digest.update(bytes);
+        }
+    }
+
+    private static String fileIdentity(final Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file,
+                BasicFileAttributes.class);
+        return file.toAbsolutePath() + "|" + attributes.size() + "|"
+                + attributes.lastModifiedTime().toMillis() + "|"
+                + attributes.fileKey();
+    }
+
+    /**
+     * Returns the SHA-256 digest of a file's content, reusing the digest of
+     * an earlier call if the file did not change in between.
+     *
+     * @param file
+     *            The file.
+     * @return The hex encoded digest.
+     * @throws IOException
+     *             If the file could not be read.
+     */
+    static String digest(final File file) throws IOException {
+        String identity = fileIdentity(file.toPath());
+        String digest = FILE_DIGESTS.get(identity);
+        if (digest != null) {
+            return digest;
+        }
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                md.update(buffer);
+                buffer.clear();
+            }
+        }
+        digest = toHex(md.digest());
+        FILE_DIGESTS.put(identity, digest);
+        return digest;
+    }
+
+    private static String toHex(final byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The output locations of an execution, in port order.
+     */
+    public static final class Outputs {
+
+        private final List<OutputPort> m_ports = new ArrayList<OutputPort>();
+
+        /**
+         * Adds an output port writing the given files.
+         *
+         * @param files
+         *            The output files in order.
+         */
+        public void addFiles(final List<File> files) {
+            m_ports.add(new OutputPort(new ArrayList<File>(files), false));
+        }
+
+        /**
+         * Adds an output port writing files starting with the given prefix.
+         *
+         * @param prefix
+         *            The prefix path.
+         */
+        public void addPrefix(final File prefix) {
+            List<File> files = new ArrayList<File>(1);
+            files.add(prefix);
+            m_ports.add(new OutputPort(files, true));
+        }
+    }
+
+    private static final class OutputPort {
+
+        private final List<File> m_files;
+
+        private final boolean m_prefix;
+
+        OutputPort(final List<File> files, final boolean prefix) {
+            m_files = files;
+            m_prefix = prefix;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.genericworkflownodes.knime.execution;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Admission control for the external tool processes started by GKN nodes.
+ *
+ * Every execution has to acquire a {@link Slot} before its process is
+ * started. A slot costs a number of CPU slots and an amount of memory; an
+ * execution is only admitted if both fit into the remaining capacity. Waiting
+ * executions are served strictly in arrival order, so a large tool can not be
+ * starved by a stream of small ones. Requests larger than the total capacity
+ * are reduced to the total capacity, i.e., they run alone.
+ */
+public final class ToolSlotScheduler {
+
+    private static final NodeLogger LOGGER = NodeLogger
+            .getLogger(ToolSlotScheduler.class);
+
+    /**
+     * Interval in which waiting executions check for cancellation and update
+     * their progress message.
+     */
+    private static final long POLL_INTERVAL_MS = 500;
+
+    private static final ToolSlotScheduler INSTANCE = new ToolSlotScheduler(
+            Runtime.getRuntime().availableProcessors(), 0);
+
+    private final ReentrantLock m_lock = new ReentrantLock();
+
+    private final Condition m_changed = m_lock.newCondition();
+
+    /**
+     * The waiting requests in arrival order.
+     */
+    private final LinkedList<Slot> m_queue = new LinkedList<Slot>();
+
+    private int m_cpuCapacity;
+
+    private long m_memoryCapacityMB;
+
+    private int m_usedCpuSlots;
+
+    private long m_usedMemoryMB;
+
+    private int m_running;
+
+    /**
+     * Creates a scheduler with the given capacity.
+     *
+     * @param cpuCapacity
+     *            The number of CPU slots.
+     * @param memoryCapacityMB
+     *            The memory in MB, 0 to not limit the memory.
+     */
+    public ToolSlotScheduler(final int cpuCapacity, final long memoryCapacityMB) {
+        setCapacity(cpuCapacity, memoryCapacityMB);
+    }
+
+    /**
+     * @return The scheduler shared by all GKN nodes.
+     */
+    public static ToolSlotScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Changes the capacity of the scheduler. Running executions are not
+     * affected.
+     *
+     * @param cpuCapacity
+     *            The number of CPU slots, at least 1.
+     * @param memoryCapacityMB
+     *            The memory in MB, 0 to not limit the memory.
+     */
+    public void setCapacity(final int cpuCapacity, final long memoryCapacityMB) {
+        m_lock.lock();
+        try {
+            m_cpuCapacity = Math.max(cpuCapacity, 1);
+            m_memoryCapacityMB = Math.max(memoryCapacityMB, 0);
+            m_changed.signalAll();
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the requested resources are available.
+     *
+     * @param cpuSlots
+     *            The number of CPU slots needed by the execution.
+     * @param memoryMB
+     *            The memory needed by the execution in MB.
+     * @param exec
+     *            The monitor of the waiting node, used to report the queue
+     *            position and waiting time and to check for cancellation.
+     * @return The acquired slot, which has to be released when the execution
+     *         finished.
+     * @throws CanceledExecutionException
+     *             If the node was canceled while waiting.
+     */
+    public Slot acquire(final int cpuSlots, final long memoryMB,
+            final ExecutionMonitor exec) throws CanceledExecutionException {
+        Slot slot = new Slot(cpuSlots, memoryMB);
+        long start = System.nanoTime();
+        m_lock.lock();
+        try {
+            m_queue.add(slot);
+            try {
+                while (m_queue.getFirst() != slot || !fits(slot)) {
+                    exec.checkCanceled();
+                    exec.setMessage(String.format(
+                            "Waiting for free execution slot (position %d of %d, %d s)",
+                            m_queue.indexOf(slot) + 1, m_queue.size(),
+                            TimeUnit.NANOSECONDS.toSeconds(System.nanoTime()
+                                    - start)));
+                    m_changed.await(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CanceledExecutionException(
+                        "Interrupted while waiting for an execution slot.");
+            } finally {
+                // also wakes up the next one if we leave the queue early
+                m_queue.remove(slot);
+                m_changed.signalAll();
+            }
+            exec.checkCanceled();
+            take(slot);
+        } finally {
+            m_lock.unlock();
+        }
+        slot.m_waitedNanos = System.nanoTime() - start;
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(slot.m_waitedNanos);
+        if (waitedMs > POLL_INTERVAL_MS) {
+            exec.setMessage("Waited " + waitedMs / 1000
+                    + " s for a free execution slot");
+            LOGGER.debug("Execution admitted after " + waitedMs + " ms.");
+        }
+        return slot;
+    }
+
+    private boolean fits(final Slot slot) {
+        int cpu = Math.min(slot.m_cpuSlots, m_cpuCapacity);
+        if (m_usedCpuSlots + cpu > m_cpuCapacity) {
+            return false;
+        }
+        if (m_memoryCapacityMB > 0) {
+            long memory = Math.min(slot.m_memoryMB, m_memoryCapacityMB);
+            return m_usedMemoryMB + memory <= m_memoryCapacityMB;
+        }
+        return true;
+    }
+
+    private void take(final Slot slot) {
+        slot.m_takenCpuSlots = Math.min(slot.m_cpuSlots, m_cpuCapacity);
+        slot.m_takenMemoryMB = m_memoryCapacityMB > 0 ? Math.min(
+                slot.m_memoryMB, m_memoryCapacityMB) : 0;
+        m_usedCpuSlots += slot.m_takenCpuSlots;
+        m_usedMemoryMB += slot.m_takenMemoryMB;
+        ++m_running;
+    }
+
+    private void release(final Slot slot) {
+        m_lock.lock();
+        try {
+            m_usedCpuSlots -= slot.m_takenCpuSlots;
+            m_usedMemoryMB -= slot.m_takenMemoryMB;
+            --m_running;
+            m_changed.signalAll();
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of executions currently holding a slot.
+     */
+    public int getRunningCount() {
+        m_lock.lock();
+        try {
+            return m_running;
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of executions waiting for a slot.
+     */
+    public int getQueueLength() {
+        m_lock.lock();
+        try {
+            return m_queue.size();
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of CPU slots not taken by running executions.
+     */
+    public int getFreeCpuSlots() {
+        m_lock.lock();
+        try {
+            return m_cpuCapacity - m_usedCpuSlots;
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * @return The total number of CPU slots.
+     */
+    public int getCpuCapacity() {
+        m_lock.lock();
+        try {
+            return m_cpuCapacity;
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Suggests a thread count for a multi-threaded tool that is about to be
+     * scheduled. A tool running alone gets all CPU slots, otherwise the free
+     * slots are shared with the waiting executions, but each one gets at
+     * least its fair share of the total capacity.
+     * 
+     * @return The suggested number of threads, at least 1.
+     */
+    public int suggestThreadCount() {
+        m_lock.lock();
+        try {
+            int free = (m_cpuCapacity - m_usedCpuSlots) / (m_queue.size() + 1);
+            int share = m_cpuCapacity / (m_running + m_queue.size() + 1);
+            return Math.max(1, Math.min(m_cpuCapacity, Math.max(free, share)));
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * The resources granted to a single execution.
+     */
+    public final class Slot {
+
+        private final int m_cpuSlots;
+
+        private final long m_memoryMB;
+
+        private int m_takenCpuSlots;
+
+        private long m_takenMemoryMB;
+
+        private long m_waitedNanos;
+
+        private boolean m_released;
+
+        private Slot(final int cpuSlots, final long memoryMB) {
+            m_cpuSlots = Math.max(cpuSlots, 1);
+            m_memoryMB = Math.max(memoryMB, 0);
+        }
+
+        /**
+         * @return The number of CPU slots granted to the execution.
+         */
+        public int getCpuSlots() {
+            return m_takenCpuSlots;
+        }
+
+        /**
+         * @return The time spent waiting for this slot in milliseconds.
+         */
+        public long getWaitTimeMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(m_waitedNanos);
+        }
+
+        /**
+         * Returns the resources to the scheduler. Further calls have no
+         * effect.
+         */
+        public synchronized void release() {
+            if (!m_released) {
+                m_released = true;
+                ToolSlotScheduler.this.release(this);
+            }
+        }
+    }
+}
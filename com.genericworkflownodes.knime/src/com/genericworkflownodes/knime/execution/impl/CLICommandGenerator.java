@@ -21,25 +21,19 @@ package com.genericworkflownodes.knime.execution.impl;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.knime.core.node.NodeLogger;
 
-import com.genericworkflownodes.knime.cliwrapper.CLIElement;
-import com.genericworkflownodes.knime.cliwrapper.CLIMapping;
 import com.genericworkflownodes.knime.commandline.CommandLineElement;
 import com.genericworkflownodes.knime.commandline.impl.CommandLineFile;
-import com.genericworkflownodes.knime.commandline.impl.CommandLineFixedString;
 import com.genericworkflownodes.knime.commandline.impl.CommandLineParameter;
 import com.genericworkflownodes.knime.config.INodeConfiguration;
 import com.genericworkflownodes.knime.config.PlainNodeConfigurationWriter;
 import com.genericworkflownodes.knime.custom.config.IPluginConfiguration;
 import com.genericworkflownodes.knime.execution.ICommandGenerator;
-import com.genericworkflownodes.knime.parameter.BoolParameter;
 import com.genericworkflownodes.knime.parameter.FileParameter;
 import com.genericworkflownodes.knime.parameter.IFileParameter;
-import com.genericworkflownodes.knime.parameter.ListParameter;
 import com.genericworkflownodes.knime.parameter.Parameter;
 import com.genericworkflownodes.knime.parameter.StringParameter;
 
@@ -56,6 +50,25 @@ public class CLICommandGenerator implements ICommandGenerator {
 
     protected INodeConfiguration nodeConfig;
 
+    /**
+     * Passes the creation of parameter values to the overridable methods.
+     */
+    private final CLIPlan.ValueFactory m_values = new CLIPlan.ValueFactory() {
+        @Override
+        public CommandLineElement createValue(final Parameter<?> parameter)
+                throws IOException {
+            return CLICommandGenerator.this.createValue(parameter);
+        }
+
+        @Override
+        public CommandLineElement createListValue(final Parameter<?> parameter,
+                final String value, final int index, final int size)
+                throws IOException {
+            return CLICommandGenerator.this.createListValue(parameter, value,
+                    index, size);
+        }
+    };
+
     @Override
     public List<CommandLineElement> generateCommands(
             final INodeConfiguration nodeConfiguration,
@@ -92,222 +105,74 @@ public class CLICommandGenerator implements ICommandGenerator {
      */
     protected List<CommandLineElement> processCLI() throws Exception {
         List<CommandLineElement> commands = new ArrayList<CommandLineElement>();
-        for (final CLIElement cliElement : nodeConfig.getCLI()
-                .getCLIElement()) {
-            logger.info("CLIElement: " + cliElement.getOptionIdentifier());
-
-            if ((cliElement.getOptionIdentifier().trim().length() > 0)
-                    && cliElement.getMapping().size() == 0) {
-                // simple fixed argument for the command line, no mapping to
-                // params given
-
-                // to avoid problems with spaces in commands we split fixed
-                // values
-                final String[] splitResult = cliElement.getOptionIdentifier()
-                        .split(" ");
-                for (final String splittedCommand : splitResult) {
-                    commands.add(
-                            new CommandLineFixedString(splittedCommand));
-                }
-            } else if (isMappedToBooleanParameter(cliElement)) {
-                // it is mapped to bool
-                handleBooleanParameter(commands, cliElement);
-            } else {
-
-                final List<List<? extends CommandLineElement>> extractedParameterValues = extractParameterValues(
-                        cliElement);
-                validateExtractedParameters(extractedParameterValues);
-
-                // we only add those parameters to the command line if they
-                // contain any values, this removes optional parameters if they
-                // were not set
-                if (extractedParameterValues.size() != 0) {
-                    expandParameters(extractedParameterValues, cliElement,
-                            commands);
-                }
-            }
-        }
+        appendCLI(commands);
         return commands;
     }
 
     /**
-     * Add the extracted parameter values to the command line.
-     *
-     * @param extractedParameterValues
-     * @param cliElement
-     * @param commands
-     */
-    protected void expandParameters(
-            final List<List<? extends CommandLineElement>> extractedParameterValues,
-            final CLIElement cliElement,
-            final List<CommandLineElement> commands) {
-        // in each iteration we expand the value(s) of the mapped parameters
-        for (final List<? extends CommandLineElement> innerList : extractedParameterValues) {
-            // if the cliElement is a list parameter, then prefix each parameter
-            // value with the respective option name.
-            // e.g.: --opt arg1 --opt arg2 --opt arg3
-            if (cliElement.isList()) {
-                for (final CommandLineElement cliValue : innerList) {
-                    prefixParameter(cliElement, commands);
-                    commands.add(cliValue);
-                }
-            } else { // otherwise use one prefix for all parameter values e.g:
-                     // --opt arg1 arg2 arg3
-                prefixParameter(cliElement, commands);
-                commands.addAll(innerList);
-            }
-        }
-    }
-
-    /**
-     * Adds the option identifier as a prefix for the respective extracted
-     * parameter value to the passed commands list.
+     * Appends the commands described by the CLI part of the configuration,
+     * using the compiled {@link CLIPlan} of the tool.
      *
-     * @param cliElement
      * @param commands
+     *            The list to append to.
+     * @throws Exception
+     *             Is thrown if the configuration values are invalid.
      */
-    private void prefixParameter(final CLIElement cliElement,
-            final List<CommandLineElement> commands) {
-        // add the command prefix to the command line parameter
-        if (cliElement.getOptionIdentifier().trim().length() > 0) {
-            commands.add(new CommandLineFixedString(
-                    cliElement.getOptionIdentifier()));
-        }
+    protected void appendCLI(final List<CommandLineElement> commands)
+            throws Exception {
+        CLIPlan.of(nodeConfig.getCLI()).evaluate(nodeConfig, m_values,
+                commands);
     }
 
     /**
-     * Given the provided list of parameter values this method should ensure
-     * that all mapped lists have the same length.
+     * Creates the command line element of a parameter that is not a list.
      *
-     * @param extractedParameterValues
-     * @throws Exception
-     *             If not all contained lists have the same size.
+     * @param p
+     *            The parameter.
+     * @return The element.
+     * @throws IOException
+     *             If the value could not be mapped.
      */
-    protected void validateExtractedParameters(
-        final List<List<? extends CommandLineElement>> extractedParameterValues)
-                    throws Exception {
-
-        int currentSize = -1;
-        for (final List<? extends CommandLineElement> currentList : extractedParameterValues) {
-            if (currentSize != -1 && currentSize != currentList.size()) {
-                throw new Exception(
-                        "All mapped value lists must have the same size.");
-            }
-            currentSize = currentList.size();
+    protected CommandLineElement createValue(final Parameter<?> p)
+            throws IOException {
+        if (p instanceof FileParameter) {
+            return new CommandLineFile((FileParameter) p);
         }
+        return new CommandLineParameter(p);
     }
 
     /**
-     * Given the cliElement create a list containing for each mapped parameter a
-     * list with the mapped values.
+     * Creates the command line element of a single value of a list parameter.
      *
-     * @param cliElement
-     *            The current cliElement.
-     * @return
+     * @param p
+     *            The list parameter.
+     * @param value
+     *            The value.
+     * @param index
+     *            The index of the value in the list.
+     * @param size
+     *            The number of values in the list.
+     * @return The element.
+     * @throws IOException
+     *             If the value could not be mapped.
      */
-    private List<List<? extends CommandLineElement>> extractParameterValues(
-            final CLIElement cliElement) {
-
-        final List<List<? extends CommandLineElement>> extractedParameterValues = new ArrayList<List<? extends CommandLineElement>>();
-
-        for (final CLIMapping cliMapping : cliElement.getMapping()) {
-            if (nodeConfig.getParameterKeys()
-                    .contains(cliMapping.getReferenceName())) {
-
-                final Parameter<?> p = nodeConfig
-                        .getParameter(cliMapping.getReferenceName());
-                if (!p.isNull()) {
-                    if (p instanceof ListParameter) {
-                        handleListParameter(extractedParameterValues,
-                                (ListParameter) p);
-                    } else {
-                        handleNonListParameter(extractedParameterValues, p);
-                    }
-                }
-            }
-        }
-
-        return extractedParameterValues;
-    }
-
-    private void handleNonListParameter(
-            final List<List<? extends CommandLineElement>> extractedParameterValues,
-            final Parameter<?> p) {
-        final List<CommandLineElement> l = new ArrayList<CommandLineElement>();
+    protected CommandLineElement createListValue(final Parameter<?> p,
+            final String value, final int index, final int size)
+            throws IOException {
         final CommandLineElement commandLineElement;
-        if (p instanceof FileParameter) {
-            commandLineElement = new CommandLineFile((FileParameter) p);
+        if (p instanceof IFileParameter) {
+            commandLineElement = new CommandLineFile(
+                    new FileParameter(p.getKey(), value));
         } else {
-            commandLineElement = new CommandLineParameter(p);
+            commandLineElement = new CommandLineParameter(
+                    new StringParameter(p.getKey(), value));
         }
-        l.add(commandLineElement);
-        extractedParameterValues.add(l);
-    }
-
-    private void handleListParameter(
-            final List<List<? extends CommandLineElement>> extractedParameterValues,
-            final ListParameter listParameter) {
-        final int nValues = listParameter.getStrings().size();
-        final String key = ((Parameter<?>) listParameter).getKey();
-        final List<CommandLineElement> tmpList = new LinkedList<CommandLineElement>();
-        // we know it's a list, but we don't need to use sequence numbers if
-        // there's only one element in the list
-        if (nValues > 1) {
-            int sequence = 0;
-            for (final String value : listParameter.getStrings()) {
-                final CommandLineElement commandLineElement;
-                if (listParameter instanceof IFileParameter) {
-                    commandLineElement = new CommandLineFile(
-                            new FileParameter(key, value));
-                } else {
-                    commandLineElement = new CommandLineParameter(
-                            new StringParameter(key, value));
-                }
-                commandLineElement.setSequenceNumber(sequence++);
-                tmpList.add(commandLineElement);
-            }
-        } else {
-            // only one value in the list, no need to use sequence numbers
-            final String value = listParameter.getStrings().get(0);
-            if (listParameter instanceof IFileParameter) {
-                tmpList.add(new CommandLineFile(new FileParameter(key, value)));
-            } else {
-                tmpList.add(new CommandLineParameter(
-                        new StringParameter(key, value)));
-            }
-        }
-        extractedParameterValues.add(tmpList);
-    }
-
-    /**
-     * Returns true if the given CLIElement maps to a boolean parameter.
-     *
-     * @param cliElement
-     * @return
-     */
-    protected boolean isMappedToBooleanParameter(final CLIElement cliElement) {
-        return cliElement.getMapping().size() == 1
-                && nodeConfig.getParameter(cliElement.getMapping().get(0)
-                        .getReferenceName()) instanceof BoolParameter;
-    }
-
-    /**
-     * Interpret boolean parameter on the command line -> if true, add text
-     * field, if false, do not add text field.
-     *
-     * @param commands
-     *            The list of commands that will be executed later.
-     * @param cliElement
-     *            The currently interpreted clielement.
-     */
-    protected void handleBooleanParameter(final List<CommandLineElement> commands,
-            final CLIElement cliElement) {
-        if (((BoolParameter) nodeConfig.getParameter(
-                cliElement.getMapping().get(0).getReferenceName()))
-                        .getValue()) {
-            commands.add(new CommandLineFixedString(
-                    cliElement.getOptionIdentifier()));
+        // we don't need to use sequence numbers if there's only one element
+        // in the list
+        if (size > 1) {
+            commandLineElement.setSequenceNumber(index);
         }
+        return commandLineElement;
     }
 
     /**
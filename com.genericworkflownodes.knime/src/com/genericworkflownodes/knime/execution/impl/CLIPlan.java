@@ -0,0 +1,249 @@
+package com.genericworkflownodes.knime.execution.impl;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.genericworkflownodes.knime.cliwrapper.CLI;
+import com.genericworkflownodes.knime.cliwrapper.CLIElement;
+import com.genericworkflownodes.knime.cliwrapper.CLIMapping;
+import com.genericworkflownodes.knime.commandline.CommandLineElement;
+import com.genericworkflownodes.knime.commandline.impl.CommandLineFixedString;
+import com.genericworkflownodes.knime.config.INodeConfiguration;
+import com.genericworkflownodes.knime.parameter.BoolParameter;
+import com.genericworkflownodes.knime.parameter.ListParameter;
+import com.genericworkflownodes.knime.parameter.Parameter;
+
+/**
+ * The CLI section of a tool descriptor compiled into fixed tokens and
+ * parameter slots.
+ *
+ * A plan is compiled once per {@link CLI} instance, which is shared by all
+ * nodes of a tool, and evaluated against the parameters of a node whenever a
+ * command line is generated. The CLI must not be changed after its plan was
+ * compiled.
+ */
+public final class CLIPlan {
+
+    /**
+     * Creates the command line elements of parameter values, e.g., to map
+     * files into a container.
+     */
+    public interface ValueFactory {
+
+        /**
+         * @param parameter
+         *            A parameter that is not a list.
+         * @return The element representing the value of the parameter.
+         * @throws IOException
+         *             If the value could not be mapped.
+         */
+        CommandLineElement createValue(Parameter<?> parameter)
+                throws IOException;
+
+        /**
+         * @param parameter
+         *            A {@link ListParameter}.
+         * @param value
+         *            The value at the given index.
+         * @param index
+         *            The index of the value in the list.
+         * @param size
+         *            The number of values in the list.
+         * @return The element representing the value.
+         * @throws IOException
+         *             If the value could not be mapped.
+         */
+        CommandLineElement createListValue(Parameter<?> parameter,
+                String value, int index, int size) throws IOException;
+    }
+
+    /**
+     * A compiled {@link CLIElement}.
+     */
+    private static final class Element {
+
+        /**
+         * The option identifier, may be null or blank for arguments.
+         */
+        private final String m_option;
+
+        /**
+         * Whether the option identifier precedes the values.
+         */
+        private final boolean m_hasPrefix;
+
+        /**
+         * The tokens of a fixed argument, or null if the element maps to
+         * parameters.
+         */
+        private final String[] m_fixedTokens;
+
+        /**
+         * The keys of the mapped parameters.
+         */
+        private final String[] m_references;
+
+        /**
+         * Whether each value is preceded by the option identifier.
+         */
+        private final boolean m_isList;
+
+        private Element(CLIElement element) {
+            m_option = element.getOptionIdentifier();
+            m_hasPrefix = m_option != null && m_option.trim().length() > 0;
+            List<CLIMapping> mappings = element.getMapping();
+            m_references = new String[mappings.size()];
+            for (int i = 0; i < m_references.length; ++i) {
+                m_references[i] = mappings.get(i).getReferenceName();
+            }
+            // to avoid problems with spaces in commands we split fixed values
+            m_fixedTokens = m_hasPrefix && m_references.length == 0 ? m_option
+                    .split(" ") : null;
+            m_isList = Boolean.TRUE.equals(element.isList());
+        }
+    }
+
+    /**
+     * The compiled plans by CLI. The plans do not reference their CLI, so
+     * they are dropped together with the tool descriptor.
+     */
+    private static final Map<CLI, CLIPlan> PLANS = Collections
+            .synchronizedMap(new WeakHashMap<CLI, CLIPlan>());
+
+    private final Element[] m_elements;
+
+    /**
+     * The maximum number of parameters mapped by an element.
+     */
+    private final int m_maxReferences;
+
+    private CLIPlan(CLI cli) {
+        List<CLIElement> elements = cli.getCLIElement();
+        m_elements = new Element[elements.size()];
+        int maxReferences = 0;
+        for (int i = 0; i < m_elements.length; ++i) {
+            m_elements[i] = new Element(elements.get(i));
+            maxReferences = Math.max(maxReferences,
+                    m_elements[i].m_references.length);
+        }
+        m_maxReferences = maxReferences;
+    }
+
+    /**
+     * Returns the plan of the given CLI, compiling it on first use.
+     *
+     * @param cli
+     *            The CLI section of a tool descriptor.
+     * @return The compiled plan.
+     */
+    public static CLIPlan of(CLI cli) {
+        CLIPlan plan = PLANS.get(cli);
+        if (plan == null) {
+            plan = new CLIPlan(cli);
+            PLANS.put(cli, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Appends the command line of a node to the given list.
+     *
+     * Fixed arguments are added as they are, an option mapped to a single
+     * boolean parameter is added if the parameter is true. Otherwise, the
+     * option is added with the values of all mapped parameters that are set,
+     * either once or, for list options, before every value.
+     *
+     * @param nodeConfig
+     *            The configuration holding the parameters of the node.
+     * @param values
+     *            Creates the elements of the parameter values.
+     * @param commands
+     *            The list to append to.
+     * @throws Exception
+     *             If the mapped value lists of an option differ in size or a
+     *             value could not be mapped.
+     */
+    public void evaluate(INodeConfiguration nodeConfig, ValueFactory values,
+            List<CommandLineElement> commands) throws Exception {
+        // the snapshot of the mapped parameters of the current element
+        Parameter<?>[] parameters = new Parameter<?>[m_maxReferences];
+        Object[] strings = new Object[m_maxReferences];
+
+        for (Element element : m_elements) {
+            if (element.m_fixedTokens != null) {
+                for (String token : element.m_fixedTokens) {
+                    commands.add(new CommandLineFixedString(token));
+                }
+                continue;
+            }
+
+            String[] references = element.m_references;
+            if (references.length == 1) {
+                Parameter<?> p = nodeConfig.getParameter(references[0]);
+                if (p instanceof BoolParameter) {
+                    if (((BoolParameter) p).getValue()) {
+                        commands.add(new CommandLineFixedString(
+                                element.m_option));
+                    }
+                    continue;
+                }
+            }
+
+            int nSet = 0;
+            int size = -1;
+            for (String reference : references) {
+                Parameter<?> p = nodeConfig.getParameter(reference);
+                if (p == null || p.isNull()) {
+                    continue;
+                }
+                int nValues = 1;
+                List<String> s = null;
+                if (p instanceof ListParameter) {
+                    s = ((ListParameter) p).getStrings();
+                    if (s.isEmpty()) {
+                        continue;
+                    }
+                    nValues = s.size();
+                }
+                if (size != -1 && size != nValues) {
+                    throw new Exception(
+                            "All mapped value lists must have the same size.");
+                }
+                size = nValues;
+                parameters[nSet] = p;
+                strings[nSet] = s;
+                ++nSet;
+            }
+
+            for (int i = 0; i < nSet; ++i) {
+                @SuppressWarnings("unchecked")
+                List<String> s = (List<String>) strings[i];
+                if (s == null) {
+                    prefix(element, commands);
+                    commands.add(values.createValue(parameters[i]));
+                    continue;
+                }
+                if (!element.m_isList) {
+                    prefix(element, commands);
+                }
+                for (int j = 0; j < size; ++j) {
+                    if (element.m_isList) {
+                        prefix(element, commands);
+                    }
+                    commands.add(values.createListValue(parameters[i],
+                            s.get(j), j, size));
+                }
+            }
+        }
+    }
+
+    private static void prefix(Element element,
+            List<CommandLineElement> commands) {
+        if (element.m_hasPrefix) {
+            commands.add(new CommandLineFixedString(element.m_option));
+        }
+    }
+}
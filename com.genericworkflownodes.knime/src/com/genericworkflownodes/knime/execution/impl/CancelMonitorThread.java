@@ -28,8 +28,12 @@ import com.genericworkflownodes.knime.execution.IWaitable;
  * This thread monitors the execution context to determine if a cancelation was
  * requested.
  * 
+ * @deprecated use the shared
+ *             {@link com.genericworkflownodes.knime.execution.ExecutionWatchdog}
+ *             instead of one thread per execution.
  * @author Luis de la Garza
  */
+@Deprecated
 public class CancelMonitorThread extends Thread implements IWaitable {
     private final AsynchronousToolExecutor asyncExecutor;
     private final ExecutionContext exec;
@@ -28,8 +28,6 @@ import java.util.Map;
 import org.knime.core.node.NodeLogger;
 
 import com.genericworkflownodes.knime.GenericNodesPlugin;
-import com.genericworkflownodes.knime.cliwrapper.CLIElement;
-import com.genericworkflownodes.knime.cliwrapper.CLIMapping;
 import com.genericworkflownodes.knime.commandline.CommandLineElement;
 import com.genericworkflownodes.knime.commandline.impl.CommandLineFixedString;
 import com.genericworkflownodes.knime.commandline.impl.CommandLineParameter;
@@ -38,7 +36,6 @@ import com.genericworkflownodes.knime.custom.config.IPluginConfiguration;
 import com.genericworkflownodes.knime.execution.ICommandGenerator;
 import com.genericworkflownodes.knime.parameter.FileListParameter;
 import com.genericworkflownodes.knime.parameter.FileParameter;
-import com.genericworkflownodes.knime.parameter.ListParameter;
 import com.genericworkflownodes.knime.parameter.Parameter;
 /**
  * Implements a Docker tool specific generation of a command line.
@@ -52,12 +49,61 @@ public class DockerCommandGenerator extends CLICommandGenerator implements IComm
    
     protected static final String DOCKER_COMMAND = "docker";
     protected static final String DOCKER_EXECUTION = "run";
+    protected static final String DOCKER_WARM_EXECUTION = "exec";
+    protected static final String DOCKER_WORKDIR_COMMAND = "-w";
     protected static final String DOCKER_MOUNT_COMMAND = "-v";
     protected static final String DOCKER_INTERNAL_MOUNT = "/var/shared/";
     protected static final String DOCKER_DIR_SEP = "/";
+
+    /**
+     * Name of the file in the working directory receiving the id of the
+     * process started in a warm container, so a canceled execution can kill
+     * its own processes only.
+     */
+    protected static final String DOCKER_PID_FILE = ".gkn_docker.pid";
+
+    /**
+     * Records the process id in the file passed as <code>$0</code> and
+     * replaces the shell with the tool.
+     */
+    protected static final String DOCKER_PID_WRAPPER = "echo $$ > \"$0\" && exec \"$@\"";
     
     //private INodeConfiguration nodeConfig;
     private IPluginConfiguration pluginConfig;
+
+    /**
+     * The shared mount root (as Unix path) if the generated command runs in a
+     * warm container, null if it starts a new container.
+     */
+    private String m_mountRoot;
+
+    /**
+     * The working directory of the generated command.
+     */
+    private File m_workingDirectory;
+
+    /**
+     * The image of the warm container used by the generated command.
+     */
+    private String m_warmImage;
+
+    /**
+     * The file, as path in the container, holding the id of the process
+     * started in the warm container.
+     */
+    private String m_pidFile;
+
+    /**
+     * The docker arguments of the command being generated, which receive the
+     * mounts of the files passed to the tool.
+     */
+    private List<CommandLineElement> m_dockerCommands;
+
+    /**
+     * The host directories mounted by the command being generated, mapped to
+     * their path in the container.
+     */
+    private Map<String, String> m_hostDockerMap;
     
     public List<CommandLineElement> generateCommands(INodeConfiguration nodeConfiguration,
             IPluginConfiguration pluginConfiguration, File workingDirectory)
@@ -66,6 +112,11 @@ public class DockerCommandGenerator extends CLICommandGenerator implements IComm
         // ease the passing around of variables
         nodeConfig = nodeConfiguration;
         pluginConfig = pluginConfiguration;
+        m_workingDirectory = workingDirectory;
+        m_warmImage = null;
+        m_pidFile = null;
+        m_mountRoot = GenericNodesPlugin.isDockerContainerReuse() ? findMountRoot()
+                : null;
                
         // export the node configuration as plain text, for debugging and
         // logging
@@ -96,49 +147,42 @@ public class DockerCommandGenerator extends CLICommandGenerator implements IComm
     protected List<CommandLineElement> processCLI() throws Exception {
         List<CommandLineElement> commands = new ArrayList<CommandLineElement>();
         List<CommandLineElement> dockerCommands = new ArrayList<CommandLineElement>();
-        Map<String, String> hostDockerMap = new HashMap<String, String>();
         dockerCommands.add(new CommandLineFixedString(GenericNodesPlugin.getDockerInstallationDir()
                             +File.separator+DOCKER_COMMAND));
-        dockerCommands.add(new CommandLineFixedString(DOCKER_EXECUTION));
+        dockerCommands.add(new CommandLineFixedString(
+                m_mountRoot != null ? DOCKER_WARM_EXECUTION : DOCKER_EXECUTION));
         // this DOES NOT represent the docker VM, rather, the name of the executable
         // INSIDE the docker image, so it's always fixed!        
         commands.add(new CommandLineFixedString(nodeConfig.getExecutablePath()+nodeConfig.getExecutableName()));
-        for (CLIElement cliElement : nodeConfig.getCLI().getCLIElement()) {
-            logger.info("CLIElement: " + cliElement.getOptionIdentifier());
-
-            if (!"".equals(cliElement.getOptionIdentifier())
-                    && cliElement.getMapping().size() == 0) {
-                // simple fixed argument for the command line, no mapping to
-                // params given
-
-                // to avoid problems with spaces in commands we split fixed
-                // values
-                String[] splitResult = cliElement.getOptionIdentifier().split(
-                        " ");
-                for (String splittedCommand : splitResult) {
-                    commands.add(new CommandLineFixedString(splittedCommand));
-                }
-            } else if (super.isMappedToBooleanParameter(cliElement)) {
-                // it is mapped to bool
-                super.handleBooleanParameter(commands, cliElement);
-                
-            } else {
-
-                List<List<? extends CommandLineElement>> extractedParameterValues = extractParamterValues(cliElement, dockerCommands,hostDockerMap);
-                validateExtractedParameters(extractedParameterValues);
-
-                // we only add those parameters to the command line if they
-                // contain any values, this removes optional parameters if they
-                // were not set
-                if (extractedParameterValues.size() != 0) {
-                    expandParameters(extractedParameterValues, cliElement,
-                            commands);
-                }
-            }
+        m_dockerCommands = dockerCommands;
+        m_hostDockerMap = new HashMap<String, String>();
+        try {
+            appendCLI(commands);
+        } finally {
+            m_dockerCommands = null;
+            m_hostDockerMap = null;
         }
         try{
             String dockerContainer = pluginConfig.getToolProperty(nodeConfig.getName()).getProperty("dockerImage", null);
-            dockerCommands.add(new CommandLineFixedString(dockerContainer.replace("\"", "")));
+            String image = dockerContainer.replace("\"", "");
+            if (m_mountRoot != null) {
+                // the executor makes sure the container is running
+                m_warmImage = image;
+                dockerCommands.add(new CommandLineFixedString(DOCKER_WORKDIR_COMMAND));
+                dockerCommands.add(new CommandLineFixedString(
+                        toUnixPath(m_workingDirectory.getCanonicalPath())));
+                dockerCommands.add(new CommandLineFixedString(
+                        WarmContainerPool.getContainerName(image, m_mountRoot)));
+                // the tool is started by a shell recording its process id
+                m_pidFile = toUnixPath(new File(m_workingDirectory,
+                        DOCKER_PID_FILE).getCanonicalPath());
+                dockerCommands.add(new CommandLineFixedString("sh"));
+                dockerCommands.add(new CommandLineFixedString("-c"));
+                dockerCommands.add(new CommandLineFixedString(DOCKER_PID_WRAPPER));
+                dockerCommands.add(new CommandLineFixedString(m_pidFile));
+            } else {
+                dockerCommands.add(new CommandLineFixedString(image));
+            }
             dockerCommands.addAll(commands);
             return dockerCommands;
         }catch (NullPointerException e){
@@ -147,53 +191,20 @@ public class DockerCommandGenerator extends CLICommandGenerator implements IComm
     }
 
 
-    private List<List<? extends CommandLineElement>> extractParamterValues(CLIElement cliElement,
-            List<CommandLineElement> dockerCommands, Map<String, String> hostDockerMap) throws IOException {
-        
-        List<List<? extends CommandLineElement>> extractedParameterValues = new ArrayList<List<? extends CommandLineElement>>();
-        
-        for (CLIMapping cliMapping : cliElement.getMapping()) {
-            if (nodeConfig.getParameterKeys().contains(
-                    cliMapping.getReferenceName())) {
-
-                Parameter<?> p = nodeConfig.getParameter(cliMapping
-                        .getReferenceName());
-                if (!p.isNull()) {
-                    if (p instanceof ListParameter) {
-                        ListParameter lp = (ListParameter) p;
-                        if (lp.getStrings().size() > 0) {
-                            final List<CommandLineElement> tmp = new ArrayList<CommandLineElement>();
-                            for (final String s : lp.getStrings()) {
-                                tmp.add(new CommandLineFixedString(s));
-                            }
-                            extractedParameterValues.add(tmp);
-                        }
-                    } else if (p instanceof FileParameter){
-                        extractedParameterValues.add(
-                                handleFileParameter( ((FileParameter) p).getValue(), 
-                                        dockerCommands, 
-                                        hostDockerMap) );
-                        
-                    } else if (p instanceof FileListParameter) {
-                        List<String> fl = ((FileListParameter) p).getValue();
-                        if (fl.size() > 0){
-                            for(String hostFile:fl){
-                                extractedParameterValues.add(
-                                        handleFileParameter(hostFile, 
-                                                dockerCommands, 
-                                                hostDockerMap)
-                                        );
-                            }
-                        }
-                    } else {
-                        List<CommandLineElement> l = new ArrayList<CommandLineElement>();
-                        l.add(new CommandLineParameter(p));
-                        extractedParameterValues.add(l);
-                    }
-                }
-            }
+    @Override
+    protected CommandLineElement createValue(final Parameter<?> p)
+            throws IOException {
+        if (p instanceof FileParameter) {
+            return handleFileParameter(((FileParameter) p).getValue(),
+                    m_dockerCommands, m_hostDockerMap);
         }
-        return extractedParameterValues;
+        return new CommandLineParameter(p);
+    }
+
+    @Override
+    protected CommandLineElement createListValue(final Parameter<?> p,
+            final String value, final int index, final int size) {
+        return new CommandLineFixedString(value);
     }
 
     /***
@@ -204,15 +215,20 @@ public class DockerCommandGenerator extends CLICommandGenerator implements IComm
      * @param hostFile string to file on host system
      * @param dockerCommands a list of specific docker commands
      * @param hostDockerMap a map of host paths to docker paths that have already been mapped
-     * @return List of extracted commands
+     * @return The command line element of the file
      * @throws IOException
      */
-    private List<? extends CommandLineElement> handleFileParameter(String hostFile,
+    private CommandLineElement handleFileParameter(String hostFile,
             List<CommandLineElement> dockerCommands, Map<String, String> hostDockerMap) 
             throws IOException {
         
         String dockerMount;
         File fileParam = new File(hostFile);
+        if (m_mountRoot != null) {
+            // below the shared mount, the path is the same in the container
+            return new CommandLineFixedString(toUnixPath(fileParam
+                    .getCanonicalPath()));
+        }
         String hostPath = toUnixPath(fileParam.getParentFile().getCanonicalPath());
         
         if ( hostDockerMap.containsKey(hostPath)){
@@ -228,10 +244,83 @@ public class DockerCommandGenerator extends CLICommandGenerator implements IComm
         }  
 
             
-        List<CommandLineElement> l = new ArrayList<CommandLineElement>();
-        l.add(new CommandLineFixedString(dockerMount+fileParam.getName()));
-        
-        return l;
+        return new CommandLineFixedString(dockerMount+fileParam.getName());
+    }
+
+    /**
+     * Checks if the command can run in a warm container, i.e., if the working
+     * directory and all files passed to the tool are below the shared mount
+     * root.
+     * 
+     * @return The mount root as Unix path, or null if a new container has to
+     *         be started.
+     * @throws IOException
+     *             If a path could not be resolved.
+     */
+    private String findMountRoot() throws IOException {
+        if (m_workingDirectory == null) {
+            return null;
+        }
+        File root = new File(GenericNodesPlugin.getDockerMountRoot())
+                .getCanonicalFile();
+        List<String> files = new ArrayList<String>();
+        files.add(m_workingDirectory.getPath());
+        for (Parameter<?> p : nodeConfig.getParameters()) {
+            if (p.isNull()) {
+                continue;
+            }
+            if (p instanceof FileParameter) {
+                files.add(((FileParameter) p).getValue());
+            } else if (p instanceof FileListParameter) {
+                files.addAll(((FileListParameter) p).getValue());
+            }
+        }
+        for (String file : files) {
+            if (file == null || file.isEmpty()) {
+                continue;
+            }
+            if (!isBelow(new File(file).getCanonicalFile(), root)) {
+                logger.debug("Starting a new container for "
+                        + nodeConfig.getName() + ", " + file
+                        + " is not below the shared mount " + root);
+                return null;
+            }
+        }
+        return toUnixPath(root.getPath());
+    }
+
+    private static boolean isBelow(final File file, final File root) {
+        for (File f = file; f != null; f = f.getParentFile()) {
+            if (f.equals(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The image of the warm container the generated command runs in,
+     *         or null if the command starts a new container.
+     */
+    public String getWarmImage() {
+        return m_warmImage;
+    }
+
+    /**
+     * @return The shared mount root of the warm container as Unix path, or
+     *         null if the command starts a new container.
+     */
+    public String getMountRoot() {
+        return m_warmImage == null ? null : m_mountRoot;
+    }
+
+    /**
+     * @return The file, as path in the warm container, holding the id of the
+     *         process started by the generated command, or null if the
+     *         command starts a new container.
+     */
+    public String getPidFile() {
+        return m_pidFile;
     }
 
     /***
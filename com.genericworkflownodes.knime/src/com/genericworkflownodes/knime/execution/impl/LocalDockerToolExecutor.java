@@ -20,9 +20,12 @@ package com.genericworkflownodes.knime.execution.impl;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.genericworkflownodes.knime.GenericNodesPlugin;
 import com.genericworkflownodes.knime.config.INodeConfiguration;
@@ -30,6 +33,7 @@ import com.genericworkflownodes.knime.custom.config.IPluginConfiguration;
 import com.genericworkflownodes.knime.custom.config.NoBinaryAvailableException;
 import com.genericworkflownodes.knime.execution.IToolExecutor;
 import com.genericworkflownodes.knime.execution.ToolExecutionFailedException;
+import com.genericworkflownodes.knime.execution.ToolExecutionMetrics;
 import com.genericworkflownodes.util.Helper;
 import com.genericworkflownodes.util.StringUtils;
 
@@ -40,9 +44,29 @@ public class LocalDockerToolExecutor extends LocalToolExecutor implements IToolE
     private static final String DOCKER_STOPPED = "Stopped";
     private static final String DOCKER_SET_ENV_WIN = "__DOCKER_PATH__docker-machine env __DOCKER_VM__";
     private static final String DOCKER_SET_ENV_MAC = "__DOCKER_PATH__docker-machine env __DOCKER_VM__";
+
+    /**
+     * The environment set by docker-machine for each machine, resolved once
+     * per session.
+     */
+    private static final Map<String, Map<String, String>> MACHINE_ENVIRONMENTS = new ConcurrentHashMap<String, Map<String, String>>();
+
+    /**
+     * The warm container the tool runs in, null if it runs in a new
+     * container.
+     */
+    private volatile String m_warmContainer;
+
+    /**
+     * The file in the warm container holding the id of the process the tool
+     * runs in.
+     */
+    private volatile String m_pidFile;
  
     @Override
     public int execute() throws ToolExecutionFailedException {
+        resetOutputLogs();
+        m_metrics = new ToolExecutionMetrics();
         try {
             List<String> command = new ArrayList<String>();
             extractFromCommandLineElements(m_commands, command);
@@ -53,38 +77,81 @@ public class LocalDockerToolExecutor extends LocalToolExecutor implements IToolE
             // build process
             ProcessBuilder builder = new ProcessBuilder(command);
             setupProcessEnvironment(builder);
+
+            m_warmContainer = null;
+            m_pidFile = null;
+            if (m_generator instanceof DockerCommandGenerator
+                    && ((DockerCommandGenerator) m_generator).getWarmImage() != null) {
+                DockerCommandGenerator generator = (DockerCommandGenerator) m_generator;
+                String container = WarmContainerPool.getInstance().acquire(
+                        command.get(0), generator.getWarmImage(),
+                        generator.getMountRoot(), builder.environment());
+                m_warmContainer = container;
+                m_pidFile = generator.getPidFile();
+                // the container was replaced if it had to be retired
+                int index = command.indexOf(WarmContainerPool.getContainerName(
+                        generator.getWarmImage(), generator.getMountRoot()));
+                if (index >= 0) {
+                    builder.command().set(index, container);
+                }
+            }
     
             if (m_workingDirectory != null) {
                 builder.directory(m_workingDirectory);
             }
     
-            // execute
-            m_process = builder.start();
+            // execute, the sampled resources are the ones of the docker
+            // client only, the container runs outside of its process tree
+            ProcessTreeSampler sampler = startProcess(builder);
     
             // prepare capture of cerr/cout streams
             StreamGobbler stdOutGobbler = new StreamGobbler(
-                    m_process.getInputStream());
+                    m_process.getInputStream(), m_stdOutLog);
             StreamGobbler stdErrGobbler = new StreamGobbler(
-                    m_process.getErrorStream());
+                    m_process.getErrorStream(), m_stdErrLog);
     
             // start separate threads to capture the cerr/cout streams
             stdErrGobbler.start();
             stdOutGobbler.start();
     
             // fetch return code
-            m_returnCode = m_process.waitFor();
+            m_returnCode = waitForProcess(sampler);
+            stdOutGobbler.join();
+            stdErrGobbler.join();
     
-            // extract messages from stderr and stdout
-            m_stdOut = stdOutGobbler.getContent();
-            m_stdErr = stdErrGobbler.getContent();
         } catch (Exception e) {
             LOGGER.warn("Failed to execute tool " + m_executable.getName(), e);
             throw new ToolExecutionFailedException("Failed to execute tool "
                     + m_executable.getName(), e);
+        } finally {
+            // extract messages from stderr and stdout
+            closeOutputLogs();
+            String container = m_warmContainer;
+            if (container != null) {
+                // the tool is done, a late kill must not touch the container
+                m_warmContainer = null;
+                WarmContainerPool.getInstance().release(container);
+            }
         }
         return m_returnCode;    
     }
     
+    @Override
+    protected CompletableFuture<Void> terminate(final Process process) {
+        CompletableFuture<Void> termination = super.terminate(process);
+        final String container = m_warmContainer;
+        final String pidFile = m_pidFile;
+        if (container != null) {
+            // the tool keeps running in the container when the docker client
+            // is killed, so its processes are killed in the container, other
+            // executions in the same container keep running
+            termination = CompletableFuture.allOf(termination,
+                    CompletableFuture.runAsync(() -> WarmContainerPool
+                            .getInstance().killExecution(container, pidFile)));
+        }
+        return termination;
+    }
+
     /**
      * Initialization method of the executor.
      * 
@@ -116,31 +183,43 @@ public class LocalDockerToolExecutor extends LocalToolExecutor implements IToolE
             throws ToolExecutionFailedException {
         String dockerPath = GenericNodesPlugin.getDockerInstallationDir()+File.separator;
         if((Helper.isMac()|| Helper.isWin()) && GenericNodesPlugin.isDockerToolBox()){
-            if(executeDockerCommand(dockerPath+DOCKER_CHECK+pluginConfiguration.getDockerMachine()).equals(DOCKER_STOPPED)){
-                executeDockerCommand(dockerPath+DOCKER_START+pluginConfiguration.getDockerMachine());
+            String machine = pluginConfiguration.getDockerMachine();
+            Map<String, String> machineEnv = MACHINE_ENVIRONMENTS.get(machine);
+            if (machineEnv == null) {
+                if(executeDockerCommand(dockerPath+DOCKER_CHECK+machine).equals(DOCKER_STOPPED)){
+                    executeDockerCommand(dockerPath+DOCKER_START+machine);
+                    }
+                if(Helper.isMac()){
+                    machineEnv = parseDockerMacEnv(executeDockerCommand(DOCKER_SET_ENV_MAC.replace("__DOCKER_VM__", 
+                            machine).replace("__DOCKER_PATH__", dockerPath)));
+                }else{
+                    machineEnv = parseDockerWinEnv(executeDockerCommand(DOCKER_SET_ENV_WIN.replace("__DOCKER_VM__", 
+                            machine).replace("__DOCKER_PATH__", dockerPath)));
                 }
-            if(Helper.isMac()){
-                setDockerMacEnv(executeDockerCommand(DOCKER_SET_ENV_MAC.replace("__DOCKER_VM__", 
-                        pluginConfiguration.getDockerMachine()).replace("__DOCKER_PATH__", 
-                                dockerPath)));
-            }else{
-                setDockerWinEnv(executeDockerCommand(DOCKER_SET_ENV_WIN.replace("__DOCKER_VM__", 
-                        pluginConfiguration.getDockerMachine()).replace("__DOCKER_PATH__",
-                                dockerPath)));
+                MACHINE_ENVIRONMENTS.put(machine, machineEnv);
             }
+            super.getEnvironmentVariables().putAll(machineEnv);
         }
         
     }
 
+    /**
+     * Forgets the docker-machine environments resolved so far, e.g., because
+     * a machine was restarted and got a new address.
+     */
+    public static void resetDockerMachineEnvironments() {
+        MACHINE_ENVIRONMENTS.clear();
+    }
+
     /**
      * Parses the output of docker-machine env __DOCKER_VM___ 
-     * and adds the environmental variables to the env-dicktionary
+     * and returns the environmental variables it sets
      * works only for cmd.exe not for powershell
      * @param executeDockerCommand
      */
     //TODO: generalize to other windows supported shells
-     private void setDockerWinEnv(final String executeDockerCommand) {
-        Map<String, String> env = super.getEnvironmentVariables();
+     private static Map<String, String> parseDockerWinEnv(final String executeDockerCommand) {
+        Map<String, String> env = new HashMap<String, String>();
         for(String line: executeDockerCommand.split(System.getProperty("line.separator"))){
             if(line.startsWith("SET")){
                 String[] envCommand = line.split("\\s+"); 
@@ -148,15 +227,16 @@ public class LocalDockerToolExecutor extends LocalToolExecutor implements IToolE
                 env.put(tmp[0],tmp[1].replace("\"", ""));
             }
         }
+        return env;
     }
 
     /**
       * Parses the output of docker-machine env __DOCKER_VM___ 
-      * and adds the environmental variables to the env-dicktionary
+      * and returns the environmental variables it sets
       * @param executeDockerCommand
       */
-    private void setDockerMacEnv(final String dockerEnvOutput) {
-        Map<String, String> env = super.getEnvironmentVariables();
+    private static Map<String, String> parseDockerMacEnv(final String dockerEnvOutput) {
+        Map<String, String> env = new HashMap<String, String>();
         for(String line: dockerEnvOutput.split(System.getProperty("line.separator"))){
             if(!line.startsWith("#")){
                //TODO: generalize this to all supported shells
@@ -166,8 +246,7 @@ public class LocalDockerToolExecutor extends LocalToolExecutor implements IToolE
                env.put(tmp[0],tmp[1].replace("\"", ""));
              }
          }
-
-        
+        return env;
     }
 
     /**
@@ -198,6 +277,8 @@ public class LocalDockerToolExecutor extends LocalToolExecutor implements IToolE
     
             // fetch return code
             int returnCode = p.waitFor();
+            stdOutGobbler.join();
+            stdErrGobbler.join();
     
             // extract messages from stderr and stdout
             LinkedList<String> stdOut = stdOutGobbler.getContent();
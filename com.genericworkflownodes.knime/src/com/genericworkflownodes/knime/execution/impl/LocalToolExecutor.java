@@ -21,15 +21,17 @@ package com.genericworkflownodes.knime.execution.impl;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Observable;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,14 +39,19 @@ import org.knime.core.node.NodeLogger;
 import org.knime.core.util.ThreadUtils;
 import org.apache.commons.io.input.Tailer;
 import org.apache.commons.io.input.TailerListenerAdapter;
-import org.knime.base.node.util.exttool.*;
+import org.knime.base.node.util.exttool.ViewUpdateNotice;
+
+import com.genericworkflownodes.knime.GenericNodesPlugin;
 import com.genericworkflownodes.knime.commandline.CommandLineElement;
+import com.genericworkflownodes.knime.commandline.impl.CommandLineFixedString;
 import com.genericworkflownodes.knime.config.INodeConfiguration;
 import com.genericworkflownodes.knime.custom.config.IPluginConfiguration;
 import com.genericworkflownodes.knime.custom.config.NoBinaryAvailableException;
 import com.genericworkflownodes.knime.execution.ICommandGenerator;
 import com.genericworkflownodes.knime.execution.IToolExecutor;
 import com.genericworkflownodes.knime.execution.ToolExecutionFailedException;
+import com.genericworkflownodes.knime.execution.ToolExecutionMetrics;
+import com.genericworkflownodes.knime.execution.ToolOutputLog;
 import com.genericworkflownodes.knime.generic_node.GenericKnimeNodeModel;
 import com.genericworkflownodes.util.StringUtils;
 
@@ -57,74 +64,32 @@ import com.genericworkflownodes.util.StringUtils;
 public class LocalToolExecutor implements IToolExecutor {
     
     public class MyTailerOutListener extends TailerListenerAdapter {
-        private Constructor<ViewUpdateNotice> ctor;
-        private Object streamtype;
-        public MyTailerOutListener() throws NoSuchMethodException, SecurityException, ClassNotFoundException {
-            //HACK since org.knime.base.node.util.exttool.ViewUpdateNotice.ViewType is a private enum
-            Class<?> enumClass = Class.forName("org.knime.base.node.util.exttool.ViewUpdateNotice$ViewType");
-            Object[] enumElements = enumClass.getEnumConstants();
-            streamtype = enumElements[0]; // out stream
-            ctor = ViewUpdateNotice.class.getDeclaredConstructor(enumClass);
-            ctor.setAccessible(true);
-        }
         public void handle(String line) {
-            
-            m_stdOut.add(line);
-            m_model.setStdOut(m_stdOut);
-            ViewUpdateNotice v;
-            try {
-                v = ctor.newInstance(streamtype);
-                v.setNewLine(line);
-                m_model.update(new Observable(),v);
-            } catch (InstantiationException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            } catch (IllegalAccessException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            } catch (IllegalArgumentException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            } catch (InvocationTargetException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            }
+            outputRead(false, Collections.singletonList(line));
         }
     }
-    
+
     public class MyTailerErrListener extends TailerListenerAdapter {
-        private Constructor<ViewUpdateNotice> ctor;
-        private Object streamtype;
-        public MyTailerErrListener() throws NoSuchMethodException, SecurityException, ClassNotFoundException {
-            //HACK since org.knime.base.node.util.exttool.ViewUpdateNotice.ViewType is a private enum
-            Class<?> enumClass = Class.forName("org.knime.base.node.util.exttool.ViewUpdateNotice$ViewType");
-            Object[] enumElements = enumClass.getEnumConstants();
-            streamtype = enumElements[1]; // err stream
-            ctor = ViewUpdateNotice.class.getDeclaredConstructor(enumClass);
-            ctor.setAccessible(true);
-        }
         public void handle(String line) {
-            
-            m_stdErr.add(line);
-            m_model.setStdErr(m_stdErr);
-            ViewUpdateNotice v;
-            try {
-                v = ctor.newInstance(streamtype);
-                v.setNewLine(line);
-                m_model.update(new Observable(),v);
-            } catch (InstantiationException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            } catch (IllegalAccessException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            } catch (IllegalArgumentException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            } catch (InvocationTargetException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            }
+            outputRead(true, Collections.singletonList(line));
+        }
+    }
+
+    /**
+     * Forwards the lines read from the stdout/stderr pipe of the process to
+     * the collected output and to the node views, one batch at a time.
+     */
+    private class OutputBatchForwarder implements
+            ProcessOutputReader.LineBatchListener {
+        private final boolean m_isStdErr;
+
+        OutputBatchForwarder(final boolean isStdErr) {
+            m_isStdErr = isStdErr;
+        }
+
+        @Override
+        public void linesRead(final List<String> lines) {
+            outputRead(m_isStdErr, lines);
         }
     }
 
@@ -134,6 +99,19 @@ public class LocalToolExecutor implements IToolExecutor {
     protected static final NodeLogger LOGGER = NodeLogger
             .getLogger(LocalToolExecutor.class);
 
+    /**
+     * Time the processes get to terminate after a cancel before they are
+     * killed forcibly.
+     */
+    protected static final long KILL_GRACE_PERIOD_SECONDS = 5;
+
+    /**
+     * Matching pattern for environment variables referenced as
+     * <code>${VNAME}</code>.
+     */
+    private static final Pattern VARIABLE_PATTERN = Pattern
+            .compile("\\$\\{([^}]+)\\}");
+
     /**
      * The working directory where the process will be executed.
      */
@@ -150,17 +128,44 @@ public class LocalToolExecutor implements IToolExecutor {
     protected int m_returnCode;
 
     /**
-     * The std-out of the executed process.
+     * The std-out of the last execution, or null while the process is running.
      */
-    protected LinkedList<String> m_stdOut;
+    protected volatile LinkedList<String> m_stdOut;
 
     /**
-     * The std-err of the executed process.
+     * The std-err of the last execution, or null while the process is running.
      */
-    protected LinkedList<String> m_stdErr;
+    protected volatile LinkedList<String> m_stdErr;
+
+    /**
+     * The bounded store behind {@link #m_stdOut}.
+     */
+    protected ToolOutputLog m_stdOutLog;
+
+    /**
+     * The bounded store behind {@link #m_stdErr}.
+     */
+    protected ToolOutputLog m_stdErrLog;
 
     protected Process m_process;
 
+    /**
+     * Set if {@link #kill()} was called, possibly before the process was
+     * started.
+     */
+    protected volatile boolean m_killed;
+
+    /**
+     * Completes once the process tree of a killed execution is gone, null if
+     * the process was not killed.
+     */
+    private CompletableFuture<Void> m_termination;
+
+    /**
+     * The metrics of the last execution.
+     */
+    protected ToolExecutionMetrics m_metrics = new ToolExecutionMetrics();
+
     protected ICommandGenerator m_generator;
     
     protected List<CommandLineElement> m_commands;
@@ -193,6 +198,44 @@ public class LocalToolExecutor implements IToolExecutor {
         m_returnCode = -1;
         m_stdErr = new LinkedList<String>();
         m_stdOut = new LinkedList<String>();
+        m_stdOutLog = createOutputLog();
+        m_stdErrLog = createOutputLog();
+    }
+
+    /**
+     * Creates a bounded output store using the window configured in the GKN
+     * preferences.
+     * 
+     * @return The new store.
+     */
+    public static ToolOutputLog createOutputLog() {
+        return new ToolOutputLog(GenericNodesPlugin.getOutputWindowLines(),
+                GenericNodesPlugin.getOutputWindowChars());
+    }
+
+    /**
+     * Replaces the output stores by fresh ones. Called at the beginning of
+     * each execution. Until {@link #closeOutputLogs()}, the output is only
+     * snapshot on request.
+     */
+    protected void resetOutputLogs() {
+        m_stdOutLog = createOutputLog();
+        m_stdErrLog = createOutputLog();
+        m_stdOut = null;
+        m_stdErr = null;
+    }
+
+    /**
+     * Publishes the retained window of the output stores to the model after
+     * the process terminated.
+     */
+    protected void closeOutputLogs() {
+        m_stdOut = m_stdOutLog.getRetainedLines();
+        m_stdErr = m_stdErrLog.getRetainedLines();
+        if (m_model != null) {
+            m_model.setStdOut(m_stdOut);
+            m_model.setStdErr(m_stdErr);
+        }
     }
 
     /**
@@ -283,15 +326,113 @@ public class LocalToolExecutor implements IToolExecutor {
      */
     @Override
     public LinkedList<String> getToolOutput() {
-        return m_stdOut;
+        LinkedList<String> stdOut = m_stdOut;
+        return stdOut != null ? stdOut : m_stdOutLog.getRetainedLines();
     }
 
     /**
-     * Kills the running process.
+     * Kills the running process together with all of its descendants. The
+     * method does not block, {@link #execute()} returns once the processes
+     * are gone.
      */
     @Override
     public void kill() {
-        m_process.destroy();
+        synchronized (this) {
+            m_killed = true;
+            if (m_process != null && m_termination == null) {
+                m_termination = terminate(m_process);
+            }
+        }
+    }
+
+    /**
+     * Starts to terminate the given process of a killed execution.
+     * 
+     * @param process
+     *            The started process.
+     * @return A future completing once everything started for the execution
+     *         is gone.
+     */
+    protected CompletableFuture<Void> terminate(final Process process) {
+        return destroyProcessTree(process);
+    }
+
+    /**
+     * Waits until the processes of a killed execution are gone.
+     */
+    private void awaitTermination() {
+        CompletableFuture<Void> termination;
+        synchronized (this) {
+            termination = m_termination;
+        }
+        if (termination == null) {
+            return;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                termination.get();
+                break;
+            } catch (InterruptedException e) {
+                // the processes have to be gone before the execution ends
+                interrupted = true;
+            } catch (ExecutionException e) {
+                LOGGER.debug("Could not terminate the tool", e.getCause());
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Asks the given process and all of its descendants to terminate. Every
+     * process of the tree that is still alive after
+     * {@link #KILL_GRACE_PERIOD_SECONDS} is killed forcibly. The method does
+     * not block, the escalation is triggered by the exit events of the
+     * processes.
+     * 
+     * @param process
+     *            The root of the process tree.
+     * @return A future completing once all processes of the tree exited, or
+     *         once another grace period passed after they were killed
+     *         forcibly.
+     */
+    protected static CompletableFuture<Void> destroyProcessTree(
+            final Process process) {
+        // collect the descendants first, they are re-parented once their
+        // parent is gone
+        final List<ProcessHandle> tree = new ArrayList<ProcessHandle>();
+        tree.add(process.toHandle());
+        process.descendants().forEach(tree::add);
+
+        List<CompletableFuture<ProcessHandle>> exits = new ArrayList<CompletableFuture<ProcessHandle>>();
+        for (ProcessHandle handle : tree) {
+            handle.destroy();
+            exits.add(handle.onExit());
+        }
+        final CompletableFuture<?>[] exited = exits
+                .toArray(new CompletableFuture<?>[exits.size()]);
+        return CompletableFuture.allOf(exited)
+                .orTimeout(KILL_GRACE_PERIOD_SECONDS, TimeUnit.SECONDS)
+                .handle((ignored, timeout) -> timeout)
+                .thenCompose(timeout -> {
+                    if (timeout == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    for (ProcessHandle handle : tree) {
+                        if (handle.isAlive()) {
+                            LOGGER.debug("Forcibly killing process "
+                                    + handle.pid());
+                            handle.destroyForcibly();
+                        }
+                    }
+                    // a process in uninterruptible sleep may not exit at all
+                    return CompletableFuture.allOf(exited)
+                            .completeOnTimeout(null, KILL_GRACE_PERIOD_SECONDS,
+                                    TimeUnit.SECONDS);
+                });
     }
 
     /**
@@ -312,6 +453,8 @@ public class LocalToolExecutor implements IToolExecutor {
     @Override
     public int execute() throws ToolExecutionFailedException {
 
+        resetOutputLogs();
+        m_metrics = new ToolExecutionMetrics();
         try {
             
             final List<String> commands = new ArrayList<String>();
@@ -330,68 +473,200 @@ public class LocalToolExecutor implements IToolExecutor {
             setupProcessEnvironment(builder);
             LOGGER.debug("With environment: " + m_environmentVariables.toString());
 
-            File logFile;
-            File errLogFile;
             if (m_workingDirectory != null) {
                 builder.directory(m_workingDirectory);
-                logFile = new File(m_workingDirectory,"lastLog.txt");
-                errLogFile = new File(m_workingDirectory,"lastErrLog.txt");
-            } else {
-                logFile = File.createTempFile("GKN-", ".log.tmp");
-                errLogFile = File.createTempFile("GKN-", "err.log.tmp");
             }
-            
-            LOGGER.debug("Created log file: " + logFile.getAbsolutePath());
-            LOGGER.debug("Created errlog file: " + errLogFile.getAbsolutePath());
-            
-            builder.redirectOutput(logFile);
-            builder.redirectError(errLogFile);
-            MyTailerOutListener listener = new MyTailerOutListener();
-            MyTailerErrListener errlistener = new MyTailerErrListener();
-            Tailer tailer = new Tailer(logFile, listener, 250);
-            Tailer errtailer = new Tailer(errLogFile, errlistener, 250);
-            Thread thread = ThreadUtils.threadWithContext(tailer);
-            Thread errthread = ThreadUtils.threadWithContext(errtailer);
-            thread.setDaemon(true); // optional
-            errthread.setDaemon(true); // optional
-            thread.start();
-            errthread.start();
-            
-            // execute
-            
-            m_process = builder.start();
-            
-            /* Old streamgobbler implementation that had problems on windows 
-             * (probably the stream buffer went full and it did not read on time
-             * and then you got a deadlock)
-            StreamGobbler stdout = new StreamGobbler(m_process.getInputStream(), "OUT");
-            StreamGobbler stderr = new StreamGobbler(m_process.getInputStream(), "ERR");
-            stdout.start();
-            stderr.start();*/
-
-            // fetch return code
-            m_returnCode = m_process.waitFor();
-            m_process.destroy();
-            Thread.sleep(300); //wait at least a bit more than the wait in the Tailers (in case the tool fails immediately)
-            tailer.stop();
-            errtailer.stop();
-            thread.join();
-            errthread.join();
-            try {
-              logFile.delete();
-              errLogFile.delete();
-            } catch (final Exception e){
-                LOGGER.warn("Warning: Could not delete log files: " + logFile.getAbsolutePath() + " or " + errLogFile.getAbsolutePath());
+
+            if (GenericNodesPlugin.isPipeOutputCapture()) {
+                m_returnCode = executeWithPipeCapture(builder);
+            } else {
+                m_returnCode = executeWithLogFileCapture(builder);
             }
         } catch (final Exception e) {
             LOGGER.warn("Failed to execute tool " + m_executable.getName(), e);
             throw new ToolExecutionFailedException(
                     "Failed to execute tool " + m_executable.getName(), e);
+        } finally {
+            closeOutputLogs();
         }
 
         return m_returnCode;
     }
 
+    /**
+     * Starts the process and the sampling of its resource usage.
+     * 
+     * @param builder
+     *            The fully configured process builder.
+     * @return The sampler of the started process.
+     * @throws IOException
+     *             If the process could not be started.
+     */
+    protected ProcessTreeSampler startProcess(final ProcessBuilder builder)
+            throws IOException {
+        long start = System.nanoTime();
+        Process process = builder.start();
+        m_metrics.endPhase(ToolExecutionMetrics.PHASE_SPAWN, start);
+        synchronized (this) {
+            m_process = process;
+            if (m_killed && m_termination == null) {
+                m_termination = terminate(process);
+            }
+        }
+        return ProcessTreeSampler.start(process);
+    }
+
+    /**
+     * Waits for the process to terminate and stores its resource usage in
+     * the metrics.
+     * 
+     * @param sampler
+     *            The sampler returned by {@link #startProcess(ProcessBuilder)}.
+     * @return The return code of the process.
+     * @throws InterruptedException
+     *             If interrupted while waiting.
+     */
+    protected int waitForProcess(final ProcessTreeSampler sampler)
+            throws InterruptedException {
+        try {
+            return m_process.waitFor();
+        } finally {
+            sampler.stop(m_metrics);
+            // the root may exit before its descendants
+            awaitTermination();
+        }
+    }
+
+    /**
+     * @return The resource usage of the last execution of this executor.
+     */
+    public ToolExecutionMetrics getMetrics() {
+        return m_metrics;
+    }
+
+    /**
+     * Starts the process and reads its output directly from the stdout/stderr
+     * pipes. Stdout is consumed by the calling thread, stderr by a helper
+     * thread. Both streams are drained until the process closes them, so
+     * no output is lost and no fixed grace period is needed after the process
+     * terminated.
+     * 
+     * @param builder
+     *            The fully configured process builder.
+     * @return The return code of the process.
+     * @throws Exception
+     *             If the process could not be started or was interrupted.
+     */
+    protected int executeWithPipeCapture(final ProcessBuilder builder)
+            throws Exception {
+        ProcessTreeSampler sampler = startProcess(builder);
+        // we never write to the tool
+        m_process.getOutputStream().close();
+
+        Thread errthread = ThreadUtils.threadWithContext(new ProcessOutputReader(
+                m_process.getErrorStream(), new OutputBatchForwarder(true)));
+        errthread.setDaemon(true);
+        errthread.start();
+
+        new ProcessOutputReader(m_process.getInputStream(),
+                new OutputBatchForwarder(false)).run();
+
+        // fetch return code
+        int returnCode = waitForProcess(sampler);
+        errthread.join();
+        return returnCode;
+    }
+
+    /**
+     * Starts the process with stdout/stderr redirected into log files in the
+     * working directory and tails these files while the process is running.
+     * 
+     * @param builder
+     *            The fully configured process builder.
+     * @return The return code of the process.
+     * @throws Exception
+     *             If the process could not be started or was interrupted.
+     */
+    protected int executeWithLogFileCapture(final ProcessBuilder builder)
+            throws Exception {
+        File logFile;
+        File errLogFile;
+        if (m_workingDirectory != null) {
+            logFile = new File(m_workingDirectory,"lastLog.txt");
+            errLogFile = new File(m_workingDirectory,"lastErrLog.txt");
+        } else {
+            logFile = File.createTempFile("GKN-", ".log.tmp");
+            errLogFile = File.createTempFile("GKN-", "err.log.tmp");
+        }
+
+        LOGGER.debug("Created log file: " + logFile.getAbsolutePath());
+        LOGGER.debug("Created errlog file: " + errLogFile.getAbsolutePath());
+
+        builder.redirectOutput(logFile);
+        builder.redirectError(errLogFile);
+        MyTailerOutListener listener = new MyTailerOutListener();
+        MyTailerErrListener errlistener = new MyTailerErrListener();
+        Tailer tailer = new Tailer(logFile, listener, 250);
+        Tailer errtailer = new Tailer(errLogFile, errlistener, 250);
+        Thread thread = ThreadUtils.threadWithContext(tailer);
+        Thread errthread = ThreadUtils.threadWithContext(errtailer);
+        thread.setDaemon(true); // optional
+        errthread.setDaemon(true); // optional
+        thread.start();
+        errthread.start();
+
+        // execute
+        ProcessTreeSampler sampler = startProcess(builder);
+
+        // fetch return code
+        int returnCode = waitForProcess(sampler);
+        m_process.destroy();
+        Thread.sleep(300); //wait at least a bit more than the wait in the Tailers (in case the tool fails immediately)
+        tailer.stop();
+        errtailer.stop();
+        thread.join();
+        errthread.join();
+        try {
+          logFile.delete();
+          errLogFile.delete();
+        } catch (final Exception e){
+            LOGGER.warn("Warning: Could not delete log files: " + logFile.getAbsolutePath() + " or " + errLogFile.getAbsolutePath());
+        }
+        return returnCode;
+    }
+
+    /**
+     * Adds new output of the process to the bounded stores and appends it to
+     * the views of the model.
+     * 
+     * @param stdErr
+     *            True if the lines were read from stderr.
+     * @param lines
+     *            The new lines.
+     */
+    private void outputRead(final boolean stdErr, final List<String> lines) {
+        ToolOutputLog log = stdErr ? m_stdErrLog : m_stdOutLog;
+        log.addLines(lines);
+        if (m_model != null) {
+            notifyViews(stdErr, StringUtils.join(lines, "\n"));
+        }
+    }
+
+    /**
+     * Appends the given text to the stdout or stderr view of the node.
+     * 
+     * @param stdErr
+     *            True if the text should go to the stderr view.
+     * @param text
+     *            The new lines, joined by '\n'.
+     */
+    private void notifyViews(final boolean stdErr, final String text) {
+        ViewUpdateNotice notice = ViewUpdateNoticeFactory.create(stdErr, text);
+        if (notice != null) {
+            m_model.update(new Observable(), notice);
+        }
+    }
+
     /**
      * Expand environment variables in the given string referenced by
      * <code>${VNAME}</code>.
@@ -401,29 +676,18 @@ public class LocalToolExecutor implements IToolExecutor {
      * @return The string with replaced variables.
      */
     protected String expandEnvironmentVariables(String value) {
-        // matching pattern for ${VNAME}
-        final Pattern variableNamePattern = Pattern.compile("\\$\\{([^}]+)\\}");
-
-        // expand variables in value
-        boolean found = true;
-        while (found) {
-            final Matcher m = variableNamePattern.matcher(value);
-            found = m.find();
-            if (found) {
-                final String variableName = m.group(1);
-                // extract current variable value
-                String replacement = "";
-                if (System.getenv(variableName) != null) {
-                    replacement = System.getenv(variableName);
-                }
-
-                final Pattern specificVariablePattern = Pattern
-                        .compile("\\$\\{" + variableName + "\\}");
-
-                final Matcher replaceMatcher = specificVariablePattern
-                        .matcher(value);
-                value = replaceMatcher.replaceAll(replacement);
+        // expand variables in value, including variables in the replacements
+        Matcher m = VARIABLE_PATTERN.matcher(value);
+        while (m.find()) {
+            final String variableName = m.group(1);
+            // extract current variable value
+            String replacement = System.getenv(variableName);
+            if (replacement == null) {
+                replacement = "";
             }
+            // literal replacement, the value may contain '$' or '\'
+            value = value.replace("${" + variableName + "}", replacement);
+            m = VARIABLE_PATTERN.matcher(value);
         }
 
         return value;
@@ -483,6 +747,22 @@ public class LocalToolExecutor implements IToolExecutor {
                 pluginConfiguration, m_workingDirectory);
     }
 
+    /**
+     * Replaces the generated command line elements by their current string
+     * representation. Afterwards the node configuration can be changed (e.g.,
+     * to prepare further executions of the same node) without affecting the
+     * command executed by this executor.
+     */
+    public void freezeCommands() {
+        List<CommandLineElement> frozen = new ArrayList<CommandLineElement>(
+                m_commands.size());
+        for (CommandLineElement element : m_commands) {
+            frozen.add(new CommandLineFixedString(element
+                    .getStringRepresentation()));
+        }
+        m_commands = frozen;
+    }
+
     /**
      * Tries to find the needed tool by searching in the
      * PluginPreferenceToolLocator and the plug-in package.
@@ -509,7 +789,28 @@ public class LocalToolExecutor implements IToolExecutor {
 
     @Override
     public LinkedList<String> getToolErrorOutput() {
-        return m_stdErr;
+        LinkedList<String> stdErr = m_stdErr;
+        return stdErr != null ? stdErr : m_stdErrLog.getRetainedLines();
+    }
+
+    /**
+     * Gives access to the stdout of the last execution, including the number
+     * of lines that did not fit into memory.
+     * 
+     * @return The output store.
+     */
+    public ToolOutputLog getToolOutputLog() {
+        return m_stdOutLog;
+    }
+
+    /**
+     * Gives access to the stderr of the last execution, including the number
+     * of lines that did not fit into memory.
+     * 
+     * @return The output store.
+     */
+    public ToolOutputLog getToolErrorOutputLog() {
+        return m_stdErrLog;
     }
     
     public File getExecutable() {
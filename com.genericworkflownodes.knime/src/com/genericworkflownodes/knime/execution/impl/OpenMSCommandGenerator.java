@@ -27,7 +27,7 @@ import com.genericworkflownodes.knime.commandline.impl.CommandLineCTDFile;
 import com.genericworkflownodes.knime.commandline.impl.CommandLineFixedString;
 import com.genericworkflownodes.knime.config.INodeConfiguration;
 import com.genericworkflownodes.knime.config.NodeConfiguration;
-import com.genericworkflownodes.knime.config.writer.CTDConfigurationWriter;
+import com.genericworkflownodes.knime.config.writer.CTDTemplateWriter;
 import com.genericworkflownodes.knime.custom.config.IPluginConfiguration;
 import com.genericworkflownodes.knime.execution.ICommandGenerator;
 
@@ -41,7 +41,7 @@ public class OpenMSCommandGenerator implements ICommandGenerator {
     /**
      * The command line switch needed to provide a ini file.
      */
-    private static final String INI_SWITCH = "-ini";
+    protected static final String INI_SWITCH = "-ini";
     /**
      * The name of the generated ini file.
      */
@@ -79,8 +79,7 @@ public class OpenMSCommandGenerator implements ICommandGenerator {
     private File createINIFile(INodeConfiguration nodeConfiguration,
             File workingDirectory) throws Exception {
         File iniFile = new File(workingDirectory, INI_FILE_NAME);
-        CTDConfigurationWriter writer = new CTDConfigurationWriter(iniFile);
-        writer.write(nodeConfiguration);
+        CTDTemplateWriter.write(nodeConfiguration, iniFile);
         return iniFile;
     }
 }
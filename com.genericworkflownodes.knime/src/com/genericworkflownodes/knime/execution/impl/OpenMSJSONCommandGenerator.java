@@ -0,0 +1,72 @@
+package com.genericworkflownodes.knime.execution.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.genericworkflownodes.knime.commandline.CommandLineElement;
+import com.genericworkflownodes.knime.commandline.impl.CommandLineCTDFile;
+import com.genericworkflownodes.knime.commandline.impl.CommandLineFixedString;
+import com.genericworkflownodes.knime.config.INodeConfiguration;
+import com.genericworkflownodes.knime.config.writer.JSONParameterFileWriter;
+import com.genericworkflownodes.knime.custom.config.IPluginConfiguration;
+
+/**
+ * Implements the OpenMS specific generation of a command line for tools that
+ * accept JSON parameter files, which only contain the parameters that differ
+ * from the defaults.
+ *
+ * The plugin property {@value #PARAMETER_FILE_FORMAT} selects the format of
+ * the parameter file: {@value #FORMAT_JSON} (the default) or
+ * {@value #FORMAT_XML} for the INI files written by the
+ * {@link OpenMSCommandGenerator}, e.g., for older releases of a tool.
+ */
+public class OpenMSJSONCommandGenerator extends OpenMSCommandGenerator {
+
+    /**
+     * The plugin property selecting the format of the parameter file.
+     */
+    public static final String PARAMETER_FILE_FORMAT = "parameterFileFormat";
+
+    /**
+     * The value of {@value #PARAMETER_FILE_FORMAT} for JSON parameter files.
+     */
+    public static final String FORMAT_JSON = "json";
+
+    /**
+     * The value of {@value #PARAMETER_FILE_FORMAT} for XML INI files.
+     */
+    public static final String FORMAT_XML = "xml";
+
+    /**
+     * The name of the generated JSON file.
+     */
+    private static final String JSON_FILE_NAME = "params.json";
+
+    @Override
+    public List<CommandLineElement> generateCommands(
+            INodeConfiguration nodeConfiguration,
+            IPluginConfiguration pluginConfiguration, File workingDirectory)
+            throws Exception {
+        String format = pluginConfiguration.getPluginProperties().getProperty(
+                PARAMETER_FILE_FORMAT, FORMAT_JSON).trim();
+        if (FORMAT_XML.equalsIgnoreCase(format)) {
+            return super.generateCommands(nodeConfiguration,
+                    pluginConfiguration, workingDirectory);
+        }
+        if (!FORMAT_JSON.equalsIgnoreCase(format)) {
+            throw new Exception(String.format(
+                    "Unknown parameter file format '%s', expected '%s' or '%s'.",
+                    format, FORMAT_JSON, FORMAT_XML));
+        }
+
+        File jsonFile = new File(workingDirectory, JSON_FILE_NAME);
+        JSONParameterFileWriter.write(nodeConfiguration, jsonFile);
+
+        List<CommandLineElement> commands = new ArrayList<CommandLineElement>();
+        commands.add(new CommandLineFixedString(INI_SWITCH));
+        commands.add(new CommandLineCTDFile(jsonFile));
+
+        return commands;
+    }
+}
@@ -0,0 +1,234 @@
+/**
+ * Copyright (c) 2024, GKN Team.
+ *
+ * This file is part of GenericKnimeNodes.
+ * 
+ * GenericKnimeNodes is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.genericworkflownodes.knime.execution.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Reads the stdout or stderr pipe of a running process and hands the decoded
+ * lines to a {@link LineBatchListener}.
+ *
+ * The stream is consumed in chunks: every chunk is decoded into a char buffer
+ * that is reused for the whole lifetime of the process, split into lines and
+ * delivered as one batch. Listeners are therefore called once per chunk
+ * instead of once per line. Lines are terminated by '\n', '\r' or "\r\n" (the
+ * same rules as {@link java.io.BufferedReader#readLine()}).
+ *
+ * The reader runs until the end of the stream is reached, i.e., until the
+ * process (and every child that inherited the pipe) closed it.
+ */
+public class ProcessOutputReader implements Runnable {
+
+    /**
+     * Receives the lines read from the process.
+     */
+    public interface LineBatchListener {
+
+        /**
+         * Called with the complete lines decoded from one chunk of output.
+         *
+         * @param lines
+         *            The lines without line terminators. The list is reused by
+         *            the reader after this method returns, so implementations
+         *            have to copy the lines they want to keep.
+         */
+        void linesRead(List<String> lines);
+    }
+
+    private static final NodeLogger LOGGER = NodeLogger
+            .getLogger(ProcessOutputReader.class);
+
+    /**
+     * Size of the byte and char buffers.
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    private final InputStream m_is;
+
+    private final LineBatchListener m_listener;
+
+    private final CharsetDecoder m_decoder;
+
+    private final byte[] m_bytes;
+
+    private final ByteBuffer m_byteBuffer;
+
+    private final CharBuffer m_charBuffer;
+
+    /**
+     * The not yet terminated line of the last chunk.
+     */
+    private final StringBuilder m_pendingLine = new StringBuilder();
+
+    /**
+     * The lines of the current chunk.
+     */
+    private final List<String> m_batch = new ArrayList<String>();
+
+    /**
+     * Set if the last char was a '\r' so that a directly following '\n' does
+     * not produce an empty line.
+     */
+    private boolean m_skipLineFeed;
+
+    /**
+     * C'tor using the platform charset to decode the output.
+     *
+     * @param is
+     *            The stream to read.
+     * @param listener
+     *            The listener receiving the lines.
+     */
+    public ProcessOutputReader(final InputStream is,
+            final LineBatchListener listener) {
+        this(is, listener, Charset.defaultCharset());
+    }
+
+    /**
+     * C'tor.
+     *
+     * @param is
+     *            The stream to read.
+     * @param listener
+     *            The listener receiving the lines.
+     * @param charset
+     *            The charset used by the process.
+     */
+    public ProcessOutputReader(final InputStream is,
+            final LineBatchListener listener, final Charset charset) {
+        this(is, listener, charset, CHUNK_SIZE);
+    }
+
+    /**
+     * C'tor with a custom chunk size.
+     *
+     * @param is
+     *            The stream to read.
+     * @param listener
+     *            The listener receiving the lines.
+     * @param charset
+     *            The charset used by the process.
+     * @param chunkSize
+     *            The size of the byte and char buffers, at least the maximal
+     *            number of bytes of one character.
+     */
+    ProcessOutputReader(final InputStream is, final LineBatchListener listener,
+            final Charset charset, final int chunkSize) {
+        m_is = is;
+        m_listener = listener;
+        m_bytes = new byte[chunkSize];
+        m_byteBuffer = ByteBuffer.wrap(m_bytes);
+        m_charBuffer = CharBuffer.allocate(chunkSize);
+        m_decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public void run() {
+        try {
+            // number of undecoded bytes carried over from the last chunk, e.g.,
+            // the first half of a multi-byte character
+            int carry = 0;
+            int read;
+            while ((read = m_is.read(m_bytes, carry, m_bytes.length - carry)) != -1) {
+                m_byteBuffer.position(0);
+                m_byteBuffer.limit(carry + read);
+                decode(false);
+                carry = m_byteBuffer.remaining();
+                m_byteBuffer.compact();
+                deliver();
+            }
+            m_byteBuffer.position(0);
+            m_byteBuffer.limit(carry);
+            decode(true);
+            m_decoder.flush(m_charBuffer);
+            splitLines();
+            if (m_pendingLine.length() > 0) {
+                m_batch.add(m_pendingLine.toString());
+                m_pendingLine.setLength(0);
+            }
+            deliver();
+        } catch (final IOException e) {
+            // the stream is closed when the process gets killed
+            LOGGER.debug("Stopped reading process output: " + e.getMessage());
+        } finally {
+            try {
+                m_is.close();
+            } catch (final IOException e) {
+                // then don't close it..
+            }
+        }
+    }
+
+    private void decode(final boolean endOfInput) {
+        CoderResult result;
+        do {
+            result = m_decoder.decode(m_byteBuffer, m_charBuffer, endOfInput);
+            splitLines();
+        } while (result.isOverflow());
+    }
+
+    /**
+     * Moves the decoded chars into the current batch.
+     */
+    private void splitLines() {
+        m_charBuffer.flip();
+        final char[] chars = m_charBuffer.array();
+        final int end = m_charBuffer.limit();
+        int lineStart = 0;
+        for (int i = 0; i < end; ++i) {
+            final char c = chars[i];
+            if (c == '\n' || c == '\r') {
+                if (c == '\n' && m_skipLineFeed) {
+                    m_skipLineFeed = false;
+                    lineStart = i + 1;
+                    continue;
+                }
+                m_pendingLine.append(chars, lineStart, i - lineStart);
+                m_batch.add(m_pendingLine.toString());
+                m_pendingLine.setLength(0);
+                m_skipLineFeed = c == '\r';
+                lineStart = i + 1;
+            } else {
+                m_skipLineFeed = false;
+            }
+        }
+        m_pendingLine.append(chars, lineStart, end - lineStart);
+        m_charBuffer.clear();
+    }
+
+    private void deliver() {
+        if (!m_batch.isEmpty()) {
+            m_listener.linesRead(m_batch);
+            m_batch.clear();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.genericworkflownodes.knime.execution.impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.NodeLogger;
+
+import com.genericworkflownodes.knime.execution.ToolExecutionMetrics;
+
+/**
+ * Periodically samples the resource usage of a process and all its
+ * descendants.
+ *
+ * On Linux the values are read from <code>/proc/&lt;pid&gt;/stat</code>,
+ * <code>status</code> and <code>io</code>. The last sample of every process is
+ * kept, so children that exited between two samples still count with the
+ * values seen last. On other platforms only the CPU time reported by
+ * {@link ProcessHandle.Info} is available. All samplers share a single daemon
+ * thread.
+ */
+public class ProcessTreeSampler {
+
+    private static final NodeLogger LOGGER = NodeLogger
+            .getLogger(ProcessTreeSampler.class);
+
+    /**
+     * The sampling interval.
+     */
+    private static final long INTERVAL_MS = 200;
+
+    /**
+     * Clock ticks per second used in <code>/proc/&lt;pid&gt;/stat</code>. This
+     * is 100 on all common Linux configurations.
+     */
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+    private static final Path PROC = Paths.get("/proc");
+
+    private static final ScheduledExecutorService SAMPLER = Executors
+            .newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "GKN-ProcessSampler");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final ProcessHandle m_root;
+
+    private final boolean m_hasProc;
+
+    /**
+     * The last sample per pid.
+     */
+    private final Map<Long, Sample> m_samples = new HashMap<Long, Sample>();
+
+    private final long m_startNanos;
+
+    private long m_peakRssBytes = -1;
+
+    private ScheduledFuture<?> m_task;
+
+    /**
+     * Resource usage of a single process.
+     */
+    private static final class Sample {
+        private long m_userMillis = -1;
+        private long m_systemMillis = -1;
+        private long m_cpuMillis = -1;
+        private long m_rssBytes = -1;
+        private long m_hwmBytes = -1;
+        private long m_readBytes = -1;
+        private long m_writtenBytes = -1;
+    }
+
+    private ProcessTreeSampler(final ProcessHandle root) {
+        m_root = root;
+        m_hasProc = Files.isReadable(PROC.resolve("self").resolve("stat"));
+        m_startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts sampling the given process and its descendants.
+     *
+     * @param process
+     *            The started process.
+     * @return The sampler, which has to be stopped when the process
+     *         terminated.
+     */
+    public static ProcessTreeSampler start(final Process process) {
+        ProcessTreeSampler sampler = new ProcessTreeSampler(process.toHandle());
+        sampler.sample();
+        sampler.m_task = SAMPLER.scheduleWithFixedDelay(sampler::sample,
+                INTERVAL_MS, INTERVAL_MS, TimeUnit.MILLISECONDS);
+        return sampler;
+    }
+
+    /**
+     * Stops sampling and stores the collected values.
+     *
+     * @param metrics
+     *            The metrics to fill.
+     */
+    public void stop(final ToolExecutionMetrics metrics) {
+        m_task.cancel(false);
+        long wallNanos = System.nanoTime() - m_startNanos;
+        synchronized (this) {
+            long user = 0;
+            long system = 0;
+            long read = 0;
+            long written = 0;
+            long hwm = -1;
+            boolean hasCpu = false;
+            boolean hasIo = false;
+            for (Sample sample : m_samples.values()) {
+                if (sample.m_userMillis >= 0) {
+                    user += sample.m_userMillis;
+                    system += sample.m_systemMillis;
+                    hasCpu = true;
+                } else if (sample.m_cpuMillis >= 0) {
+                    // no split available, count everything as user time
+                    user += sample.m_cpuMillis;
+                    hasCpu = true;
+                }
+                if (sample.m_readBytes >= 0) {
+                    read += sample.m_readBytes;
+                    written += sample.m_writtenBytes;
+                    hasIo = true;
+                }
+                hwm = Math.max(hwm, sample.m_hwmBytes);
+            }
+            metrics.setProcessMetrics(wallNanos, hasCpu ? user : -1,
+                    hasCpu && m_hasProc ? system : -1,
+                    Math.max(m_peakRssBytes, hwm), hasIo ? read : -1,
+                    hasIo ? written : -1);
+        }
+    }
+
+    /**
+     * Takes a sample of the whole process tree.
+     */
+    private synchronized void sample() {
+        try {
+            long rss = 0;
+            boolean hasRss = false;
+            List<ProcessHandle> tree = new ArrayList<ProcessHandle>();
+            tree.add(m_root);
+            m_root.descendants().forEach(tree::add);
+            for (ProcessHandle handle : tree) {
+                Sample sample = m_samples.get(handle.pid());
+                if (sample == null) {
+                    sample = new Sample();
+                }
+                if (!(m_hasProc ? sampleProc(handle.pid(), sample)
+                        : sampleHandle(handle, sample))) {
+                    continue;
+                }
+                m_samples.put(handle.pid(), sample);
+                if (sample.m_rssBytes >= 0) {
+                    rss += sample.m_rssBytes;
+                    hasRss = true;
+                }
+            }
+            if (hasRss) {
+                m_peakRssBytes = Math.max(m_peakRssBytes, rss);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not sample process " + m_root.pid(), e);
+        }
+    }
+
+    /**
+     * Reads the values of a process from /proc.
+     *
+     * @return <code>false</code> if the process is gone.
+     */
+    private static boolean sampleProc(final long pid, final Sample sample) {
+        Path dir = PROC.resolve(Long.toString(pid));
+        String stat = read(dir.resolve("stat"));
+        if (stat == null) {
+            return false;
+        }
+        // the command name may contain spaces, the fields start after it
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        if (fields.length > 12) {
+            sample.m_userMillis = ticksToMillis(fields[11]);
+            sample.m_systemMillis = ticksToMillis(fields[12]);
+        }
+        String status = read(dir.resolve("status"));
+        if (status != null) {
+            long rss = kiloBytes(status, "VmRSS:");
+            // a zombie has no memory left, keep the last value
+            if (rss >= 0) {
+                sample.m_rssBytes = rss;
+            }
+            sample.m_hwmBytes = Math.max(sample.m_hwmBytes,
+                    kiloBytes(status, "VmHWM:"));
+        }
+        // only readable for processes of the same user
+        String io = read(dir.resolve("io"));
+        if (io != null) {
+            sample.m_readBytes = value(io, "rchar:");
+            sample.m_writtenBytes = value(io, "wchar:");
+        }
+        return true;
+    }
+
+    /**
+     * Reads the CPU time of a process from its handle.
+     *
+     * @return <code>false</code> if the process is gone.
+     */
+    private static boolean sampleHandle(final ProcessHandle handle,
+            final Sample sample) {
+        Optional<Duration> cpu = handle.info().totalCpuDuration();
+        if (!cpu.isPresent()) {
+            return handle.isAlive();
+        }
+        sample.m_cpuMillis = cpu.get().toMillis();
+        return true;
+    }
+
+    private static long ticksToMillis(final String ticks) {
+        try {
+            return Long.parseLong(ticks) * 1000 / CLOCK_TICKS_PER_SECOND;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long kiloBytes(final String content, final String key) {
+        long value = value(content, key);
+        return value < 0 ? -1 : value * 1024;
+    }
+
+    /**
+     * Extracts the first number of the line starting with the given key.
+     */
+    private static long value(final String content, final String key) {
+        int start = content.startsWith(key) ? 0 : content.indexOf('\n' + key) + 1;
+        if (start < 0 || !content.startsWith(key, start)) {
+            return -1;
+        }
+        int end = content.indexOf('\n', start);
+        String[] parts = content
+                .substring(start + key.length(),
+                        end < 0 ? content.length() : end).trim().split("\\s+");
+        try {
+            return Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String read(final Path file) {
+        try {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package com.genericworkflownodes.knime.execution.impl;
 
-import java.io.BufferedReader;
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.LinkedList;
+import java.util.List;
+
+import com.genericworkflownodes.knime.execution.ToolOutputLog;
 
 public class StreamGobbler extends Thread{
     /**
@@ -26,44 +26,36 @@ public class StreamGobbler extends Thread{
         final InputStream m_is;
 
         /**
-         * The string where the extracted messages are stored.
+         * The bounded store where the extracted messages are stored.
          */
-        final LinkedList<String> m_buffer;
+        final ToolOutputLog m_buffer;
 
         StreamGobbler(final InputStream is) {
+            this(is, LocalToolExecutor.createOutputLog());
+        }
+
+        StreamGobbler(final InputStream is, final ToolOutputLog buffer) {
             m_is = is;
-            m_buffer = new LinkedList<String>();
+            m_buffer = buffer;
         }
 
         @Override
         public void run() {
-            final InputStreamReader isr = new InputStreamReader(m_is);
-            final BufferedReader br = new BufferedReader(isr);
-
-            try {
-                String line = null;
-                while ((line = br.readLine()) != null) {
-                    synchronized (m_buffer) {
-                        m_buffer.add(line);
-                    }
-                }
-            } catch (final IOException ioe) {
-                //LOGGER.error("LocalToolExecutor: Error in stream gobbler.",ioe);
-            } finally {
-                try {
-                    br.close();
-                } catch (final IOException ioe) {
-                    // then don't close it..
-                }
-            }
+            new ProcessOutputReader(m_is,
+                    new ProcessOutputReader.LineBatchListener() {
+                        @Override
+                        public void linesRead(final List<String> lines) {
+                            m_buffer.addLines(lines);
+                        }
+                    }).run();
         }
 
         /**
-         * Gives access to the gobbled string.
+         * Gives access to the gobbled lines that were kept in memory.
          * 
          * @return
          */
         public LinkedList<String> getContent() {
-            return m_buffer;
+            return m_buffer.getRetainedLines();
         }
 }
@@ -0,0 +1,71 @@
+package com.genericworkflownodes.knime.execution.impl;
+
+import java.lang.reflect.Constructor;
+
+import org.knime.base.node.util.exttool.ViewUpdateNotice;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Creates the {@link ViewUpdateNotice}s that append new tool output to the
+ * stdout/stderr views of the node.
+ *
+ * HACK since org.knime.base.node.util.exttool.ViewUpdateNotice.ViewType is a
+ * private enum. The reflective lookup is done once per class loader instead
+ * of once per listener or line.
+ */
+final class ViewUpdateNoticeFactory {
+
+    private static final NodeLogger LOGGER = NodeLogger
+            .getLogger(ViewUpdateNoticeFactory.class);
+
+    private static final Constructor<ViewUpdateNotice> CTOR;
+
+    private static final Object STDOUT_TYPE;
+
+    private static final Object STDERR_TYPE;
+
+    static {
+        Constructor<ViewUpdateNotice> ctor = null;
+        Object[] enumElements = new Object[2];
+        try {
+            Class<?> enumClass = Class
+                    .forName("org.knime.base.node.util.exttool.ViewUpdateNotice$ViewType");
+            enumElements = enumClass.getEnumConstants();
+            ctor = ViewUpdateNotice.class.getDeclaredConstructor(enumClass);
+            ctor.setAccessible(true);
+        } catch (final ReflectiveOperationException | SecurityException e) {
+            LOGGER.warn("Live updates of the tool output views are not available.", e);
+        }
+        CTOR = ctor;
+        STDOUT_TYPE = enumElements[0];
+        STDERR_TYPE = enumElements[1];
+    }
+
+    private ViewUpdateNoticeFactory() {
+    }
+
+    /**
+     * Creates a notice appending the given text to one of the output views.
+     *
+     * @param stdErr
+     *            True if the text belongs to the stderr view, false for the
+     *            stdout view.
+     * @param text
+     *            The new text. Multiple lines have to be joined with '\n'.
+     * @return The notice or null if notices can not be created.
+     */
+    static ViewUpdateNotice create(final boolean stdErr, final String text) {
+        if (CTOR == null) {
+            return null;
+        }
+        try {
+            ViewUpdateNotice notice = CTOR.newInstance(stdErr ? STDERR_TYPE
+                    : STDOUT_TYPE);
+            notice.setNewLine(text);
+            return notice;
+        } catch (final ReflectiveOperationException | IllegalArgumentException e) {
+            LOGGER.debug("Could not create view update notice.", e);
+            return null;
+        }
+    }
+}
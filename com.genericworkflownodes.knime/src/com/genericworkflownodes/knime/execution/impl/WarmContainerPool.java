@@ -0,0 +1,421 @@
+package com.genericworkflownodes.knime.execution.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Keeps one long-lived Docker container per image and mount root, so tools
+ * can be run through <code>docker exec</code> instead of starting a new
+ * container for every execution.
+ *
+ * The mount root is bind mounted at the same path inside the container, so
+ * files below it have the same path on the host and in the container. The
+ * containers are named after their image and mount root, which allows to
+ * adopt a container left over by an earlier session. They are removed when
+ * the plug-in stops.
+ *
+ * A container is shared by all executions that {@link #acquire acquired} it
+ * until they {@link #release(String) release} it. A canceled execution only
+ * kills its own processes in the container, see
+ * {@link #killExecution(String, String)}. If that fails, the container is
+ * retired: the next execution gets a new container and the retired one is
+ * removed once the last execution running in it released it.
+ *
+ * The pool is only locked to look up the containers. Docker commands run
+ * outside of that lock, starting a container (which may pull its image) only
+ * blocks the executions waiting for the same container.
+ */
+public final class WarmContainerPool {
+
+    private static final NodeLogger LOGGER = NodeLogger
+            .getLogger(WarmContainerPool.class);
+
+    /**
+     * Prefix of the names of all warm containers.
+     */
+    public static final String NAME_PREFIX = "gkn-warm-";
+
+    private static final WarmContainerPool INSTANCE = new WarmContainerPool();
+
+    /**
+     * Kills the process tree below the process id stored in the file passed
+     * as <code>$0</code>. Every process is stopped before its children are
+     * collected, so it cannot start new ones, and killed afterwards. The
+     * children are read from <code>/proc</code>, which does not require any
+     * tools in the image.
+     */
+    static final String KILL_TREE_SCRIPT = "kt() { kill -STOP \"$1\" 2>/dev/null; "
+            + "for c in $(cat /proc/\"$1\"/task/*/children 2>/dev/null); do kt \"$c\"; done; "
+            + "kill -KILL \"$1\" 2>/dev/null; }; "
+            + "p=$(cat \"$0\") && [ -n \"$p\" ] && kt \"$p\"";
+
+    /**
+     * The current containers started or adopted in this session by the name
+     * derived from image and mount root.
+     */
+    private final Map<String, Container> m_containers = new HashMap<String, Container>();
+
+    /**
+     * The retired containers that are still used by executions, by name.
+     */
+    private final Map<String, Container> m_retired = new HashMap<String, Container>();
+
+    /**
+     * The number of containers started per name derived from image and mount
+     * root, to name replacements of retired containers.
+     */
+    private final Map<String, Integer> m_generations = new HashMap<String, Integer>();
+
+    /**
+     * A container of the pool.
+     */
+    private static final class Container {
+        private final String m_name;
+        private final String m_docker;
+        private final Map<String, String> m_environment;
+
+        /**
+         * The number of executions using the container.
+         */
+        private int m_holders;
+
+        /**
+         * Held while checking whether the container runs and starting it.
+         */
+        private final Object m_startLock = new Object();
+
+        private Container(final String name, final String docker,
+                final Map<String, String> environment) {
+            m_name = name;
+            m_docker = docker;
+            m_environment = environment;
+        }
+    }
+
+    /**
+     * Creates a pool with its own set of containers, e.g., for tests.
+     */
+    WarmContainerPool() {
+    }
+
+    /**
+     * @return The pool shared by all Docker executions.
+     */
+    public static WarmContainerPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the name of the warm container for the given image and mount
+     * root.
+     *
+     * @param image
+     *            The Docker image.
+     * @param mountRoot
+     *            The host directory shared with the container, as Unix path.
+     * @return The container name.
+     */
+    public static String getContainerName(final String image,
+            final String mountRoot) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest((image + '\0' + mountRoot)
+                    .getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(NAME_PREFIX);
+            for (int i = 0; i < 8; i++) {
+                name.append(String.format("%02x", digest[i]));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Acquires the warm container for the given image and mount root and
+     * starts it if necessary. Every call has to be followed by a call to
+     * {@link #release(String)} with the returned name once the execution
+     * finished.
+     *
+     * @param docker
+     *            The docker command.
+     * @param image
+     *            The Docker image.
+     * @param mountRoot
+     *            The host directory shared with the container, as Unix path.
+     * @param environment
+     *            The environment of the docker command, e.g., the variables
+     *            set by docker-machine.
+     * @return The name of the running container. This is
+     *         {@link #getContainerName(String, String)} unless the container
+     *         was replaced in this session.
+     * @throws IOException
+     *             If the container could not be started.
+     */
+    public String acquire(final String docker, final String image,
+            final String mountRoot, final Map<String, String> environment)
+            throws IOException {
+        String baseName = getContainerName(image, mountRoot);
+        Container container;
+        synchronized (this) {
+            container = m_containers.get(baseName);
+            if (container == null) {
+                Integer generation = m_generations.get(baseName);
+                String name = generation == null ? baseName : baseName + "-"
+                        + generation;
+                container = new Container(name, docker,
+                        new HashMap<String, String>(environment));
+                m_containers.put(baseName, container);
+            }
+            // held while starting, so it is not removed in between
+            ++container.m_holders;
+        }
+        try {
+            synchronized (container.m_startLock) {
+                if (!isRunning(container)) {
+                    // remove a stopped container of the same name
+                    runQuietly(container, "rm", "-f", container.m_name);
+                    LOGGER.info("Starting warm container " + container.m_name
+                            + " for image " + image);
+                    run(container, "run", "-d", "--name", container.m_name,
+                            "-v", mountRoot + ":" + mountRoot, "--entrypoint",
+                            "tail", image, "-f", "/dev/null");
+                }
+            }
+        } catch (IOException e) {
+            release(container.m_name);
+            throw e;
+        }
+        return container.m_name;
+    }
+
+    /**
+     * Releases a container acquired by
+     * {@link #acquire(String, String, String, Map)}. A retired container is
+     * removed when its last execution released it.
+     *
+     * @param name
+     *            The name of the container.
+     */
+    public void release(final String name) {
+        Container remove = null;
+        synchronized (this) {
+            Container container = findContainer(name);
+            if (container == null || container.m_holders == 0) {
+                return;
+            }
+            --container.m_holders;
+            if (container.m_holders == 0
+                    && m_retired.remove(name) != null) {
+                remove = container;
+            }
+        }
+        if (remove != null) {
+            LOGGER.debug("Removing retired warm container " + name);
+            runQuietly(remove, "rm", "-f", name);
+        }
+    }
+
+    /**
+     * Kills the processes of a canceled execution in the given container. The
+     * other executions in the container keep running. If the processes
+     * cannot be killed, the container is retired.
+     *
+     * @param name
+     *            The name of the container.
+     * @param pidFile
+     *            The file, as path inside the container, holding the id of
+     *            the process the execution started in the container.
+     * @return Whether the processes were killed.
+     */
+    public boolean killExecution(final String name, final String pidFile) {
+        Container container;
+        synchronized (this) {
+            container = findContainer(name);
+        }
+        if (container == null) {
+            return false;
+        }
+        try {
+            run(container, "exec", name, "sh", "-c", KILL_TREE_SCRIPT,
+                    pidFile);
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to kill the canceled tool in warm container "
+                    + name + ", retiring the container: " + e.getMessage());
+            retire(name);
+            return false;
+        }
+    }
+
+    /**
+     * Retires a container: the next execution gets a new container and this
+     * one is removed once the last execution running in it released it.
+     *
+     * @param name
+     *            The name of the container.
+     */
+    public void retire(final String name) {
+        Container remove = null;
+        synchronized (this) {
+            for (Map.Entry<String, Container> entry : m_containers.entrySet()) {
+                if (entry.getValue().m_name.equals(name)) {
+                    String baseName = entry.getKey();
+                    m_containers.remove(baseName);
+                    Integer generation = m_generations.get(baseName);
+                    m_generations.put(baseName, generation == null ? 1
+                            : generation + 1);
+                    if (entry.getValue().m_holders > 0) {
+                        m_retired.put(name, entry.getValue());
+                    } else {
+                        remove = entry.getValue();
+                    }
+                    break;
+                }
+            }
+        }
+        if (remove != null) {
+            LOGGER.debug("Removing warm container " + name);
+            runQuietly(remove, "rm", "-f", name);
+        }
+    }
+
+    /**
+     * Removes a container from the pool regardless of the executions running
+     * in it, e.g., when the plug-in stops.
+     *
+     * @param name
+     *            The name of the container.
+     */
+    public void discard(final String name) {
+        Container container;
+        synchronized (this) {
+            container = m_retired.remove(name);
+            if (container == null) {
+                for (Map.Entry<String, Container> entry : m_containers
+                        .entrySet()) {
+                    if (entry.getValue().m_name.equals(name)) {
+                        container = m_containers.remove(entry.getKey());
+                        break;
+                    }
+                }
+            }
+        }
+        if (container != null) {
+            LOGGER.debug("Removing warm container " + name);
+            runQuietly(container, "rm", "-f", name);
+        }
+    }
+
+    private Container findContainer(final String name) {
+        Container container = m_retired.get(name);
+        if (container != null) {
+            return container;
+        }
+        for (Container c : m_containers.values()) {
+            if (c.m_name.equals(name)) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes all containers of the pool.
+     */
+    public void shutdown() {
+        List<String> names = new ArrayList<String>();
+        synchronized (this) {
+            for (Container container : m_containers.values()) {
+                names.add(container.m_name);
+            }
+            names.addAll(m_retired.keySet());
+        }
+        for (String name : names) {
+            discard(name);
+        }
+    }
+
+    /**
+     * @return The number of containers in the pool, including retired ones
+     *         still in use.
+     */
+    public synchronized int size() {
+        return m_containers.size() + m_retired.size();
+    }
+
+    private static boolean isRunning(final Container container) {
+        try {
+            return "true".equals(run(container, "inspect", "-f",
+                    "{{.State.Running}}", container.m_name).trim());
+        } catch (IOException e) {
+            // no such container
+            return false;
+        }
+    }
+
+    private static void runQuietly(final Container container,
+            final String... arguments) {
+        try {
+            run(container, arguments);
+        } catch (IOException e) {
+            LOGGER.debug(e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the docker command with the given arguments.
+     *
+     * @return The output of the command.
+     * @throws IOException
+     *             If the command failed.
+     */
+    private static String run(final Container container,
+            final String... arguments) throws IOException {
+        List<String> command = new ArrayList<String>();
+        command.add(container.m_docker);
+        command.addAll(Arrays.asList(arguments));
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.environment().putAll(container.m_environment);
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+        process.getOutputStream().close();
+        String output = readAll(process.getInputStream());
+        try {
+            int returnCode = process.waitFor();
+            if (returnCode != 0) {
+                throw new IOException("docker " + arguments[0]
+                        + " failed with return code " + returnCode + ": "
+                        + output.trim());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroy();
+            throw new IOException("Interrupted while running docker "
+                    + arguments[0], e);
+        }
+        return output;
+    }
+
+    private static String readAll(final InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
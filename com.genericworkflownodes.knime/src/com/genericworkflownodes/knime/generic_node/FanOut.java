@@ -0,0 +1,236 @@
+package com.genericworkflownodes.knime.generic_node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.util.ThreadUtils;
+
+import com.genericworkflownodes.knime.execution.IToolExecutor;
+
+/**
+ * Running a tool once per file received at the single file input ports that
+ * got a list of files, see {@link GenericKnimeNodeModel}. The runs are
+ * identified by the index of their file in the input lists.
+ */
+final class FanOut {
+
+    /**
+     * Executes a prepared run.
+     */
+    interface Run {
+
+        /**
+         * @param run
+         *            The index of the run.
+         * @return The return code of the tool.
+         * @throws Exception
+         *             If the run could not be executed.
+         */
+        int execute(int run) throws Exception;
+    }
+
+    /**
+     * The threads waiting for the runs, shared by all nodes. The number of
+     * concurrent runs of a single node is limited separately, see
+     * {@link #execute(List, int, Integer[], int, Run, ExecutionMonitor)}.
+     */
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private FanOut() {
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        int threads = Math.max(Runtime.getRuntime().availableProcessors(), 2);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+                    Thread thread = new Thread(r, "GKN-FanOut");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns the number of runs for the given lists, which are zipped.
+     *
+     * @param listSizes
+     *            The number of files received at each single file port that
+     *            got a list.
+     * @return The common length of the lists, 0 if there are none.
+     * @throws InvalidSettingsException
+     *             If the lists have different lengths.
+     */
+    static int getNumberOfRuns(final List<Integer> listSizes)
+            throws InvalidSettingsException {
+        int runs = 0;
+        for (int n : listSizes) {
+            if (runs != 0 && runs != n) {
+                throw new InvalidSettingsException(
+                        "The single file input ports received lists of different lengths ("
+                                + runs + " and " + n + " files).");
+            }
+            runs = n;
+        }
+        return runs;
+    }
+
+    /**
+     * Returns the base name of an output file of a run that does not clash
+     * with the files of earlier runs at the same port, which happens if
+     * different input directories contain equal names.
+     *
+     * @param usedNames
+     *            The names used by the earlier runs at the port, receives the
+     *            returned name.
+     * @param basename
+     *            The base name derived from the input of the run.
+     * @param run
+     *            The index of the run.
+     * @return The base name, suffixed with <code>_&lt;run&gt;</code> (counted
+     *         from 1) on a clash.
+     */
+    static String getUniqueBaseName(final Set<String> usedNames,
+            final String basename, final int run) {
+        if (usedNames.add(basename)) {
+            return basename;
+        }
+        String unique = basename + "_" + (run + 1);
+        usedNames.add(unique);
+        return unique;
+    }
+
+    /**
+     * Executes the pending runs on the shared fan-out threads. At most
+     * <code>workers</code> runs are executed at the same time, each worker
+     * takes the next run once its previous run finished. Once a run failed,
+     * runs that did not start yet are skipped.
+     *
+     * @param pending
+     *            The indices of the runs to execute, in input order.
+     * @param runs
+     *            The total number of runs, including the ones that are not
+     *            pending.
+     * @param retcodes
+     *            Receives the return codes, null for skipped runs.
+     * @param workers
+     *            The maximal number of concurrent runs.
+     * @param run
+     *            Executes a single run.
+     * @param exec
+     *            The monitor receiving the progress.
+     * @throws Exception
+     *             If a run could not be executed, after all started runs
+     *             finished.
+     */
+    static void execute(final List<Integer> pending, final int runs,
+            final Integer[] retcodes, final int workers, final Run run,
+            final ExecutionMonitor exec) throws Exception {
+        if (pending.isEmpty()) {
+            return;
+        }
+        final AtomicBoolean failed = new AtomicBoolean(false);
+        final AtomicInteger finished = new AtomicInteger(runs - pending.size());
+        final AtomicInteger next = new AtomicInteger();
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(workers);
+        for (int w = 0; w < Math.min(workers, pending.size()); w++) {
+            futures.add(EXECUTOR.submit(ThreadUtils
+                    .callableWithContext(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            int k;
+                            while (!failed.get()
+                                    && (k = next.getAndIncrement()) < pending
+                                            .size()) {
+                                int r = pending.get(k);
+                                try {
+                                    retcodes[r] = run.execute(r);
+                                } catch (Exception e) {
+                                    failed.set(true);
+                                    throw e;
+                                }
+                                if (retcodes[r] != 0) {
+                                    failed.set(true);
+                                }
+                                int done = finished.incrementAndGet();
+                                exec.setProgress((double) done / runs,
+                                        "Finished run " + done + " of " + runs);
+                            }
+                            return null;
+                        }
+                    })));
+        }
+
+        // wait for all workers before reporting an error, so no tool is left
+        // running
+        Exception error = null;
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (error == null) {
+                    error = e.getCause() instanceof Exception ? (Exception) e
+                            .getCause() : e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Combines the output of the executed runs in input order, each headed by
+     * the number and name of its run. Skipped runs are left out.
+     *
+     * @param executors
+     *            The executors of all runs.
+     * @param runNames
+     *            The names of the input files of all runs.
+     * @param retcodes
+     *            The return codes of all runs, null for skipped runs.
+     * @param stdout
+     *            Receives the combined stdout.
+     * @param stderr
+     *            Receives the combined stderr.
+     * @return The index of the first failed run, -1 if all executed runs
+     *         succeeded.
+     */
+    static int collectOutput(final IToolExecutor[] executors,
+            final String[] runNames, final Integer[] retcodes,
+            final List<String> stdout, final List<String> stderr) {
+        final int runs = executors.length;
+        int failedRun = -1;
+        for (int r = 0; r < runs; r++) {
+            if (retcodes[r] == null) {
+                // skipped after another run failed
+                continue;
+            }
+            String header = "=== Run " + (r + 1) + " of " + runs + ": "
+                    + runNames[r] + " ===";
+            stdout.add(header);
+            stderr.add(header);
+            if (executors[r].getToolOutput() != null) {
+                stdout.addAll(executors[r].getToolOutput());
+            }
+            if (executors[r].getToolErrorOutput() != null) {
+                stderr.addAll(executors[r].getToolErrorOutput());
+            }
+            if (retcodes[r] != 0 && failedRun < 0) {
+                failedRun = r;
+            }
+        }
+        return failedRun;
+    }
+}
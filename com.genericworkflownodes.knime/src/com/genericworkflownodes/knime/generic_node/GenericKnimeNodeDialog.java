@@ -90,7 +90,7 @@ public class GenericKnimeNodeDialog extends NodeDialogPane {
                 continue;
             }
 
-            settings.addString(key, param.getStringRep());
+            GenericKnimeNodeModel.saveParameter(settings, key, param);
         }
 
         int[] selectedPorts = mtc.getSelectedTypes();
@@ -143,10 +143,8 @@ public class GenericKnimeNodeDialog extends NodeDialogPane {
                 continue;
             }
             
-            String value = null;
             try {
-                value = settings.getString(key);
-                param.fillFromString(value);
+                GenericKnimeNodeModel.loadParameter(settings, key, param);
             } catch (InvalidSettingsException e) {
                 errorsFound += "- Entry for " + key + " not found in settings.xml.\n";
             } catch (InvalidParameterValueException e) {
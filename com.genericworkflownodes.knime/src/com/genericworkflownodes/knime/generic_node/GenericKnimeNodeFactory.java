@@ -24,10 +24,11 @@ import java.util.LinkedList;
 import org.knime.core.node.NodeDialogPane;
 import org.knime.core.node.NodeFactory;
 import org.knime.core.node.NodeView;
+import org.osgi.framework.FrameworkUtil;
 
 import org.knime.base.node.util.exttool.*;
 import com.genericworkflownodes.knime.config.INodeConfiguration;
-import com.genericworkflownodes.knime.config.reader.CTDConfigurationReader;
+import com.genericworkflownodes.knime.config.reader.CTDConfigurationCache;
 
 /**
  * <code>NodeFactory</code> for the "GenericKnimeNode" Node.
@@ -44,7 +45,11 @@ public abstract class GenericKnimeNodeFactory extends
      * @throws Exception
      */
     protected INodeConfiguration getNodeConfiguration() throws Exception {
-        return new CTDConfigurationReader().read(getConfigAsStream());
+        try (InputStream in = getConfigAsStream()) {
+            return CTDConfigurationCache.getInstance().read(in,
+                    FrameworkUtil.getBundle(getClass()).getVersion()
+                            .toString());
+        }
     }
 
     /**
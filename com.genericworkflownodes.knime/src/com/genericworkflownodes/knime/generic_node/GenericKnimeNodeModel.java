@@ -21,17 +21,25 @@ package com.genericworkflownodes.knime.generic_node;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Observable;
+import java.util.Properties;
+import java.util.Set;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 
 import org.knime.base.node.util.exttool.ExtToolOutputNodeModel;
@@ -39,7 +47,9 @@ import org.knime.core.data.filestore.FileStore;
 import org.knime.core.data.uri.IURIPortObject;
 import org.knime.core.data.uri.URIContent;
 import org.knime.core.data.uri.URIPortObjectSpec;
+import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
@@ -61,15 +71,27 @@ import com.genericworkflownodes.knime.config.INodeConfiguration;
 import com.genericworkflownodes.knime.custom.config.IPluginConfiguration;
 import com.genericworkflownodes.knime.custom.config.NoBinaryAvailableException;
 import com.genericworkflownodes.knime.execution.AsynchronousToolExecutor;
+import com.genericworkflownodes.knime.execution.ExecutionWatchdog;
 import com.genericworkflownodes.knime.execution.ICommandGenerator;
 import com.genericworkflownodes.knime.execution.IToolExecutor;
+import com.genericworkflownodes.knime.execution.InputStagingCache;
+import com.genericworkflownodes.knime.execution.JobDirectoryService;
+import com.genericworkflownodes.knime.execution.ToolExecutionMetrics;
 import com.genericworkflownodes.knime.execution.ToolExecutorFactory;
+import com.genericworkflownodes.knime.execution.ToolResultCache;
+import com.genericworkflownodes.knime.execution.ToolSlotScheduler;
 import com.genericworkflownodes.knime.execution.UnknownCommandGeneratorException;
 import com.genericworkflownodes.knime.execution.UnknownToolExecutorException;
-import com.genericworkflownodes.knime.execution.impl.CancelMonitorThread;
+import com.genericworkflownodes.knime.execution.impl.LocalToolExecutor;
+import com.genericworkflownodes.knime.nodes.io.FileFingerprint;
+import com.genericworkflownodes.knime.nodes.io.ReferencedFileRegistry;
+import com.genericworkflownodes.knime.parameter.DoubleArrayList;
+import com.genericworkflownodes.knime.parameter.DoubleListParameter;
 import com.genericworkflownodes.knime.parameter.FileListParameter;
 import com.genericworkflownodes.knime.parameter.FileParameter;
 import com.genericworkflownodes.knime.parameter.IFileParameter;
+import com.genericworkflownodes.knime.parameter.IntegerListParameter;
+import com.genericworkflownodes.knime.parameter.IntegerParameter;
 import com.genericworkflownodes.knime.parameter.InvalidParameterValueException;
 import com.genericworkflownodes.knime.parameter.Parameter;
 import com.genericworkflownodes.knime.port.Port;
@@ -95,10 +117,49 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
     static final String GENERIC_KNIME_NODES_OUT_ACTIVE = "GENERIC_KNIME_NODES_active#";
     static final String GENERIC_KNIME_NODES_OUT_LINKEDINPUT = "GENERIC_KNIME_NODES_linkedinput#";
     static final String GENERIC_KNIME_NODES_OUT_CUSTOMBASENAME = "GENERIC_KNIME_NODES_custombasename#";
+    static final String GENERIC_KNIME_NODES_BINARY_LIST = "GENERIC_KNIME_NODES_binarylist#";
+
+    /**
+     * Number lists with at least this many values are stored as Base64
+     * encoded binary in the settings, which is loaded much faster than the
+     * delimited string.
+     */
+    static final int BINARY_LIST_THRESHOLD = 1000;
+
+    /**
+     * Prefix of the value stored under the key of a parameter whose value is
+     * stored as binary, followed by the SHA-256 of the binary.
+     */
+    static final String BINARY_LIST_MARKER = "binary:";
     
     private static final NodeLogger LOGGER = NodeLogger
             .getLogger(GenericKnimeNodeModel.class);
 
+    /**
+     * Tool (or plug-in) property holding the number of CPU slots one
+     * execution of the tool occupies.
+     */
+    public static final String CPU_SLOTS_PROPERTY = "cpuSlots";
+
+    /**
+     * Tool (or plug-in) property holding the memory in MB one execution of
+     * the tool occupies.
+     */
+    public static final String MEMORY_MB_PROPERTY = "memoryMB";
+
+    /**
+     * Tool (or plug-in) property naming the integer parameter that holds the
+     * number of threads of the tool. Either the full parameter key or its
+     * last segment (e.g., "threads") can be given.
+     */
+    public static final String THREADS_PARAMETER_PROPERTY = "threadsParameter";
+
+    /**
+     * Tool (or plug-in) property that excludes the tool from the result
+     * cache if set to false, e.g., for non-deterministic tools.
+     */
+    public static final String RESULT_CACHE_PROPERTY = "resultCache";
+
     /**
      * Short-cut for optional ports.
      */
@@ -153,6 +214,16 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
      */
     IToolExecutor m_executor;
 
+    /**
+     * The metrics of the current execution.
+     */
+    private ToolExecutionMetrics m_metrics = new ToolExecutionMetrics();
+
+    /**
+     * The local copies of non-local inputs used by the current execution.
+     */
+    private final List<File> m_stagedInputs = new ArrayList<File>();
+
     /**
      * Constructor for the node model.
      * 
@@ -269,10 +340,15 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
      * @param execContext
      *            The {@link ExecutionContext} of the node.
      * 
+     * @param threads
+     *            The number of threads the tool was configured with, 0 if
+     *            unknown.
+     * 
      * @throws Exception
      */
     private void executeTool(IToolExecutor executor,
-            final ExecutionContext execContext) throws ExecutionFailedException {
+            final ExecutionContext execContext, final int threads)
+            throws ExecutionFailedException, CanceledExecutionException {
         
         setFailedExternalOutput(new LinkedList<String>());
         setFailedExternalErrorOutput(new LinkedList<String>());
@@ -280,24 +356,8 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
         setExternalErrorOutput(new LinkedList<String>());
         notifyViews(null); //reset
 
-        final AsynchronousToolExecutor asyncExecutor = new AsynchronousToolExecutor(
-                executor);
-
-        asyncExecutor.invoke();
-
-        // create one thread that will periodically check if the user has
-        // cancelled the execution of the node
-        // if this monitor thread detects that a cancel was requested, then it
-        // will invoke the kill method
-        // of the asyncExecutor
-        final CancelMonitorThread monitorThread = new CancelMonitorThread(
-                asyncExecutor, execContext);
-        monitorThread.start();
-
-        // wait until the execution completes
-        asyncExecutor.waitUntilFinished();
-        // also wait for the monitor thread to die
-        monitorThread.waitUntilFinished();
+        final AsynchronousToolExecutor asyncExecutor = runTool(executor,
+                execContext, threads);
 
         int retcode = -1;
         try {
@@ -334,6 +394,147 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
         }
     }
 
+    /**
+     * Runs the given executor as soon as the {@link ToolSlotScheduler} admits
+     * it and waits until it finished or was killed.
+     * 
+     * @param executor
+     *            The fully configured {@link IToolExecutor}.
+     * @param execContext
+     *            The {@link ExecutionContext} of the node.
+     * @param threads
+     *            The number of threads the tool was configured with, 0 if
+     *            unknown.
+     * @return The finished execution.
+     * @throws CanceledExecutionException
+     *             If the node was canceled while waiting for admission.
+     */
+    private AsynchronousToolExecutor runTool(final IToolExecutor executor,
+            final ExecutionContext execContext, final int threads)
+            throws CanceledExecutionException {
+        final AsynchronousToolExecutor asyncExecutor = new AsynchronousToolExecutor(
+                executor);
+
+        // wait until enough CPU slots and memory are free to start the tool
+        ToolSlotScheduler.Slot slot = ToolSlotScheduler.getInstance().acquire(
+                getToolCost(CPU_SLOTS_PROPERTY, Math.max(threads, 1)),
+                getToolCost(MEMORY_MB_PROPERTY, 0), execContext);
+        m_metrics.addPhase(ToolExecutionMetrics.PHASE_QUEUE,
+                TimeUnit.MILLISECONDS.toNanos(slot.getWaitTimeMillis()));
+        try {
+            asyncExecutor.invoke();
+
+            // the shared watchdog periodically checks if the user has
+            // cancelled the execution of the node and, if so, invokes the
+            // kill method of the asyncExecutor
+            ExecutionWatchdog.watch(asyncExecutor, execContext);
+
+            // wait until the execution completes
+            asyncExecutor.waitUntilFinished();
+            ExecutionWatchdog.unwatch(asyncExecutor);
+        } finally {
+            slot.release();
+        }
+        if (executor instanceof LocalToolExecutor) {
+            m_metrics.add(((LocalToolExecutor) executor).getMetrics());
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * Returns the parameter marked as thread count of the tool via the
+     * {@link #THREADS_PARAMETER_PROPERTY} property.
+     * 
+     * @return The parameter or null if the tool has no marked integer
+     *         parameter.
+     */
+    private IntegerParameter findThreadsParameter() {
+        String name = getToolPropertyValue(THREADS_PARAMETER_PROPERTY);
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        name = name.trim();
+        Parameter<?> parameter = m_nodeConfig.getParameter(name);
+        if (parameter == null) {
+            for (String key : m_nodeConfig.getParameterKeys()) {
+                if (key.endsWith("." + name)) {
+                    parameter = m_nodeConfig.getParameter(key);
+                    break;
+                }
+            }
+        }
+        if (!(parameter instanceof IntegerParameter)) {
+            // a plug-in wide marker does not have to match every tool
+            LOGGER.debug("Tool " + m_nodeConfig.getName()
+                    + " has no integer parameter '" + name
+                    + "', the thread count is not adjusted.");
+            return null;
+        }
+        return (IntegerParameter) parameter;
+    }
+
+    /**
+     * Sets the thread count of the tool to the number suggested by the
+     * {@link ToolSlotScheduler}, respecting the bounds of the parameter.
+     * 
+     * @param threadCount
+     *            The thread count parameter of the tool.
+     * @param parallelRuns
+     *            The number of runs of this node sharing the suggested
+     *            threads.
+     * @return The injected number of threads.
+     */
+    private int injectThreadCount(final InjectedThreadCount threadCount,
+            final int parallelRuns) {
+        int threads = threadCount.inject(Math.max(1, ToolSlotScheduler
+                .getInstance().suggestThreadCount() / parallelRuns));
+        LOGGER.debug("Setting " + threadCount.getParameter().getKey() + " of "
+                + m_nodeConfig.getName() + " to " + threads + " threads");
+        return threads;
+    }
+
+    /**
+     * Reads a tool property of the plug-in, falling back to the plug-in
+     * property of the same name.
+     * 
+     * @param key
+     *            The property key.
+     * @return The value or null if neither property is set.
+     */
+    private String getToolPropertyValue(final String key) {
+        String value = m_pluginConfig.getPluginProperties().getProperty(key);
+        Properties toolProperties = m_pluginConfig
+                .getToolProperty(m_nodeConfig.getName());
+        if (toolProperties != null) {
+            value = toolProperties.getProperty(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Reads the resources needed by one execution of the tool from the tool
+     * properties of the plug-in, falling back to the plug-in properties.
+     * 
+     * @param key
+     *            The property key.
+     * @param defaultValue
+     *            The value used if the property is missing or invalid.
+     * @return The cost of the tool.
+     */
+    private int getToolCost(final String key, final int defaultValue) {
+        String value = getToolPropertyValue(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid value '" + value + "' for property " + key
+                    + " of tool " + m_nodeConfig.getName());
+            return defaultValue;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -353,7 +554,7 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
             if (param instanceof IFileParameter) {
                 continue;
             }
-            settings.addString(key, param.getStringRep());
+            saveParameter(settings, key, param);
         }
 
         for (int i = 0; i < m_nodeConfig.getNumberOfOutputPorts(); i++) {
@@ -368,6 +569,135 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
         }
     }
 
+    /**
+     * Stores the value of the given parameter as string under the key. Long
+     * number lists are instead stored as binary under
+     * {@link #GENERIC_KNIME_NODES_BINARY_LIST} followed by the key, and the key
+     * only holds {@link #BINARY_LIST_MARKER} followed by the SHA-256 of the
+     * binary. A flow variable overriding the parameter replaces the marker,
+     * so the binary is only used as long as the marker is in place.
+     * 
+     * Double lists are stored with all digits, so the value does not depend
+     * on whether it is stored as string or as binary.
+     * 
+     * @param settings
+     *            The settings to write to.
+     * @param key
+     *            The key of the parameter.
+     * @param param
+     *            The parameter.
+     */
+    static void saveParameter(final NodeSettingsWO settings,
+            final String key, final Parameter<?> param) {
+        if (isLongList(param)) {
+            byte[] binary = param instanceof IntegerListParameter
+                    ? ((IntegerListParameter) param).getBinaryRep()
+                    : ((DoubleListParameter) param).getBinaryRep();
+            settings.addString(key, getBinaryListMarker(binary));
+            settings.addString(GENERIC_KNIME_NODES_BINARY_LIST + key,
+                    Base64.getEncoder().encodeToString(binary));
+        } else if (param instanceof DoubleListParameter) {
+            settings.addString(key,
+                    getExactStringRep((DoubleListParameter) param));
+        } else {
+            settings.addString(key, param.getStringRep());
+        }
+    }
+
+    private static boolean isLongList(final Parameter<?> param) {
+        return (param instanceof IntegerListParameter
+                || param instanceof DoubleListParameter)
+                && param.getValue() != null
+                && ((List<?>) param.getValue()).size() >= BINARY_LIST_THRESHOLD;
+    }
+
+    /**
+     * Returns {@link #BINARY_LIST_MARKER} followed by the hex encoded SHA-256
+     * of the given binary.
+     */
+    static String getBinaryListMarker(final byte[] binary) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available on every Java platform
+            throw new IllegalStateException(e);
+        }
+        byte[] digest = md.digest(binary);
+        StringBuilder sb = new StringBuilder(BINARY_LIST_MARKER.length()
+                + digest.length * 2);
+        sb.append(BINARY_LIST_MARKER);
+        for (byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Like {@link DoubleListParameter#getStringRep()}, but without rounding
+     * the values.
+     */
+    private static String getExactStringRep(final DoubleListParameter param) {
+        if (param.getValue() == null) {
+            return "";
+        }
+        DoubleArrayList values = (DoubleArrayList) param.getValue();
+        StringBuilder sb = new StringBuilder(values.size()
+                * (Parameter.SEPARATOR_TOKEN.length() + 12));
+        for (int i = 0; i < values.size(); i++) {
+            sb.append(Double.toString(values.getDouble(i)));
+            sb.append(Parameter.SEPARATOR_TOKEN);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Fills the given parameter from a value stored by
+     * {@link #saveParameter(NodeSettingsWO, String, Parameter)}. A string
+     * under the key that is not the marker of the binary, e.g., set by a flow
+     * variable or stored by an older release, is used instead of the binary.
+     * 
+     * @param settings
+     *            The settings to read from.
+     * @param key
+     *            The key of the parameter.
+     * @param param
+     *            The parameter.
+     * @throws InvalidSettingsException
+     *             If the settings hold no value for the parameter.
+     * @throws InvalidParameterValueException
+     *             If the stored value is not valid for the parameter.
+     */
+    static void loadParameter(final NodeSettingsRO settings,
+            final String key, final Parameter<?> param)
+            throws InvalidSettingsException, InvalidParameterValueException {
+        String value = settings.getString(key);
+        if ((param instanceof IntegerListParameter
+                || param instanceof DoubleListParameter) && value != null
+                && value.startsWith(BINARY_LIST_MARKER)) {
+            byte[] binary;
+            try {
+                binary = Base64.getDecoder().decode(settings
+                        .getString(GENERIC_KNIME_NODES_BINARY_LIST + key));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidParameterValueException(
+                        "The stored list is not valid Base64.", e);
+            }
+            if (!value.equals(getBinaryListMarker(binary))) {
+                throw new InvalidParameterValueException(
+                        "The stored list does not match its checksum.");
+            }
+            if (param instanceof IntegerListParameter) {
+                ((IntegerListParameter) param).fillFromBinaryRep(binary);
+            } else {
+                ((DoubleListParameter) param).fillFromBinaryRep(binary);
+            }
+            return;
+        }
+        param.fillFromString(value);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -381,9 +711,8 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
             if (m_nodeConfig.getParameter(key) instanceof IFileParameter)
                 continue;
 
-            String value = settings.getString(key);
             try {
-                m_nodeConfig.getParameter(key).fillFromString(value);
+                loadParameter(settings, key, m_nodeConfig.getParameter(key));
             } catch (InvalidParameterValueException e) {
                 //TODO I think we could hard fail here and throw an InvalidSettingsException
                 LOGGER.warn(
@@ -486,8 +815,7 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
             }
 
             try {
-                String value = settings.getString(key);
-                param.fillFromString(value);
+                loadParameter(settings, key, param);
             } catch (InvalidParameterValueException e) {
                 errorsFound += "\t - Invalid value for parameter " + key + " in settings.xml.\n";
             } catch (InvalidSettingsException e) {
@@ -620,28 +948,102 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
     @Override
     protected PortObject[] execute(PortObject[] inObjects,
             ExecutionContext execContext) throws Exception {
+        try {
+            return executeJob(inObjects, execContext);
+        } finally {
+            // the staged inputs may be evicted again
+            for (File staged : m_stagedInputs) {
+                InputStagingCache.getInstance().release(staged);
+            }
+            m_stagedInputs.clear();
+        }
+    }
+
+    private PortObject[] executeJob(PortObject[] inObjects,
+            ExecutionContext execContext) throws Exception {
         // create job directory
-        File jobdir = Helper.getTempDir(m_nodeConfig.getName(),
-                !GenericNodesPlugin.isDebug());
+        File jobdir = JobDirectoryService.getInstance().allocate(
+                m_nodeConfig.getName());
+
+        m_metrics = new ToolExecutionMetrics();
 
         // transfer the incoming files into the nodeConfiguration
-        transferIncomingPorts2Config(inObjects);
+        long phaseStart = System.nanoTime();
+        transferIncomingPorts2Config(inObjects, execContext);
+        m_metrics.endPhase(ToolExecutionMetrics.PHASE_INPUT_TRANSFER,
+                phaseStart);
+
+        // single file ports that received a list of files run the tool once
+        // per file
+        int runs = getNumberOfFanOutRuns(inObjects);
+        if (runs > 0) {
+            PortObject[] outports = executeFanOut(inObjects, execContext,
+                    jobdir, runs);
+            phaseStart = System.nanoTime();
+            if (!GenericNodesPlugin.isDebug()) {
+                JobDirectoryService.getInstance().release(jobdir);
+            }
+            m_metrics.endPhase(ToolExecutionMetrics.PHASE_OUTPUT_COLLECTION,
+                    phaseStart);
+            publishMetrics();
+            return outports;
+        }
 
         // prepare input data and parameter values
+        phaseStart = System.nanoTime();
         List<PortObject> outPorts = transferOutgoingPorts2Config(jobdir,
                 inObjects, execContext);
+        m_metrics.endPhase(ToolExecutionMetrics.PHASE_OUTPUT_SETUP,
+                phaseStart);
+
+        // reuse the outputs of an identical earlier execution
+        String cacheKey = null;
+        ToolResultCache.Outputs cacheOutputs = null;
+        if (isResultCacheEnabled()) {
+            cacheKey = computeResultCacheKey();
+            cacheOutputs = getResultCacheOutputs();
+        }
+        if (cacheKey != null
+                && ToolResultCache.getInstance().restore(cacheKey, cacheOutputs)) {
+            LOGGER.info("Restored the results of " + m_nodeConfig.getName()
+                    + " from the result cache.");
+            execContext.setMessage("Results restored from the result cache");
+            setExternalOutput(new LinkedList<String>(Arrays
+                    .asList("[Results restored from the result cache, the tool was not executed.]")));
+            setExternalErrorOutput(new LinkedList<String>());
+        } else {
+            // let multi-threaded tools use the CPU slots they will be granted
+            IntegerParameter threadsParameter = findThreadsParameter();
+            InjectedThreadCount threadCount = null;
+            int threads = 0;
+            if (threadsParameter != null) {
+                threadCount = new InjectedThreadCount(threadsParameter);
+                threads = injectThreadCount(threadCount, 1);
+            }
 
-        // prepare the executor
-        m_executor = prepareExecutor(jobdir);
+            try {
+                // prepare the executor
+                m_executor = prepareExecutor(jobdir);
+
+                // launch executable
+                executeTool(m_executor, execContext, threads);
+            } finally {
+                if (threadCount != null) {
+                    threadCount.restore();
+                }
+            }
 
-        // launch executable
-        executeTool(m_executor, execContext);
+            if (cacheKey != null) {
+                ToolResultCache.getInstance().store(cacheKey, cacheOutputs);
+            }
+        }
 
         // process result files
         // PortObject[] outports = processOutput(outputFiles, exec);
 
+        phaseStart = System.nanoTime();
         if (!GenericNodesPlugin.isDebug()) {
-            FileUtils.deleteDirectory(jobdir);
+            JobDirectoryService.getInstance().release(jobdir);
         }
 
         PortObject[] outports = new PortObject[outPorts.size()];
@@ -652,10 +1054,386 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
                 ((FileStorePrefixURIPortObject) outports[i]).collectFiles();
             }
         }
+        m_metrics.endPhase(ToolExecutionMetrics.PHASE_OUTPUT_COLLECTION,
+                phaseStart);
+        publishMetrics();
+
+        return outports;
+    }
+
+    /**
+     * Logs the metrics of the current execution and publishes them as flow
+     * variables. Values the platform does not provide are published as -1.
+     * The resource usage of fan-out runs is summed up, except for the peak
+     * memory, which is the maximum over all runs.
+     */
+    private void publishMetrics() {
+        LOGGER.debug("Execution metrics of " + m_nodeConfig.getName() + ": "
+                + m_metrics);
+        pushFlowVariableDouble("gkn.wallTimeSeconds",
+                seconds(m_metrics.getWallMillis()));
+        pushFlowVariableDouble("gkn.userCpuSeconds",
+                seconds(m_metrics.getUserCpuMillis()));
+        pushFlowVariableDouble("gkn.systemCpuSeconds",
+                seconds(m_metrics.getSystemCpuMillis()));
+        pushFlowVariableDouble("gkn.peakRssMB",
+                megaBytes(m_metrics.getPeakRssBytes()));
+        pushFlowVariableDouble("gkn.readMB",
+                megaBytes(m_metrics.getReadBytes()));
+        pushFlowVariableDouble("gkn.writtenMB",
+                megaBytes(m_metrics.getWrittenBytes()));
+        for (Map.Entry<String, Long> phase : m_metrics.getPhaseMillis()
+                .entrySet()) {
+            pushFlowVariableDouble("gkn.phase." + phase.getKey() + "Seconds",
+                    seconds(phase.getValue()));
+        }
+    }
+
+    private static double seconds(final long millis) {
+        return millis < 0 ? -1 : millis / 1000.0;
+    }
+
+    private static double megaBytes(final long bytes) {
+        return bytes < 0 ? -1 : bytes / (1024.0 * 1024.0);
+    }
+
+    /**
+     * Checks if the results of this tool may be taken from and stored in the
+     * {@link ToolResultCache}. Plug-ins can exclude non-deterministic tools
+     * by setting the {@link #RESULT_CACHE_PROPERTY} property to false.
+     * 
+     * @return True if the result cache should be used.
+     */
+    private boolean isResultCacheEnabled() {
+        return GenericNodesPlugin.isResultCache()
+                && !"false".equalsIgnoreCase(getToolPropertyValue(RESULT_CACHE_PROPERTY));
+    }
+
+    /**
+     * Computes the result cache key of the configured execution. Input files
+     * contribute their content (or identity in fast mode), output files only
+     * their names, and the thread count is ignored since it does not change
+     * the results.
+     * 
+     * @return The key.
+     * @throws IOException
+     *             If an input file or the executable could not be read.
+     */
+    private String computeResultCacheKey() throws IOException {
+        ToolResultCache.Key key = new ToolResultCache.Key(
+                GenericNodesPlugin.isResultCacheFastMode());
+        key.add("plugin", m_pluginConfig.getPluginId() + " "
+                + m_pluginConfig.getPluginVersion());
+        key.add("tool", m_nodeConfig.getName() + " "
+                + m_nodeConfig.getVersion());
+        key.add("executor", m_pluginConfig.getPluginProperties().getProperty(
+                "executor"));
+        key.add("commandGenerator", m_pluginConfig.getPluginProperties()
+                .getProperty("commandGenerator"));
+        key.add("dockerImage", getToolPropertyValue("dockerImage"));
+        try {
+            key.addExecutable(m_pluginConfig.getBinaryManager().findBinary(
+                    m_nodeConfig.getExecutableName()));
+        } catch (NoBinaryAvailableException e) {
+            // e.g. tools running in a docker image
+            key.add("executable", m_nodeConfig.getExecutableName());
+        }
+
+        Set<String> inputs = new HashSet<String>();
+        Set<String> prefixes = new HashSet<String>();
+        for (Port port : m_nodeConfig.getInputPorts()) {
+            inputs.add(port.getName());
+            if (port.isPrefix()) {
+                prefixes.add(port.getName());
+            }
+        }
+        Set<String> outputs = new HashSet<String>();
+        for (Port port : m_nodeConfig.getOutputPorts()) {
+            outputs.add(port.getName());
+        }
+        Parameter<?> threadsParameter = findThreadsParameter();
 
+        for (Parameter<?> p : m_nodeConfig.getParameters()) {
+            if (p == threadsParameter) {
+                continue;
+            }
+            if (inputs.contains(p.getKey()) && p.getValue() != null) {
+                if (prefixes.contains(p.getKey())) {
+                    key.addPrefix(p.getKey(), new File((String) p.getValue()));
+                } else if (p instanceof FileListParameter) {
+                    for (String file : ((FileListParameter) p).getValue()) {
+                        key.addFile(p.getKey(), new File(file));
+                    }
+                } else {
+                    key.addFile(p.getKey(), new File((String) p.getValue()));
+                }
+            } else if (outputs.contains(p.getKey()) && p.getValue() != null) {
+                if (p instanceof FileListParameter) {
+                    for (String file : ((FileListParameter) p).getValue()) {
+                        key.add(p.getKey(), new File(file).getName());
+                    }
+                } else {
+                    key.add(p.getKey(),
+                            new File((String) p.getValue()).getName());
+                }
+            } else {
+                key.add(p.getKey(), p.getStringRep());
+            }
+        }
+        return key.build();
+    }
+
+    /**
+     * Collects the output locations of the configured execution for the
+     * {@link ToolResultCache}.
+     * 
+     * @return The output locations in port order.
+     */
+    private ToolResultCache.Outputs getResultCacheOutputs() {
+        ToolResultCache.Outputs outputs = new ToolResultCache.Outputs();
+        for (Port port : m_nodeConfig.getOutputPorts()) {
+            Parameter<?> p = m_nodeConfig.getParameter(port.getName());
+            List<File> files = new ArrayList<File>();
+            if (!port.isActive() || p.getValue() == null) {
+                outputs.addFiles(files);
+            } else if (port.isPrefix()) {
+                outputs.addPrefix(new File((String) p.getValue()));
+            } else {
+                if (p instanceof FileListParameter) {
+                    for (String file : ((FileListParameter) p).getValue()) {
+                        files.add(new File(file));
+                    }
+                } else {
+                    files.add(new File((String) p.getValue()));
+                }
+                outputs.addFiles(files);
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * Returns the number of tool runs needed for the given input. If single
+     * file ports received lists of files, the tool is run once per file.
+     * 
+     * @param inData
+     *            The incoming port objects.
+     * @return The length of the lists received at single file ports, 0 if
+     *         every single file port received at most one file.
+     * @throws InvalidSettingsException
+     *             If the lists have different lengths.
+     */
+    private int getNumberOfFanOutRuns(final PortObject[] inData)
+            throws InvalidSettingsException {
+        List<Integer> listSizes = new ArrayList<Integer>();
+        for (int i : getFanOutPorts(inData)) {
+            listSizes.add(((IURIPortObject) inData[i]).getURIContents().size());
+        }
+        return FanOut.getNumberOfRuns(listSizes);
+    }
+
+    /**
+     * @return Whether the tool can be run once per file received at a single
+     *         file input port, which requires all active output ports to be
+     *         single file ports.
+     */
+    private boolean supportsFanOut() {
+        for (Port port : m_nodeConfig.getOutputPorts()) {
+            if (port.isActive() && (port.isMultiFile() || port.isPrefix())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param inData
+     *            The incoming port objects.
+     * @return The indices of the single file input ports that received more
+     *         than one file.
+     */
+    private List<Integer> getFanOutPorts(final PortObject[] inData) {
+        List<Integer> ports = new ArrayList<Integer>();
+        for (int i = 0; i < inData.length; i++) {
+            Port port = m_nodeConfig.getInputPorts().get(i);
+            if (inData[i] != null && !port.isMultiFile() && !port.isPrefix()
+                    && ((IURIPortObject) inData[i]).getURIContents().size() > 1) {
+                ports.add(i);
+            }
+        }
+        return ports;
+    }
+
+    /**
+     * Runs the tool once for every file received at the single file input
+     * ports that got a list of files. Each run gets its own job directory
+     * and the runs are executed in parallel, bounded by the CPU slots of the
+     * {@link ToolSlotScheduler}. The files written by the runs are collected
+     * at the output ports in the order of the input files.
+     * 
+     * @param inData
+     *            The incoming port objects.
+     * @param execContext
+     *            The {@link ExecutionContext} of the node.
+     * @param jobdir
+     *            The job directory of the node.
+     * @param runs
+     *            The number of runs, see
+     *            {@link #getNumberOfFanOutRuns(PortObject[])}.
+     * @return The outgoing port objects.
+     * @throws Exception
+     *             If a run could not be prepared or failed.
+     */
+    private PortObject[] executeFanOut(final PortObject[] inData,
+            final ExecutionContext execContext, final File jobdir,
+            final int runs) throws Exception {
+        setFailedExternalOutput(new LinkedList<String>());
+        setFailedExternalErrorOutput(new LinkedList<String>());
+        setExternalOutput(new LinkedList<String>());
+        setExternalErrorOutput(new LinkedList<String>());
+        notifyViews(null); //reset
+
+        List<Integer> listPorts = getFanOutPorts(inData);
+
+        // every active output port collects the files of all runs
+        final int nOut = m_nodeConfig.getOutputPorts().size();
+        PortObject[] outports = new PortObject[nOut];
+        List<Set<String>> usedNames = new ArrayList<Set<String>>(nOut);
+        for (int i = 0; i < nOut; i++) {
+            Port port = m_nodeConfig.getOutputPorts().get(i);
+            usedNames.add(new HashSet<String>());
+            if (!port.isActive()) {
+                outports[i] = InactiveBranchPortObject.INSTANCE;
+            } else if (port.isMultiFile() || port.isPrefix()) {
+                throw new InvalidSettingsException("Output port "
+                        + port.getName()
+                        + " does not support running the tool once per input file.");
+            } else {
+                outports[i] = new FileStoreURIPortObject(
+                        execContext.createFileStore(m_nodeConfig.getName()
+                                + "_" + i));
+            }
+        }
+
+        final int workers = Math.min(runs, ToolSlotScheduler.getInstance()
+                .getCpuCapacity());
+        final IToolExecutor[] executors = new IToolExecutor[runs];
+        final int[] threads = new int[runs];
+        final String[] runNames = new String[runs];
+        final Integer[] retcodes = new Integer[runs];
+
+        IntegerParameter threadsParameter = findThreadsParameter();
+        InjectedThreadCount threadCount = threadsParameter == null ? null
+                : new InjectedThreadCount(threadsParameter);
+
+        // the runs are prepared one after the other, since they share the
+        // node configuration
+        List<Integer> pending = new ArrayList<Integer>(runs);
+        try {
+            for (int r = 0; r < runs; r++) {
+                execContext.checkCanceled();
+                execContext.setMessage("Preparing run " + (r + 1) + " of "
+                        + runs);
+                for (int i : listPorts) {
+                    URI uri = ((IURIPortObject) inData[i]).getURIContents()
+                            .get(r).getURI();
+                    File localFile = toLocalFile(uri, execContext);
+                    ((FileParameter) m_nodeConfig.getParameter(m_nodeConfig
+                            .getInputPorts().get(i).getName()))
+                            .setValue(localFile.getAbsolutePath());
+                    if (runNames[r] == null) {
+                        runNames[r] = localFile.getName();
+                    }
+                }
+                for (int i = 0; i < nOut; i++) {
+                    if (!(outports[i] instanceof FileStoreURIPortObject)) {
+                        continue;
+                    }
+                    String basename = FanOut.getUniqueBaseName(
+                            usedNames.get(i), getOutputBaseName(i), r);
+                    File file = ((FileStoreURIPortObject) outports[i])
+                            .registerFile(basename + "." + getOutputType(i));
+                    ((FileParameter) m_nodeConfig.getParameter(m_nodeConfig
+                            .getOutputPorts().get(i).getName()))
+                            .setValue(file.getAbsolutePath());
+                }
+                if (threadCount != null) {
+                    threads[r] = injectThreadCount(threadCount, workers);
+                }
+
+                File runDir = new File(jobdir, String.format("run_%05d", r + 1));
+                if (!runDir.mkdirs()) {
+                    throw new IOException("Could not create job directory "
+                            + runDir);
+                }
+                executors[r] = prepareExecutor(runDir);
+                m_executor = executors[r];
+
+                if (executors[r] instanceof LocalToolExecutor) {
+                    // decouple the command from the shared configuration
+                    ((LocalToolExecutor) executors[r]).freezeCommands();
+                    pending.add(r);
+                } else {
+                    // the command may still refer to the configuration, so
+                    // it has to run before the next run is prepared
+                    retcodes[r] = runFanOutItem(executors[r], execContext,
+                            threads[r]);
+                    if (retcodes[r] != 0) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            if (threadCount != null) {
+                threadCount.restore();
+            }
+        }
+
+        FanOut.execute(pending, runs, retcodes, workers,
+                r -> runFanOutItem(executors[r], execContext, threads[r]),
+                execContext);
+
+        // collect the output of all runs
+        LinkedList<String> stdout = new LinkedList<String>();
+        LinkedList<String> stderr = new LinkedList<String>();
+        int failedRun = FanOut.collectOutput(executors, runNames, retcodes,
+                stdout, stderr);
+
+        if (failedRun >= 0) {
+            LOGGER.error("Failing run " + (failedRun + 1) + " of " + runs
+                    + " (" + runNames[failedRun] + "), command: "
+                    + executors[failedRun].getCommand());
+            LOGGER.error("Return code: " + retcodes[failedRun]);
+            setFailedExternalOutput(stdout);
+            setFailedExternalErrorOutput(stderr);
+            throw new ExecutionFailedException(m_nodeConfig.getName() + " ("
+                    + runNames[failedRun] + ")");
+        }
+        setExternalOutput(stdout);
+        setExternalErrorOutput(stderr);
         return outports;
     }
 
+    /**
+     * Executes a single run of
+     * {@link #executeFanOut(PortObject[], ExecutionContext, File, int)}.
+     * 
+     * @return The return code of the tool.
+     */
+    private int runFanOutItem(final IToolExecutor executor,
+            final ExecutionContext execContext, final int threads)
+            throws ExecutionFailedException, CanceledExecutionException {
+        AsynchronousToolExecutor asyncExecutor = runTool(executor,
+                execContext, threads);
+        try {
+            return asyncExecutor.getReturnCode();
+        } catch (ExecutionException ex) {
+            throw new ExecutionFailedException(m_nodeConfig.getName(), ex);
+        } catch (InterruptedException iex) {
+            throw new ExecutionFailedException(m_nodeConfig.getName(), iex);
+        }
+    }
+
     /**
      * Instantiates a new {@link IToolExecutor} for this tool according to the
      * plug-in settings.
@@ -673,6 +1451,7 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
     private IToolExecutor prepareExecutor(File jobdir)
             throws UnknownToolExecutorException,
             UnknownCommandGeneratorException, IOException, Exception {
+        long start = System.nanoTime();
         IToolExecutor executor = ToolExecutorFactory.createToolExecutor(
                 m_pluginConfig.getPluginProperties().getProperty("executor"),
                 m_pluginConfig.getPluginProperties().getProperty(
@@ -681,6 +1460,8 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
         executor.setWorkingDirectory(jobdir);
         executor.prepareExecution(m_nodeConfig, m_pluginConfig);
         executor.setModel(this);
+        m_metrics.endPhase(ToolExecutionMetrics.PHASE_COMMAND_GENERATION,
+                start);
 
         return executor;
     }
@@ -735,8 +1516,11 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
                     // Create the folder (i.e. file store) in KNIME's temp dir
                     po = new FileStoreURIPortObject(filestore);
                     ext = getOutputType(i);
-                    for (int f = 0; f < basenames.size(); ++f) {
-                        File file = ((FileStoreURIPortObject) po).registerFile(basenames.get(f) + "." + ext);
+                    List<String> outputNames = new ArrayList<String>(basenames.size());
+                    for (String basename : basenames) {
+                        outputNames.add(basename + "." + ext);
+                    }
+                    for (File file : ((FileStoreURIPortObject) po).registerFiles(outputNames)) {
                         filenames.add(file.getAbsolutePath());
                     }
                     
@@ -783,7 +1567,7 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
      * Deprecated: Tries to guess the optimal output file names given all the input edges.
      * The file names will be extracted from the configuration, hence the file
      * names need to be transferred into config prior to using this method. See
-     * {@link GenericKnimeNodeModel#transferIncomingPorts2Config(PortObject[])}.
+     * {@link GenericKnimeNodeModel#transferIncomingPorts2Config(PortObject[], ExecutionMonitor)}.
      * 
      * @return A list of base names for the output files.
      * @throws Exception
@@ -1004,10 +1788,13 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
      * 
      * @param inData
      *            The incoming port objects.
+     * @param exec
+     *            The monitor of the execution, used while non-local inputs
+     *            are staged.
      * @throws Exception
      */
-    private void transferIncomingPorts2Config(PortObject[] inData)
-            throws Exception {
+    private void transferIncomingPorts2Config(PortObject[] inData,
+            ExecutionMonitor exec) throws Exception {
         // Transfer settings from the input ports into the configuration object
         for (int i = 0; i < inData.length; i++) {
             // find the internal port for this PortObject
@@ -1032,8 +1819,11 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
             // connected: check contents
             List<URIContent> uris = po.getURIContents();
 
-            // check validity of subtypes with actual inputs
-            if (uris.size() > 1 && (!isMultiFile && !isPrefix)) {
+            // a list of URIs at a single URI port is valid if the tool can be
+            // run once per URI (see executeFanOut), the first one is then
+            // used for the configuration
+            if (uris.size() > 1 && !isMultiFile && !isPrefix
+                    && !supportsFanOut()) {
                 throw new Exception(
                         "IURIPortObject with list of multiple URIs supplied at single URI port #"
                                 + i + ". Use Loops/FileSplitter to branch/iterate or somehow merge the files.");
@@ -1058,22 +1848,52 @@ public abstract class GenericKnimeNodeModel extends ExtToolOutputNodeModel {
                 for (URIContent uric : uris) {
                     URI uri = uric.getURI();
                     // Resolve the URI to a local path before adding it
-                    File localFile = FileUtil.getFileFromURL(uri.toURL());
-                    if (localFile == null) {
-                        throw new InvalidSettingsException("Tool can only be executed with local files.");
-                    }
+                    File localFile = toLocalFile(uri, exec);
                     filenames.add(localFile.getAbsolutePath());
                 }
                 ((FileListParameter) p).setValue(filenames);
             } else {
                 // just one filename
                 URI uri = uris.get(0).getURI();
-                String filename = FileUtil.getFileFromURL(uri.toURL()).getAbsolutePath();
+                String filename = toLocalFile(uri, exec).getAbsolutePath();
                 ((FileParameter) p).setValue(filename);
             }
         }
     }
 
+    /**
+     * Resolves the URI of an input file to a local file. Inputs that are not
+     * local files, e.g., on a KNIME server or behind an http URL, are staged
+     * into the {@link InputStagingCache} and released after the execution.
+     * Local files that were imported by reference are checked against their
+     * {@link FileFingerprint}.
+     * 
+     * @param uri
+     *            The URI of the input file.
+     * @param exec
+     *            The monitor of the execution.
+     * @return The local file.
+     * @throws Exception
+     *             If the file could not be staged.
+     */
+    private File toLocalFile(final URI uri, final ExecutionMonitor exec)
+            throws Exception {
+        File localFile = null;
+        try {
+            localFile = FileUtil.getFileFromURL(uri.toURL());
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            // no URL handler, e.g., a NIO file system
+        }
+        if (localFile != null) {
+            // files imported by reference must not have changed since
+            ReferencedFileRegistry.getInstance().verify(localFile);
+            return localFile;
+        }
+        File staged = InputStagingCache.getInstance().stage(uri, exec);
+        m_stagedInputs.add(staged);
+        return staged;
+    }
+
     /**
      * Retrieves the node configuration.
      * 
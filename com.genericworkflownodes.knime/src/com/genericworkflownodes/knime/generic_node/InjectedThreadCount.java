@@ -0,0 +1,68 @@
+package com.genericworkflownodes.knime.generic_node;
+
+import com.genericworkflownodes.knime.parameter.IntegerParameter;
+import com.genericworkflownodes.knime.parameter.InvalidParameterValueException;
+
+/**
+ * The thread count parameter of a tool while GKN sets it to the number of
+ * threads the tool gets. The value of the user is restored afterwards, so
+ * the injected value never ends up in the node settings.
+ */
+final class InjectedThreadCount {
+
+    private final IntegerParameter m_parameter;
+
+    private final String m_userValue;
+
+    private final boolean m_userDefaulted;
+
+    /**
+     * Remembers the current value of the parameter.
+     *
+     * @param parameter
+     *            The thread count parameter of the tool.
+     */
+    InjectedThreadCount(final IntegerParameter parameter) {
+        m_parameter = parameter;
+        m_userValue = parameter.getStringRep();
+        m_userDefaulted = parameter.isDefaulted();
+    }
+
+    /**
+     * @return The thread count parameter.
+     */
+    IntegerParameter getParameter() {
+        return m_parameter;
+    }
+
+    /**
+     * Sets the parameter to the given number of threads, respecting its
+     * bounds.
+     *
+     * @param threads
+     *            The suggested number of threads.
+     * @return The injected number of threads.
+     */
+    int inject(final int threads) {
+        int injected = threads;
+        if (m_parameter.getUpperBound() != null) {
+            injected = Math.min(injected, m_parameter.getUpperBound());
+        }
+        if (m_parameter.getLowerBound() != null) {
+            injected = Math.max(injected, m_parameter.getLowerBound());
+        }
+        m_parameter.setValue(injected);
+        return injected;
+    }
+
+    /**
+     * Restores the value and the defaulted flag the parameter had before.
+     *
+     * @throws InvalidParameterValueException
+     *             If the value of the user can not be restored.
+     */
+    void restore() throws InvalidParameterValueException {
+        m_parameter.fillFromString(m_userValue);
+        m_parameter.setDefaulted(m_userDefaulted);
+    }
+}
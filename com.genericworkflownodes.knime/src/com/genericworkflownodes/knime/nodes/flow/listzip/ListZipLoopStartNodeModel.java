@@ -43,6 +43,8 @@ import org.knime.core.node.port.PortType;
 import org.knime.core.node.port.PortTypeRegistry;
 import org.knime.core.node.workflow.LoopStartNodeTerminator;
 
+import com.genericworkflownodes.knime.base.data.port.SharedFileStoreURIPortObject;
+
 /**
  * Node model for the ListZipLoopStart node.
  * 
@@ -163,26 +165,23 @@ public class ListZipLoopStartNodeModel extends NodeModel implements
             assert getLoopEndNode() != null : "No end node set";
         }
 
-        IURIPortObject[] uriOutputObjects = new URIPortObject[PORT_COUNT];
+        IURIPortObject[] uriOutputObjects = new IURIPortObject[PORT_COUNT];
         m_rowCount = ((IURIPortObject) inObjects[0]).getURIContents().size();
 
+        // the outputs share the file stores of the inputs, so the files are
+        // neither copied nor registered again in every iteration
         // 1st port is handled separately
-        URIContent uri = ((IURIPortObject) inObjects[0]).getURIContents().get(
-                m_iteration);
-        List<URIContent> uriContents = new ArrayList<URIContent>();
-        uriContents.add(uri);
-        uriOutputObjects[0] = new URIPortObject(uriContents);
+        uriOutputObjects[0] = SharedFileStoreURIPortObject.share(
+                (IURIPortObject) inObjects[0], m_iteration, m_iteration + 1);
 
         for (int i = 1; i < PORT_COUNT; i++) {
             IURIPortObject in = (IURIPortObject) inObjects[i];
             if (i < m_numAssignedIncomingPorts) {
                 if (m_reuse.getBooleanValue()) {
-                    uriOutputObjects[i] = new URIPortObject(in.getURIContents());
+                    uriOutputObjects[i] = SharedFileStoreURIPortObject.share(in);
                 } else {
-                    List<URIContent> localUriContents = new ArrayList<URIContent>();
-                    URIContent localUri = in.getURIContents().get(m_iteration);
-                    localUriContents.add(localUri);
-                    uriOutputObjects[i] = new URIPortObject(localUriContents);
+                    uriOutputObjects[i] = SharedFileStoreURIPortObject.share(in,
+                            m_iteration, m_iteration + 1);
                 }
             } else {
                 uriOutputObjects[i] = new URIPortObject(
@@ -21,7 +21,6 @@ package com.genericworkflownodes.knime.nodes.flow.splitter;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 
 import org.knime.core.data.uri.IURIPortObject;
 import org.knime.core.data.uri.URIContent;
@@ -38,6 +37,8 @@ import org.knime.core.node.port.PortObject;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.node.port.PortType;
 
+import com.genericworkflownodes.knime.base.data.port.SharedFileStoreURIPortObject;
+
 /**
  * This is the model implementation of FileMerger. This nodes takes two files
  * (file lists) as input and outputs a merged list of both inputs.
@@ -84,15 +85,16 @@ public class FileSplitterNodeModel extends NodeModel {
     protected PortObject[] execute(final PortObject[] inData,
             final ExecutionContext exec) throws Exception {
         IURIPortObject input = (IURIPortObject) inData[0];
-        URIPortObject[] outputs = new URIPortObject[getOutgoing().length];
+        IURIPortObject[] outputs = new IURIPortObject[getOutgoing().length];
         
+        // the outputs share the file stores of the input instead of copying the files
         for (int i = 0; i < outputs.length-1 && input.getURIContents().size() > i; i++) {
-            outputs[i] = new URIPortObject( Arrays.asList(input.getURIContents().get(i)));
+            outputs[i] = SharedFileStoreURIPortObject.share(input, i, i + 1);
         }
         
         if (input.getURIContents().size() > getOutgoing().length - 1) {
-            outputs[outputs.length - 1] = new URIPortObject(input.getURIContents()
-                                                .subList(outputs.length - 1, input.getURIContents().size()));
+            outputs[outputs.length - 1] = SharedFileStoreURIPortObject.share(input,
+                                                outputs.length - 1, input.getURIContents().size());
         } else {
             for(int i = input.getURIContents().size(); i < outputs.length; i++) {
                 outputs[i] = new URIPortObject(new ArrayList<URIContent>());
@@ -0,0 +1,202 @@
+package com.genericworkflownodes.knime.nodes.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32C;
+
+/**
+ * A cheap fingerprint of a file that is used by reference instead of being
+ * copied, e.g., a raw data file of several hundred GB.
+ *
+ * The fingerprint consists of the size and the modification time of the file
+ * and, optionally, a checksum over a few evenly spaced samples of its content.
+ * The samples detect modifications that keep size and modification time, at
+ * the cost of reading {@value #SAMPLES} blocks of {@value #SAMPLE_SIZE} bytes.
+ */
+public final class FileFingerprint {
+
+    /**
+     * The number of sampled blocks.
+     */
+    static final int SAMPLES = 16;
+
+    /**
+     * The size of a sampled block.
+     */
+    static final int SAMPLE_SIZE = 64 * 1024;
+
+    /**
+     * Files modified more recently are considered to be still written to.
+     */
+    static final long MUTABLE_WINDOW_MS = 10000;
+
+    /**
+     * Marks a fingerprint without sampled hash.
+     */
+    private static final long NO_HASH = -1;
+
+    private final Path m_path;
+
+    private final long m_size;
+
+    private final long m_modified;
+
+    private final long m_sampledHash;
+
+    private FileFingerprint(final Path path, final long size,
+            final long modified, final long sampledHash) {
+        m_path = path;
+        m_size = size;
+        m_modified = modified;
+        m_sampledHash = sampledHash;
+    }
+
+    /**
+     * Takes the fingerprint of a file.
+     *
+     * @param file
+     *            The file.
+     * @param sampled
+     *            Whether to include a checksum over samples of the content.
+     * @return The fingerprint.
+     * @throws IOException
+     *             If the file can not be read.
+     */
+    public static FileFingerprint of(final Path file, final boolean sampled)
+            throws IOException {
+        Path path = file.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path,
+                BasicFileAttributes.class);
+        long size = attributes.size();
+        return new FileFingerprint(path, size, attributes.lastModifiedTime()
+                .toMillis(), sampled ? sampledHash(path, size) : NO_HASH);
+    }
+
+    /**
+     * Checks whether a file may still change, so that it has to be copied
+     * instead of being used by reference. This is the case for anything but a
+     * regular file and for files that were modified in the last
+     * {@value #MUTABLE_WINDOW_MS} ms, e.g., because a tool is still writing
+     * them.
+     *
+     * @param file
+     *            The file.
+     * @return <code>true</code> if the file has to be copied.
+     * @throws IOException
+     *             If the attributes of the file can not be read.
+     */
+    public static boolean isMutable(final Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file,
+                BasicFileAttributes.class);
+        return !attributes.isRegularFile()
+                || System.currentTimeMillis()
+                        - attributes.lastModifiedTime().toMillis() < MUTABLE_WINDOW_MS;
+    }
+
+    /**
+     * @return The absolute path of the file.
+     */
+    public Path getPath() {
+        return m_path;
+    }
+
+    /**
+     * Checks whether the file still has this fingerprint.
+     *
+     * @return <code>true</code> if the file exists and is unchanged.
+     */
+    public boolean matches() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(m_path,
+                    BasicFileAttributes.class);
+            if (attributes.size() != m_size
+                    || attributes.lastModifiedTime().toMillis() != m_modified) {
+                return false;
+            }
+            return m_sampledHash == NO_HASH
+                    || sampledHash(m_path, m_size) == m_sampledHash;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Fails if the file changed since the fingerprint was taken.
+     *
+     * @throws IOException
+     *             If the file was modified or removed.
+     */
+    public void verify() throws IOException {
+        if (!matches()) {
+            throw new IOException("The file " + m_path
+                    + " was modified or removed after it was imported by "
+                    + "reference. Please re-execute the importing node.");
+        }
+    }
+
+    /**
+     * Computes a checksum over {@value #SAMPLES} evenly spaced blocks, which
+     * always include the first and the last block of the file.
+     */
+    private static long sampledHash(final Path path, final long size)
+            throws IOException {
+        CRC32C checksum = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocate(SAMPLE_SIZE);
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            long last = Math.max(size - SAMPLE_SIZE, 0);
+            for (int i = 0; i < SAMPLES; ++i) {
+                long position = last * i / (SAMPLES - 1);
+                buffer.clear();
+                while (buffer.hasRemaining()
+                        && channel.read(buffer, position + buffer.position()) > 0) {
+                    // read the complete block
+                }
+                buffer.flip();
+                checksum.update(buffer);
+                if (last == 0) {
+                    break;
+                }
+            }
+        }
+        return checksum.getValue();
+    }
+
+    /**
+     * @return The fingerprint as a single line, see {@link #parse(String)}.
+     */
+    @Override
+    public String toString() {
+        return m_size + "\t" + m_modified + "\t" + m_sampledHash + "\t"
+                + m_path;
+    }
+
+    /**
+     * Restores a fingerprint written by {@link #toString()}.
+     *
+     * @param line
+     *            The line.
+     * @return The fingerprint.
+     * @throws IOException
+     *             If the line is no fingerprint.
+     */
+    public static FileFingerprint parse(final String line) throws IOException {
+        String[] fields = line.split("\t", 4);
+        if (fields.length != 4) {
+            throw new IOException("Invalid fingerprint: " + line);
+        }
+        try {
+            return new FileFingerprint(Paths.get(fields[3]),
+                    Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                    Long.parseLong(fields[2]));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid fingerprint: " + line, e);
+        }
+    }
+}
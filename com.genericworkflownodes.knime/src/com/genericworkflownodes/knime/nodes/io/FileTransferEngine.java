@@ -0,0 +1,392 @@
+package com.genericworkflownodes.knime.nodes.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
+
+import com.genericworkflownodes.knime.GenericNodesPlugin;
+
+/**
+ * Transfers files to their export locations, shared by the output nodes.
+ *
+ * If enabled, a file is hard linked if source and target are on the same
+ * local file system, otherwise it is copied with {@link FileChannel#transferTo}, which
+ * lets the operating system move the data without copying it through the
+ * Java heap. Several files are transferred in parallel, files with the same
+ * target are transferred one after the other in the order they were added,
+ * so the last one wins. Optionally, a file is
+ * first written next to its target and then moved into place atomically, and
+ * copies are verified by comparing checksums of source and target.
+ */
+public final class FileTransferEngine {
+
+    private static final NodeLogger LOGGER = NodeLogger
+            .getLogger(FileTransferEngine.class);
+
+    /**
+     * The bytes transferred between two checks for cancellation.
+     */
+    private static final long CHUNK_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Interval in which the progress is updated.
+     */
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private static final String TMP_PREFIX = ".gkn-export-";
+
+    private final List<Path[]> m_transfers = new ArrayList<Path[]>();
+
+    private int m_parallelism = Math.min(4, Runtime.getRuntime()
+            .availableProcessors());
+
+    private boolean m_hardLinks = false;
+
+    private boolean m_atomic = true;
+
+    private boolean m_verify = false;
+
+    private final AtomicLong m_transferredBytes = new AtomicLong();
+
+    private final AtomicInteger m_linked = new AtomicInteger();
+
+    private final AtomicBoolean m_canceled = new AtomicBoolean();
+
+    /**
+     * Creates an engine configured by the GKN preferences.
+     *
+     * @return The engine.
+     */
+    public static FileTransferEngine create() {
+        return new FileTransferEngine().setHardLinks(
+                GenericNodesPlugin.isExportHardLinks()).setVerifyChecksums(
+                GenericNodesPlugin.isExportChecksumVerification());
+    }
+
+    /**
+     * @param parallelism
+     *            The number of files transferred at the same time.
+     * @return This engine.
+     */
+    public FileTransferEngine setParallelism(final int parallelism) {
+        m_parallelism = Math.max(parallelism, 1);
+        return this;
+    }
+
+    /**
+     * @param hardLinks
+     *            Whether files may be hard linked instead of copied. A linked
+     *            target shares its content with the source, so this is off
+     *            by default.
+     * @return This engine.
+     */
+    public FileTransferEngine setHardLinks(final boolean hardLinks) {
+        m_hardLinks = hardLinks;
+        return this;
+    }
+
+    /**
+     * @param atomic
+     *            Whether files are moved into place atomically, so a target
+     *            is never seen partially written.
+     * @return This engine.
+     */
+    public FileTransferEngine setAtomic(final boolean atomic) {
+        m_atomic = atomic;
+        return this;
+    }
+
+    /**
+     * @param verify
+     *            Whether copies are verified by comparing checksums.
+     * @return This engine.
+     */
+    public FileTransferEngine setVerifyChecksums(final boolean verify) {
+        m_verify = verify;
+        return this;
+    }
+
+    /**
+     * Adds a file to transfer. An existing target is replaced, also by a
+     * later file added with the same target.
+     *
+     * @param source
+     *            The file to export.
+     * @param target
+     *            The export location.
+     * @return This engine.
+     */
+    public FileTransferEngine add(final Path source, final Path target) {
+        m_transfers.add(new Path[] { source, target });
+        return this;
+    }
+
+    /**
+     * @return The number of files that were hard linked instead of copied.
+     */
+    public int getLinkedFiles() {
+        return m_linked.get();
+    }
+
+    /**
+     * Transfers all added files.
+     *
+     * @param exec
+     *            The monitor to report the progress to and check for
+     *            cancellation.
+     * @throws IOException
+     *             If a file could not be transferred.
+     * @throws CanceledExecutionException
+     *             If the execution was canceled. Files not completely
+     *             transferred are removed.
+     */
+    public void run(final ExecutionMonitor exec) throws IOException,
+            CanceledExecutionException {
+        long totalBytes = 0;
+        for (Path[] transfer : m_transfers) {
+            totalBytes += Files.size(transfer[0]);
+        }
+        // transfers to the same target must not race, keep them in order
+        Map<Path, List<Path[]>> byTarget = new LinkedHashMap<Path, List<Path[]>>();
+        for (Path[] transfer : m_transfers) {
+            Path key = transfer[1].toAbsolutePath().normalize();
+            List<Path[]> group = byTarget.get(key);
+            if (group == null) {
+                group = new ArrayList<Path[]>();
+                byTarget.put(key, group);
+            }
+            group.add(transfer);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Math.min(m_parallelism, Math.max(byTarget.size(), 1)),
+                r -> {
+                    Thread thread = new Thread(r, "GKN-FileTransfer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        List<Integer> groupSizes = new ArrayList<Integer>();
+        try {
+            for (final List<Path[]> group : byTarget.values()) {
+                futures.add(pool.submit(() -> {
+                    for (Path[] transfer : group) {
+                        transfer(transfer[0], transfer[1]);
+                    }
+                    return null;
+                }));
+                groupSizes.add(group.size());
+            }
+            int done = 0;
+            for (int i = 0; i < futures.size(); ++i) {
+                Future<?> future = futures.get(i);
+                while (true) {
+                    try {
+                        future.get(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        exec.checkCanceled();
+                        reportProgress(exec, totalBytes, done);
+                    }
+                }
+                done += groupSizes.get(i);
+                reportProgress(exec, totalBytes, done);
+            }
+            exec.checkCanceled();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while exporting files", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException) cause;
+            }
+            throw cause instanceof IOException ? (IOException) cause
+                    : new IOException(cause);
+        } finally {
+            m_canceled.set(true);
+            pool.shutdown();
+            try {
+                // let the running transfers clean up their temporary files
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        LOGGER.debug("Exported " + m_transfers.size() + " files ("
+                + m_linked.get() + " linked, " + m_transferredBytes.get()
+                + " bytes copied)");
+    }
+
+    private void reportProgress(final ExecutionMonitor exec,
+            final long totalBytes, final int done) {
+        double progress = totalBytes > 0 ? (double) m_transferredBytes.get()
+                / totalBytes : (double) done / m_transfers.size();
+        exec.setProgress(Math.min(progress, 1.0), "Exported " + done + " of "
+                + m_transfers.size() + " files");
+    }
+
+    /**
+     * Transfers a single file.
+     */
+    private void transfer(final Path source, final Path target)
+            throws IOException, CanceledExecutionException {
+        if (m_canceled.get()) {
+            throw new CanceledExecutionException();
+        }
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = m_atomic && parent != null ? parent.resolve(TMP_PREFIX
+                + Long.toHexString(System.nanoTime()) + "-"
+                + target.getFileName()) : target;
+        boolean success = false;
+        try {
+            if (!link(source, tmp, target)) {
+                copy(source, tmp);
+                if (m_verify) {
+                    verify(source, tmp);
+                }
+            }
+            if (tmp != target) {
+                moveIntoPlace(tmp, target);
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    LOGGER.debug("Could not remove incomplete file " + tmp);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tries to hard link the source.
+     *
+     * @return <code>false</code> if the file has to be copied.
+     */
+    private boolean link(final Path source, final Path tmp, final Path target)
+            throws IOException {
+        if (!m_hardLinks
+                || source.getFileSystem() != FileSystems.getDefault()
+                || target.getFileSystem() != FileSystems.getDefault()) {
+            return false;
+        }
+        try {
+            if (tmp == target) {
+                Files.deleteIfExists(target);
+            }
+            Files.createLink(tmp, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            // e.g., different devices or no hard link support
+            return false;
+        }
+        m_linked.incrementAndGet();
+        m_transferredBytes.addAndGet(Files.size(source));
+        return true;
+    }
+
+    private void copy(final Path source, final Path target)
+            throws IOException, CanceledExecutionException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                WritableByteChannel out = Files.newByteChannel(target,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                if (m_canceled.get()) {
+                    throw new CanceledExecutionException();
+                }
+                long transferred = in.transferTo(position,
+                        Math.min(CHUNK_SIZE, size - position), out);
+                if (transferred <= 0) {
+                    // transferTo may give up, e.g., for some channel types
+                    transferred = copyChunk(in, position, out);
+                }
+                position += transferred;
+                m_transferredBytes.addAndGet(transferred);
+            }
+        }
+        if (target.getFileSystem() == FileSystems.getDefault()) {
+            // as the former FileUtils.copyFile
+            Files.setLastModifiedTime(target,
+                    Files.getLastModifiedTime(source));
+        }
+    }
+
+    private static long copyChunk(final FileChannel in, final long position,
+            final WritableByteChannel out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        int read = in.read(buffer, position);
+        if (read < 0) {
+            throw new IOException("Unexpected end of file");
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        return read;
+    }
+
+    private static void verify(final Path source, final Path target)
+            throws IOException {
+        if (checksum(source) != checksum(target)) {
+            throw new IOException("Checksum mismatch after copying " + source
+                    + " to " + target);
+        }
+    }
+
+    private static long checksum(final Path file) throws IOException {
+        Checksum checksum = new CRC32C();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                checksum.update(buffer, 0, read);
+            }
+        }
+        return checksum.getValue();
+    }
+
+    private static void moveIntoPlace(final Path tmp, final Path target)
+            throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
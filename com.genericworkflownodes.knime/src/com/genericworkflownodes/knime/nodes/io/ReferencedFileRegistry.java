@@ -0,0 +1,124 @@
+package com.genericworkflownodes.knime.nodes.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the fingerprints of the files that importing nodes passed on by
+ * reference instead of copying them. Nodes that consume a file check it
+ * against its fingerprint before using it, so a file modified after the
+ * import is not processed silently.
+ */
+public final class ReferencedFileRegistry {
+
+    /**
+     * The name of the file the importing nodes save their fingerprints to.
+     */
+    public static final String FINGERPRINT_FILE = "fingerprints.txt";
+
+    private static final ReferencedFileRegistry INSTANCE = new ReferencedFileRegistry();
+
+    private final Map<String, FileFingerprint> m_fingerprints = new ConcurrentHashMap<String, FileFingerprint>();
+
+    ReferencedFileRegistry() {
+    }
+
+    /**
+     * @return The registry shared by all GKN nodes.
+     */
+    public static ReferencedFileRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the fingerprint of a referenced file, replacing an older one.
+     *
+     * @param fingerprint
+     *            The fingerprint.
+     */
+    public void register(final FileFingerprint fingerprint) {
+        m_fingerprints.put(fingerprint.getPath().toString(), fingerprint);
+    }
+
+    /**
+     * Removes a fingerprint, unless the file was registered again since.
+     *
+     * @param fingerprint
+     *            The fingerprint.
+     */
+    public void unregister(final FileFingerprint fingerprint) {
+        m_fingerprints.remove(fingerprint.getPath().toString(), fingerprint);
+    }
+
+    /**
+     * Checks a file before it is used. Files that were not imported by
+     * reference are not checked.
+     *
+     * @param file
+     *            The file.
+     * @throws IOException
+     *             If the file changed since it was imported.
+     */
+    public void verify(final File file) throws IOException {
+        FileFingerprint fingerprint = m_fingerprints.get(file.toPath()
+                .toAbsolutePath().normalize().toString());
+        if (fingerprint != null) {
+            fingerprint.verify();
+        }
+    }
+
+    /**
+     * Saves fingerprints to the {@link #FINGERPRINT_FILE} in a directory, e.g.,
+     * the internals of a node.
+     *
+     * @param directory
+     *            The directory.
+     * @param fingerprints
+     *            The fingerprints.
+     * @throws IOException
+     *             If the file could not be written.
+     */
+    public static void save(final File directory,
+            final Collection<FileFingerprint> fingerprints) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        for (FileFingerprint fingerprint : fingerprints) {
+            lines.add(fingerprint.toString());
+        }
+        Files.write(new File(directory, FINGERPRINT_FILE).toPath(), lines,
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Loads the fingerprints saved with {@link #save(File, Collection)} and
+     * registers them.
+     *
+     * @param directory
+     *            The directory.
+     * @return The fingerprints, empty if none were saved.
+     * @throws IOException
+     *             If the file could not be read.
+     */
+    public List<FileFingerprint> load(final File directory) throws IOException {
+        List<FileFingerprint> fingerprints = new ArrayList<FileFingerprint>();
+        File file = new File(directory, FINGERPRINT_FILE);
+        if (!file.exists()) {
+            return fingerprints;
+        }
+        for (String line : Files.readAllLines(file.toPath(),
+                StandardCharsets.UTF_8)) {
+            if (!line.isEmpty()) {
+                FileFingerprint fingerprint = FileFingerprint.parse(line);
+                register(fingerprint);
+                fingerprints.add(fingerprint);
+            }
+        }
+        return fingerprints;
+    }
+}
@@ -4,12 +4,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.CopyOption;
-import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.knime.core.data.container.DataContainer;
 import org.knime.core.data.uri.IURIPortObject;
@@ -38,6 +38,8 @@ import org.knime.filehandling.core.defaultnodesettings.filechooser.writer.WriteP
 import org.knime.filehandling.core.defaultnodesettings.status.NodeModelStatusConsumer;
 import org.knime.filehandling.core.defaultnodesettings.status.StatusMessage.MessageType;
 
+import com.genericworkflownodes.knime.nodes.io.FileTransferEngine;
+
 /**
  * The model of the File Exporter node.
  *
@@ -104,6 +106,9 @@ final class FileExporterNodeModel extends NodeModel {
             }
 
             int overwriteCounter = 1;
+            final FileTransferEngine engine = FileTransferEngine.create();
+            // the files are transferred together, so earlier targets do not exist yet
+            final Set<String> plannedTargets = new HashSet<String>();
             for (URIContent uc : uriPort.getURIContents()) {
                 //For now we assume that all URIs are local (usually in the KNIME tmp folder)
                 Path source = Paths.get(uc.getURI());
@@ -116,20 +121,23 @@ final class FileExporterNodeModel extends NodeModel {
                 //  we will add suffixes by default, in case filenames *in the port* overwrite each other.
                 // TODO Warning, this will lead to unexpected behavior when files with the same name are 
                 //  created by another process, after the first check has been performed.
-                if (fileOverwritePolicy == FileOverwritePolicy.FAIL && FSFiles.exists(target)) {
+                if (fileOverwritePolicy == FileOverwritePolicy.FAIL
+                        && (FSFiles.exists(target) || plannedTargets.contains(target.toString()))) {
                     LOGGER.warn("While trying to write to " + target.toString() + ": File suddenly exists. Either multiple files in your FilePort"
                             + " had the same filename or another process created the file after the initial existence check. File will be copied with a suffix.");
                     target = createReplacementFile(target, overwriteCounter);
                 }
-                try {
-                    Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
-                } catch (IOException e) {
-                    LOGGER.error(e.toString());
-                    throw e;
-                }
+                plannedTargets.add(target.toString());
+                engine.add(source, target);
                 overwriteCounter += 1;
                 
             }
+            try {
+                engine.run(exec);
+            } catch (IOException e) {
+                LOGGER.error(e.toString());
+                throw e;
+            }
         }
         return new PortObject[]{};
     }
@@ -26,6 +26,7 @@ package com.genericworkflownodes.knime.nodes.io.nioimporter;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.defaultnodesettings.SettingsModelOptionalString;
 import org.knime.filehandling.core.defaultnodesettings.filechooser.reader.SettingsModelReaderFileChooser;
 
@@ -37,9 +38,25 @@ final class MimeFileNioImporterNodeConfiguration {
 
     private SettingsModelOptionalString m_overwriteFileExtension;
 
+    private static final String CFG_COPY_LOCAL = "COPY_LOCAL_FILES";
+
+    /**
+     * Whether local files are copied instead of being referenced in place.
+     */
+    private final SettingsModelBoolean m_copyLocalFiles;
+
+    private static final String CFG_SAMPLED_HASH = "SAMPLED_HASH";
+
+    /**
+     * Whether the fingerprint of a referenced file includes a sampled hash.
+     */
+    private final SettingsModelBoolean m_sampledHash;
+
     MimeFileNioImporterNodeConfiguration(final SettingsModelReaderFileChooser fileChooserSettings) {
         m_fileChooserSettings = fileChooserSettings;
         m_overwriteFileExtension = new SettingsModelOptionalString(CFG_OVERWRITE_EXT, "", false);
+        m_copyLocalFiles = new SettingsModelBoolean(CFG_COPY_LOCAL, false);
+        m_sampledHash = new SettingsModelBoolean(CFG_SAMPLED_HASH, false);
     }
     
     SettingsModelOptionalString overwriteFileExtension() {
@@ -50,6 +67,14 @@ final class MimeFileNioImporterNodeConfiguration {
         m_overwriteFileExtension.setStringValue(overwriteFileExtension);
     }
 
+    SettingsModelBoolean copyLocalFiles() {
+        return m_copyLocalFiles;
+    }
+
+    SettingsModelBoolean sampledHash() {
+        return m_sampledHash;
+    }
+
     SettingsModelReaderFileChooser getFileChooserSettings() {
         return m_fileChooserSettings;
     }
@@ -57,6 +82,14 @@ final class MimeFileNioImporterNodeConfiguration {
     void loadSettingsForDialog(final NodeSettingsRO settings) throws InvalidSettingsException {
         m_fileChooserSettings.loadSettingsFrom(settings);
         m_overwriteFileExtension.loadSettingsFrom(settings);
+        // settings of older versions reference local files without fingerprint
+        if (settings.containsKey(CFG_COPY_LOCAL)) {
+            m_copyLocalFiles.loadSettingsFrom(settings);
+            m_sampledHash.loadSettingsFrom(settings);
+        } else {
+            m_copyLocalFiles.setBooleanValue(false);
+            m_sampledHash.setBooleanValue(false);
+        }
     }
 
     void loadSettingsForModel(final NodeSettingsRO settings) throws InvalidSettingsException {
@@ -66,6 +99,8 @@ final class MimeFileNioImporterNodeConfiguration {
     void saveSettingsForDialog(final NodeSettingsWO settings) {
         m_fileChooserSettings.saveSettingsTo(settings);
         m_overwriteFileExtension.saveSettingsTo(settings);
+        m_copyLocalFiles.saveSettingsTo(settings);
+        m_sampledHash.saveSettingsTo(settings);
     }
 
     void saveSettingsForModel(final NodeSettingsWO settings) {
@@ -75,6 +110,10 @@ final class MimeFileNioImporterNodeConfiguration {
     void validateSettingsForModel(final NodeSettingsRO settings) throws InvalidSettingsException {
         m_fileChooserSettings.validateSettings(settings);
         m_overwriteFileExtension.validateSettings(settings);
+        if (settings.containsKey(CFG_COPY_LOCAL)) {
+            m_copyLocalFiles.validateSettings(settings);
+            m_sampledHash.validateSettings(settings);
+        }
     }
 
 }
\ No newline at end of file
@@ -54,7 +54,7 @@ import org.knime.filehandling.core.defaultnodesettings.status.NodeModelStatusCon
 import org.knime.filehandling.core.defaultnodesettings.status.StatusMessage.MessageType;
 import org.knime.filehandling.core.port.FileSystemPortObject;
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
-//import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
+import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
 import org.knime.core.node.defaultnodesettings.DialogComponentLabel;
 import org.knime.core.node.defaultnodesettings.DialogComponentOptionalString;
 import org.knime.core.node.defaultnodesettings.DialogComponentStringSelection;
@@ -245,6 +245,12 @@ ConfigurableNodeFactory<MimeFileNioImporterNodeModel> {
         pane.addDialogComponent(fileChooser1);
         pane.addDialogComponent(fileExtension);
         pane.addDialogComponent(label);
+        pane.addDialogComponent(new DialogComponentBoolean(
+                extConfig.copyLocalFiles(),
+                "Copy local files (instead of referencing them in place)"));
+        pane.addDialogComponent(new DialogComponentBoolean(
+                extConfig.sampledHash(),
+                "Detect changes of referenced files by sampled content hash"));
         return pane;
     }
 
@@ -29,7 +29,9 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.FilenameUtils;
 import org.knime.core.data.filestore.FileStore;
@@ -58,6 +60,9 @@ import org.knime.filehandling.core.defaultnodesettings.status.NodeModelStatusCon
 import org.knime.filehandling.core.defaultnodesettings.status.StatusMessage.MessageType;
 
 import com.genericworkflownodes.knime.generic_node.ExecutionFailedException;
+import com.genericworkflownodes.knime.nodes.io.FileFingerprint;
+import com.genericworkflownodes.knime.nodes.io.FileTransferEngine;
+import com.genericworkflownodes.knime.nodes.io.ReferencedFileRegistry;
 import com.genericworkflownodes.util.MIMETypeHelper;
 import com.genericworkflownodes.knime.base.data.port.FileStoreURIPortObject;
 
@@ -83,6 +88,11 @@ final class MimeFileNioImporterNodeModel extends NodeModel {
     private static final String CFG_IMPORTED_FILES = "IMPORTED_FILES";
 
     private SettingsModelStringArray m_importedFiles;
+
+    /**
+     * The fingerprints of the files passed on by reference.
+     */
+    private final List<FileFingerprint> m_fingerprints = new ArrayList<FileFingerprint>();
     
     /**
      * Getter for data member.
@@ -111,6 +121,10 @@ final class MimeFileNioImporterNodeModel extends NodeModel {
      */
     @Override
     protected void reset() {
+        for (FileFingerprint fingerprint : m_fingerprints) {
+            ReferencedFileRegistry.getInstance().unregister(fingerprint);
+        }
+        m_fingerprints.clear();
     }
 
     /**
@@ -149,6 +163,7 @@ final class MimeFileNioImporterNodeModel extends NodeModel {
             final ExecutionMonitor exec) throws IOException, CanceledExecutionException {
 
         //this.data = ZipUtils.read(getDataFile(internDir));
+        m_fingerprints.addAll(ReferencedFileRegistry.getInstance().load(internDir));
     }
 
     /**
@@ -159,6 +174,7 @@ final class MimeFileNioImporterNodeModel extends NodeModel {
             final ExecutionMonitor exec) throws IOException, CanceledExecutionException {
 
         //ZipUtils.write(this.data, getDataFile(internDir));
+        ReferencedFileRegistry.save(internDir, m_fingerprints);
     }
 
     @Override
@@ -210,20 +226,25 @@ final class MimeFileNioImporterNodeModel extends NodeModel {
             List<String> impFiles = new ArrayList<String>();
             FileStore filestore = null;
             FileStoreURIPortObject po = null;
+            boolean copyLocal = m_config.copyLocalFiles().getBooleanValue();
+            boolean sampled = m_config.sampledHash().getBooleanValue();
+            Map<FSPath, Path> referenced = new LinkedHashMap<FSPath, Path>();
             for (final FSPath p : fsPaths) {
                 FSType fs = p.toFSLocation().getFSType();
                 // We let the URIExporter convert first because it nicely groups all KNIME file systems under the knime:// scheme
                 NoConfigURIExporterFactory fs_urifactory = (NoConfigURIExporterFactory) m_config.getFileChooserSettings().getConnection().getURIExporterFactory(URIExporterIDs.DEFAULT);
                 URI u = fs_urifactory.getExporter().toUri(p);
                 
+                File localFile = null;
                 if (fs == FSType.LOCAL_FS)
                 {
                     if (!u.getScheme().equals("file"))
                     {
                         throw new ExecutionFailedException("Local filesystem Path was not translated to a file:// URL. Something is wrong.");
                     }
+                    localFile = Paths.get(u).toFile();
                 }
-                else 
+                else if (u.getScheme().equals("knime") || u.getScheme().equals("file"))
                 {
                     // We can then use the old (i.e., check for deprecation from time to time) FileUtil.resolveToPath to check if this KNIME URL
                     //  is convertible to a local file path (e.g., because the mountpoint and/or the workflow for which this URL stands for
@@ -231,29 +252,32 @@ final class MimeFileNioImporterNodeModel extends NodeModel {
                     //  If this is not null, and a local URL can be generated we just pass on the URL to the port. We actually could put the translated URL there
                     //  already I think.
                     // Checking for file:// should be unnecessary since we do it in the if-case above. Just in case.
-                    if (!((u.getScheme().equals("knime") || u.getScheme().equals("file")) && ResolverUtil.resolveURItoLocalFile(u) != null))
+                    localFile = ResolverUtil.resolveURItoLocalFile(u);
+                }
+
+                // Local files are passed on by reference, remote files and files that may still change are copied
+                if (localFile != null && !copyLocal && !FileFingerprint.isMutable(localFile.toPath()))
+                {
+                    referenced.put(p, localFile.toPath());
+                }
+                else
+                {
+                    String foldername = "FileImporter" + NodeContext.getContext().getNodeContainer().getID();
+                    String oldFileName = p.getFileName().toString();
+                    //TODO add suffix for possible duplicates? Could happen when you recurse into subfolders.
+                    //TODO decide about replacing or use UID from the beginning
+                    if (filestore == null)
                     {
-                        String foldername = "FileImporter" + NodeContext.getContext().getNodeContainer().getID();
-                        String oldFileName = p.getFileName().toString();
-                        //TODO add suffix for possible duplicates? Could happen when you recurse into subfolders.
-                        //TODO decide about replacing or use UID from the beginning
-                        if (filestore == null)
-                        {
-                            filestore = exec.createFileStore(foldername);
-                            filestore.getFile().mkdirs();
-                            po = new FileStoreURIPortObject(filestore);
-                        }
-                        
-                        Path tgt = Paths.get(filestore.getFile().toString(), oldFileName);
-                        Files.copy(p, tgt, StandardCopyOption.REPLACE_EXISTING);
-                        if (m_config.overwriteFileExtension().isActive()) {
-                            po.registerFile(oldFileName, m_config.overwriteFileExtension().getStringValue());
-                        } else {
-                            po.registerFile(oldFileName);
-                        }
-                        
-                        u = tgt.toUri();
+                        filestore = exec.createFileStore(foldername);
+                        filestore.getFile().mkdirs();
+                        po = new FileStoreURIPortObject(filestore);
                     }
+                    
+                    Path tgt = Paths.get(filestore.getFile().toString(), oldFileName);
+                    Files.copy(p, tgt, StandardCopyOption.REPLACE_EXISTING);
+                    registerFile(po, oldFileName);
+                    
+                    u = tgt.toUri();
                 }
                 uris.add(new URIContent(u,
                         (m_config.overwriteFileExtension().isActive() ? 
@@ -263,8 +287,24 @@ final class MimeFileNioImporterNodeModel extends NodeModel {
             }
             
             if (filestore == null) {
+                for (Path file : referenced.values()) {
+                    addFingerprint(file, sampled);
+                }
                 return new PortObject[] { new URIPortObject(uris) };
             } else {
+                // The port can not mix references and file store files, so the referenced files are linked
+                //  into the file store, which takes no additional space if it is on the same file system.
+                FileTransferEngine engine = new FileTransferEngine();
+                List<Path> linked = new ArrayList<Path>();
+                for (Map.Entry<FSPath, Path> entry : referenced.entrySet()) {
+                    Path tgt = registerFile(po, entry.getKey().getFileName().toString()).toPath();
+                    engine.add(entry.getValue(), tgt);
+                    linked.add(tgt);
+                }
+                engine.run(exec);
+                for (Path file : linked) {
+                    addFingerprint(file, sampled);
+                }
                 return new PortObject[] { po };
             }
         
@@ -274,4 +314,26 @@ final class MimeFileNioImporterNodeModel extends NodeModel {
             return new PortObject[] { };
         }
     }
+
+    /**
+     * Registers a file in the file store of the port with the configured or
+     * the detected extension.
+     */
+    private File registerFile(final FileStoreURIPortObject po, final String filename) {
+        if (m_config.overwriteFileExtension().isActive()) {
+            return po.registerFile(filename, m_config.overwriteFileExtension().getStringValue());
+        } else {
+            return po.registerFile(filename);
+        }
+    }
+
+    /**
+     * Takes the fingerprint of a file passed on by reference, so that it is
+     * checked before the file is used downstream.
+     */
+    private void addFingerprint(final Path file, final boolean sampled) throws IOException {
+        FileFingerprint fingerprint = FileFingerprint.of(file, sampled);
+        ReferencedFileRegistry.getInstance().register(fingerprint);
+        m_fingerprints.add(fingerprint);
+    }
 }
@@ -30,7 +30,6 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.knime.core.data.uri.IURIPortObject;
 import org.knime.core.data.uri.URIContent;
@@ -50,6 +49,7 @@ import org.knime.core.node.port.PortType;
 import org.knime.core.node.port.PortTypeRegistry;
 import org.knime.core.util.FileUtil;
 
+import com.genericworkflownodes.knime.nodes.io.FileTransferEngine;
 import com.genericworkflownodes.util.Helper;
 import com.genericworkflownodes.util.MIMETypeHelper;
 
@@ -166,7 +166,7 @@ public class OutputFileNodeModel extends NodeModel {
             throw new InvalidSettingsException("Can only write to local paths.");
         }
         
-        FileUtils.copyFile(in, out);
+        FileTransferEngine.create().add(in.toPath(), out.toPath()).run(exec);
 
         data = Helper.readFileSummary(in, 50);
 
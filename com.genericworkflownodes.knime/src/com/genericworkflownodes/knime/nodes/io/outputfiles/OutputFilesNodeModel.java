@@ -23,7 +23,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.commons.io.FileUtils;
 import org.knime.core.data.uri.IURIPortObject;
 import org.knime.core.data.uri.URIContent;
 import org.knime.core.data.uri.URIPortObjectSpec;
@@ -42,6 +41,7 @@ import org.knime.core.node.port.PortType;
 import org.knime.core.node.port.PortTypeRegistry;
 import org.knime.core.util.FileUtil;
 
+import com.genericworkflownodes.knime.nodes.io.FileTransferEngine;
 import com.genericworkflownodes.util.MIMETypeHelper;
 
 /**
@@ -180,6 +180,7 @@ public class OutputFilesNodeModel extends NodeModel {
         }
       
         idx = 0;
+        FileTransferEngine engine = FileTransferEngine.create();
         for (URIContent uri : uris) {
             File in = FileUtil.getFileFromURL(uri.getURI().toURL());
             if (!in.canRead()) {
@@ -187,8 +188,9 @@ public class OutputFilesNodeModel extends NodeModel {
                         + in.getAbsolutePath());
             }
             File out = outputs.get(idx++);
-            FileUtils.copyFile(in, out);
+            engine.add(in.toPath(), out.toPath());
         }
+        engine.run(exec);
         return null;
     }
 
@@ -6,7 +6,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.uri.IURIPortObject;
@@ -27,6 +26,8 @@ import org.knime.core.node.port.PortType;
 import org.knime.core.node.port.PortTypeRegistry;
 import org.knime.core.util.FileUtil;
 
+import com.genericworkflownodes.knime.nodes.io.FileTransferEngine;
+
 /**
  * This is the model implementation of OutputFolder. Writes all the incoming
  * files to the given output folder.
@@ -115,16 +116,14 @@ public class OutputFolderNodeModel extends NodeModel {
         }
         
         // Now actually copy all the files
-        double idx = 1.0;
+        FileTransferEngine engine = FileTransferEngine.create();
         int i = 0;
         for (URIContent uri : uris) {
             File in = FileUtil.getFileFromURL(uri.getURI().toURL());
-            File target = targets.get(i);
-            FileUtils.copyFile(in, target);
-            exec.setProgress(idx / uris.size());
-            exec.checkCanceled();
+            engine.add(in.toPath(), targets.get(i).toPath());
             i++;
         }
+        engine.run(exec);
         return null;
     }
 
@@ -9,6 +9,7 @@ import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 
 import com.genericworkflownodes.knime.GenericNodesPlugin;
+import com.genericworkflownodes.knime.execution.impl.LocalDockerToolExecutor;
 
 public class DockerMachinePreferencePage extends FieldEditorPreferencePage
         implements IWorkbenchPreferencePage {
@@ -39,6 +40,18 @@ public class DockerMachinePreferencePage extends FieldEditorPreferencePage
      * Docker container
      */
     private BooleanFieldEditor dockerToolBoxFieldEditor;
+
+    /**
+     * The {@link BooleanFieldEditor} to specify whether tools run in
+     * long-lived containers through 'docker exec'.
+     */
+    private BooleanFieldEditor containerReuseFieldEditor;
+
+    /**
+     * The {@link DirectoryFieldEditor} to select the host directory shared
+     * with the long-lived containers.
+     */
+    private DirectoryFieldEditor mountRootFieldEditor;
     
     
     public DockerMachinePreferencePage() {
@@ -101,6 +114,18 @@ public class DockerMachinePreferencePage extends FieldEditorPreferencePage
                 PreferenceInitializer.DOCKER_MACHINE_USAGE, 
                 "Docker-Toolbox usage", getFieldEditorParent());
         addField(dockerToolBoxFieldEditor);
+
+        containerReuseFieldEditor = new BooleanFieldEditor(
+                PreferenceInitializer.PREF_DOCKER_CONTAINER_REUSE,
+                "Reuse long-lived containers (docker exec)", getFieldEditorParent());
+        addField(containerReuseFieldEditor);
+
+        mountRootFieldEditor = new DirectoryFieldEditor(
+                PreferenceInitializer.PREF_DOCKER_MOUNT_ROOT,
+                "Directory shared with long-lived containers", //$NON-NLS-1$
+                getFieldEditorParent());
+        addField(mountRootFieldEditor);
+        mountRootFieldEditor.setEmptyStringAllowed(true);
     }
 
     
@@ -118,6 +143,14 @@ public class DockerMachinePreferencePage extends FieldEditorPreferencePage
         GenericNodesPlugin.setDockerToolBoxUsage(flag);
         GenericNodesPlugin.setDockerInstallationDir(dockerInstallDir);
         GenericNodesPlugin.setVmInstllationDir(vmInstallDir);
+        // the machine might have changed
+        LocalDockerToolExecutor.resetDockerMachineEnvironments();
+
+        boolean reuse = containerReuseFieldEditor.getBooleanValue();
+        String mountRoot = mountRootFieldEditor.getStringValue();
+        store.setValue(PreferenceInitializer.PREF_DOCKER_CONTAINER_REUSE, reuse);
+        store.setValue(PreferenceInitializer.PREF_DOCKER_MOUNT_ROOT, mountRoot);
+        GenericNodesPlugin.setDockerContainerReuse(reuse, mountRoot);
         return true;
     }
 }
@@ -52,6 +52,81 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
      * Preferences key for the VM installation directory.
      */
     public static final String VM_INSTALLATION_DIRECTORY = "knime.gkn.vmInstallationDir";
+
+    /**
+     * Preferences key for reading the tool output directly from the process
+     * pipes instead of tailing log files.
+     */
+    public static final String PREF_PIPE_OUTPUT_CAPTURE = "knime.gkn.pipeOutputCapture";
+
+    /**
+     * Preferences key for the number of stdout/stderr lines kept in memory.
+     */
+    public static final String PREF_OUTPUT_WINDOW_LINES = "knime.gkn.outputWindowLines";
+
+    /**
+     * Preferences key for the amount of stdout/stderr (in KB) kept in memory.
+     */
+    public static final String PREF_OUTPUT_WINDOW_KB = "knime.gkn.outputWindowKB";
+
+    /**
+     * Preferences key for the number of CPU slots shared by all running tools.
+     */
+    public static final String PREF_EXECUTION_CPU_SLOTS = "knime.gkn.executionCpuSlots";
+
+    /**
+     * Preferences key for the memory (in MB) shared by all running tools.
+     */
+    public static final String PREF_EXECUTION_MEMORY_MB = "knime.gkn.executionMemoryMB";
+
+    /**
+     * Preferences key for reusing the outputs of identical tool executions.
+     */
+    public static final String PREF_RESULT_CACHE = "knime.gkn.resultCache";
+
+    /**
+     * Preferences key for identifying cached inputs by their attributes
+     * instead of their content.
+     */
+    public static final String PREF_RESULT_CACHE_FAST_MODE = "knime.gkn.resultCacheFastMode";
+
+    /**
+     * Preferences key for the disk budget (in MB) of the result cache.
+     */
+    public static final String PREF_RESULT_CACHE_MB = "knime.gkn.resultCacheMB";
+
+    /**
+     * Preferences key for running Docker tools in long-lived containers.
+     */
+    public static final String PREF_DOCKER_CONTAINER_REUSE = "knime.gkn.dockerContainerReuse";
+
+    /**
+     * Preferences key for the host directory shared with the long-lived
+     * Docker containers.
+     */
+    public static final String PREF_DOCKER_MOUNT_ROOT = "knime.gkn.dockerMountRoot";
+
+    /**
+     * Preferences key for the disk budget (in MB) of finished job directories
+     * waiting for deletion in the background.
+     */
+    public static final String PREF_JOB_TRASH_MB = "knime.gkn.jobTrashMB";
+
+    /**
+     * Preferences key for the disk budget (in MB) of the local copies of
+     * non-local input files.
+     */
+    public static final String PREF_STAGING_CACHE_MB = "knime.gkn.stagingCacheMB";
+
+    /**
+     * Preferences key for exporting files as hard links where possible.
+     */
+    public static final String PREF_EXPORT_HARD_LINKS = "knime.gkn.exportHardLinks";
+
+    /**
+     * Preferences key for verifying exported copies by checksum.
+     */
+    public static final String PREF_EXPORT_VERIFY = "knime.gkn.exportVerify";
     
     @Override
     public void initializeDefaultPreferences() {
@@ -62,6 +137,33 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
         // set default values
         store.setDefault(PREF_DEBUG_MODE, GenericNodesPlugin.isDebug());
         store.setDefault(DOCKER_MACHINE_USAGE, GenericNodesPlugin.isDebug());
+        store.setDefault(PREF_PIPE_OUTPUT_CAPTURE,
+                GenericNodesPlugin.isPipeOutputCapture());
+        store.setDefault(PREF_OUTPUT_WINDOW_LINES,
+                GenericNodesPlugin.getOutputWindowLines());
+        store.setDefault(PREF_OUTPUT_WINDOW_KB,
+                (int) (GenericNodesPlugin.getOutputWindowChars() / 1024));
+        store.setDefault(PREF_EXECUTION_CPU_SLOTS,
+                GenericNodesPlugin.getExecutionCpuSlots());
+        store.setDefault(PREF_EXECUTION_MEMORY_MB,
+                (int) GenericNodesPlugin.getExecutionMemoryMB());
+        store.setDefault(PREF_RESULT_CACHE, GenericNodesPlugin.isResultCache());
+        store.setDefault(PREF_RESULT_CACHE_FAST_MODE,
+                GenericNodesPlugin.isResultCacheFastMode());
+        store.setDefault(PREF_RESULT_CACHE_MB,
+                (int) GenericNodesPlugin.getResultCacheMB());
+        store.setDefault(PREF_DOCKER_CONTAINER_REUSE,
+                GenericNodesPlugin.isDockerContainerReuse());
+        store.setDefault(PREF_DOCKER_MOUNT_ROOT,
+                GenericNodesPlugin.getDockerMountRoot());
+        store.setDefault(PREF_JOB_TRASH_MB,
+                (int) GenericNodesPlugin.getJobTrashMB());
+        store.setDefault(PREF_STAGING_CACHE_MB,
+                (int) GenericNodesPlugin.getStagingCacheMB());
+        store.setDefault(PREF_EXPORT_HARD_LINKS,
+                GenericNodesPlugin.isExportHardLinks());
+        store.setDefault(PREF_EXPORT_VERIFY,
+                GenericNodesPlugin.isExportChecksumVerification());
         
         store.setDefault(DOCKER_MACHINE_INSTALLATION_DIRECTORY,
                     GenericNodesPlugin.getDockerInstallationDir()); //$NON-NLS-1$
@@ -21,6 +21,7 @@ package com.genericworkflownodes.knime.preferences;
 import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.ui.IWorkbench;
@@ -41,6 +42,66 @@ public class PreferencePage extends FieldEditorPreferencePage implements
      */
     private BooleanFieldEditor debugModeFieldEditor;
 
+    /**
+     * Output capture mode UI element.
+     */
+    private BooleanFieldEditor pipeOutputCaptureFieldEditor;
+
+    /**
+     * Number of output lines kept in memory UI element.
+     */
+    private IntegerFieldEditor outputWindowLinesFieldEditor;
+
+    /**
+     * Amount of output kept in memory UI element.
+     */
+    private IntegerFieldEditor outputWindowKBFieldEditor;
+
+    /**
+     * Number of CPU slots for concurrently running tools UI element.
+     */
+    private IntegerFieldEditor executionCpuSlotsFieldEditor;
+
+    /**
+     * Memory for concurrently running tools UI element.
+     */
+    private IntegerFieldEditor executionMemoryMBFieldEditor;
+
+    /**
+     * Result cache UI element.
+     */
+    private BooleanFieldEditor resultCacheFieldEditor;
+
+    /**
+     * Result cache fast mode UI element.
+     */
+    private BooleanFieldEditor resultCacheFastModeFieldEditor;
+
+    /**
+     * Result cache budget UI element.
+     */
+    private IntegerFieldEditor resultCacheMBFieldEditor;
+
+    /**
+     * Budget of job directories waiting for deletion UI element.
+     */
+    private IntegerFieldEditor jobTrashMBFieldEditor;
+
+    /**
+     * Budget of the local copies of non-local inputs UI element.
+     */
+    private IntegerFieldEditor stagingCacheMBFieldEditor;
+
+    /**
+     * Export as hard links UI element.
+     */
+    private BooleanFieldEditor exportHardLinksFieldEditor;
+
+    /**
+     * Verification of exported copies UI element.
+     */
+    private BooleanFieldEditor exportVerifyFieldEditor;
+
     /**
      * Default c'tor.
      */
@@ -61,6 +122,66 @@ public class PreferencePage extends FieldEditorPreferencePage implements
         debugModeFieldEditor = new BooleanFieldEditor(
                 PreferenceInitializer.PREF_DEBUG_MODE, "Debug mode", parent);
         addField(debugModeFieldEditor);
+        pipeOutputCaptureFieldEditor = new BooleanFieldEditor(
+                PreferenceInitializer.PREF_PIPE_OUTPUT_CAPTURE,
+                "Read tool output directly from the process (instead of tailing log files)",
+                parent);
+        addField(pipeOutputCaptureFieldEditor);
+        outputWindowLinesFieldEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_OUTPUT_WINDOW_LINES,
+                "Tool output lines kept in memory", parent);
+        outputWindowLinesFieldEditor.setValidRange(10, Integer.MAX_VALUE);
+        addField(outputWindowLinesFieldEditor);
+        outputWindowKBFieldEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_OUTPUT_WINDOW_KB,
+                "Tool output kept in memory (KB)", parent);
+        outputWindowKBFieldEditor.setValidRange(1, Integer.MAX_VALUE);
+        addField(outputWindowKBFieldEditor);
+        executionCpuSlotsFieldEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_EXECUTION_CPU_SLOTS,
+                "CPU slots shared by concurrently running tools", parent);
+        executionCpuSlotsFieldEditor.setValidRange(1, Integer.MAX_VALUE);
+        addField(executionCpuSlotsFieldEditor);
+        executionMemoryMBFieldEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_EXECUTION_MEMORY_MB,
+                "Memory shared by concurrently running tools (MB, 0 = no limit)",
+                parent);
+        executionMemoryMBFieldEditor.setValidRange(0, Integer.MAX_VALUE);
+        addField(executionMemoryMBFieldEditor);
+        resultCacheFieldEditor = new BooleanFieldEditor(
+                PreferenceInitializer.PREF_RESULT_CACHE,
+                "Reuse the results of identical tool executions", parent);
+        addField(resultCacheFieldEditor);
+        resultCacheFastModeFieldEditor = new BooleanFieldEditor(
+                PreferenceInitializer.PREF_RESULT_CACHE_FAST_MODE,
+                "Identify input files by size and modification time (instead of content)",
+                parent);
+        addField(resultCacheFastModeFieldEditor);
+        resultCacheMBFieldEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_RESULT_CACHE_MB,
+                "Result cache size (MB)", parent);
+        resultCacheMBFieldEditor.setValidRange(1, Integer.MAX_VALUE);
+        addField(resultCacheMBFieldEditor);
+        jobTrashMBFieldEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_JOB_TRASH_MB,
+                "Finished job directories deleted in the background (MB, 0 = delete right away)",
+                parent);
+        jobTrashMBFieldEditor.setValidRange(0, Integer.MAX_VALUE);
+        addField(jobTrashMBFieldEditor);
+        stagingCacheMBFieldEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_STAGING_CACHE_MB,
+                "Local copies of remote input files (MB)", parent);
+        stagingCacheMBFieldEditor.setValidRange(0, Integer.MAX_VALUE);
+        addField(stagingCacheMBFieldEditor);
+        exportHardLinksFieldEditor = new BooleanFieldEditor(
+                PreferenceInitializer.PREF_EXPORT_HARD_LINKS,
+                "Export files as hard links if source and target share a file system",
+                parent);
+        addField(exportHardLinksFieldEditor);
+        exportVerifyFieldEditor = new BooleanFieldEditor(
+                PreferenceInitializer.PREF_EXPORT_VERIFY,
+                "Verify exported copies by checksum", parent);
+        addField(exportVerifyFieldEditor);
     }
 
     @Override
@@ -74,6 +195,45 @@ public class PreferencePage extends FieldEditorPreferencePage implements
         boolean flag = debugModeFieldEditor.getBooleanValue();
         store.setValue(PreferenceInitializer.PREF_DEBUG_MODE, flag);
         GenericNodesPlugin.setDebug(flag);
+        boolean pipeCapture = pipeOutputCaptureFieldEditor.getBooleanValue();
+        store.setValue(PreferenceInitializer.PREF_PIPE_OUTPUT_CAPTURE,
+                pipeCapture);
+        GenericNodesPlugin.setPipeOutputCapture(pipeCapture);
+        int windowLines = outputWindowLinesFieldEditor.getIntValue();
+        int windowKB = outputWindowKBFieldEditor.getIntValue();
+        store.setValue(PreferenceInitializer.PREF_OUTPUT_WINDOW_LINES,
+                windowLines);
+        store.setValue(PreferenceInitializer.PREF_OUTPUT_WINDOW_KB, windowKB);
+        GenericNodesPlugin.setOutputWindow(windowLines, windowKB * 1024L);
+        int cpuSlots = executionCpuSlotsFieldEditor.getIntValue();
+        int memoryMB = executionMemoryMBFieldEditor.getIntValue();
+        store.setValue(PreferenceInitializer.PREF_EXECUTION_CPU_SLOTS,
+                cpuSlots);
+        store.setValue(PreferenceInitializer.PREF_EXECUTION_MEMORY_MB,
+                memoryMB);
+        GenericNodesPlugin.setExecutionCapacity(cpuSlots, memoryMB);
+        boolean resultCache = resultCacheFieldEditor.getBooleanValue();
+        boolean fastMode = resultCacheFastModeFieldEditor.getBooleanValue();
+        int resultCacheMB = resultCacheMBFieldEditor.getIntValue();
+        store.setValue(PreferenceInitializer.PREF_RESULT_CACHE, resultCache);
+        store.setValue(PreferenceInitializer.PREF_RESULT_CACHE_FAST_MODE,
+                fastMode);
+        store.setValue(PreferenceInitializer.PREF_RESULT_CACHE_MB,
+                resultCacheMB);
+        GenericNodesPlugin.setResultCache(resultCache, fastMode, resultCacheMB);
+        int jobTrashMB = jobTrashMBFieldEditor.getIntValue();
+        store.setValue(PreferenceInitializer.PREF_JOB_TRASH_MB, jobTrashMB);
+        GenericNodesPlugin.setJobTrashMB(jobTrashMB);
+        int stagingCacheMB = stagingCacheMBFieldEditor.getIntValue();
+        store.setValue(PreferenceInitializer.PREF_STAGING_CACHE_MB,
+                stagingCacheMB);
+        GenericNodesPlugin.setStagingCacheMB(stagingCacheMB);
+        boolean exportHardLinks = exportHardLinksFieldEditor.getBooleanValue();
+        boolean exportVerify = exportVerifyFieldEditor.getBooleanValue();
+        store.setValue(PreferenceInitializer.PREF_EXPORT_HARD_LINKS,
+                exportHardLinks);
+        store.setValue(PreferenceInitializer.PREF_EXPORT_VERIFY, exportVerify);
+        GenericNodesPlugin.setExport(exportHardLinks, exportVerify);
         return true;
     }
 
@@ -19,16 +19,29 @@
 package com.genericworkflownodes.util;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
-
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IRegistryEventListener;
+import org.eclipse.core.runtime.Platform;
 import org.knime.base.filehandling.mime.MIMEMap;
 import org.knime.base.filehandling.mime.MIMETypeEntry;
 
 /**
  * Helper class to compare and get MIMEtypes from file names.
  *
+ * The registered MIME types are looked up in a {@link MIMETypeIndex}, which
+ * is rebuilt when MIME types are added to or removed from the extension
+ * registry.
+ *
  * @author aiche
  */
 public final class MIMETypeHelper {
@@ -43,6 +56,94 @@ public final class MIMETypeHelper {
 
     private static final String EXTENSION_EXECUTABLE = "exe";
 
+    /**
+     * The extension point KNIME reads the MIME types from.
+     */
+    private static final String MIMETYPES_EXTENSION_POINT_ID = "org.knime.base.filehandling.mimetypes";
+
+    /**
+     * The index of the registered MIME types, built on first use.
+     */
+    private static volatile MIMETypeIndex index;
+
+    /**
+     * File names without registered extension that are not executable.
+     */
+    private static final MissCache MISSES = new MissCache(1024,
+            TimeUnit.SECONDS.toNanos(5));
+
+    static {
+        IRegistryEventListener listener = new IRegistryEventListener() {
+            @Override
+            public void added(final IExtension[] extensions) {
+                invalidate();
+            }
+
+            @Override
+            public void removed(final IExtension[] extensions) {
+                invalidate();
+            }
+
+            @Override
+            public void added(final IExtensionPoint[] extensionPoints) {
+                invalidate();
+            }
+
+            @Override
+            public void removed(final IExtensionPoint[] extensionPoints) {
+                invalidate();
+            }
+        };
+        if (Platform.isRunning()) {
+            Platform.getExtensionRegistry().addListener(listener,
+                    MIMETYPES_EXTENSION_POINT_ID);
+        }
+    }
+
+    /**
+     * Discards the index of the registered MIME types, so it is rebuilt on
+     * the next lookup.
+     */
+    public static void invalidate() {
+        index = null;
+        MISSES.clear();
+    }
+
+    private static MIMETypeIndex getIndex() {
+        MIMETypeIndex result = index;
+        if (result == null) {
+            Logger.getLogger(MIMEMap.class.getName()).setLevel(Level.OFF);
+            Map<String, List<String>> types = new LinkedHashMap<String, List<String>>();
+            for (MIMETypeEntry entry : MIMEMap.getAllTypes()) {
+                List<String> extensions = types.get(entry.getType());
+                if (extensions == null) {
+                    extensions = new ArrayList<String>();
+                    types.put(entry.getType(), extensions);
+                }
+                extensions.addAll(entry.getExtensions());
+            }
+            result = new MIMETypeIndex(types);
+            index = result;
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the given file without registered extension is an
+     * executable. Negative results are cached for a few seconds.
+     */
+    private static boolean isExecutable(final String filename) {
+        if (MISSES.contains(filename)) {
+            return false;
+        }
+        final File f = new File(filename);
+        if (f.canExecute() && f.isFile()) {
+            return true;
+        }
+        MISSES.add(filename);
+        return false;
+    }
+
     /**
      * Extracts the {@link MIMETypeEntry} from the given filename.
      *
@@ -57,34 +158,16 @@ public final class MIMETypeHelper {
         // Ensure that comparison is in lowercase
         filename = filename.toLowerCase();
 
-        // check existing mimetypes
-        String type = null;
-        String foundExtension = "";
-        
-        
-        Logger.getLogger(org.knime.base.filehandling.mime.MIMEMap.class.getName()).setLevel(Level.OFF);
-
-        for (MIMETypeEntry entry : MIMEMap.getAllTypes()) {
-            for (String ext : entry.getExtensions()) {
-                if (filename.endsWith(
-                        "." + ext.trim().toLowerCase())
-                        && ext.length() > foundExtension.length()) {
-                    type = entry.getType();
-                    foundExtension = ext.trim();
-                }
-            }
+        String[] match = getIndex().match(filename);
+        if (match != null) {
+            return Optional.of(match[1]);
         }
 
-        // If the type is still null, we check if the file is executable
-        if (type == null) {
-            final File f = new File(filename);
-
-            if (f.canExecute() &&  f.isFile()) {
-                return getMIMEtypeByExtension(EXTENSION_EXECUTABLE);
-            }
+        // If there is no matching type, we check if the file is executable
+        if (isExecutable(filename)) {
+            return getMIMEtypeByExtension(EXTENSION_EXECUTABLE);
         }
-
-        return Optional.ofNullable(type);
+        return Optional.empty();
     }
 
     /**
@@ -100,22 +183,7 @@ public final class MIMETypeHelper {
      *
      */
     public static Optional<String> getMIMEtypeByExtension(String extension) {
-
-        // Ensure Lowercase comparison
-        extension = extension.toLowerCase();
-
-        Logger.getLogger(org.knime.base.filehandling.mime.MIMEMap.class.getName()).setLevel(Level.OFF);
-        
-        // check existing mimetypes
-        for (MIMETypeEntry entry : MIMEMap.getAllTypes()) {
-            for (String ext : entry.getExtensions()) {
-                // some mimetypes are stored with spaces around them so .trim()
-                if (extension.equals(ext.trim())) {
-                    return Optional.of(entry.getType());
-                }
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(getIndex().getTypeByExtension(extension));
     }
 
     /**
@@ -133,30 +201,16 @@ public final class MIMETypeHelper {
         // Ensure lowercase comparison
         filename = filename.toLowerCase();
 
-        Logger.getLogger(org.knime.base.filehandling.mime.MIMEMap.class.getName()).setLevel(Level.OFF);
-        
-        // check existing mimetypes
-        String type = null;
-        String foundExtension = "";
-        for (MIMETypeEntry entry : MIMEMap.getAllTypes()) {
-            for (String ext : entry.getExtensions()) {
-                if (filename.endsWith(
-                        "." + ext.trim().toLowerCase())
-                        && ext.length() > foundExtension.length()) {
-                    type = entry.getType();
-                    foundExtension = ext.trim();
-                }
-            }
+        String[] match = getIndex().match(filename);
+        if (match != null) {
+            return Optional.of(match[0]);
         }
-        // If the type is still null, we check if the file is executable
-        if (type == null) {
-            final File f = new File(filename);
 
-            if (f.canExecute() &&  f.isFile()) {
-                return Optional.of(EXTENSION_EXECUTABLE);
-            }
+        // If there is no matching type, we check if the file is executable
+        if (isExecutable(filename)) {
+            return Optional.of(EXTENSION_EXECUTABLE);
         }
-        return (type != null ? Optional.of(foundExtension) : Optional.empty());
+        return Optional.empty();
     }
 
     /**
@@ -172,4 +226,64 @@ public final class MIMETypeHelper {
         int lastIndex = path.lastIndexOf('.');
         return lastIndex == -1 ? "" : path.substring(lastIndex + 1);
     }
+
+    /**
+     * A size bounded cache of file names. Entries expire after a while, as
+     * the checked files may change.
+     */
+    static final class MissCache {
+
+        private final int m_capacity;
+
+        private final long m_ttlNanos;
+
+        /**
+         * The time each name was added, in access order.
+         */
+        private final LinkedHashMap<String, Long> m_names;
+
+        /**
+         * @param capacity
+         *            The maximum number of cached names.
+         * @param ttlNanos
+         *            The time after which an entry expires.
+         */
+        MissCache(final int capacity, final long ttlNanos) {
+            m_capacity = capacity;
+            m_ttlNanos = ttlNanos;
+            m_names = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        final Map.Entry<String, Long> eldest) {
+                    return size() > m_capacity;
+                }
+            };
+        }
+
+        synchronized boolean contains(final String name) {
+            Long time = m_names.get(name);
+            if (time == null) {
+                return false;
+            }
+            if (System.nanoTime() - time > m_ttlNanos) {
+                m_names.remove(name);
+                return false;
+            }
+            return true;
+        }
+
+        synchronized void add(final String name) {
+            m_names.put(name, System.nanoTime());
+        }
+
+        synchronized void clear() {
+            m_names.clear();
+        }
+
+        synchronized int size() {
+            return m_names.size();
+        }
+    }
 }
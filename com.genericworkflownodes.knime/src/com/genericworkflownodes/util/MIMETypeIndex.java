@@ -0,0 +1,112 @@
+package com.genericworkflownodes.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup structure for the MIME types of file names and extensions.
+ *
+ * Extensions are indexed in a map for exact lookups and, prefixed with a dot,
+ * in a trie of their reversed characters. A file name is matched by walking
+ * the trie from its last character, so the longest matching extension is
+ * found in time proportional to its length, independent of the number of
+ * registered types.
+ *
+ * Lookups follow the linear scan this index replaces: extensions are trimmed,
+ * file names are compared in lowercase and of several types registering the
+ * same extension the first one wins. The index is immutable and can be shared
+ * between threads.
+ */
+public final class MIMETypeIndex {
+
+    /**
+     * The type of each trimmed extension, in the case it was registered with.
+     */
+    private final Map<String, String> m_types = new HashMap<String, String>();
+
+    /**
+     * The root of the reversed-suffix trie.
+     */
+    private final Node m_root = new Node();
+
+    /**
+     * A node of the trie. A node that ends a registered suffix carries the
+     * extension and its type.
+     */
+    private static final class Node {
+        private final Map<Character, Node> m_children = new HashMap<Character, Node>(4);
+        private String m_extension;
+        private String m_type;
+    }
+
+    /**
+     * Creates the index.
+     *
+     * @param types
+     *            The extensions of each MIME type, in registration order.
+     */
+    public MIMETypeIndex(final Map<String, ? extends List<String>> types) {
+        for (Map.Entry<String, ? extends List<String>> entry : types.entrySet()) {
+            for (String ext : entry.getValue()) {
+                add(entry.getKey(), ext.trim());
+            }
+        }
+    }
+
+    private void add(final String type, final String extension) {
+        if (!m_types.containsKey(extension)) {
+            m_types.put(extension, type);
+        }
+        String suffix = "." + extension.toLowerCase();
+        Node node = m_root;
+        for (int i = suffix.length() - 1; i >= 0; --i) {
+            Character c = suffix.charAt(i);
+            Node child = node.m_children.get(c);
+            if (child == null) {
+                child = new Node();
+                node.m_children.put(c, child);
+            }
+            node = child;
+        }
+        if (node.m_type == null) {
+            node.m_type = type;
+            node.m_extension = extension;
+        }
+    }
+
+    /**
+     * Returns the MIME type of the given extension.
+     *
+     * @param extension
+     *            The extension without leading dot.
+     * @return The MIME type, or <code>null</code> if the extension is not
+     *         registered.
+     */
+    public String getTypeByExtension(final String extension) {
+        return m_types.get(extension.toLowerCase());
+    }
+
+    /**
+     * Finds the longest registered extension the given file name ends with.
+     *
+     * @param filename
+     *            The file name.
+     * @return An array holding the extension as registered and its type, or
+     *         <code>null</code> if no extension matches.
+     */
+    public String[] match(final String filename) {
+        Node node = m_root;
+        Node found = null;
+        for (int i = filename.length() - 1; i >= 0; --i) {
+            node = node.m_children.get(Character.toLowerCase(filename.charAt(i)));
+            if (node == null) {
+                break;
+            }
+            if (node.m_type != null) {
+                found = node;
+            }
+        }
+        return found == null ? null : new String[] { found.m_extension, found.m_type };
+    }
+}